@@ -0,0 +1,67 @@
+package com.ramil.booking.resource_booking.api.graphql.auth;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.MutationMapping;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Controller;
+
+import com.ramil.booking.resource_booking.config.security.AccessTokenService;
+import com.ramil.booking.resource_booking.config.security.AppUserPrincipal;
+import com.ramil.booking.resource_booking.config.security.IssuedTokens;
+
+@Controller
+public class AuthMutation {
+
+    private static final Logger log = LoggerFactory.getLogger(AuthMutation.class);
+
+    private final AuthenticationManager authenticationManager;
+    private final AccessTokenService accessTokenService;
+
+    public AuthMutation(AuthenticationManager authenticationManager, AccessTokenService accessTokenService) {
+        this.authenticationManager = authenticationManager;
+        this.accessTokenService = accessTokenService;
+    }
+
+    // login / refreshToken / logout — единственные операции, доступные без аутентификации (см. SecurityConfig)
+    // Через AuthenticationManager: ProviderManager стирает пароль из результата
+    @MutationMapping
+    @PreAuthorize("permitAll()")
+    public AuthTokens login(@Argument String email, @Argument String password) {
+        Authentication auth = authenticationManager.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated(email, password));
+
+        if (auth == null || !(auth.getPrincipal() instanceof AppUserPrincipal principal)) {
+            throw new BadCredentialsException("Bad credentials");
+        }
+
+        log.info("auth.login userId={}", principal.getId());
+        return AuthTokens.of(accessTokenService.issue(principal));
+    }
+
+    @MutationMapping
+    @PreAuthorize("permitAll()")
+    public AuthTokens refreshToken(@Argument String refreshToken) {
+        return AuthTokens.of(accessTokenService.refresh(refreshToken));
+    }
+
+    @MutationMapping
+    @PreAuthorize("permitAll()")
+    public Boolean logout(@Argument String refreshToken) {
+        accessTokenService.revoke(refreshToken);
+        return true;
+    }
+
+    public record AuthTokens(String accessToken, String refreshToken, String tokenType, String expiresAt) {
+
+        static AuthTokens of(IssuedTokens tokens) {
+            return new AuthTokens(tokens.accessToken(), tokens.refreshToken(), "Bearer",
+                    tokens.accessTokenExpiresAt().toString());
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.ramil.booking.resource_booking.api.graphql.booking;
 
 import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.UUID;
 
 import org.springframework.graphql.data.method.annotation.Argument;
@@ -8,32 +9,92 @@ import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 
+import com.ramil.booking.resource_booking.domain.booking.admission.ResourceAdmission;
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingDraftResult;
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingSeriesView;
 import com.ramil.booking.resource_booking.domain.booking.dto.BookingView;
 import com.ramil.booking.resource_booking.domain.booking.dto.CreateBookingCommand;
+import com.ramil.booking.resource_booking.domain.booking.model.Recurrence;
+import com.ramil.booking.resource_booking.domain.booking.model.RecurrenceFrequency;
 import com.ramil.booking.resource_booking.domain.booking.service.BookingService;
+import com.ramil.booking.resource_booking.domain.idempotency.model.IdempotentOperation;
+import com.ramil.booking.resource_booking.domain.idempotency.service.IdempotencyService;
 
 @Controller
 public class BookingMutation {
 
     private final BookingService bookingService;
+    private final IdempotencyService idempotencyService;
+    private final ResourceAdmission admission;
 
-    public BookingMutation(BookingService bookingService) {
+    public BookingMutation(BookingService bookingService, IdempotencyService idempotencyService,
+                           ResourceAdmission admission) {
         this.bookingService = bookingService;
+        this.idempotencyService = idempotencyService;
+        this.admission = admission;
     }
 
     @MutationMapping
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public BookingView createBookingDraft(@Argument CreateBookingInput input) {
+    public BookingView createBookingDraft(@Argument CreateBookingInput input, @Argument String idempotencyKey) {
         OffsetDateTime start = OffsetDateTime.parse(input.startTime());
         OffsetDateTime end = OffsetDateTime.parse(input.endTime());
 
-        return bookingService.createDraft(new CreateBookingCommand(
+        CreateBookingCommand cmd = new CreateBookingCommand(
                 UUID.fromString(input.resourceId()),
                 start,
                 end
+        );
+        return idempotencyService.execute(IdempotentOperation.CREATE_BOOKING_DRAFT, idempotencyKey, cmd,
+                () -> admission.run(cmd.resourceId(), () -> bookingService.createDraft(cmd)),
+                BookingView::id, bookingService::getById);
+    }
+
+    @MutationMapping
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public List<BookingDraftResult> createBookingDrafts(@Argument List<CreateBookingInput> inputs) {
+        List<CreateBookingCommand> cmds = inputs.stream()
+                .map(input -> new CreateBookingCommand(
+                        parseUuid(input.resourceId(), "resourceId"),
+                        OffsetDateTime.parse(input.startTime()),
+                        OffsetDateTime.parse(input.endTime())
+                ))
+                .toList();
+
+        return bookingService.createDrafts(cmds);
+    }
+
+    @MutationMapping
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public BookingSeriesView createBookingSeries(@Argument CreateBookingSeriesInput input) {
+        RecurrenceInput r = input.recurrence();
+        Recurrence recurrence = new Recurrence(
+                r.frequency(),
+                r.interval() == null ? 1 : r.interval(),
+                r.count(),
+                r.until() == null ? null : OffsetDateTime.parse(r.until())
+        );
+
+        return bookingService.createSeries(new CreateBookingCommand(
+                parseUuid(input.resourceId(), "resourceId"),
+                OffsetDateTime.parse(input.startTime()),
+                OffsetDateTime.parse(input.endTime()),
+                recurrence
         ));
     }
 
+    @MutationMapping
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public BookingSeriesView markBookingSeriesWaitingPayment(@Argument UUID seriesId) {
+        return bookingService.markSeriesWaitingPayment(seriesId);
+    }
+
+    @MutationMapping
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public BookingSeriesView cancelBookingSeries(@Argument UUID seriesId) {
+        return bookingService.cancelSeries(seriesId);
+    }
+
     @MutationMapping
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public BookingView cancelBooking(@Argument String id) {
@@ -43,7 +104,10 @@ public class BookingMutation {
     @MutationMapping
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public BookingView markBookingWaitingPayment(@Argument UUID id) {
-        return bookingService.markWaitingPayment(id);
+        // несуществующее бронирование пропускается без очереди — сервис ответит BOOKING_NOT_FOUND
+        return bookingService.findResourceId(id)
+                .map(resourceId -> admission.run(resourceId, () -> bookingService.markWaitingPayment(id)))
+                .orElseGet(() -> bookingService.markWaitingPayment(id));
     }
 
     private static UUID parseUuid(String raw, String field) {
@@ -57,4 +121,11 @@ public class BookingMutation {
     public record CreateBookingInput(String resourceId, String startTime, String endTime) {
     }
 
+    public record CreateBookingSeriesInput(String resourceId, String startTime, String endTime,
+                                           RecurrenceInput recurrence) {
+    }
+
+    public record RecurrenceInput(RecurrenceFrequency frequency, Integer interval, Integer count, String until) {
+    }
+
 }
@@ -1,5 +1,8 @@
 package com.ramil.booking.resource_booking.api.graphql.booking;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -8,16 +11,30 @@ import org.springframework.graphql.data.method.annotation.QueryMapping;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingCursor;
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingFilter;
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingPage;
 import com.ramil.booking.resource_booking.domain.booking.dto.BookingView;
+import com.ramil.booking.resource_booking.domain.booking.dto.ResourceOccupancy;
+import com.ramil.booking.resource_booking.domain.booking.dto.TimeSlot;
+import com.ramil.booking.resource_booking.domain.booking.model.BookingStatus;
+import com.ramil.booking.resource_booking.domain.booking.service.AvailabilityService;
 import com.ramil.booking.resource_booking.domain.booking.service.BookingService;
+import com.ramil.booking.resource_booking.domain.booking.service.OccupancyService;
 
 @Controller
 public class BookingQuery {
 
     private final BookingService bookingService;
+    private final AvailabilityService availabilityService;
+    private final OccupancyService occupancyService;
 
-    public BookingQuery(BookingService bookingService) {
+    public BookingQuery(BookingService bookingService,
+                        AvailabilityService availabilityService,
+                        OccupancyService occupancyService) {
         this.bookingService = bookingService;
+        this.availabilityService = availabilityService;
+        this.occupancyService = occupancyService;
     }
 
     @QueryMapping
@@ -28,14 +45,70 @@ public class BookingQuery {
 
     @QueryMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public List<BookingView> allBookings() {
-        return bookingService.listAll();
+    public BookingConnection allBookings(@Argument int first,
+                                         @Argument String after,
+                                         @Argument BookingFilterInput filter) {
+        return BookingConnection.of(bookingService.listAll(toFilter(filter), after, first));
     }
 
     @QueryMapping
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public List<BookingView> myBookings() {
-        return bookingService.listMyBookings();
+    public BookingConnection myBookings(@Argument int first,
+                                        @Argument String after,
+                                        @Argument BookingFilterInput filter) {
+        return BookingConnection.of(bookingService.listMyBookings(toFilter(filter), after, first));
     }
 
+    @QueryMapping
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public List<TimeSlot> availability(@Argument UUID resourceId,
+                                       @Argument String from,
+                                       @Argument String to,
+                                       @Argument String minDuration) {
+        return availabilityService.availability(
+                resourceId,
+                OffsetDateTime.parse(from),
+                OffsetDateTime.parse(to),
+                minDuration == null ? null : Duration.parse(minDuration)
+        );
+    }
+
+    @QueryMapping
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public List<ResourceOccupancy> occupancy(@Argument List<UUID> resourceIds,
+                                             @Argument String from,
+                                             @Argument String to) {
+        return occupancyService.occupancy(resourceIds, LocalDate.parse(from), LocalDate.parse(to));
+    }
+
+    private static BookingFilter toFilter(BookingFilterInput input) {
+        if (input == null) {
+            return BookingFilter.NONE;
+        }
+        return new BookingFilter(
+                input.statuses(),
+                input.from() == null ? null : OffsetDateTime.parse(input.from()),
+                input.to() == null ? null : OffsetDateTime.parse(input.to())
+        );
+    }
+
+    public record BookingFilterInput(List<BookingStatus> statuses, String from, String to) {
+    }
+
+    public record BookingConnection(List<BookingEdge> edges, PageInfo pageInfo) {
+
+        static BookingConnection of(BookingPage page) {
+            List<BookingEdge> edges = page.items().stream()
+                    .map(b -> new BookingEdge(b, BookingCursor.of(b).encode()))
+                    .toList();
+            String endCursor = edges.isEmpty() ? null : edges.get(edges.size() - 1).cursor();
+            return new BookingConnection(edges, new PageInfo(page.hasNext(), endCursor));
+        }
+    }
+
+    public record BookingEdge(BookingView node, String cursor) {
+    }
+
+    public record PageInfo(boolean hasNextPage, String endCursor) {
+    }
 }
@@ -0,0 +1,42 @@
+package com.ramil.booking.resource_booking.api.graphql.booking;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.MutationMapping;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+
+import com.ramil.booking.resource_booking.domain.booking.dto.CreateBookingCommand;
+import com.ramil.booking.resource_booking.domain.booking.dto.WaitlistEntryView;
+import com.ramil.booking.resource_booking.domain.booking.service.WaitlistService;
+
+@Controller
+public class WaitlistMutation {
+
+    private final WaitlistService waitlistService;
+
+    public WaitlistMutation(WaitlistService waitlistService) {
+        this.waitlistService = waitlistService;
+    }
+
+    @MutationMapping
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public WaitlistEntryView joinWaitlist(@Argument JoinWaitlistInput input) {
+        return waitlistService.join(new CreateBookingCommand(
+                UUID.fromString(input.resourceId()),
+                OffsetDateTime.parse(input.startTime()),
+                OffsetDateTime.parse(input.endTime())
+        ));
+    }
+
+    @MutationMapping
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public WaitlistEntryView leaveWaitlist(@Argument UUID id) {
+        return waitlistService.leave(id);
+    }
+
+    public record JoinWaitlistInput(String resourceId, String startTime, String endTime) {
+    }
+}
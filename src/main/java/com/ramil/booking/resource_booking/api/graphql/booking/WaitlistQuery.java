@@ -0,0 +1,26 @@
+package com.ramil.booking.resource_booking.api.graphql.booking;
+
+import java.util.List;
+
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+
+import com.ramil.booking.resource_booking.domain.booking.dto.WaitlistEntryView;
+import com.ramil.booking.resource_booking.domain.booking.service.WaitlistService;
+
+@Controller
+public class WaitlistQuery {
+
+    private final WaitlistService waitlistService;
+
+    public WaitlistQuery(WaitlistService waitlistService) {
+        this.waitlistService = waitlistService;
+    }
+
+    @QueryMapping
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public List<WaitlistEntryView> myWaitlist() {
+        return waitlistService.listMine();
+    }
+}
@@ -1,5 +1,6 @@
 package com.ramil.booking.resource_booking.api.graphql.error;
 
+import java.time.format.DateTimeParseException;
 import java.util.Map;
 import java.util.concurrent.CompletionException;
 
@@ -9,6 +10,7 @@ import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.graphql.execution.DataFetcherExceptionResolverAdapter;
 import org.springframework.graphql.execution.ErrorType;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.stereotype.Component;
 
 import graphql.GraphQLError;
@@ -16,15 +18,31 @@ import graphql.GraphqlErrorBuilder;
 import graphql.schema.CoercingParseValueException;
 import graphql.schema.DataFetchingEnvironment;
 
+import com.ramil.booking.resource_booking.config.security.InvalidTokenException;
 import com.ramil.booking.resource_booking.domain.booking.exception.BookingAccessDeniedException;
 import com.ramil.booking.resource_booking.domain.booking.exception.BookingConflictException;
 import com.ramil.booking.resource_booking.domain.booking.exception.BookingNotFoundException;
+import com.ramil.booking.resource_booking.domain.booking.exception.BookingSeriesNotFoundException;
 import com.ramil.booking.resource_booking.domain.booking.exception.BookingStatusException;
 import com.ramil.booking.resource_booking.domain.booking.exception.BookingTimeRangeException;
+import com.ramil.booking.resource_booking.domain.booking.exception.InvalidRecurrenceException;
+import com.ramil.booking.resource_booking.domain.booking.exception.ResourceBusyException;
+import com.ramil.booking.resource_booking.domain.booking.exception.WaitlistAccessDeniedException;
+import com.ramil.booking.resource_booking.domain.booking.exception.WaitlistEntryNotFoundException;
+import com.ramil.booking.resource_booking.domain.idempotency.exception.IdempotencyKeyInProgressException;
+import com.ramil.booking.resource_booking.domain.idempotency.exception.IdempotencyKeyReusedException;
 import com.ramil.booking.resource_booking.domain.resource.exception.ResourceInactiveException;
 import com.ramil.booking.resource_booking.domain.resource.exception.ResourceNotFoundException;
 import com.ramil.booking.resource_booking.domain.user.exception.UserNotFoundException;
 import com.ramil.booking.resource_booking.domain.payment.exception.PaymentAccessDeniedException;
+import com.ramil.booking.resource_booking.domain.payment.exception.PaymentAmountMismatchException;
+import com.ramil.booking.resource_booking.domain.payment.exception.PaymentNotFoundException;
+import com.ramil.booking.resource_booking.domain.payment.exception.PaymentProviderBusyException;
+import com.ramil.booking.resource_booking.domain.payment.exception.PaymentProviderTimeoutException;
+import com.ramil.booking.resource_booking.domain.payment.exception.PaymentProviderUnavailableException;
+import com.ramil.booking.resource_booking.domain.payment.exception.PaymentStatusException;
+import com.ramil.booking.resource_booking.domain.pricing.exception.InvalidRateCardException;
+import com.ramil.booking.resource_booking.domain.pricing.exception.RateCardNotFoundException;
 
 
 @Component
@@ -37,29 +55,68 @@ public class GraphqlExceptionResolver extends DataFetcherExceptionResolverAdapte
         Throwable e = unwrap(ex);
 
         // права
-        if (e instanceof AccessDeniedException || e instanceof BookingAccessDeniedException) {
+        if (e instanceof AccessDeniedException || e instanceof BookingAccessDeniedException
+                || e instanceof WaitlistAccessDeniedException) {
             return err(env, "У вас недостаточно прав для выполнения этой операции",
                     ErrorType.FORBIDDEN, "INSUFFICIENT_PERMISSIONS");
         }
 
+        // аутентификация (login / refreshToken)
+        if (e instanceof InvalidTokenException) {
+            return err(env, "Токен недействителен или истёк", ErrorType.UNAUTHORIZED, "INVALID_TOKEN");
+        }
+        if (e instanceof AuthenticationException) {
+            return err(env, "Неверный email или пароль", ErrorType.UNAUTHORIZED, "INVALID_CREDENTIALS");
+        }
+
         if (isInvalidUuid(e)) {
             return err(env, "Некорректный UUID. Передайте корректный id в формате UUID.",
                     ErrorType.BAD_REQUEST, "INVALID_UUID");
         }
 
+        if (e instanceof DateTimeParseException) {
+            return err(env, "Некорректная дата или длительность. Пример: 2026-02-15T10:00:00Z, PT1H",
+                    ErrorType.BAD_REQUEST, "INVALID_DATE_TIME");
+        }
+
         if (e instanceof BookingNotFoundException) {
             return err(env, "Бронирование не найдено", ErrorType.NOT_FOUND, "BOOKING_NOT_FOUND");
         }
+        if (e instanceof BookingSeriesNotFoundException) {
+            return err(env, "Серия бронирований не найдена", ErrorType.NOT_FOUND, "BOOKING_SERIES_NOT_FOUND");
+        }
+        if (e instanceof WaitlistEntryNotFoundException) {
+            return err(env, "Запись листа ожидания не найдена", ErrorType.NOT_FOUND, "WAITLIST_ENTRY_NOT_FOUND");
+        }
+        if (e instanceof InvalidRecurrenceException) {
+            return err(env, e.getMessage(), ErrorType.BAD_REQUEST, "INVALID_RECURRENCE");
+        }
         if (e instanceof BookingConflictException) {
             return err(env, "Бронирование пересекается с существующим",
                     ErrorType.BAD_REQUEST, "BOOKING_CONFLICT");
         }
+        if (e instanceof ResourceBusyException) {
+            return err(env, "Ресурс сейчас перегружен запросами, повторите позже",
+                    ErrorType.BAD_REQUEST, "RESOURCE_BUSY");
+        }
         if (e instanceof BookingTimeRangeException) {
             return err(env, e.getMessage(), ErrorType.BAD_REQUEST, "INVALID_TIME_RANGE");
         }
-        if (e instanceof BookingStatusException) {
+        if (e instanceof BookingStatusException || e instanceof PaymentStatusException) {
             return err(env, e.getMessage(), ErrorType.BAD_REQUEST, "INVALID_STATUS");
         }
+        if (e instanceof PaymentNotFoundException) {
+            return err(env, "Платёж не найден", ErrorType.NOT_FOUND, "PAYMENT_NOT_FOUND");
+        }
+        if (e instanceof PaymentAmountMismatchException) {
+            return err(env, e.getMessage(), ErrorType.BAD_REQUEST, "PAYMENT_AMOUNT_MISMATCH");
+        }
+        if (e instanceof RateCardNotFoundException) {
+            return err(env, "У ресурса нет тарифа", ErrorType.NOT_FOUND, "RATE_CARD_NOT_FOUND");
+        }
+        if (e instanceof InvalidRateCardException) {
+            return err(env, e.getMessage(), ErrorType.BAD_REQUEST, "INVALID_RATE_CARD");
+        }
 
         if (e instanceof ResourceNotFoundException) {
             return err(env, "Ресурс не найден", ErrorType.NOT_FOUND, "RESOURCE_NOT_FOUND");
@@ -71,6 +128,15 @@ public class GraphqlExceptionResolver extends DataFetcherExceptionResolverAdapte
             return err(env, "Пользователь не найден", ErrorType.NOT_FOUND, "USER_NOT_FOUND");
         }
 
+        if (e instanceof IdempotencyKeyReusedException) {
+            return err(env, "idempotencyKey уже использован с другими параметрами запроса",
+                    ErrorType.BAD_REQUEST, "IDEMPOTENCY_KEY_REUSED");
+        }
+        if (e instanceof IdempotencyKeyInProgressException) {
+            return err(env, "Запрос с этим idempotencyKey ещё выполняется, повторите позже",
+                    ErrorType.BAD_REQUEST, "IDEMPOTENCY_KEY_IN_PROGRESS");
+        }
+
         if (e instanceof DataIntegrityViolationException) {
             return err(env, "Операция нарушает ограничения данных (возможно, конфликт бронирования)",
                     ErrorType.BAD_REQUEST, "DATA_INTEGRITY_VIOLATION");
@@ -86,6 +152,14 @@ public class GraphqlExceptionResolver extends DataFetcherExceptionResolverAdapte
             if (msg.startsWith("No client for provider")) {
                 return err(env, "Платёжный провайдер не поддерживается", ErrorType.BAD_REQUEST, "UNKNOWN_PROVIDER");
             }
+            if (msg.startsWith("Deferred capture is not supported")) {
+                return err(env, "Провайдер не поддерживает отложенное списание (DEFERRED)",
+                        ErrorType.BAD_REQUEST, "DEFERRED_NOT_SUPPORTED");
+            }
+            if (msg.startsWith("Invalid cursor")) {
+                return err(env, "Некорректный курсор. Передайте endCursor из предыдущей страницы.",
+                        ErrorType.BAD_REQUEST, "INVALID_CURSOR");
+            }
             if (msg.contains("Invalid payloadJson")) {
                 return err(env, "payloadJson должен быть валидным JSON", ErrorType.BAD_REQUEST, "INVALID_PAYLOAD");
             }
@@ -98,6 +172,18 @@ public class GraphqlExceptionResolver extends DataFetcherExceptionResolverAdapte
                     ErrorType.FORBIDDEN,
                     "INSUFFICIENT_PERMISSIONS");
         }
+        if (ex instanceof PaymentProviderBusyException) {
+            return err(env, "Платёжный провайдер перегружен, повторите позже",
+                    ErrorType.BAD_REQUEST, "PAYMENT_PROVIDER_BUSY");
+        }
+        if (ex instanceof PaymentProviderUnavailableException) {
+            return err(env, "Платёжный провайдер временно недоступен, повторите позже",
+                    ErrorType.BAD_REQUEST, "PAYMENT_PROVIDER_UNAVAILABLE");
+        }
+        if (ex instanceof PaymentProviderTimeoutException) {
+            return err(env, "Платёжный провайдер не ответил вовремя, проверьте статус платежа перед повтором",
+                    ErrorType.INTERNAL_ERROR, "PAYMENT_PROVIDER_TIMEOUT");
+        }
 
         return null;
     }
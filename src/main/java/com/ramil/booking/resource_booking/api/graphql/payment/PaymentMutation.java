@@ -8,6 +8,8 @@ import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 
+import com.ramil.booking.resource_booking.domain.idempotency.model.IdempotentOperation;
+import com.ramil.booking.resource_booking.domain.idempotency.service.IdempotencyService;
 import com.ramil.booking.resource_booking.domain.payment.dto.PaymentView;
 import com.ramil.booking.resource_booking.domain.payment.dto.StartPaymentCommand;
 import com.ramil.booking.resource_booking.domain.payment.model.PaymentProvider;
@@ -18,22 +20,33 @@ import com.ramil.booking.resource_booking.domain.payment.service.PaymentService;
 public class PaymentMutation {
 
     private final PaymentService paymentService;
+    private final IdempotencyService idempotencyService;
 
-    public PaymentMutation(PaymentService paymentService) {
+    public PaymentMutation(PaymentService paymentService, IdempotencyService idempotencyService) {
         this.paymentService = paymentService;
+        this.idempotencyService = idempotencyService;
     }
 
     @MutationMapping
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public PaymentView startPayment(@Argument StartPaymentInput input) {
-        return paymentService.startPayment(new StartPaymentCommand(
+    public PaymentView startPayment(@Argument StartPaymentInput input, @Argument String idempotencyKey) {
+        StartPaymentCommand cmd = new StartPaymentCommand(
                 UUID.fromString(input.bookingId()),
                 input.provider(),
                 input.type,
                 new BigDecimal(input.amount()),
                 input.currency(),
                 input.payloadJson()
-        ));
+        );
+        // повтор с тем же ключом не вызывает провайдера второй раз
+        return idempotencyService.execute(IdempotentOperation.START_PAYMENT, idempotencyKey, cmd,
+                () -> paymentService.startPayment(cmd), PaymentView::id, paymentService::getById);
+    }
+
+    @MutationMapping
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public PaymentView cancelPayment(@Argument String id) {
+        return paymentService.cancelPayment(UUID.fromString(id));
     }
 
     public record StartPaymentInput(
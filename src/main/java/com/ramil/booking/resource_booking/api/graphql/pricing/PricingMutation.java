@@ -0,0 +1,51 @@
+package com.ramil.booking.resource_booking.api.graphql.pricing;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.MutationMapping;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+
+import com.ramil.booking.resource_booking.domain.pricing.dto.PeakWindow;
+import com.ramil.booking.resource_booking.domain.pricing.dto.RateCard;
+import com.ramil.booking.resource_booking.domain.pricing.dto.SetRateCardCommand;
+import com.ramil.booking.resource_booking.domain.pricing.service.PricingService;
+
+@Controller
+public class PricingMutation {
+
+  private final PricingService pricingService;
+
+  public PricingMutation(PricingService pricingService) {
+    this.pricingService = pricingService;
+  }
+
+  @MutationMapping
+  @PreAuthorize("hasRole('ADMIN')")
+  public RateCard setResourceRateCard(@Argument RateCardInput input) {
+    List<PeakWindow> peaks = input.peaks() == null ? List.of() : input.peaks().stream()
+        .map(p -> new PeakWindow(p.dayOfWeek(), p.startMinute(), p.endMinute(), new BigDecimal(p.hourlyRate())))
+        .toList();
+    return pricingService.setRateCard(new SetRateCardCommand(
+        input.resourceId(),
+        input.currency(),
+        new BigDecimal(input.hourlyRate()),
+        input.minimumAmount() == null ? null : new BigDecimal(input.minimumAmount()),
+        peaks
+    ));
+  }
+
+  @MutationMapping
+  @PreAuthorize("hasRole('ADMIN')")
+  public Boolean deleteResourceRateCard(@Argument UUID resourceId) {
+    return pricingService.deleteRateCard(resourceId);
+  }
+
+  public record RateCardInput(UUID resourceId, String currency, String hourlyRate, String minimumAmount,
+                              List<PeakWindowInput> peaks) {}
+  public record PeakWindowInput(DayOfWeek dayOfWeek, int startMinute, int endMinute, String hourlyRate) {}
+}
@@ -0,0 +1,35 @@
+package com.ramil.booking.resource_booking.api.graphql.pricing;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+
+import com.ramil.booking.resource_booking.domain.pricing.dto.PriceQuote;
+import com.ramil.booking.resource_booking.domain.pricing.dto.RateCard;
+import com.ramil.booking.resource_booking.domain.pricing.service.PricingService;
+
+@Controller
+public class PricingQuery {
+
+  private final PricingService pricingService;
+
+  public PricingQuery(PricingService pricingService) {
+    this.pricingService = pricingService;
+  }
+
+  @QueryMapping
+  @PreAuthorize("hasAnyRole('ADMIN','USER')")
+  public PriceQuote quote(@Argument UUID resourceId, @Argument String start, @Argument String end) {
+    return pricingService.quote(resourceId, OffsetDateTime.parse(start), OffsetDateTime.parse(end));
+  }
+
+  @QueryMapping
+  @PreAuthorize("hasAnyRole('ADMIN','USER')")
+  public RateCard resourceRateCard(@Argument UUID resourceId) {
+    return pricingService.getRateCard(resourceId).orElse(null);
+  }
+}
@@ -1,5 +1,6 @@
 package com.ramil.booking.resource_booking.api.graphql.resource;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -8,6 +9,7 @@ import org.springframework.graphql.data.method.annotation.QueryMapping;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 
+import com.ramil.booking.resource_booking.domain.resource.dto.ResourcePage;
 import com.ramil.booking.resource_booking.domain.resource.dto.ResourceView;
 import com.ramil.booking.resource_booking.domain.resource.service.ResourceService;
 
@@ -32,4 +34,23 @@ public class ResourceQuery {
     return resourceService.list(active);
   }
 
-}
\ No newline at end of file
+  @QueryMapping
+  @PreAuthorize("hasAnyRole('ADMIN','USER')")
+  public ResourcePage freeResources(@Argument String from,
+                                    @Argument String to,
+                                    @Argument FreeResourcesFilter filter,
+                                    @Argument int page,
+                                    @Argument int size) {
+    return resourceService.findFree(
+        OffsetDateTime.parse(from),
+        OffsetDateTime.parse(to),
+        filter == null ? null : filter.nameContains(),
+        page,
+        size
+    );
+  }
+
+  public record FreeResourcesFilter(String nameContains) {
+  }
+
+}
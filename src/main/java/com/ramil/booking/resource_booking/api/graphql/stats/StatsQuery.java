@@ -0,0 +1,41 @@
+package com.ramil.booking.resource_booking.api.graphql.stats;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+
+import com.ramil.booking.resource_booking.domain.stats.dto.ResourceRevenueMonth;
+import com.ramil.booking.resource_booking.domain.stats.dto.ResourceUtilizationDay;
+import com.ramil.booking.resource_booking.domain.stats.service.ResourceStatsService;
+
+@Controller
+public class StatsQuery {
+
+    private final ResourceStatsService statsService;
+
+    public StatsQuery(ResourceStatsService statsService) {
+        this.statsService = statsService;
+    }
+
+    @QueryMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public List<ResourceUtilizationDay> resourceUtilization(@Argument List<UUID> resourceIds,
+                                                            @Argument String from,
+                                                            @Argument String to) {
+        return statsService.utilization(resourceIds, LocalDate.parse(from), LocalDate.parse(to));
+    }
+
+    @QueryMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public List<ResourceRevenueMonth> resourceRevenue(@Argument List<UUID> resourceIds,
+                                                      @Argument String from,
+                                                      @Argument String to) {
+        return statsService.revenue(resourceIds, YearMonth.parse(from), YearMonth.parse(to));
+    }
+}
@@ -0,0 +1,60 @@
+package com.ramil.booking.resource_booking.api.rest;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.ramil.booking.resource_booking.domain.export.exception.ExportAccessDeniedException;
+import com.ramil.booking.resource_booking.domain.export.model.ExportFormat;
+import com.ramil.booking.resource_booking.domain.export.service.ExportService;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+// Выгрузка для бухгалтерии: GET /api/export/bookings?format=NDJSON|CSV, /api/export/payments
+// Ответ пишется прямо в поток запроса по мере чтения курсора, без буферизации всей выгрузки
+@RestController
+@RequestMapping("/api/export")
+public class ExportController {
+
+    private final ExportService exportService;
+
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @GetMapping("/bookings")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void bookings(@RequestParam(defaultValue = "NDJSON") ExportFormat format,
+                         HttpServletResponse response) throws IOException {
+        prepare(response, format, "bookings");
+        exportService.exportBookings(format, response.getOutputStream());
+    }
+
+    @GetMapping("/payments")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void payments(@RequestParam(defaultValue = "NDJSON") ExportFormat format,
+                         HttpServletResponse response) throws IOException {
+        prepare(response, format, "payments");
+        exportService.exportPayments(format, response.getOutputStream());
+    }
+
+    @ExceptionHandler(ExportAccessDeniedException.class)
+    @ResponseStatus(HttpStatus.FORBIDDEN)
+    public void accessDenied() {
+    }
+
+    private static void prepare(HttpServletResponse response, ExportFormat format, String name) {
+        response.setContentType(format.contentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + name + "." + format.extension() + "\"");
+    }
+}
@@ -0,0 +1,29 @@
+package com.ramil.booking.resource_booking.config.scheduling;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+// Фоновые задачи (@Scheduled): сверка индексов, обслуживание таблиц и т.д.
+// Свой пул вместо одного потока по умолчанию: долгие задачи (секции, пересчёт статистики) не задерживают
+// частые опросы очередей платежей (payment_outbox — каждые 0.5 с)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${app.scheduling.pool-size:4}") int poolSize) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("app.scheduling.pool-size must be positive: " + poolSize);
+        }
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("scheduling-");
+        // задачи дописывают текущую пачку; незавершённые строки вернутся по истечении lease
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(30);
+        return scheduler;
+    }
+}
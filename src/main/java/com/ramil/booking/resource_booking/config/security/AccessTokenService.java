@@ -0,0 +1,203 @@
+package com.ramil.booking.resource_booking.config.security;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ramil.booking.resource_booking.domain.user.event.UserCredentialsChangedEvent;
+import com.ramil.booking.resource_booking.domain.user.model.Role;
+
+// Выдаёт и проверяет короткоживущие access-токены (JWT, HS256) и refresh-токены
+// Проверка access-токена — HMAC + разбор JSON, без обращения к app_user
+// Refresh-сессии и список отозванных сессий живут в памяти процесса
+public class AccessTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(AccessTokenService.class);
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder B64_DECODER = Base64.getUrlDecoder();
+
+    private final String header;
+    private final SecretKeySpec signingKey;
+    private final Duration accessTtl;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+    private final SecureRandom random = new SecureRandom();
+
+    // refresh-токен -> сессия; одноразовый, при обновлении выдаётся новый
+    private final Cache<String, RefreshSession> refreshSessions;
+    // отозванные сессии держим, пока могут быть живы выданные по ним access-токены
+    private final Cache<String, Boolean> revokedSessions;
+
+    public AccessTokenService(
+            byte[] secret,
+            Duration accessTtl,
+            Duration refreshTtl,
+            ObjectMapper objectMapper,
+            Clock clock
+    ) {
+        if (secret.length < 32) {
+            throw new IllegalArgumentException("Token secret must be at least 32 bytes");
+        }
+        this.signingKey = new SecretKeySpec(secret, HMAC_ALGORITHM);
+        this.accessTtl = Objects.requireNonNull(accessTtl);
+        this.objectMapper = Objects.requireNonNull(objectMapper);
+        this.clock = Objects.requireNonNull(clock);
+        this.header = B64.encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+        this.refreshSessions = Caffeine.newBuilder().expireAfterWrite(refreshTtl).build();
+        this.revokedSessions = Caffeine.newBuilder().expireAfterWrite(accessTtl).build();
+    }
+
+    public IssuedTokens issue(AppUserPrincipal principal) {
+        Objects.requireNonNull(principal, "principal");
+        return issue(new RefreshSession(UUID.randomUUID().toString(), principal.getId(), principal.getEmail(), principal.getRole()));
+    }
+
+    // Проверяет подпись, срок жизни и отзыв сессии; возвращает principal без хэша пароля
+    public AppUserPrincipal verify(String token) {
+        if (token == null) {
+            throw new InvalidTokenException("Token is missing");
+        }
+        int firstDot = token.indexOf('.');
+        int lastDot = token.lastIndexOf('.');
+        if (firstDot <= 0 || lastDot == firstDot) {
+            throw new InvalidTokenException("Malformed token");
+        }
+        // заголовок фиксированный: никаких alg=none и подмены алгоритма
+        if (!header.equals(token.substring(0, firstDot))) {
+            throw new InvalidTokenException("Unsupported token header");
+        }
+
+        byte[] expected = sign(token.substring(0, lastDot));
+        byte[] actual;
+        try {
+            actual = B64_DECODER.decode(token.substring(lastDot + 1));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidTokenException("Malformed token signature");
+        }
+        if (!MessageDigest.isEqual(expected, actual)) {
+            throw new InvalidTokenException("Invalid token signature");
+        }
+
+        JsonNode claims;
+        try {
+            claims = objectMapper.readTree(B64_DECODER.decode(token.substring(firstDot + 1, lastDot)));
+        } catch (IllegalArgumentException | IOException e) {
+            throw new InvalidTokenException("Malformed token payload");
+        }
+
+        if (clock.instant().getEpochSecond() >= claims.path("exp").asLong()) {
+            throw new InvalidTokenException("Token expired");
+        }
+        if (revokedSessions.getIfPresent(claims.path("sid").asText()) != null) {
+            throw new InvalidTokenException("Token revoked");
+        }
+
+        try {
+            return new AppUserPrincipal(
+                    UUID.fromString(claims.path("sub").asText()),
+                    claims.path("email").asText(),
+                    Role.valueOf(claims.path("role").asText()),
+                    null
+            );
+        } catch (IllegalArgumentException e) {
+            throw new InvalidTokenException("Malformed token claims");
+        }
+    }
+
+    // Ротация: старый refresh-токен становится недействительным
+    public IssuedTokens refresh(String refreshToken) {
+        RefreshSession session = refreshToken == null ? null : refreshSessions.asMap().remove(refreshToken);
+        if (session == null || revokedSessions.getIfPresent(session.sid()) != null) {
+            throw new InvalidTokenException("Invalid refresh token");
+        }
+        return issue(session);
+    }
+
+    // Отзывает сессию: и refresh-токен, и все выданные по ней access-токены
+    public void revoke(String refreshToken) {
+        RefreshSession session = refreshToken == null ? null : refreshSessions.asMap().remove(refreshToken);
+        if (session != null) {
+            revokedSessions.put(session.sid(), Boolean.TRUE);
+            log.info("auth.token.revoked userId={} sid={}", session.userId(), session.sid());
+        }
+    }
+
+    // Сменился пароль или роль — все сессии пользователя больше не действуют
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserCredentialsChanged(UserCredentialsChangedEvent event) {
+        refreshSessions.asMap().entrySet().removeIf(e -> {
+            if (!e.getValue().email().equals(event.email())) {
+                return false;
+            }
+            revokedSessions.put(e.getValue().sid(), Boolean.TRUE);
+            return true;
+        });
+    }
+
+    private IssuedTokens issue(RefreshSession session) {
+        Instant now = clock.instant();
+        Instant expiresAt = now.plus(accessTtl);
+
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", session.userId().toString());
+        claims.put("email", session.email());
+        claims.put("role", session.role().name());
+        claims.put("sid", session.sid());
+        claims.put("iat", now.getEpochSecond());
+        claims.put("exp", expiresAt.getEpochSecond());
+
+        String payload;
+        try {
+            payload = B64.encodeToString(objectMapper.writeValueAsBytes(claims));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize token claims", e);
+        }
+        String unsigned = header + "." + payload;
+        String accessToken = unsigned + "." + B64.encodeToString(sign(unsigned));
+
+        byte[] refreshBytes = new byte[32];
+        random.nextBytes(refreshBytes);
+        String refreshToken = B64.encodeToString(refreshBytes);
+        refreshSessions.put(refreshToken, session);
+
+        return new IssuedTokens(accessToken, refreshToken, expiresAt);
+    }
+
+    private byte[] sign(String data) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            return mac.doFinal(data.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private record RefreshSession(String sid, UUID userId, String email, Role role) {
+    }
+}
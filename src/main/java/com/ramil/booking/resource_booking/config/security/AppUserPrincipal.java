@@ -0,0 +1,87 @@
+package com.ramil.booking.resource_booking.config.security;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.ramil.booking.resource_booking.domain.user.entity.AppUserEntity;
+import com.ramil.booking.resource_booking.domain.user.model.Role;
+
+// Аутентифицированный пользователь: id, email и роль собираются один раз при входе,
+// дальше CurrentUserProvider читает их отсюда без обращения к app_user
+public class AppUserPrincipal implements UserDetails, CredentialsContainer {
+
+    private final UUID id;
+    private final String email;
+    private final Role role;
+    private String passwordHash;
+
+    public AppUserPrincipal(UUID id, String email, Role role, String passwordHash) {
+        this.id = Objects.requireNonNull(id, "id must not be null");
+        this.email = Objects.requireNonNull(email, "email must not be null");
+        this.role = Objects.requireNonNull(role, "role must not be null");
+        this.passwordHash = passwordHash;
+    }
+
+    public static AppUserPrincipal of(AppUserEntity user) {
+        return new AppUserPrincipal(user.getId(), user.getEmail(), user.getRole(), user.getPasswordHash());
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    public boolean isAdmin() {
+        return role == Role.ADMIN;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+
+    @Override
+    public String getPassword() {
+        return passwordHash;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    // хэш пароля не должен жить в SecurityContext и в кэше аутентификаций
+    @Override
+    public void eraseCredentials() {
+        this.passwordHash = null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof AppUserPrincipal other && id.equals(other.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "AppUserPrincipal[id=" + id + ", email=" + email + ", role=" + role + "]";
+    }
+}
@@ -0,0 +1,127 @@
+package com.ramil.booking.resource_booking.config.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Objects;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ramil.booking.resource_booking.domain.user.event.UserCredentialsChangedEvent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+// Кэш успешных аутентификаций перед DaoAuthenticationProvider
+// Без него каждый запрос к /graphql — это запрос в app_user и полная проверка BCrypt
+// Ключ — HMAC-SHA256(email, пароль) на секрете, который генерируется при старте:
+// пароли в памяти не лежат, а дайджест бесполезен за пределами процесса
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(CachingAuthenticationProvider.class);
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final AuthenticationProvider delegate;
+    private final Cache<String, Authentication> cache;
+    private final SecretKeySpec digestKey;
+
+    public CachingAuthenticationProvider(
+            AuthenticationProvider delegate,
+            Duration ttl,
+            long maxSize,
+            MeterRegistry meterRegistry
+    ) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Objects.requireNonNull(ttl))
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.digestKey = new SecretKeySpec(secret, HMAC_ALGORITHM);
+
+        // auth.cache.gets{result=hit|miss}, auth.cache.evictions и т.д. в /actuator/metrics
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "auth");
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        if (!(authentication instanceof UsernamePasswordAuthenticationToken) || authentication.getCredentials() == null) {
+            return delegate.authenticate(authentication);
+        }
+
+        String key = digest(authentication.getName(), authentication.getCredentials().toString());
+
+        Authentication cached = cache.getIfPresent(key);
+        if (cached != null) {
+            // новый токен на каждый запрос: details (ip, сессия) берём из текущего запроса
+            UsernamePasswordAuthenticationToken result = UsernamePasswordAuthenticationToken.authenticated(
+                    cached.getPrincipal(), null, cached.getAuthorities());
+            result.setDetails(authentication.getDetails());
+            return result;
+        }
+
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.isAuthenticated()) {
+            // пароль и хэш в кэше не держим, даже если вызывающий обошёл ProviderManager
+            if (result instanceof CredentialsContainer credentials) {
+                credentials.eraseCredentials();
+            }
+            cache.put(key, result);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+
+    // Смена password_hash или role: выкидываем все записи пользователя после коммита,
+    // чтобы старый пароль перестал работать сразу, а не через ttl
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserCredentialsChanged(UserCredentialsChangedEvent event) {
+        invalidate(event.email());
+    }
+
+    public void invalidate(String username) {
+        boolean removed = cache.asMap().values().removeIf(a -> a.getName().equals(username));
+        if (removed) {
+            log.info("auth.cache.invalidated username={}", username);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private String digest(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(digestKey);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            mac.update(password.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(mac.doFinal());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
@@ -1,8 +1,5 @@
 package com.ramil.booking.resource_booking.config.security;
 
-import java.util.List;
-
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
 
@@ -24,10 +21,7 @@ public class DbUserDetailsService implements UserDetailsService {
         AppUserEntity user = userRepository.findByEmail(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
 
-        return new org.springframework.security.core.userdetails.User(
-                user.getEmail(),
-                user.getPasswordHash(),
-                List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()))
-        );
+        // principal сразу несёт id и роль, чтобы не искать пользователя повторно в каждом сервисе
+        return AppUserPrincipal.of(user);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,77 @@
+package com.ramil.booking.resource_booking.config.security;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import graphql.language.Document;
+import graphql.language.Field;
+import graphql.language.OperationDefinition;
+import graphql.language.Selection;
+import graphql.parser.Parser;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+// Совпадает с POST /graphql, выбранная операция которого — мутация только из разрешённых полей
+// (например login / refreshToken); тело берётся из GraphqlRequestBodyCachingFilter
+// Всё, что не удалось разобрать, не совпадает — и требует аутентификации
+public class GraphqlOperationRequestMatcher implements RequestMatcher {
+
+    private final Set<String> mutationFields;
+    private final ObjectMapper objectMapper;
+
+    public GraphqlOperationRequestMatcher(Set<String> mutationFields, ObjectMapper objectMapper) {
+        this.mutationFields = Set.copyOf(mutationFields);
+        this.objectMapper = Objects.requireNonNull(objectMapper);
+    }
+
+    @Override
+    public boolean matches(HttpServletRequest request) {
+        if (!(request.getAttribute(GraphqlRequestBodyCachingFilter.BODY_ATTRIBUTE) instanceof byte[] body)) {
+            return false;
+        }
+        try {
+            JsonNode json = objectMapper.readTree(body);
+            JsonNode query = json.path("query");
+            if (!query.isTextual()) {
+                return false;
+            }
+            JsonNode name = json.path("operationName");
+            OperationDefinition operation = select(Parser.parse(query.asText()),
+                    name.isTextual() ? name.asText() : null);
+            return operation != null
+                    && operation.getOperation() == OperationDefinition.Operation.MUTATION
+                    && onlyAllowedFields(operation.getSelectionSet().getSelections());
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private boolean onlyAllowedFields(List<Selection> selections) {
+        if (selections.isEmpty()) {
+            return false;
+        }
+        for (Selection<?> selection : selections) {
+            if (!(selection instanceof Field field) || !mutationFields.contains(field.getName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static OperationDefinition select(Document document, String operationName) {
+        List<OperationDefinition> operations = document.getDefinitionsOfType(OperationDefinition.class);
+        if (operationName == null) {
+            return operations.size() == 1 ? operations.get(0) : null;
+        }
+        return operations.stream()
+                .filter(o -> operationName.equals(o.getName()))
+                .findFirst()
+                .orElse(null);
+    }
+}
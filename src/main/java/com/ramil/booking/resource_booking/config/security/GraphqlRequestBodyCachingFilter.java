@@ -0,0 +1,98 @@
+package com.ramil.booking.resource_booking.config.security;
+
+import java.io.ByteArrayInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Читает тело небольшого POST /graphql заранее и кладёт его в атрибут запроса, чтобы
+// GraphqlOperationRequestMatcher мог посмотреть операцию до авторизации; дальше тело читается из памяти
+// Запросы крупнее MAX_BODY_BYTES или без Content-Length не трогаются — для них нужна аутентификация
+public class GraphqlRequestBodyCachingFilter extends OncePerRequestFilter {
+
+    static final String BODY_ATTRIBUTE = GraphqlRequestBodyCachingFilter.class.getName() + ".body";
+
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+
+    private final String path;
+
+    public GraphqlRequestBodyCachingFilter(String path) {
+        this.path = path;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        long length = request.getContentLengthLong();
+        return !"POST".equals(request.getMethod())
+                || !path.equals(request.getRequestURI().substring(request.getContextPath().length()))
+                || length <= 0 || length > MAX_BODY_BYTES;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        byte[] body = request.getInputStream().readNBytes(MAX_BODY_BYTES);
+        request.setAttribute(BODY_ATTRIBUTE, body);
+        chain.doFilter(new CachedBodyRequest(request, body), response);
+    }
+
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException("Body is already read");
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.ramil.booking.resource_booking.config.security;
+
+import org.springframework.security.core.AuthenticationException;
+
+public class InvalidTokenException extends AuthenticationException {
+    public InvalidTokenException(String message) {
+        super(message);
+    }
+}
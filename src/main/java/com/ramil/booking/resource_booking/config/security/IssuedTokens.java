@@ -0,0 +1,7 @@
+package com.ramil.booking.resource_booking.config.security;
+
+import java.time.Instant;
+
+// Пара токенов, выдаваемая при логине и при обновлении
+public record IssuedTokens(String accessToken, String refreshToken, Instant accessTokenExpiresAt) {
+}
@@ -1,37 +1,85 @@
 package com.ramil.booking.resource_booking.config.security;
 
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Configuration
 @EnableMethodSecurity
 public class SecurityConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(SecurityConfig.class);
+
+    private static final String GRAPHQL_PATH = "/graphql";
+
+    // Мутации, доступные без аутентификации: вход и операции по refresh-токену
+    private static final Set<String> PUBLIC_MUTATIONS = Set.of("login", "refreshToken", "logout");
+
+    /**
+     * /graphql требует аутентификации; без неё пропускаются только запросы, целиком состоящие
+     * из PUBLIC_MUTATIONS (login, refreshToken, logout). ping, интроспекция и всё остальное — только с учётными данными.
+     * Доступ к отдельным операциям дополнительно проверяется через @PreAuthorize в контроллерах.
+     * Выгрузка /api/export/** доступна только администраторам.
+     * Аутентификация: Bearer-токен (см. login) или HTTP Basic.
+     */
     @Bean
-    SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    SecurityFilterChain securityFilterChain(HttpSecurity http, AccessTokenService accessTokenService,
+                                            AuthenticationManager authenticationManager,
+                                            ObjectMapper objectMapper) throws Exception {
         return http
                 .csrf(AbstractHttpConfigurer::disable)
+                .sessionManagement(s -> s.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .authenticationManager(authenticationManager)
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/metrics", "/actuator/metrics/**").hasRole("ADMIN")
                         .requestMatchers("/graphiql", "/graphiql/**").permitAll()
                         .requestMatchers("/webjars/**", "/favicon.ico", "/error").permitAll()
-                        .requestMatchers(HttpMethod.OPTIONS, "/graphql").permitAll()
-                        .requestMatchers("/graphql").authenticated()
+                        .requestMatchers(HttpMethod.OPTIONS, GRAPHQL_PATH).permitAll()
+                        .requestMatchers(new GraphqlOperationRequestMatcher(PUBLIC_MUTATIONS, objectMapper)).permitAll()
+                        .requestMatchers(GRAPHQL_PATH).authenticated()
+                        .requestMatchers(HttpMethod.GET, "/api/export/**").hasRole("ADMIN")
                         .anyRequest().denyAll())
+                .addFilterBefore(new GraphqlRequestBodyCachingFilter(GRAPHQL_PATH), BasicAuthenticationFilter.class)
+                .addFilterBefore(new BearerTokenAuthenticationFilter(accessTokenService), BasicAuthenticationFilter.class)
                 .httpBasic(Customizer.withDefaults())
                 .build();
     }
 
+    /**
+     * ProviderManager стирает пароль из результата аутентификации (в т.ч. из закэшированного)
+     */
+    @Bean
+    public AuthenticationManager authenticationManager(CachingAuthenticationProvider authenticationProvider) {
+        return new ProviderManager(authenticationProvider);
+    }
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
@@ -39,15 +87,42 @@ public class SecurityConfig {
 
     /**
      * Подключаем аутентификацию через БД (UserDetailsService + BCrypt)
+     * Успешные проверки кэшируются, чтобы BCrypt не выполнялся на каждый запрос
      */
     @Bean
-    public DaoAuthenticationProvider authenticationProvider(
+    public CachingAuthenticationProvider authenticationProvider(
             UserDetailsService userDetailsService,
-            PasswordEncoder passwordEncoder
+            PasswordEncoder passwordEncoder,
+            MeterRegistry meterRegistry,
+            @Value("${app.security.auth-cache.ttl:PT5M}") Duration ttl,
+            @Value("${app.security.auth-cache.max-size:10000}") long maxSize
     ) {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
         provider.setUserDetailsService(userDetailsService);
         provider.setPasswordEncoder(passwordEncoder);
-        return provider;
+        return new CachingAuthenticationProvider(provider, ttl, maxSize, meterRegistry);
+    }
+
+    /**
+     * Подписанные access-токены (HS256) для stateless-аутентификации.
+     * Секрет должен быть одинаковым на всех нодах; если не задан — генерируется при старте
+     * и токены перестают действовать после перезапуска.
+     */
+    @Bean
+    public AccessTokenService accessTokenService(
+            ObjectMapper objectMapper,
+            @Value("${app.security.token.secret:}") String secret,
+            @Value("${app.security.token.access-ttl:PT15M}") Duration accessTtl,
+            @Value("${app.security.token.refresh-ttl:P7D}") Duration refreshTtl
+    ) {
+        byte[] key;
+        if (secret.isBlank()) {
+            log.warn("app.security.token.secret is not set, using a random per-process key");
+            key = new byte[32];
+            new SecureRandom().nextBytes(key);
+        } else {
+            key = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        return new AccessTokenService(key, accessTtl, refreshTtl, objectMapper, Clock.systemUTC());
     }
 }
@@ -1,5 +1,6 @@
 package com.ramil.booking.resource_booking.config.security;
 
+import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.security.core.Authentication;
@@ -7,24 +8,17 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
 import com.ramil.booking.resource_booking.domain.user.exception.UserNotFoundException;
-import com.ramil.booking.resource_booking.domain.user.repository.AppUserRepository;
 import com.ramil.booking.resource_booking.domain.user.security.CurrentUserProvider;
 
+// Читает текущего пользователя из AppUserPrincipal в SecurityContext — без запросов в БД
 @Component
 public class SpringSecurityCurrentUserProvider implements CurrentUserProvider {
 
-    private final AppUserRepository appUserRepository;
-
-    public SpringSecurityCurrentUserProvider(AppUserRepository appUserRepository) {
-        this.appUserRepository = appUserRepository;
-    }
-
     @Override
     public UUID currentUserId() {
-        String email = currentUserEmail();
-        return appUserRepository.findByEmail(email)
-                .orElseThrow(() -> new UserNotFoundException(email))
-                .getId();
+        return currentPrincipal()
+                .map(AppUserPrincipal::getId)
+                .orElseThrow(() -> new UserNotFoundException(currentUserEmail()));
     }
 
     @Override
@@ -42,4 +36,12 @@ public class SpringSecurityCurrentUserProvider implements CurrentUserProvider {
         return auth != null && auth.getAuthorities().stream()
                 .anyMatch(a -> "ROLE_ADMIN".equals(a.getAuthority()));
     }
+
+    private Optional<AppUserPrincipal> currentPrincipal() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.isAuthenticated() && auth.getPrincipal() instanceof AppUserPrincipal principal) {
+            return Optional.of(principal);
+        }
+        return Optional.empty();
+    }
 }
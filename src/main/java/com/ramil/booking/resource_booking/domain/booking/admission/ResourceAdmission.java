@@ -0,0 +1,129 @@
+package com.ramil.booking.resource_booking.domain.booking.admission;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.ramil.booking.resource_booking.domain.booking.exception.ResourceBusyException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// Очередь допуска к горячим ресурсам: попытки занять слоты одного ресурса идут по одной ещё до БД
+// Без неё сотни одновременных createDraft / markWaitingPayment по одному ресурсу берут по соединению Hikari
+// и ждут друг друга на блокировках ресурса (FOR SHARE, advisory-блокировка booking_overlap_guard)
+// Ресурсы раскладываются по stripes полосам; в полосе работает один запрос, остальные ждут в очереди
+// (queue-depth — вместе с тем, кто сейчас получает очередь) без соединения. Очередь полна или ожидание дольше wait-timeout — ResourceBusyException
+// Действие выполняется в потоке запроса: транзакция должна начинаться внутри run, а не снаружи
+@Component
+public class ResourceAdmission {
+
+    private static final Logger log = LoggerFactory.getLogger(ResourceAdmission.class);
+
+    private final boolean enabled;
+    private final int queueDepth;
+    private final Duration waitTimeout;
+    private final Stripe[] stripes;
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedTimeout;
+    private final Timer waitTimer;
+
+    public ResourceAdmission(
+            MeterRegistry meterRegistry,
+            @Value("${app.booking.admission.enabled:true}") boolean enabled,
+            @Value("${app.booking.admission.stripes:256}") int stripes,
+            @Value("${app.booking.admission.queue-depth:32}") int queueDepth,
+            @Value("${app.booking.admission.wait-timeout:PT2S}") Duration waitTimeout
+    ) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("app.booking.admission.stripes must be positive: " + stripes);
+        }
+        if (queueDepth < 1) {
+            throw new IllegalArgumentException("app.booking.admission.queue-depth must be positive: " + queueDepth);
+        }
+        this.enabled = enabled;
+        this.queueDepth = queueDepth;
+        this.waitTimeout = Objects.requireNonNull(waitTimeout);
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.rejectedQueueFull = Counter.builder("booking.admission.rejected")
+                .description("Requests rejected by the per-resource admission queue")
+                .tag("reason", "queue_full")
+                .register(meterRegistry);
+        this.rejectedTimeout = Counter.builder("booking.admission.rejected")
+                .description("Requests rejected by the per-resource admission queue")
+                .tag("reason", "timeout")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("booking.admission.wait")
+                .description("Time spent waiting for the resource stripe")
+                .register(meterRegistry);
+    }
+
+    // Выполняет action, когда подойдёт очередь полосы resourceId
+    // Вложенный run по ресурсу той же полосы из action не допускается: поток будет ждать сам себя
+    public <T> T run(UUID resourceId, Supplier<T> action) {
+        Objects.requireNonNull(resourceId, "resourceId");
+        Objects.requireNonNull(action, "action");
+        if (!enabled) {
+            return action.get();
+        }
+
+        Stripe stripe = stripe(resourceId);
+        if (stripe.waiting.incrementAndGet() > queueDepth) {
+            stripe.waiting.decrementAndGet();
+            rejectedQueueFull.increment();
+            log.warn("booking.admission.rejected reason=queueFull resourceId={} queueDepth={}", resourceId, queueDepth);
+            throw new ResourceBusyException(resourceId);
+        }
+
+        long started = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = stripe.turn.tryAcquire(waitTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceBusyException(resourceId);
+        } finally {
+            stripe.waiting.decrementAndGet();
+        }
+        waitTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+
+        if (!acquired) {
+            rejectedTimeout.increment();
+            log.warn("booking.admission.rejected reason=timeout resourceId={} waitTimeout={}", resourceId, waitTimeout);
+            throw new ResourceBusyException(resourceId);
+        }
+        try {
+            return action.get();
+        } finally {
+            stripe.turn.release();
+        }
+    }
+
+    // Сколько запросов ждут очереди в полосе resourceId
+    int waiting(UUID resourceId) {
+        return stripe(resourceId).waiting.get();
+    }
+
+    private Stripe stripe(UUID resourceId) {
+        return stripes[Math.floorMod(resourceId.hashCode(), stripes.length)];
+    }
+
+    // Полоса: один выполняющийся запрос (справедливый семафор — ждущие проходят по порядку) и счётчик ждущих
+    private static final class Stripe {
+        private final Semaphore turn = new Semaphore(1, true);
+        private final AtomicInteger waiting = new AtomicInteger();
+    }
+}
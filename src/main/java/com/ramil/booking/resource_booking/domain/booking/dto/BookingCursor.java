@@ -0,0 +1,36 @@
+package com.ramil.booking.resource_booking.domain.booking.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.UUID;
+
+// Позиция в списке бронирований, упорядоченном по (start_time desc, id desc)
+// Для клиента — непрозрачная строка (base64url от "startTime|id")
+public record BookingCursor(OffsetDateTime startTime, UUID id) {
+
+    public BookingCursor {
+        Objects.requireNonNull(startTime, "startTime must not be null");
+        Objects.requireNonNull(id, "id must not be null");
+    }
+
+    public static BookingCursor of(BookingView view) {
+        return new BookingCursor(view.startTime(), view.id());
+    }
+
+    public String encode() {
+        String raw = startTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static BookingCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new BookingCursor(OffsetDateTime.parse(raw.substring(0, sep)), UUID.fromString(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.ramil.booking.resource_booking.domain.booking.dto;
+
+// Результат одного элемента пакетного создания черновиков
+// index — позиция во входном списке; при ошибке booking == null, errorCode — как в extensions.code GraphQL-ошибок
+public record BookingDraftResult(
+        int index,
+        BookingView booking,
+        String errorCode,
+        String errorMessage) {
+
+    public static BookingDraftResult ok(int index, BookingView booking) {
+        return new BookingDraftResult(index, booking, null, null);
+    }
+
+    public static BookingDraftResult failed(int index, String errorCode, String errorMessage) {
+        return new BookingDraftResult(index, null, errorCode, errorMessage);
+    }
+}
@@ -0,0 +1,16 @@
+package com.ramil.booking.resource_booking.domain.booking.dto;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import com.ramil.booking.resource_booking.domain.booking.model.BookingStatus;
+
+// Фильтр списка бронирований; любое поле может быть null (не фильтровать)
+// from/to — бронирование пересекается с [from, to)
+public record BookingFilter(
+        List<BookingStatus> statuses,
+        OffsetDateTime from,
+        OffsetDateTime to) {
+
+    public static final BookingFilter NONE = new BookingFilter(null, null, null);
+}
@@ -0,0 +1,7 @@
+package com.ramil.booking.resource_booking.domain.booking.dto;
+
+import java.util.List;
+
+// Страница бронирований в порядке (startTime desc, id desc); hasNext — есть ли элементы после последнего
+public record BookingPage(List<BookingView> items, boolean hasNext) {
+}
@@ -0,0 +1,10 @@
+package com.ramil.booking.resource_booking.domain.booking.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+// Серия бронирований: все вхождения по возрастанию startTime
+public record BookingSeriesView(
+        UUID seriesId,
+        List<BookingView> bookings) {
+}
@@ -0,0 +1,36 @@
+package com.ramil.booking.resource_booking.domain.booking.dto;
+
+import java.util.Objects;
+import java.util.UUID;
+
+import com.ramil.booking.resource_booking.domain.booking.model.BookingStatus;
+import com.ramil.booking.resource_booking.domain.booking.model.TransitionOutcome;
+
+// Результат StatusTransition
+// booking — состояние после UPDATE (только для APPLIED)
+// observedStatus — статус, в котором UPDATE застал бронирование: прежний для APPLIED,
+// фактический для WRONG_STATE / RESOURCE_INACTIVE, null для NOT_FOUND / NOT_OWNER
+// resourceId — ресурс бронирования (null для NOT_FOUND)
+public record BookingTransition(
+        TransitionOutcome outcome,
+        BookingView booking,
+        BookingStatus observedStatus,
+        UUID resourceId) {
+
+    public BookingTransition {
+        Objects.requireNonNull(outcome, "outcome");
+    }
+
+    public static BookingTransition applied(BookingView booking, BookingStatus from) {
+        Objects.requireNonNull(booking, "booking");
+        return new BookingTransition(TransitionOutcome.APPLIED, booking, from, booking.resourceId());
+    }
+
+    public static BookingTransition rejected(TransitionOutcome outcome, BookingStatus observedStatus, UUID resourceId) {
+        return new BookingTransition(outcome, null, observedStatus, resourceId);
+    }
+
+    public boolean isApplied() {
+        return outcome == TransitionOutcome.APPLIED;
+    }
+}
@@ -11,5 +11,6 @@ public record BookingView(
         UUID resourceId,
         OffsetDateTime startTime,
         OffsetDateTime endTime,
-        BookingStatus status) {
-}
\ No newline at end of file
+        BookingStatus status,
+        UUID seriesId) {
+}
@@ -4,14 +4,22 @@ import java.time.OffsetDateTime;
 import java.util.Objects;
 import java.util.UUID;
 
+import com.ramil.booking.resource_booking.domain.booking.model.Recurrence;
+
+// recurrence == null — одиночное бронирование, иначе [startTime, endTime) — первое вхождение серии
 public record CreateBookingCommand(
         UUID resourceId,
         OffsetDateTime startTime,
-        OffsetDateTime endTime) {
+        OffsetDateTime endTime,
+        Recurrence recurrence) {
 
     public CreateBookingCommand {
         Objects.requireNonNull(resourceId, "resourceId must not be null");
         Objects.requireNonNull(startTime, "startTime must not be null");
         Objects.requireNonNull(endTime, "endTime must not be null");
     }
-}
\ No newline at end of file
+
+    public CreateBookingCommand(UUID resourceId, OffsetDateTime startTime, OffsetDateTime endTime) {
+        this(resourceId, startTime, endTime, null);
+    }
+}
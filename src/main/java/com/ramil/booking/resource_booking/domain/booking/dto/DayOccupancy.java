@@ -0,0 +1,11 @@
+package com.ramil.booking.resource_booking.domain.booking.dto;
+
+import java.time.LocalDate;
+
+// Сутки (UTC) ресурса в виде битовой карты слотов: bitmap — hex, старший бит первого символа — первый слот дня
+public record DayOccupancy(
+        LocalDate date,
+        int slotMinutes,
+        String bitmap,
+        int occupiedSlots) {
+}
@@ -0,0 +1,10 @@
+package com.ramil.booking.resource_booking.domain.booking.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+// Занятость ресурса по дням запрошенного диапазона
+public record ResourceOccupancy(
+        UUID resourceId,
+        List<DayOccupancy> days) {
+}
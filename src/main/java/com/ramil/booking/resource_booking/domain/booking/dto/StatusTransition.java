@@ -0,0 +1,47 @@
+package com.ramil.booking.resource_booking.domain.booking.dto;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+import com.ramil.booking.resource_booking.domain.booking.model.BookingStatus;
+
+// Условная смена статуса: bookingId переводится в to, только если сейчас он в одном из from
+// ownerId — применять только к бронированию этого пользователя (null — к любому)
+// requireActiveResource — ресурс должен быть активен; он блокируется FOR SHARE до конца транзакции
+// paidBy — проставить paid_at/paid_by, если оплата ещё не отмечена
+public record StatusTransition(
+        UUID bookingId,
+        Set<BookingStatus> from,
+        BookingStatus to,
+        String actor,
+        UUID ownerId,
+        boolean requireActiveResource,
+        String paidBy) {
+
+    public StatusTransition {
+        Objects.requireNonNull(bookingId, "bookingId");
+        Objects.requireNonNull(to, "to");
+        Objects.requireNonNull(actor, "actor");
+        if (from == null || from.isEmpty()) {
+            throw new IllegalArgumentException("from must not be empty");
+        }
+        from = Set.copyOf(from);
+    }
+
+    public static StatusTransition of(UUID bookingId, Set<BookingStatus> from, BookingStatus to, String actor) {
+        return new StatusTransition(bookingId, from, to, actor, null, false, null);
+    }
+
+    public StatusTransition ownedBy(UUID ownerId) {
+        return new StatusTransition(bookingId, from, to, actor, ownerId, requireActiveResource, paidBy);
+    }
+
+    public StatusTransition withActiveResource() {
+        return new StatusTransition(bookingId, from, to, actor, ownerId, true, paidBy);
+    }
+
+    public StatusTransition markPaidBy(String paidBy) {
+        return new StatusTransition(bookingId, from, to, actor, ownerId, requireActiveResource, paidBy);
+    }
+}
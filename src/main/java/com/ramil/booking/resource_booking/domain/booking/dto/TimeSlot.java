@@ -0,0 +1,9 @@
+package com.ramil.booking.resource_booking.domain.booking.dto;
+
+import java.time.OffsetDateTime;
+
+// Полуинтервал [startTime, endTime): занятый или свободный отрезок времени ресурса
+public record TimeSlot(
+        OffsetDateTime startTime,
+        OffsetDateTime endTime) {
+}
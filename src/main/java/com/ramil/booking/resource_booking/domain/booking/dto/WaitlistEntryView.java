@@ -0,0 +1,18 @@
+package com.ramil.booking.resource_booking.domain.booking.dto;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import com.ramil.booking.resource_booking.domain.booking.model.WaitlistStatus;
+
+// bookingId — бронирование в WAITING_PAYMENT, созданное при продвижении (только для PROMOTED)
+public record WaitlistEntryView(
+        UUID id,
+        UUID userId,
+        UUID resourceId,
+        OffsetDateTime startTime,
+        OffsetDateTime endTime,
+        WaitlistStatus status,
+        UUID bookingId,
+        OffsetDateTime createdAt) {
+}
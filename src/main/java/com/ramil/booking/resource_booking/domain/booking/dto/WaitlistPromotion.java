@@ -0,0 +1,14 @@
+package com.ramil.booking.resource_booking.domain.booking.dto;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+// Ожидающий, получивший бронирование bookingId в WAITING_PAYMENT на [startTime, endTime)
+public record WaitlistPromotion(
+        UUID waitlistId,
+        UUID bookingId,
+        UUID userId,
+        UUID resourceId,
+        OffsetDateTime startTime,
+        OffsetDateTime endTime) {
+}
@@ -65,6 +65,12 @@ public class BookingEntity extends AuditableEntity {
     @Column(name = "paid_by", length = 255)
     private String paidBy;
 
+    // Общий для всех вхождений серии; null у одиночных бронирований
+    @Getter
+    @Setter
+    @Column(name = "series_id")
+    private UUID seriesId;
+
     protected BookingEntity() {
     }
 
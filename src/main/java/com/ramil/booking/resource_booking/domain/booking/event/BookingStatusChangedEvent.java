@@ -0,0 +1,25 @@
+package com.ramil.booking.resource_booking.domain.booking.event;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import com.ramil.booking.resource_booking.domain.booking.model.BookingStatus;
+
+// Публикуется при каждой смене статуса бронирования (в том числе при создании: from == null)
+// Слушатели, которым нужны только закоммиченные данные, подписываются через @TransactionalEventListener
+public record BookingStatusChangedEvent(
+        UUID bookingId,
+        UUID resourceId,
+        OffsetDateTime startTime,
+        OffsetDateTime endTime,
+        BookingStatus from,
+        BookingStatus to) {
+
+    public boolean occupiedBefore() {
+        return from != null && from.occupiesSlot();
+    }
+
+    public boolean occupiedAfter() {
+        return to != null && to.occupiesSlot();
+    }
+}
@@ -20,4 +20,12 @@ public class BookingConflictException extends RuntimeException {
     this.endTime = endTime;
   }
 
+  // Конфликт при смене статуса одним UPDATE: интервал бронирования в этот момент не прочитан
+  public BookingConflictException(UUID bookingId) {
+    super("Booking conflict for booking " + bookingId);
+    this.resourceId = null;
+    this.startTime = null;
+    this.endTime = null;
+  }
+
 }
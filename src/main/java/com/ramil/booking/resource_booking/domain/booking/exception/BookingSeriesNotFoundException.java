@@ -0,0 +1,9 @@
+package com.ramil.booking.resource_booking.domain.booking.exception;
+
+import java.util.UUID;
+
+public class BookingSeriesNotFoundException extends RuntimeException {
+    public BookingSeriesNotFoundException(UUID seriesId) {
+        super("Booking series not found: " + seriesId);
+    }
+}
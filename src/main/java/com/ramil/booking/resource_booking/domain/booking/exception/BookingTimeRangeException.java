@@ -1,9 +1,19 @@
 package com.ramil.booking.resource_booking.domain.booking.exception;
 
+import java.time.Duration;
 import java.time.OffsetDateTime;
 
 public class BookingTimeRangeException extends RuntimeException {
   public BookingTimeRangeException(OffsetDateTime start, OffsetDateTime end) {
     super("Invalid time range: start=" + start + ", end=" + end);
   }
-}
\ No newline at end of file
+
+  private BookingTimeRangeException(String message) {
+    super(message);
+  }
+
+  public static BookingTimeRangeException tooLong(OffsetDateTime start, OffsetDateTime end, Duration max) {
+    return new BookingTimeRangeException(
+            "Invalid time range: booking must not be longer than " + max + ", start=" + start + ", end=" + end);
+  }
+}
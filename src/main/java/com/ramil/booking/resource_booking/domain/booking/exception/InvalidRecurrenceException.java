@@ -0,0 +1,7 @@
+package com.ramil.booking.resource_booking.domain.booking.exception;
+
+public class InvalidRecurrenceException extends RuntimeException {
+    public InvalidRecurrenceException(String message) {
+        super("Invalid recurrence: " + message);
+    }
+}
@@ -0,0 +1,9 @@
+package com.ramil.booking.resource_booking.domain.booking.exception;
+
+import java.util.UUID;
+
+public class ResourceBusyException extends RuntimeException {
+    public ResourceBusyException(UUID resourceId) {
+        super("Resource is busy, retry later: " + resourceId);
+    }
+}
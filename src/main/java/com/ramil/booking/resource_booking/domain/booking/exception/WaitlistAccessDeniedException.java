@@ -0,0 +1,9 @@
+package com.ramil.booking.resource_booking.domain.booking.exception;
+
+import java.util.UUID;
+
+public class WaitlistAccessDeniedException extends RuntimeException {
+    public WaitlistAccessDeniedException(UUID entryId) {
+        super("Not allowed for waitlist entry: " + entryId);
+    }
+}
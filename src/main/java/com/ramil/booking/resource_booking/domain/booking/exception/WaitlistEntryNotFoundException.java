@@ -0,0 +1,9 @@
+package com.ramil.booking.resource_booking.domain.booking.exception;
+
+import java.util.UUID;
+
+public class WaitlistEntryNotFoundException extends RuntimeException {
+    public WaitlistEntryNotFoundException(UUID entryId) {
+        super("Waitlist entry not found: " + entryId);
+    }
+}
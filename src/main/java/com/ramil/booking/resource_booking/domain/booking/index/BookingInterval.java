@@ -0,0 +1,8 @@
+package com.ramil.booking.resource_booking.domain.booking.index;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+// Интервал бронирования, занимающего слот (WAITING_PAYMENT / CONFIRMED)
+public record BookingInterval(UUID bookingId, UUID resourceId, OffsetDateTime startTime, OffsetDateTime endTime) {
+}
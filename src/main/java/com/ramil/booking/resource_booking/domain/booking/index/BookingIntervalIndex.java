@@ -0,0 +1,192 @@
+package com.ramil.booking.resource_booking.domain.booking.index;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.ramil.booking.resource_booking.domain.booking.event.BookingStatusChangedEvent;
+import com.ramil.booking.resource_booking.domain.booking.model.BookingStatus;
+
+// Индекс занятых интервалов (WAITING_PAYMENT / CONFIRMED) по ресурсам в памяти процесса
+// Нужен, чтобы заведомо конфликтующие запросы отклонять до похода в PostgreSQL: попадание в индекс — отказ
+// без запроса; промах — запрос доходит до БД, и последней проверкой остаётся ограничение booking_no_overlap
+// Изменения с других нод индекс узнаёт только при сверке (BookingIntervalIndexLoader), до неё возможен
+// отказ по уже освобождённому на другой ноде интервалу
+// Отдельно хранятся интервалы черновиков, созданных на этой ноде: markWaitingPayment знает только bookingId
+//
+// Внутри ресурса интервалы упорядочены по началу; для поиска пересечений смотрим только
+// интервалы, начавшиеся не раньше (start - максимальная длина интервала ресурса)
+@Component
+public class BookingIntervalIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingIntervalIndex.class);
+
+    private static final UUID MIN_UUID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+
+    private volatile Map<UUID, ResourceTimeline> timelines = new ConcurrentHashMap<>();
+    private final Map<UUID, BookingInterval> drafts = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    // события, пришедшие во время перестроения, докатываются на новый снимок
+    private volatile Queue<BookingStatusChangedEvent> pendingDuringRebuild;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // true — интервал точно пересекается с занятым; false — индекс конфликта не видит (решает БД)
+    public boolean hasConflict(UUID resourceId, OffsetDateTime start, OffsetDateTime end, UUID excludeBookingId) {
+        if (!ready) {
+            return false;
+        }
+        ResourceTimeline timeline = timelines.get(resourceId);
+        return timeline != null && timeline.overlaps(start.toInstant(), end.toInstant(), excludeBookingId);
+    }
+
+    // Интервал черновика bookingId; пусто — черновик создан на другой ноде или уже сменил статус
+    public Optional<BookingInterval> draft(UUID bookingId) {
+        return ready ? Optional.ofNullable(drafts.get(bookingId)) : Optional.empty();
+    }
+
+    // Черновики, сменившие статус на других нодах, событий сюда не присылают: убираем закончившиеся
+    public int pruneDrafts(OffsetDateTime now) {
+        int before = drafts.size();
+        drafts.values().removeIf(d -> !d.endTime().isAfter(now));
+        return before - drafts.size();
+    }
+
+    public int size() {
+        return timelines.values().stream().mapToInt(t -> t.intervals.size()).sum();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(BookingStatusChangedEvent event) {
+        // выключенному индексу (ready == false) черновики не нужны
+        if (ready) {
+            trackDraft(event);
+        }
+        if (event.occupiedBefore() == event.occupiedAfter()) {
+            return;
+        }
+        Queue<BookingStatusChangedEvent> pending = pendingDuringRebuild;
+        if (pending != null) {
+            pending.add(event);
+        }
+        apply(timelines, event);
+    }
+
+    // Полная замена содержимого: используется при старте и при сверке с БД
+    public synchronized Set<BookingInterval> rebuild(Stream<BookingInterval> source) {
+        Queue<BookingStatusChangedEvent> pending = new ConcurrentLinkedQueue<>();
+        pendingDuringRebuild = pending;
+        try {
+            Map<UUID, ResourceTimeline> fresh = new ConcurrentHashMap<>();
+            Set<BookingInterval> loaded = new HashSet<>();
+            source.forEach(i -> {
+                add(fresh, i.resourceId(), i.bookingId(), i.startTime().toInstant(), i.endTime().toInstant());
+                loaded.add(normalize(i));
+            });
+
+            timelines = fresh;
+            pendingDuringRebuild = null;
+            for (BookingStatusChangedEvent event : pending) {
+                apply(fresh, event);
+            }
+            ready = true;
+            return loaded;
+        } finally {
+            pendingDuringRebuild = null;
+        }
+    }
+
+    // Текущее содержимое (интервалы в UTC), для сверки с БД
+    public Set<BookingInterval> snapshot() {
+        Set<BookingInterval> result = new HashSet<>();
+        timelines.forEach((resourceId, timeline) -> timeline.intervals.forEach((key, end) ->
+                result.add(new BookingInterval(key.bookingId(), resourceId,
+                        key.start().atOffset(ZoneOffset.UTC), end.atOffset(ZoneOffset.UTC)))));
+        return result;
+    }
+
+    static BookingInterval normalize(BookingInterval i) {
+        return new BookingInterval(i.bookingId(), i.resourceId(),
+                i.startTime().toInstant().atOffset(ZoneOffset.UTC),
+                i.endTime().toInstant().atOffset(ZoneOffset.UTC));
+    }
+
+    private void trackDraft(BookingStatusChangedEvent event) {
+        if (event.to() == BookingStatus.DRAFT) {
+            drafts.put(event.bookingId(), new BookingInterval(event.bookingId(), event.resourceId(),
+                    event.startTime(), event.endTime()));
+        } else if (event.from() == BookingStatus.DRAFT) {
+            drafts.remove(event.bookingId());
+        }
+    }
+
+    private static void apply(Map<UUID, ResourceTimeline> target, BookingStatusChangedEvent event) {
+        Instant start = event.startTime().toInstant();
+        Instant end = event.endTime().toInstant();
+        if (event.occupiedAfter()) {
+            add(target, event.resourceId(), event.bookingId(), start, end);
+        } else {
+            ResourceTimeline timeline = target.get(event.resourceId());
+            if (timeline != null) {
+                timeline.intervals.remove(new Key(start, event.bookingId()));
+            }
+        }
+        log.debug("booking.index.apply bookingId={} resourceId={} from={} to={}",
+                event.bookingId(), event.resourceId(), event.from(), event.to());
+    }
+
+    private static void add(Map<UUID, ResourceTimeline> target, UUID resourceId, UUID bookingId, Instant start, Instant end) {
+        target.computeIfAbsent(resourceId, id -> new ResourceTimeline()).add(bookingId, start, end);
+    }
+
+    private record Key(Instant start, UUID bookingId) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key o) {
+            int c = start.compareTo(o.start);
+            return c != 0 ? c : bookingId.compareTo(o.bookingId);
+        }
+    }
+
+    private static final class ResourceTimeline {
+
+        private final NavigableMap<Key, Instant> intervals = new ConcurrentSkipListMap<>();
+        // максимальная длина интервала, когда-либо попадавшего в ресурс (сбрасывается при перестроении)
+        private final AtomicLong maxLengthMillis = new AtomicLong();
+
+        void add(UUID bookingId, Instant start, Instant end) {
+            maxLengthMillis.accumulateAndGet(Duration.between(start, end).toMillis(), Math::max);
+            intervals.put(new Key(start, bookingId), end);
+        }
+
+        boolean overlaps(Instant start, Instant end, UUID excludeBookingId) {
+            Instant from = start.minusMillis(maxLengthMillis.get());
+            for (Map.Entry<Key, Instant> e : intervals.subMap(new Key(from, MIN_UUID), true, new Key(end, MIN_UUID), false).entrySet()) {
+                if (e.getValue().isAfter(start) && !e.getKey().bookingId().equals(excludeBookingId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.ramil.booking.resource_booking.domain.booking.index;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ramil.booking.resource_booking.domain.booking.model.BookingStatus;
+import com.ramil.booking.resource_booking.domain.booking.repository.BookingRepository;
+
+// Загрузка BookingIntervalIndex при старте и периодическая сверка с БД
+// Сверка перестраивает индекс целиком и пишет в лог, сколько интервалов разошлось:
+// ненулевые значения означают изменения в обход BookingService (другая нода, ручной SQL)
+// Интервал сверки ограничивает, как долго нода может отклонять запрос по освобождённому на другой ноде интервалу
+@Component
+public class BookingIntervalIndexLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingIntervalIndexLoader.class);
+
+    private static final List<BookingStatus> OCCUPYING = List.of(
+            BookingStatus.WAITING_PAYMENT,
+            BookingStatus.CONFIRMED
+    );
+
+    private final BookingIntervalIndex index;
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate readOnlyTx;
+    private final boolean enabled;
+
+    public BookingIntervalIndexLoader(
+            BookingIntervalIndex index,
+            BookingRepository bookingRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.booking.conflict-index.enabled:true}") boolean enabled
+    ) {
+        this.index = Objects.requireNonNull(index);
+        this.bookingRepository = Objects.requireNonNull(bookingRepository);
+        this.readOnlyTx = new TransactionTemplate(Objects.requireNonNull(transactionManager));
+        this.readOnlyTx.setReadOnly(true);
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (!enabled) {
+            log.info("booking.index.disabled");
+            return;
+        }
+        Set<BookingInterval> loaded = load();
+        log.info("booking.index.loaded intervals={}", loaded.size());
+    }
+
+    @Scheduled(
+            initialDelayString = "${app.booking.conflict-index.check-interval:PT1M}",
+            fixedDelayString = "${app.booking.conflict-index.check-interval:PT1M}"
+    )
+    public void checkConsistency() {
+        if (!enabled || !index.isReady()) {
+            return;
+        }
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+
+        // уже закончившиеся интервалы из БД не грузим, поэтому и в индексе их не сравниваем
+        Set<BookingInterval> before = new HashSet<>(index.snapshot());
+        before.removeIf(i -> !i.endTime().isAfter(now));
+
+        Set<BookingInterval> actual = load();
+        index.pruneDrafts(now);
+
+        long missing = actual.stream().filter(i -> !before.contains(i)).count();
+        long stale = before.stream().filter(i -> !actual.contains(i)).count();
+
+        if (missing > 0 || stale > 0) {
+            log.warn("booking.index.drift missing={} stale={} intervals={}", missing, stale, actual.size());
+        } else {
+            log.debug("booking.index.consistent intervals={}", actual.size());
+        }
+    }
+
+    private Set<BookingInterval> load() {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        return readOnlyTx.execute(status -> {
+            try (Stream<BookingInterval> intervals = bookingRepository.streamActiveIntervals(OCCUPYING, now)) {
+                return index.rebuild(intervals);
+            }
+        });
+    }
+}
@@ -0,0 +1,20 @@
+package com.ramil.booking.resource_booking.domain.booking.model;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+
+// Таблица booking секционирована помесячно по start_time (V10), длина бронирования — не больше MAX_DURATION
+// (chk_booking_max_duration; в SQL тот же предел — функция booking_max_duration() из V10). У бронирования с end_time > X всегда start_time > X - MAX_DURATION:
+// запросы добавляют эту границу явно, иначе планировщик не отсечёт секции прошлых месяцев
+public final class BookingPartitioning {
+
+    public static final Duration MAX_DURATION = Duration.ofDays(31);
+
+    private BookingPartitioning() {
+    }
+
+    // Нижняя граница start_time для бронирований, заканчивающихся позже endAfter
+    public static OffsetDateTime minStart(OffsetDateTime endAfter) {
+        return endAfter.minus(MAX_DURATION);
+    }
+}
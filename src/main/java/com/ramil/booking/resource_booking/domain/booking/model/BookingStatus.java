@@ -5,5 +5,10 @@ public enum BookingStatus {
     WAITING_PAYMENT,
     CONFIRMED,
     CANCELED,
-    EXPIRED
-}
\ No newline at end of file
+    EXPIRED;
+
+    // Статусы, которые участвуют в booking_no_overlap и занимают слот ресурса
+    public boolean occupiesSlot() {
+        return this == WAITING_PAYMENT || this == CONFIRMED;
+    }
+}
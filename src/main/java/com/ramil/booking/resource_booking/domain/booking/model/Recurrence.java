@@ -0,0 +1,63 @@
+package com.ramil.booking.resource_booking.domain.booking.model;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import com.ramil.booking.resource_booking.domain.booking.dto.TimeSlot;
+import com.ramil.booking.resource_booking.domain.booking.exception.InvalidRecurrenceException;
+
+// Правило повторения в духе RRULE: FREQ=DAILY|WEEKLY, INTERVAL, COUNT или UNTIL
+// Повторы считаются от первого интервала с тем же смещением (без учёта перехода на летнее время)
+public record Recurrence(
+        RecurrenceFrequency frequency,
+        int interval,
+        Integer count,
+        OffsetDateTime until) {
+
+    public Recurrence {
+        Objects.requireNonNull(frequency, "frequency must not be null");
+        if (interval < 1) {
+            throw new InvalidRecurrenceException("interval must be positive: " + interval);
+        }
+        if ((count == null) == (until == null)) {
+            throw new InvalidRecurrenceException("exactly one of count or until must be set");
+        }
+        if (count != null && count < 1) {
+            throw new InvalidRecurrenceException("count must be positive: " + count);
+        }
+    }
+
+    // Все вхождения серии: первое — [start, end), следующие сдвинуты на interval дней/недель
+    // UNTIL ограничивает начало вхождения включительно
+    // Вхождение не может быть длиннее шага, иначе соседние вхождения серии пересекаются между собой
+    public List<TimeSlot> expand(OffsetDateTime start, OffsetDateTime end, int maxOccurrences) {
+        ChronoUnit unit = frequency == RecurrenceFrequency.DAILY ? ChronoUnit.DAYS : ChronoUnit.WEEKS;
+        Duration step = unit.getDuration().multipliedBy(interval);
+        if (Duration.between(start, end).compareTo(step) > 0) {
+            throw new InvalidRecurrenceException("occurrence duration must not exceed the recurrence step: " + step);
+        }
+
+        List<TimeSlot> slots = new ArrayList<>();
+        for (int k = 0; ; k++) {
+            if (count != null && k >= count) {
+                break;
+            }
+            OffsetDateTime s = start.plus((long) k * interval, unit);
+            if (until != null && s.isAfter(until)) {
+                break;
+            }
+            if (slots.size() == maxOccurrences) {
+                throw new InvalidRecurrenceException("series must not exceed " + maxOccurrences + " occurrences");
+            }
+            slots.add(new TimeSlot(s, end.plus((long) k * interval, unit)));
+        }
+        if (slots.isEmpty()) {
+            throw new InvalidRecurrenceException("until is before the first occurrence");
+        }
+        return slots;
+    }
+}
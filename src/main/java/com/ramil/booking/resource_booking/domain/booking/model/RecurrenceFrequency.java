@@ -0,0 +1,7 @@
+package com.ramil.booking.resource_booking.domain.booking.model;
+
+// Шаг повторения серии бронирований (аналог FREQ в RRULE)
+public enum RecurrenceFrequency {
+    DAILY,
+    WEEKLY
+}
@@ -0,0 +1,15 @@
+package com.ramil.booking.resource_booking.domain.booking.model;
+
+// Результат условной смены статуса (BookingRepository.transition)
+public enum TransitionOutcome {
+    // статус изменён
+    APPLIED,
+    // бронирования нет
+    NOT_FOUND,
+    // бронирование принадлежит другому пользователю
+    NOT_OWNER,
+    // бронирование не в одном из ожидаемых статусов
+    WRONG_STATE,
+    // ресурс бронирования деактивирован
+    RESOURCE_INACTIVE
+}
@@ -0,0 +1,7 @@
+package com.ramil.booking.resource_booking.domain.booking.model;
+
+public enum WaitlistStatus {
+    WAITING,
+    PROMOTED,
+    CANCELED
+}
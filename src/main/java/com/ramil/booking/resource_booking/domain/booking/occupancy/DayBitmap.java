@@ -0,0 +1,101 @@
+package com.ramil.booking.resource_booking.domain.booking.occupancy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+// Занятость ресурса за сутки (UTC): 96 слотов по 15 минут, бит i — слот [00:00 + 15i мин, +15 мин)
+// Хранится в long[2]: слоты 0..63 в первом слове, 64..95 — в младших битах второго
+// Массив заполняется до публикации в кэш и после не меняется, поэтому читатели обходятся без блокировок
+public final class DayBitmap {
+
+    public static final Duration SLOT = Duration.ofMinutes(15);
+    public static final int SLOTS = 96;
+
+    private static final int WORDS = 2;
+    private static final long SLOT_NANOS = SLOT.toNanos();
+    private static final long DAY_NANOS = Duration.ofDays(1).toNanos();
+
+    // один экземпляр на все свободные дни: пустой день в кэше стоит только ключа
+    private static final long[] EMPTY = new long[WORDS];
+
+    private DayBitmap() {
+    }
+
+    public static long[] empty() {
+        return EMPTY;
+    }
+
+    public static long[] newBitmap() {
+        return new long[WORDS];
+    }
+
+    // Сутки UTC, которые задевает [start, end)
+    public static List<LocalDate> days(Instant start, Instant end) {
+        List<LocalDate> days = new ArrayList<>();
+        LocalDate last = end.minusNanos(1).atOffset(ZoneOffset.UTC).toLocalDate();
+        for (LocalDate d = start.atOffset(ZoneOffset.UTC).toLocalDate(); !d.isAfter(last); d = d.plusDays(1)) {
+            days.add(d);
+        }
+        return days;
+    }
+
+    // Отмечает в bits слоты дня, которые [start, end) задевает хотя бы частично (меняет массив)
+    public static void mark(long[] bits, LocalDate day, Instant start, Instant end) {
+        long from = offset(day, start);
+        long to = offset(day, end);
+        if (to <= from) {
+            return;
+        }
+        set(bits, (int) (from / SLOT_NANOS), (int) ceilDiv(to, SLOT_NANOS), true);
+    }
+
+    public static int occupied(long[] bits) {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    // 24 hex-символа; первый символ — слоты 0..3, старший бит символа — слот 0
+    public static String toHex(long[] bits) {
+        char[] out = new char[SLOTS / 4];
+        for (int i = 0; i < out.length; i++) {
+            int nibble = 0;
+            for (int b = 0; b < 4; b++) {
+                nibble = (nibble << 1) | (isSet(bits, i * 4 + b) ? 1 : 0);
+            }
+            out[i] = Character.forDigit(nibble, 16);
+        }
+        return new String(out);
+    }
+
+    // Смещение момента от начала дня в наносекундах, прижатое к [0, сутки]
+    private static long offset(LocalDate day, Instant instant) {
+        long nanos = Duration.between(day.atStartOfDay(ZoneOffset.UTC).toInstant(), instant).toNanos();
+        return Math.max(0, Math.min(DAY_NANOS, nanos));
+    }
+
+    private static long ceilDiv(long a, long b) {
+        return (a + b - 1) / b;
+    }
+
+    private static boolean isSet(long[] bits, int slot) {
+        return (bits[slot >>> 6] & (1L << (slot & 63))) != 0;
+    }
+
+    // Слоты [from, to)
+    private static void set(long[] bits, int from, int to, boolean value) {
+        for (int slot = from; slot < to; slot++) {
+            if (value) {
+                bits[slot >>> 6] |= 1L << (slot & 63);
+            } else {
+                bits[slot >>> 6] &= ~(1L << (slot & 63));
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.ramil.booking.resource_booking.domain.booking.repository;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+// Архивирование старых секций booking (V20)
+// DETACH ... CONCURRENTLY не работает внутри транзакции, поэтому отсоединение идёт через JdbcTemplate
+// на отдельном соединении в autocommit; проверка и перенос в booking_archive — функции БД в транзакции вызывающего
+@Repository
+public class BookingArchiveRepository {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("booking_[0-9]{4}_[0-9]{2}");
+
+    // Секции месяцев раньше :before в схеме public: ещё присоединённые, отсоединяемые (CONCURRENTLY прервался)
+    // и уже отсоединённые, но не перенесённые в booking_archive (нода упала между шагами)
+    private static final String PARTITIONS_SQL = """
+            select c.relname as name,
+                   i.inhrelid is not null as attached,
+                   coalesce(i.inhdetachpending, false) as detach_pending
+            from pg_class c
+            join pg_namespace n on n.oid = c.relnamespace
+            left join pg_inherits i on i.inhrelid = c.oid and i.inhparent = 'booking'::regclass
+            where n.nspname = 'public'
+              and c.relkind = 'r'
+              and c.relname ~ '^booking_[0-9]{4}_[0-9]{2}$'
+              and to_date(substr(c.relname, 9), 'YYYY_MM') < ?
+            order by c.relname
+            """;
+
+    private final JdbcTemplate jdbc;
+
+    public BookingArchiveRepository(JdbcTemplate jdbc) {
+        this.jdbc = Objects.requireNonNull(jdbc);
+    }
+
+    public List<Partition> findPartitionsBefore(YearMonth before) {
+        return jdbc.query(PARTITIONS_SQL,
+                (rs, i) -> new Partition(rs.getString("name"), rs.getBoolean("attached"), rs.getBoolean("detach_pending")),
+                Date.valueOf(before.atDay(1)));
+    }
+
+    // false — в секции есть незавершённые бронирования или платежи (booking_archive_ready)
+    public boolean isReady(String partition) {
+        return Boolean.TRUE.equals(jdbc.queryForObject("select booking_archive_ready(?)", Boolean.class,
+                checkName(partition)));
+    }
+
+    // Вне транзакции. Без секции по умолчанию — CONCURRENTLY (SHARE UPDATE EXCLUSIVE, чтение и запись booking
+    // не блокируются); с ней PostgreSQL допускает только обычный DETACH под ACCESS EXCLUSIVE, и lockTimeout
+    // не даёт ему встать в очередь блокировок перед всеми запросами к booking: при таймауте — повтор в следующий запуск
+    public void detach(Partition partition, Duration lockTimeout) {
+        String name = checkName(partition.name());
+        jdbc.execute((ConnectionCallback<Void>) con -> {
+            boolean autoCommit = con.getAutoCommit();
+            con.setAutoCommit(true);
+            try (Statement st = con.createStatement()) {
+                st.execute("set lock_timeout = " + lockTimeout.toMillis());
+                try {
+                    if (partition.detachPending()) {
+                        st.execute("alter table booking detach partition " + name + " finalize");
+                    } else if (hasDefaultPartition(st)) {
+                        st.execute("alter table booking detach partition " + name);
+                    } else {
+                        st.execute("alter table booking detach partition " + name + " concurrently");
+                    }
+                } finally {
+                    st.execute("reset lock_timeout");
+                }
+            } finally {
+                con.setAutoCommit(autoCommit);
+            }
+            return null;
+        });
+    }
+
+    // Платежи секции — в booking_archive.payment, секция — в схему booking_archive (booking_archive_detached)
+    public void archiveDetached(String partition) {
+        jdbc.queryForObject("select booking_archive_detached(?)::text", String.class, checkName(partition));
+    }
+
+    private static boolean hasDefaultPartition(Statement st) throws SQLException {
+        try (ResultSet rs = st.executeQuery(
+                "select partdefid <> 0 from pg_partitioned_table where partrelid = 'booking'::regclass")) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    // имя попадает в DDL как идентификатор, поэтому принимаются только имена секций booking_YYYY_MM
+    private static String checkName(String partition) {
+        if (!PARTITION_NAME.matcher(partition).matches()) {
+            throw new IllegalArgumentException("Not a booking partition: " + partition);
+        }
+        return partition;
+    }
+
+    public record Partition(String name, boolean attached, boolean detachPending) {
+    }
+}
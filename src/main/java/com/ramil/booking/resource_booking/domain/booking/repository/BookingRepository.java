@@ -1,27 +1,31 @@
 package com.ramil.booking.resource_booking.domain.booking.repository;
 
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-import com.ramil.booking.resource_booking.domain.resource.entity.ResourceEntity;
-import jakarta.persistence.LockModeType;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingView;
+import com.ramil.booking.resource_booking.domain.booking.dto.TimeSlot;
 import com.ramil.booking.resource_booking.domain.booking.entity.BookingEntity;
+import com.ramil.booking.resource_booking.domain.booking.index.BookingInterval;
+import com.ramil.booking.resource_booking.domain.booking.model.BookingPartitioning;
 import com.ramil.booking.resource_booking.domain.booking.model.BookingStatus;
 
-public interface BookingRepository extends JpaRepository<BookingEntity, UUID> {
+import jakarta.persistence.QueryHint;
 
-    @Query("select b from BookingEntity b where b.user.id = :userId order by b.startTime desc")
-    List<BookingEntity> findByUserId(@Param("userId") UUID userId);
-
-    @Query("select b from BookingEntity b order by b.startTime desc")
-    List<BookingEntity> findAllOrderByStartTimeDesc();
+// Запросы по интервалу времени ограничивают start_time с двух сторон: сверху — концом окна,
+// снизу — BookingPartitioning.minStart(начало окна). Так затрагиваются только секции booking за эти месяцы (V10)
+public interface BookingRepository extends JpaRepository<BookingEntity, UUID>, BookingRepositoryCustom {
 
     @Query("""
             select b
@@ -29,14 +33,141 @@ public interface BookingRepository extends JpaRepository<BookingEntity, UUID> {
             where b.resource.id = :resourceId
               and b.status in :activeStatuses
               and b.startTime < :endTime
+              and b.startTime > :minStart
               and b.endTime > :startTime
             """)
     List<BookingEntity> findConflicts(@Param("resourceId") UUID resourceId,
                                       @Param("startTime") OffsetDateTime startTime,
                                       @Param("endTime") OffsetDateTime endTime,
+                                      @Param("minStart") OffsetDateTime minStart,
                                       @Param("activeStatuses") List<BookingStatus> activeStatuses);
 
-    @Lock(LockModeType.PESSIMISTIC_WRITE)
-    @Query("select r from ResourceEntity r where r.id = :id")
-    Optional<ResourceEntity> findByIdForUpdate(@Param("id") UUID id);
+    default List<BookingEntity> findConflicts(UUID resourceId, OffsetDateTime startTime, OffsetDateTime endTime,
+                                              List<BookingStatus> activeStatuses) {
+        return findConflicts(resourceId, startTime, endTime, BookingPartitioning.minStart(startTime), activeStatuses);
+    }
+
+    // Чтение для API: сразу BookingView, без сущности и прокси user/resource (их id — колонки booking)
+    @Query("""
+            select new com.ramil.booking.resource_booking.domain.booking.dto.BookingView(
+                b.id, b.user.id, b.resource.id, b.startTime, b.endTime, b.status, b.seriesId)
+            from BookingEntity b
+            where b.id = :id
+            """)
+    Optional<BookingView> findViewById(@Param("id") UUID id);
+
+    // Владелец бронирования — для проверки доступа без загрузки сущности
+    @Query("select b.user.id from BookingEntity b where b.id = :id")
+    Optional<UUID> findOwnerId(@Param("id") UUID id);
+
+    // Ресурс бронирования — для очереди допуска по ресурсу (ResourceAdmission)
+    @Query("select b.resource.id from BookingEntity b where b.id = :id")
+    Optional<UUID> findResourceId(@Param("id") UUID id);
+
+    @Query("select b from BookingEntity b where b.seriesId = :seriesId order by b.startTime")
+    List<BookingEntity> findBySeriesId(@Param("seriesId") UUID seriesId);
+
+    // Номера (с 1) вхождений серии, пересекающихся с занятыми бронированиями ресурса — одним запросом
+    // ranges — литерал массива tstzrange: {"[2026-02-16T09:00Z,2026-02-16T10:00Z)", ...}
+    // minStart — BookingPartitioning.minStart от самого раннего вхождения: отсекает секции booking
+    @Query(value = """
+            select r.ord
+            from unnest(cast(:ranges as tstzrange[])) with ordinality as r(slot, ord)
+            where exists (
+                select 1
+                from booking b
+                where b.resource_id = :resourceId
+                  and b.status in ('WAITING_PAYMENT', 'CONFIRMED')
+                  and b.start_time < upper(r.slot)
+                  and b.start_time > :minStart
+                  and tstzrange(b.start_time, b.end_time, '[)') && r.slot
+            )
+            order by r.ord
+            """, nativeQuery = true)
+    List<Long> findConflictingOccurrences(@Param("resourceId") UUID resourceId, @Param("ranges") String ranges,
+                                          @Param("minStart") OffsetDateTime minStart);
+
+    // Занятые интервалы нескольких ресурсов в общем окне — для пакетной проверки конфликтов одним запросом
+    @Query("""
+            select new com.ramil.booking.resource_booking.domain.booking.index.BookingInterval(
+                b.id, b.resource.id, b.startTime, b.endTime)
+            from BookingEntity b
+            where b.resource.id in :resourceIds
+              and b.status in :activeStatuses
+              and b.startTime < :to
+              and b.startTime > :minStart
+              and b.endTime > :from
+            """)
+    List<BookingInterval> findActiveIntervals(@Param("resourceIds") Collection<UUID> resourceIds,
+                                              @Param("from") OffsetDateTime from,
+                                              @Param("to") OffsetDateTime to,
+                                              @Param("minStart") OffsetDateTime minStart,
+                                              @Param("activeStatuses") List<BookingStatus> activeStatuses);
+
+    default List<BookingInterval> findActiveIntervals(Collection<UUID> resourceIds, OffsetDateTime from,
+                                                      OffsetDateTime to, List<BookingStatus> activeStatuses) {
+        return findActiveIntervals(resourceIds, from, to, BookingPartitioning.minStart(from), activeStatuses);
+    }
+
+    // Занятые отрезки ресурса в окне, по возрастанию начала — один range scan по idx_booking_resource_time
+    // Вызывать внутри транзакции и закрывать stream
+    @Query("""
+            select new com.ramil.booking.resource_booking.domain.booking.dto.TimeSlot(b.startTime, b.endTime)
+            from BookingEntity b
+            where b.resource.id = :resourceId
+              and b.startTime < :to
+              and b.startTime > :minStart
+              and b.endTime > :from
+              and b.status in :activeStatuses
+            order by b.startTime
+            """)
+    Stream<TimeSlot> streamBusySlots(@Param("resourceId") UUID resourceId,
+                                     @Param("from") OffsetDateTime from,
+                                     @Param("to") OffsetDateTime to,
+                                     @Param("minStart") OffsetDateTime minStart,
+                                     @Param("activeStatuses") List<BookingStatus> activeStatuses);
+
+    default Stream<TimeSlot> streamBusySlots(UUID resourceId, OffsetDateTime from, OffsetDateTime to,
+                                             List<BookingStatus> activeStatuses) {
+        return streamBusySlots(resourceId, from, to, BookingPartitioning.minStart(from), activeStatuses);
+    }
+
+    // Для загрузки BookingIntervalIndex: только нужные поля, без сущностей в persistence context
+    // Вызывать внутри транзакции и закрывать stream
+    @Query("""
+            select new com.ramil.booking.resource_booking.domain.booking.index.BookingInterval(
+                b.id, b.resource.id, b.startTime, b.endTime)
+            from BookingEntity b
+            where b.status in :activeStatuses
+              and b.startTime > :minStart
+              and b.endTime > :after
+            """)
+    Stream<BookingInterval> streamActiveIntervals(@Param("activeStatuses") List<BookingStatus> activeStatuses,
+                                                  @Param("after") OffsetDateTime after,
+                                                  @Param("minStart") OffsetDateTime minStart);
+
+    default Stream<BookingInterval> streamActiveIntervals(List<BookingStatus> activeStatuses, OffsetDateTime after) {
+        return streamActiveIntervals(activeStatuses, after, BookingPartitioning.minStart(after));
+    }
+
+    // Выгрузка всех бронирований: курсор PostgreSQL с fetch size вместо загрузки таблицы в память
+    // Вызывать внутри транзакции, закрывать stream и периодически очищать persistence context
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select b from BookingEntity b order by b.startTime, b.id")
+    Stream<BookingEntity> streamAllForExport();
+
+    // Самое старое бронирование в статусе, ожидающее истечения (для метрики отставания)
+    @Query(value = """
+            select min(status_changed_at)
+            from booking
+            where status = :status and status_changed_at < :cutoff
+            """, nativeQuery = true)
+    Instant findOldestStale(@Param("status") String status, @Param("cutoff") Instant cutoff);
+
+    default Instant findOldestStale(BookingStatus status, Instant cutoff) {
+        return findOldestStale(status.name(), cutoff);
+    }
 }
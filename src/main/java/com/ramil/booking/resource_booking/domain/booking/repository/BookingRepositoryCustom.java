@@ -0,0 +1,35 @@
+package com.ramil.booking.resource_booking.domain.booking.repository;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingCursor;
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingFilter;
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingTransition;
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingView;
+import com.ramil.booking.resource_booking.domain.booking.dto.StatusTransition;
+import com.ramil.booking.resource_booking.domain.booking.index.BookingInterval;
+import com.ramil.booking.resource_booking.domain.booking.model.BookingStatus;
+
+// Запросы, которые собираются динамически и не выражаются через @Query
+public interface BookingRepositoryCustom {
+
+    // Keyset-пагинация по (start_time desc, id desc): строки строго после cursor, не больше limit
+    // userId == null — бронирования всех пользователей; строки сразу проецируются в BookingView
+    List<BookingView> findPage(UUID userId, BookingFilter filter, BookingCursor after, int limit);
+
+    // Переводит в EXPIRED до limit бронирований, находящихся в статусе from с момента раньше cutoff, одним UPDATE
+    // Держат бронирование только платежи NEW, созданные позже paymentCutoff
+    // Строки, заблокированные другой транзакцией (или другой нодой), пропускаются; возвращает истёкшие
+    List<BookingInterval> expireStale(BookingStatus from, Instant cutoff, Instant paymentCutoff, int limit);
+
+    // Смена статуса одним UPDATE ... WHERE status IN (from) RETURNING: без чтения сущности и dirty checking
+    // Если строка не подошла, второй запрос выясняет причину (NOT_FOUND / NOT_OWNER / WRONG_STATE / RESOURCE_INACTIVE)
+    // Нарушение booking_no_overlap — DataIntegrityViolationException
+    BookingTransition transition(StatusTransition t);
+
+    // Секция booking за месяц (booking_create_partition, V10); false — секция уже была
+    boolean createPartition(YearMonth month);
+}
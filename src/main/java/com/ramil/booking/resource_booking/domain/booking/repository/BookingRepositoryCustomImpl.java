@@ -0,0 +1,214 @@
+package com.ramil.booking.resource_booking.domain.booking.repository;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+import org.hibernate.query.NativeQuery;
+
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingCursor;
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingFilter;
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingTransition;
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingView;
+import com.ramil.booking.resource_booking.domain.booking.dto.StatusTransition;
+import com.ramil.booking.resource_booking.domain.booking.entity.BookingEntity;
+import com.ramil.booking.resource_booking.domain.booking.index.BookingInterval;
+import com.ramil.booking.resource_booking.domain.booking.model.BookingPartitioning;
+import com.ramil.booking.resource_booking.domain.booking.model.BookingStatus;
+import com.ramil.booking.resource_booking.domain.booking.model.TransitionOutcome;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+// findPage: фильтры добавляются в WHERE только если заданы, чтобы планировщик видел простой запрос
+// и шёл по индексам idx_booking_start_id / idx_booking_user_start_id (V8).
+// Выборка — конструктор BookingView: ни снимка для dirty checking, ни прокси user/resource
+public class BookingRepositoryCustomImpl implements BookingRepositoryCustom {
+
+    // Подзапрос блокирует кандидатов FOR UPDATE SKIP LOCKED: несколько нод разбирают разные строки
+    // и не ждут друг друга; PostgreSQL перепроверяет условия на заблокированной версии строки.
+    // Срок считается от status_changed_at (V19). Бронирования с платежом NEW, созданным позже paymentCutoff,
+    // не трогаем — оплата ещё идёт; более старый NEW считается зависшим и истечение не держит
+    private static final String EXPIRE_SQL = """
+            update booking
+            set status = 'EXPIRED', updated_at = now(), updated_by = 'system'
+            where id in (
+                select b.id
+                from booking b
+                where b.status = :fromStatus
+                  and b.status_changed_at < :cutoff
+                  and not exists (
+                      select 1 from payment p
+                      where p.booking_id = b.id and p.status = 'NEW' and p.created_at > :paymentCutoff
+                  )
+                order by b.status_changed_at
+                limit :limit
+                for update skip locked
+            )
+            returning id, resource_id, start_time, end_time
+            """;
+
+    // Подзапрос old блокирует строку и отдаёт статус до UPDATE (RETURNING видит только новые значения)
+    private static final String TRANSITION_SQL = """
+            update booking b
+            set status = :to, updated_at = now(), updated_by = :actor%s
+            from (select id, status from booking where id = :id for update) old
+            where b.id = old.id
+              and old.status in (:from)%s
+            returning b.id, b.user_id, b.resource_id, b.start_time, b.end_time, b.status, b.series_id,
+                      old.status as old_status
+            """;
+
+    private final EntityManager em;
+
+    public BookingRepositoryCustomImpl(EntityManager em) {
+        this.em = Objects.requireNonNull(em);
+    }
+
+    @Override
+    public List<BookingView> findPage(UUID userId, BookingFilter filter, BookingCursor after, int limit) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<BookingView> q = cb.createQuery(BookingView.class);
+        Root<BookingEntity> b = q.from(BookingEntity.class);
+
+        List<Predicate> where = new ArrayList<>();
+        if (userId != null) {
+            where.add(cb.equal(b.get("user").get("id"), userId));
+        }
+        if (filter.statuses() != null && !filter.statuses().isEmpty()) {
+            where.add(b.get("status").in(filter.statuses()));
+        }
+        if (filter.to() != null) {
+            where.add(cb.lessThan(b.get("startTime"), filter.to()));
+        }
+        if (filter.from() != null) {
+            where.add(cb.greaterThan(b.get("endTime"), filter.from()));
+            // нижняя граница start_time — для отсечения секций booking
+            where.add(cb.greaterThan(b.get("startTime"), BookingPartitioning.minStart(filter.from())));
+        }
+        if (after != null) {
+            // (start_time, id) < (:start, :id); отдельное start_time <= :start даёт границу индексного скана
+            where.add(cb.lessThanOrEqualTo(b.get("startTime"), after.startTime()));
+            where.add(cb.or(
+                    cb.lessThan(b.get("startTime"), after.startTime()),
+                    cb.and(cb.equal(b.get("startTime"), after.startTime()), cb.lessThan(b.get("id"), after.id()))
+            ));
+        }
+
+        q.select(cb.construct(BookingView.class,
+                        b.get("id"), b.get("user").get("id"), b.get("resource").get("id"),
+                        b.get("startTime"), b.get("endTime"), b.get("status"), b.get("seriesId")))
+                .where(where.toArray(Predicate[]::new))
+                .orderBy(cb.desc(b.get("startTime")), cb.desc(b.get("id")));
+
+        return em.createQuery(q).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<BookingInterval> expireStale(BookingStatus from, Instant cutoff, Instant paymentCutoff, int limit) {
+        List<Object[]> rows = em.createNativeQuery(EXPIRE_SQL)
+                .setParameter("fromStatus", from.name())
+                .setParameter("cutoff", cutoff)
+                .setParameter("paymentCutoff", paymentCutoff)
+                .setParameter("limit", limit)
+                .unwrap(NativeQuery.class)
+                .addScalar("id", UUID.class)
+                .addScalar("resource_id", UUID.class)
+                .addScalar("start_time", OffsetDateTime.class)
+                .addScalar("end_time", OffsetDateTime.class)
+                .getResultList();
+
+        return rows.stream()
+                .map(r -> new BookingInterval((UUID) r[0], (UUID) r[1], (OffsetDateTime) r[2], (OffsetDateTime) r[3]))
+                .toList();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public BookingTransition transition(StatusTransition t) {
+        // необязательные части добавляются в текст, а не через "is null": null-параметры без типа PostgreSQL не примет
+        String set = t.paidBy() == null
+                ? ""
+                : ", paid_at = coalesce(b.paid_at, now()), paid_by = coalesce(b.paid_by, :paidBy)";
+        StringBuilder where = new StringBuilder();
+        if (t.ownerId() != null) {
+            where.append("\n  and b.user_id = :ownerId");
+        }
+        if (t.requireActiveResource()) {
+            where.append("\n  and exists (select 1 from resource r where r.id = b.resource_id and r.active for share)");
+        }
+
+        Query q = em.createNativeQuery(TRANSITION_SQL.formatted(set, where))
+                .setParameter("id", t.bookingId())
+                .setParameter("to", t.to().name())
+                .setParameter("actor", t.actor())
+                .setParameter("from", t.from().stream().map(Enum::name).toList());
+        if (t.paidBy() != null) {
+            q.setParameter("paidBy", t.paidBy());
+        }
+        if (t.ownerId() != null) {
+            q.setParameter("ownerId", t.ownerId());
+        }
+
+        List<Object[]> rows = q.unwrap(NativeQuery.class)
+                .addScalar("id", UUID.class)
+                .addScalar("user_id", UUID.class)
+                .addScalar("resource_id", UUID.class)
+                .addScalar("start_time", OffsetDateTime.class)
+                .addScalar("end_time", OffsetDateTime.class)
+                .addScalar("status", String.class)
+                .addScalar("series_id", UUID.class)
+                .addScalar("old_status", String.class)
+                .getResultList();
+
+        if (!rows.isEmpty()) {
+            Object[] r = rows.get(0);
+            BookingView view = new BookingView((UUID) r[0], (UUID) r[1], (UUID) r[2],
+                    (OffsetDateTime) r[3], (OffsetDateTime) r[4], BookingStatus.valueOf((String) r[5]), (UUID) r[6]);
+            return BookingTransition.applied(view, BookingStatus.valueOf((String) r[7]));
+        }
+        return explainMiss(t);
+    }
+
+    // Редкий путь: строка не обновлена, выясняем почему
+    private BookingTransition explainMiss(StatusTransition t) {
+        List<Object[]> found = em.createQuery("""
+                        select b.user.id, b.status, b.resource.id, b.resource.active
+                        from BookingEntity b
+                        where b.id = :id
+                        """, Object[].class)
+                .setParameter("id", t.bookingId())
+                .getResultList();
+
+        if (found.isEmpty()) {
+            return BookingTransition.rejected(TransitionOutcome.NOT_FOUND, null, null);
+        }
+        Object[] row = found.get(0);
+        UUID resourceId = (UUID) row[2];
+        if (t.ownerId() != null && !t.ownerId().equals(row[0])) {
+            return BookingTransition.rejected(TransitionOutcome.NOT_OWNER, null, resourceId);
+        }
+        BookingStatus status = (BookingStatus) row[1];
+        if (t.from().contains(status) && t.requireActiveResource() && !((Boolean) row[3])) {
+            return BookingTransition.rejected(TransitionOutcome.RESOURCE_INACTIVE, status, resourceId);
+        }
+        return BookingTransition.rejected(TransitionOutcome.WRONG_STATE, status, resourceId);
+    }
+
+    @Override
+    public boolean createPartition(YearMonth month) {
+        Object created = em.createNativeQuery("select booking_create_partition(:month)")
+                .setParameter("month", month.atDay(1))
+                .getSingleResult();
+        return Boolean.TRUE.equals(created);
+    }
+}
@@ -0,0 +1,128 @@
+package com.ramil.booking.resource_booking.domain.booking.repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+
+import com.ramil.booking.resource_booking.domain.booking.dto.WaitlistEntryView;
+import com.ramil.booking.resource_booking.domain.booking.dto.WaitlistPromotion;
+import com.ramil.booking.resource_booking.domain.booking.model.WaitlistStatus;
+
+import jakarta.persistence.EntityManager;
+
+// Лист ожидания (V12) без сущности: статус строки меняет и функция booking_waitlist_promote,
+// закэшированная в persistence context копия тут же устарела бы
+@Repository
+public class WaitlistRepository {
+
+    private static final String SELECT_VIEW = """
+            select id, user_id, resource_id, start_time, end_time, status, booking_id, created_at
+            from booking_waitlist
+            """;
+
+    private final EntityManager em;
+
+    public WaitlistRepository(EntityManager em) {
+        this.em = Objects.requireNonNull(em);
+    }
+
+    public void insert(UUID id, UUID userId, UUID resourceId, OffsetDateTime start, OffsetDateTime end, String actor) {
+        em.createNativeQuery("""
+                        insert into booking_waitlist(id, user_id, resource_id, start_time, end_time, status,
+                                                     created_at, created_by, updated_at, updated_by)
+                        values (:id, :userId, :resourceId, :start, :end, 'WAITING', now(), :actor, now(), :actor)
+                        """)
+                .setParameter("id", id)
+                .setParameter("userId", userId)
+                .setParameter("resourceId", resourceId)
+                .setParameter("start", start)
+                .setParameter("end", end)
+                .setParameter("actor", actor)
+                .executeUpdate();
+    }
+
+    public Optional<WaitlistEntryView> findViewById(UUID id) {
+        List<WaitlistEntryView> rows = views(SELECT_VIEW + "where id = :id", "id", id);
+        return rows.stream().findFirst();
+    }
+
+    // Ожидающие и продвинутые записи пользователя, новые первыми (idx_booking_waitlist_user)
+    public List<WaitlistEntryView> findActiveViewsByUserId(UUID userId) {
+        return views(SELECT_VIEW + """
+                where user_id = :userId
+                  and status in ('WAITING', 'PROMOTED')
+                order by created_at desc
+                """, "userId", userId);
+    }
+
+    public long countWaitingByUserId(UUID userId) {
+        Number count = (Number) em.createNativeQuery("""
+                        select count(*) from booking_waitlist where user_id = :userId and status = 'WAITING'
+                        """)
+                .setParameter("userId", userId)
+                .getSingleResult();
+        return count.longValue();
+    }
+
+    // WAITING -> CANCELED; false — запись уже не ожидает
+    public boolean cancel(UUID id, String actor) {
+        return em.createNativeQuery("""
+                        update booking_waitlist
+                        set status = 'CANCELED', updated_at = now(), updated_by = :actor
+                        where id = :id and status = 'WAITING'
+                        """)
+                .setParameter("id", id)
+                .setParameter("actor", actor)
+                .executeUpdate() > 0;
+    }
+
+    // Продвигает ожидающих на освободившийся [from, to) (booking_waitlist_promote, V12)
+    // flush: функция должна видеть изменения сущностей текущей транзакции (например, отменённые вхождения серии)
+    @SuppressWarnings("unchecked")
+    public List<WaitlistPromotion> promote(UUID resourceId, OffsetDateTime from, OffsetDateTime to) {
+        em.flush();
+        List<Object[]> rows = em.createNativeQuery("select * from booking_waitlist_promote(:resourceId, :from, :to)")
+                .setParameter("resourceId", resourceId)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .unwrap(NativeQuery.class)
+                .addScalar("waitlist_id", UUID.class)
+                .addScalar("promoted_booking_id", UUID.class)
+                .addScalar("waiter_id", UUID.class)
+                .addScalar("slot_start", OffsetDateTime.class)
+                .addScalar("slot_end", OffsetDateTime.class)
+                .getResultList();
+
+        return rows.stream()
+                .map(r -> new WaitlistPromotion((UUID) r[0], (UUID) r[1], (UUID) r[2], resourceId,
+                        (OffsetDateTime) r[3], (OffsetDateTime) r[4]))
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<WaitlistEntryView> views(String sql, String param, UUID value) {
+        List<Object[]> rows = em.createNativeQuery(sql)
+                .setParameter(param, value)
+                .unwrap(NativeQuery.class)
+                .addScalar("id", UUID.class)
+                .addScalar("user_id", UUID.class)
+                .addScalar("resource_id", UUID.class)
+                .addScalar("start_time", OffsetDateTime.class)
+                .addScalar("end_time", OffsetDateTime.class)
+                .addScalar("status", String.class)
+                .addScalar("booking_id", UUID.class)
+                .addScalar("created_at", OffsetDateTime.class)
+                .getResultList();
+
+        return rows.stream()
+                .map(r -> new WaitlistEntryView((UUID) r[0], (UUID) r[1], (UUID) r[2],
+                        (OffsetDateTime) r[3], (OffsetDateTime) r[4], WaitlistStatus.valueOf((String) r[5]),
+                        (UUID) r[6], (OffsetDateTime) r[7]))
+                .toList();
+    }
+}
@@ -0,0 +1,218 @@
+package com.ramil.booking.resource_booking.domain.booking.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.ramil.booking.resource_booking.domain.booking.dto.TimeSlot;
+import com.ramil.booking.resource_booking.domain.booking.event.BookingStatusChangedEvent;
+import com.ramil.booking.resource_booking.domain.booking.exception.BookingTimeRangeException;
+import com.ramil.booking.resource_booking.domain.booking.model.BookingStatus;
+import com.ramil.booking.resource_booking.domain.booking.repository.BookingRepository;
+import com.ramil.booking.resource_booking.domain.resource.entity.ResourceEntity;
+import com.ramil.booking.resource_booking.domain.resource.exception.ResourceNotFoundException;
+import com.ramil.booking.resource_booking.domain.resource.repository.ResourceRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+// Свободные окна ресурса: чтобы клиенты не искали слот перебором через createBookingDraft
+// Занятые отрезки читаются одним упорядоченным запросом и сливаются на лету, сущности не создаются
+// Результат кэшируется по (ресурс, окно, минимальная длительность) и сбрасывается
+// по ресурсу после коммита любой смены статуса, влияющей на занятость; ключи ресурса хранятся в keysByResource,
+// чтобы сброс не обходил весь кэш
+// Загрузка, начатая до коммита, могла прочитать старое состояние: как в OccupancyService, версия ресурса
+// снимается до чтения, и если к концу загрузки она сменилась, результат отдаётся, но в кэш не попадает
+@Service
+public class AvailabilityService {
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityService.class);
+
+    private static final List<BookingStatus> ACTIVE_FOR_CONFLICT = List.of(
+            BookingStatus.WAITING_PAYMENT,
+            BookingStatus.CONFIRMED
+    );
+
+    private final BookingRepository bookingRepository;
+    private final ResourceRepository resourceRepository;
+    private final TransactionTemplate readOnlyTx;
+    private final Duration maxWindow;
+    private static final int VERSION_STRIPES = 256;
+
+    private final Cache<Key, List<TimeSlot>> cache;
+    private final ConcurrentMap<UUID, Set<Key>> keysByResource = new ConcurrentHashMap<>();
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    public AvailabilityService(
+            BookingRepository bookingRepository,
+            ResourceRepository resourceRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.booking.availability.max-window:P31D}") Duration maxWindow,
+            @Value("${app.booking.availability.cache-ttl:PT1M}") Duration cacheTtl,
+            @Value("${app.booking.availability.cache-max-size:10000}") long cacheMaxSize
+    ) {
+        this.bookingRepository = Objects.requireNonNull(bookingRepository);
+        this.resourceRepository = Objects.requireNonNull(resourceRepository);
+        this.readOnlyTx = new TransactionTemplate(Objects.requireNonNull(transactionManager));
+        this.readOnlyTx.setReadOnly(true);
+        this.maxWindow = Objects.requireNonNull(maxWindow);
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Objects.requireNonNull(cacheTtl))
+                .maximumSize(cacheMaxSize)
+                // вытеснение по размеру и ttl синхронно убирает ключ и из keysByResource
+                .evictionListener((Key key, List<TimeSlot> value, RemovalCause cause) -> {
+                    if (key != null) {
+                        forget(key);
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "availability");
+    }
+
+    // Свободные отрезки [from, to), не короче minDuration (null — любые)
+    // Для неактивного ресурса свободных окон нет
+    public List<TimeSlot> availability(UUID resourceId, OffsetDateTime from, OffsetDateTime to, Duration minDuration) {
+        Objects.requireNonNull(resourceId, "resourceId");
+        Objects.requireNonNull(from, "from");
+        Objects.requireNonNull(to, "to");
+
+        if (!to.isAfter(from)) {
+            throw new BookingTimeRangeException(from, to);
+        }
+        if (Duration.between(from, to).compareTo(maxWindow) > 0) {
+            throw new IllegalArgumentException("Availability window must not exceed " + maxWindow);
+        }
+        Duration min = minDuration == null ? Duration.ZERO : minDuration;
+        if (min.isNegative()) {
+            throw new IllegalArgumentException("minDuration must not be negative: " + minDuration);
+        }
+
+        Key key = new Key(resourceId, from.toInstant(), to.toInstant(), min);
+        List<TimeSlot> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long version = version(resourceId);
+        List<TimeSlot> result = readOnlyTx.execute(status -> {
+            ResourceEntity resource = resourceRepository.findById(resourceId)
+                    .orElseThrow(() -> new ResourceNotFoundException(resourceId));
+            if (!resource.isActive()) {
+                return List.<TimeSlot>of();
+            }
+            try (Stream<TimeSlot> busy = bookingRepository.streamBusySlots(resourceId, from, to, ACTIVE_FOR_CONFLICT)) {
+                return freeGaps(busy.iterator(), from, to, min);
+            }
+        });
+
+        log.debug("booking.availability resourceId={} from={} to={} minDuration={} gaps={}",
+                resourceId, from, to, min, result.size());
+
+        if (version(resourceId) == version) {
+            cacheResult(key, result, version);
+        } else {
+            log.debug("booking.availability.staleLoad resourceId={}", resourceId);
+        }
+        return result;
+    }
+
+    // Проверка после put закрывает окно между сравнением версии и put: если событие успело сбросить ресурс,
+    // ключ удаляется здесь
+    private void cacheResult(Key key, List<TimeSlot> result, long version) {
+        keysByResource.compute(key.resourceId(), (id, keys) -> {
+            Set<Key> target = keys != null ? keys : ConcurrentHashMap.newKeySet();
+            target.add(key);
+            return target;
+        });
+        cache.put(key, result);
+        if (version(key.resourceId()) != version) {
+            cache.invalidate(key);
+        }
+    }
+
+    private void forget(Key key) {
+        keysByResource.computeIfPresent(key.resourceId(), (id, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    // Слияние упорядоченных по началу занятых отрезков: курсор идёт по окну,
+    // всё между курсором и началом следующего занятого отрезка — свободно
+    static List<TimeSlot> freeGaps(Iterator<TimeSlot> busy, OffsetDateTime from, OffsetDateTime to, Duration min) {
+        List<TimeSlot> gaps = new ArrayList<>();
+        OffsetDateTime cursor = from;
+
+        while (busy.hasNext() && cursor.isBefore(to)) {
+            TimeSlot slot = busy.next();
+            if (slot.startTime().isAfter(cursor)) {
+                addGap(gaps, cursor, slot.startTime().isBefore(to) ? slot.startTime() : to, min);
+            }
+            if (slot.endTime().isAfter(cursor)) {
+                cursor = slot.endTime();
+            }
+        }
+        if (cursor.isBefore(to)) {
+            addGap(gaps, cursor, to, min);
+        }
+        return List.copyOf(gaps);
+    }
+
+    private static void addGap(List<TimeSlot> gaps, OffsetDateTime start, OffsetDateTime end, Duration min) {
+        if (Duration.between(start, end).compareTo(min) >= 0 && end.isAfter(start)) {
+            gaps.add(new TimeSlot(start, end));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(BookingStatusChangedEvent event) {
+        if (event.occupiedBefore() == event.occupiedAfter()) {
+            return;
+        }
+        invalidate(event.resourceId());
+    }
+
+    // Смена active у ресурса сюда не приходит и отражается в кэше через cache-ttl
+    // Версия растёт до удаления, чтобы идущая загрузка не вернула окна ресурса в кэш
+    public void invalidate(UUID resourceId) {
+        versions.incrementAndGet(stripe(resourceId));
+        Set<Key> keys = keysByResource.remove(resourceId);
+        if (keys != null) {
+            cache.invalidateAll(keys);
+        }
+    }
+
+    private long version(UUID resourceId) {
+        return versions.get(stripe(resourceId));
+    }
+
+    private static int stripe(UUID resourceId) {
+        return Math.floorMod(resourceId.hashCode(), VERSION_STRIPES);
+    }
+
+    private record Key(UUID resourceId, Instant from, Instant to, Duration minDuration) {
+    }
+}
@@ -0,0 +1,152 @@
+package com.ramil.booking.resource_booking.domain.booking.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ramil.booking.resource_booking.domain.booking.event.BookingStatusChangedEvent;
+import com.ramil.booking.resource_booking.domain.booking.index.BookingInterval;
+import com.ramil.booking.resource_booking.domain.booking.model.BookingStatus;
+import com.ramil.booking.resource_booking.domain.booking.repository.BookingRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// Переводит в EXPIRED брошенные бронирования: DRAFT копятся, а WAITING_PAYMENT держат слот
+// через booking_no_overlap, пока их не отменят. Срок отсчитывается от status_changed_at (время последнего перехода)
+// Платёж NEW держит бронирование не дольше payment-grace с момента создания платежа
+// Работает пачками по batch-size, каждая пачка — отдельная короткая транзакция; ноды не мешают друг другу (SKIP LOCKED)
+// Метрики: booking.expired{from} — сколько истекло, booking.expiry.lag{status} — на сколько секунд
+// самое старое ещё не обработанное бронирование пережило свой срок
+@Service
+public class BookingExpiryService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingExpiryService.class);
+
+    private final BookingRepository bookingRepository;
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate tx;
+    private final Clock clock;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration paymentGrace;
+    private final Map<BookingStatus, Duration> ttl = new EnumMap<>(BookingStatus.class);
+    private final Map<BookingStatus, Counter> expired = new EnumMap<>(BookingStatus.class);
+    private final Map<BookingStatus, AtomicLong> lagSeconds = new EnumMap<>(BookingStatus.class);
+    private final Timer runTimer;
+
+    @Autowired
+    public BookingExpiryService(
+            BookingRepository bookingRepository,
+            ApplicationEventPublisher events,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.booking.expiry.enabled:true}") boolean enabled,
+            @Value("${app.booking.expiry.draft-ttl:PT24H}") Duration draftTtl,
+            @Value("${app.booking.expiry.waiting-payment-ttl:PT30M}") Duration waitingPaymentTtl,
+            @Value("${app.booking.expiry.batch-size:500}") int batchSize,
+            @Value("${app.booking.expiry.payment-grace:PT15M}") Duration paymentGrace
+    ) {
+        this(bookingRepository, events, transactionManager, meterRegistry, Clock.systemUTC(),
+                enabled, draftTtl, waitingPaymentTtl, batchSize, paymentGrace);
+    }
+
+    BookingExpiryService(
+            BookingRepository bookingRepository,
+            ApplicationEventPublisher events,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            Clock clock,
+            boolean enabled,
+            Duration draftTtl,
+            Duration waitingPaymentTtl,
+            int batchSize,
+            Duration paymentGrace
+    ) {
+        this.bookingRepository = Objects.requireNonNull(bookingRepository);
+        this.events = Objects.requireNonNull(events);
+        this.tx = new TransactionTemplate(Objects.requireNonNull(transactionManager));
+        this.clock = Objects.requireNonNull(clock);
+        this.enabled = enabled;
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("app.booking.expiry.batch-size must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+        this.paymentGrace = Objects.requireNonNull(paymentGrace);
+        this.ttl.put(BookingStatus.DRAFT, Objects.requireNonNull(draftTtl));
+        this.ttl.put(BookingStatus.WAITING_PAYMENT, Objects.requireNonNull(waitingPaymentTtl));
+
+        for (BookingStatus status : ttl.keySet()) {
+            expired.put(status, Counter.builder("booking.expired")
+                    .description("Bookings moved to EXPIRED by the expiry job")
+                    .tag("from", status.name())
+                    .register(meterRegistry));
+            AtomicLong lag = new AtomicLong();
+            lagSeconds.put(status, lag);
+            Gauge.builder("booking.expiry.lag", lag, AtomicLong::get)
+                    .description("Seconds the oldest unexpired stale booking is past its TTL")
+                    .baseUnit("seconds")
+                    .tag("status", status.name())
+                    .register(meterRegistry);
+        }
+        this.runTimer = Timer.builder("booking.expiry.run").register(meterRegistry);
+    }
+
+    @Scheduled(
+            initialDelayString = "${app.booking.expiry.interval:PT1M}",
+            fixedDelayString = "${app.booking.expiry.interval:PT1M}"
+    )
+    public void expireStale() {
+        if (!enabled) {
+            return;
+        }
+        runTimer.record(() -> ttl.forEach(this::expire));
+    }
+
+    // Возвращает число истёкших бронирований в статусе from
+    int expire(BookingStatus from, Duration holdTtl) {
+        Instant now = clock.instant();
+        Instant cutoff = now.minus(holdTtl);
+        Instant paymentCutoff = now.minus(paymentGrace);
+        int total = 0;
+        int chunk;
+        do {
+            List<BookingInterval> batch = tx.execute(status -> {
+                List<BookingInterval> rows = bookingRepository.expireStale(from, cutoff, paymentCutoff, batchSize);
+                // слушатели (индекс конфликтов, кэш свободных окон) получат события после коммита пачки
+                rows.forEach(b -> events.publishEvent(new BookingStatusChangedEvent(
+                        b.bookingId(), b.resourceId(), b.startTime(), b.endTime(), from, BookingStatus.EXPIRED)));
+                return rows;
+            });
+            chunk = batch == null ? 0 : batch.size();
+            total += chunk;
+            expired.get(from).increment(chunk);
+        } while (chunk == batchSize);
+
+        // оставшиеся просроченные заняты другой нодой или ждут завершения платежа
+        Instant oldest = bookingRepository.findOldestStale(from, cutoff);
+        lagSeconds.get(from).set(oldest == null ? 0 : Duration.between(oldest, cutoff).toSeconds());
+
+        if (total > 0) {
+            log.info("booking.expire from={} ttl={} expired={}", from, holdTtl, total);
+        }
+        return total;
+    }
+}
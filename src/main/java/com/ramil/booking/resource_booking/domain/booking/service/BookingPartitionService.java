@@ -0,0 +1,142 @@
+package com.ramil.booking.resource_booking.domain.booking.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ramil.booking.resource_booking.domain.booking.repository.BookingArchiveRepository;
+import com.ramil.booking.resource_booking.domain.booking.repository.BookingArchiveRepository.Partition;
+import com.ramil.booking.resource_booking.domain.booking.repository.BookingRepository;
+
+// Обслуживание помесячных секций booking (V10): заранее создаёт секции на months-ahead месяцев вперёд,
+// чтобы новые бронирования не попадали в booking_default, и переносит секции старше retention-months
+// в схему booking_archive вместе с платежами их бронирований (по умолчанию retention-months = 0 — не архивировать)
+// Архивирование секции: проверка (нет незавершённых бронирований и платежей) -> DETACH вне транзакции
+// (BookingArchiveRepository.detach) -> перенос платежей и секции в одной транзакции
+// Каждая секция — отдельные короткие шаги; ноды сериализуются advisory-блокировкой в функциях БД,
+// а повторный DETACH уже отсоединённой секции невозможен: она больше не попадает в список присоединённых
+@Service
+public class BookingPartitionService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingPartitionService.class);
+
+    private final BookingRepository bookingRepository;
+    private final BookingArchiveRepository archiveRepository;
+    private final TransactionTemplate tx;
+    private final Clock clock;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final Duration detachLockTimeout;
+
+    @Autowired
+    public BookingPartitionService(
+            BookingRepository bookingRepository,
+            BookingArchiveRepository archiveRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.booking.partitions.enabled:true}") boolean enabled,
+            @Value("${app.booking.partitions.months-ahead:12}") int monthsAhead,
+            @Value("${app.booking.partitions.retention-months:0}") int retentionMonths,
+            @Value("${app.booking.partitions.detach-lock-timeout:PT5S}") Duration detachLockTimeout
+    ) {
+        this(bookingRepository, archiveRepository, transactionManager, Clock.systemUTC(), enabled, monthsAhead,
+                retentionMonths, detachLockTimeout);
+    }
+
+    BookingPartitionService(
+            BookingRepository bookingRepository,
+            BookingArchiveRepository archiveRepository,
+            PlatformTransactionManager transactionManager,
+            Clock clock,
+            boolean enabled,
+            int monthsAhead,
+            int retentionMonths,
+            Duration detachLockTimeout
+    ) {
+        this.bookingRepository = Objects.requireNonNull(bookingRepository);
+        this.archiveRepository = Objects.requireNonNull(archiveRepository);
+        this.tx = new TransactionTemplate(Objects.requireNonNull(transactionManager));
+        this.clock = Objects.requireNonNull(clock);
+        this.enabled = enabled;
+        if (monthsAhead < 1) {
+            throw new IllegalArgumentException("app.booking.partitions.months-ahead must be positive: " + monthsAhead);
+        }
+        if (retentionMonths < 0) {
+            throw new IllegalArgumentException(
+                    "app.booking.partitions.retention-months must not be negative: " + retentionMonths);
+        }
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.detachLockTimeout = Objects.requireNonNull(detachLockTimeout);
+    }
+
+    @Scheduled(
+            initialDelayString = "PT0S",
+            fixedDelayString = "${app.booking.partitions.interval:PT6H}"
+    )
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        YearMonth current = YearMonth.now(clock.withZone(ZoneOffset.UTC));
+        createAhead(current);
+        if (retentionMonths > 0) {
+            archiveOlderThan(current.minusMonths(retentionMonths));
+        }
+    }
+
+    // Секции с текущего месяца по current + months-ahead; возвращает число созданных
+    int createAhead(YearMonth current) {
+        int created = 0;
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            if (Boolean.TRUE.equals(tx.execute(status -> bookingRepository.createPartition(month)))) {
+                log.info("booking.partition.create month={}", month);
+                created++;
+            }
+        }
+        return created;
+    }
+
+    // Возвращает имена перенесённых в booking_archive секций; секция, которую нельзя архивировать сейчас
+    // (не готова или DETACH не дождался блокировки), пропускается до следующего запуска
+    List<String> archiveOlderThan(YearMonth before) {
+        List<String> archived = new ArrayList<>();
+        for (Partition partition : archiveRepository.findPartitionsBefore(before)) {
+            if (partition.attached() && !partition.detachPending()) {
+                if (!Boolean.TRUE.equals(tx.execute(status -> archiveRepository.isReady(partition.name())))) {
+                    log.warn("booking.partition.archive skipped partition={} reason=notReady", partition.name());
+                    continue;
+                }
+            }
+            if (partition.attached()) {
+                try {
+                    archiveRepository.detach(partition, detachLockTimeout);
+                } catch (RuntimeException e) {
+                    log.warn("booking.partition.archive skipped partition={} reason=detachFailed error={}",
+                            partition.name(), e.toString());
+                    continue;
+                }
+            }
+            tx.executeWithoutResult(status -> archiveRepository.archiveDetached(partition.name()));
+            archived.add(partition.name());
+        }
+        if (!archived.isEmpty()) {
+            log.info("booking.partition.archive before={} partitions={}", before, archived);
+        }
+        return archived;
+    }
+}
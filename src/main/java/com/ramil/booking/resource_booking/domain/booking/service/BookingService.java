@@ -1,10 +1,18 @@
 package com.ramil.booking.resource_booking.domain.booking.service;
 
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -12,15 +20,30 @@ import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingCursor;
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingDraftResult;
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingFilter;
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingPage;
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingSeriesView;
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingTransition;
 import com.ramil.booking.resource_booking.domain.booking.dto.BookingView;
 import com.ramil.booking.resource_booking.domain.booking.dto.CreateBookingCommand;
+import com.ramil.booking.resource_booking.domain.booking.dto.StatusTransition;
+import com.ramil.booking.resource_booking.domain.booking.dto.TimeSlot;
 import com.ramil.booking.resource_booking.domain.booking.entity.BookingEntity;
+import com.ramil.booking.resource_booking.domain.booking.event.BookingStatusChangedEvent;
 import com.ramil.booking.resource_booking.domain.booking.exception.BookingAccessDeniedException;
 import com.ramil.booking.resource_booking.domain.booking.exception.BookingConflictException;
 import com.ramil.booking.resource_booking.domain.booking.exception.BookingNotFoundException;
+import com.ramil.booking.resource_booking.domain.booking.exception.BookingSeriesNotFoundException;
 import com.ramil.booking.resource_booking.domain.booking.exception.BookingStatusException;
 import com.ramil.booking.resource_booking.domain.booking.exception.BookingTimeRangeException;
+import com.ramil.booking.resource_booking.domain.booking.exception.InvalidRecurrenceException;
+import com.ramil.booking.resource_booking.domain.booking.index.BookingInterval;
+import com.ramil.booking.resource_booking.domain.booking.index.BookingIntervalIndex;
+import com.ramil.booking.resource_booking.domain.booking.model.BookingPartitioning;
 import com.ramil.booking.resource_booking.domain.booking.model.BookingStatus;
+import com.ramil.booking.resource_booking.domain.booking.model.TransitionOutcome;
 import com.ramil.booking.resource_booking.domain.booking.repository.BookingRepository;
 import com.ramil.booking.resource_booking.domain.resource.entity.ResourceEntity;
 import com.ramil.booking.resource_booking.domain.resource.exception.ResourceInactiveException;
@@ -42,24 +65,49 @@ public class BookingService {
             BookingStatus.CONFIRMED
     );
 
+    // CONFIRMED пользователь не отменяет (оплачено), CANCELED — повторная отмена возвращает бронирование как есть
+    private static final Set<BookingStatus> CANCELABLE = Set.of(
+            BookingStatus.DRAFT,
+            BookingStatus.WAITING_PAYMENT,
+            BookingStatus.EXPIRED
+    );
+
+    // Администратор отменяет и CONFIRMED: оплату по событию возвращает PaymentTxService.onBookingStatusChanged
+    private static final Set<BookingStatus> ADMIN_CANCELABLE = Set.of(
+            BookingStatus.DRAFT,
+            BookingStatus.WAITING_PAYMENT,
+            BookingStatus.EXPIRED,
+            BookingStatus.CONFIRMED
+    );
+
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final int MAX_SERIES_OCCURRENCES = 366;
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final BookingRepository bookingRepository;
     private final ResourceRepository resourceRepository;
     private final AppUserRepository appUserRepository;
     private final CurrentUserProvider currentUser;
     private final BookingMapper bookingMapper;
+    private final BookingIntervalIndex intervalIndex;
+    private final ApplicationEventPublisher events;
 
     public BookingService(
             BookingRepository bookingRepository,
             ResourceRepository resourceRepository,
             AppUserRepository appUserRepository,
             CurrentUserProvider currentUser,
-            BookingMapper bookingMapper
+            BookingMapper bookingMapper,
+            BookingIntervalIndex intervalIndex,
+            ApplicationEventPublisher events
     ) {
         this.bookingRepository = Objects.requireNonNull(bookingRepository);
         this.resourceRepository = Objects.requireNonNull(resourceRepository);
         this.appUserRepository = Objects.requireNonNull(appUserRepository);
         this.currentUser = Objects.requireNonNull(currentUser);
         this.bookingMapper = Objects.requireNonNull(bookingMapper);
+        this.intervalIndex = Objects.requireNonNull(intervalIndex);
+        this.events = Objects.requireNonNull(events);
     }
 
     // Создает черновик бронирования со статусом DRAFT
@@ -79,8 +127,16 @@ public class BookingService {
 
         validateTimeRange(cmd.startTime(), cmd.endTime());
 
-        // лочим ресурс (опционально, но полезно)
-        ResourceEntity resource = resourceRepository.findByIdForUpdate(cmd.resourceId())
+        // заведомый конфликт отклоняется до загрузки ресурса
+        if (indexedConflict(cmd.resourceId(), cmd.startTime(), cmd.endTime(), null)) {
+            log.warn("booking.createDraft conflict source=index requestedBy={} resourceId={} start={} end={}",
+                    me, cmd.resourceId(), cmd.startTime(), cmd.endTime());
+            throw new BookingConflictException(cmd.resourceId(), cmd.startTime(), cmd.endTime());
+        }
+
+        // без блокировки ресурса: DRAFT не участвует в booking_no_overlap,
+        // а активность ресурса перепроверяется под FOR SHARE в markWaitingPayment
+        ResourceEntity resource = resourceRepository.findById(cmd.resourceId())
                 .orElseThrow(() -> {
                     log.warn("booking.createDraft resourceNotFound requestedBy={} resourceId={}", me, cmd.resourceId());
                     return new ResourceNotFoundException(cmd.resourceId());
@@ -91,11 +147,8 @@ public class BookingService {
             throw new ResourceInactiveException(resource.getId());
         }
 
-        AppUserEntity user = appUserRepository.findById(me)
-                .orElseThrow(() -> {
-                    log.error("booking.createDraft authenticatedUserMissingInDb userId={}", me);
-                    return new IllegalStateException("Authenticated user not found in DB: " + me);
-                });
+        // id уже пришёл из principal — нужна только ссылка для FK, без SELECT по app_user
+        AppUserEntity user = appUserRepository.getReferenceById(me);
 
         boolean hasConflicts = !bookingRepository.findConflicts(
                 resource.getId(), cmd.startTime(), cmd.endTime(), ACTIVE_FOR_CONFLICT
@@ -117,6 +170,7 @@ public class BookingService {
         );
 
         BookingEntity saved = bookingRepository.save(booking);
+        publishStatusChanged(saved, null);
 
         log.info("booking.createDraft created requestedBy={} bookingId={} status={}",
                 me, saved.getId(), saved.getStatus());
@@ -124,41 +178,339 @@ public class BookingService {
         return toView(saved);
     }
 
+    // Пакетное создание черновиков в одной транзакции
+    // Ошибка по одному элементу не откатывает остальные: каждый получает свой BookingDraftResult
+    // Ресурсы читаются одним запросом без блокировки (как в createDraft), конфликты проверяются
+    // одним запросом, вставка идёт JDBC-батчами (hibernate.jdbc.batch_size)
     @Transactional
-    public BookingView cancel(UUID bookingId) {
-        Objects.requireNonNull(bookingId, "bookingId");
+    public List<BookingDraftResult> createDrafts(List<CreateBookingCommand> cmds) {
+        Objects.requireNonNull(cmds, "cmds");
+        if (cmds.isEmpty() || cmds.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch size must be between 1 and " + MAX_BATCH_SIZE + ": " + cmds.size());
+        }
 
         UUID me = currentUser.currentUserId();
-        boolean admin = currentUser.isAdmin();
+        log.info("booking.createDrafts requestedBy={} count={}", me, cmds.size());
+
+        BookingDraftResult[] results = new BookingDraftResult[cmds.size()];
+        List<Integer> pending = new ArrayList<>();
+
+        for (int i = 0; i < cmds.size(); i++) {
+            CreateBookingCommand cmd = Objects.requireNonNull(cmds.get(i), "cmd");
+            String invalidRange = timeRangeError(cmd.startTime(), cmd.endTime());
+            if (invalidRange != null) {
+                results[i] = BookingDraftResult.failed(i, "INVALID_TIME_RANGE", invalidRange);
+            } else if (indexedConflict(cmd.resourceId(), cmd.startTime(), cmd.endTime(), null)) {
+                results[i] = conflict(i, cmd);
+            } else {
+                pending.add(i);
+            }
+        }
 
-        log.info("booking.cancel requestedBy={} admin={} bookingId={}", me, admin, bookingId);
+        if (!pending.isEmpty()) {
+            createPendingDrafts(me, cmds, pending, results);
+        }
 
-        BookingEntity booking = bookingRepository.findById(bookingId)
-                .orElseThrow(() -> {
-                    log.warn("booking.cancel bookingNotFound requestedBy={} bookingId={}", me, bookingId);
-                    return new BookingNotFoundException(bookingId);
-                });
+        List<BookingDraftResult> out = List.of(results);
+        long failed = out.stream().filter(r -> r.booking() == null).count();
+        log.info("booking.createDrafts done requestedBy={} created={} failed={}", me, out.size() - failed, failed);
+        return out;
+    }
 
-        assertCanManage(booking);
+    private void createPendingDrafts(UUID me, List<CreateBookingCommand> cmds, List<Integer> pending,
+                                     BookingDraftResult[] results) {
+        Set<UUID> resourceIds = pending.stream()
+                .map(i -> cmds.get(i).resourceId())
+                .collect(Collectors.toSet());
+
+        Map<UUID, ResourceEntity> resources = resourceRepository.findAllById(resourceIds).stream()
+                .collect(Collectors.toMap(ResourceEntity::getId, Function.identity()));
+
+        List<Integer> candidates = new ArrayList<>();
+        for (int i : pending) {
+            CreateBookingCommand cmd = cmds.get(i);
+            ResourceEntity resource = resources.get(cmd.resourceId());
+            if (resource == null) {
+                results[i] = BookingDraftResult.failed(i, "RESOURCE_NOT_FOUND",
+                        new ResourceNotFoundException(cmd.resourceId()).getMessage());
+            } else if (!resource.isActive()) {
+                results[i] = BookingDraftResult.failed(i, "RESOURCE_INACTIVE",
+                        new ResourceInactiveException(cmd.resourceId()).getMessage());
+            } else {
+                candidates.add(i);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
 
-        BookingStatus current = booking.getStatus();
+        // один запрос на все занятые интервалы этих ресурсов в общем окне пакета
+        OffsetDateTime from = candidates.stream().map(i -> cmds.get(i).startTime())
+                .min(Comparator.naturalOrder()).orElseThrow();
+        OffsetDateTime to = candidates.stream().map(i -> cmds.get(i).endTime())
+                .max(Comparator.naturalOrder()).orElseThrow();
+        Map<UUID, List<BookingInterval>> busy = bookingRepository.findActiveIntervals(
+                        candidates.stream().map(i -> cmds.get(i).resourceId()).distinct().toList(),
+                        from, to, ACTIVE_FOR_CONFLICT)
+                .stream()
+                .collect(Collectors.groupingBy(BookingInterval::resourceId));
+
+        AppUserEntity user = appUserRepository.getReferenceById(me);
+        List<Integer> created = new ArrayList<>();
+        List<BookingEntity> drafts = new ArrayList<>();
+
+        for (int i : candidates) {
+            CreateBookingCommand cmd = cmds.get(i);
+            boolean overlaps = busy.getOrDefault(cmd.resourceId(), List.of()).stream()
+                    .anyMatch(b -> b.startTime().isBefore(cmd.endTime()) && b.endTime().isAfter(cmd.startTime()));
+            if (overlaps) {
+                results[i] = conflict(i, cmd);
+                continue;
+            }
+            created.add(i);
+            drafts.add(new BookingEntity(
+                    UUID.randomUUID(),
+                    user,
+                    resources.get(cmd.resourceId()),
+                    cmd.startTime(),
+                    cmd.endTime(),
+                    BookingStatus.DRAFT
+            ));
+        }
 
-        if (current == BookingStatus.CONFIRMED) {
-            log.warn("booking.cancel invalidStatus requestedBy={} bookingId={} current={}", me, bookingId, current);
-            throw new BookingStatusException(bookingId, current, "not CONFIRMED");
+        List<BookingEntity> saved = bookingRepository.saveAll(drafts);
+        for (int k = 0; k < saved.size(); k++) {
+            BookingEntity b = saved.get(k);
+            publishStatusChanged(b, null);
+            results[created.get(k)] = BookingDraftResult.ok(created.get(k), toView(b));
         }
-        if (current == BookingStatus.CANCELED) {
-            log.info("booking.cancel alreadyCanceled requestedBy={} bookingId={}", me, bookingId);
-            return toView(booking);
+    }
+
+    // Попадание в индекс — отказ без запроса в БД; промах (или выключенный индекс) решает БД,
+    // последней проверкой остаётся booking_no_overlap
+    private boolean indexedConflict(UUID resourceId, OffsetDateTime start, OffsetDateTime end, UUID excludeBookingId) {
+        return intervalIndex.hasConflict(resourceId, start, end, excludeBookingId);
+    }
+
+    private static BookingDraftResult conflict(int index, CreateBookingCommand cmd) {
+        return BookingDraftResult.failed(index, "BOOKING_CONFLICT",
+                new BookingConflictException(cmd.resourceId(), cmd.startTime(), cmd.endTime()).getMessage());
+    }
+
+    // Создаёт серию черновиков по правилу повторения из cmd.recurrence()
+    // Серия создаётся целиком или не создаётся: любой конфликт отклоняет все вхождения
+    @Transactional
+    public BookingSeriesView createSeries(CreateBookingCommand cmd) {
+        Objects.requireNonNull(cmd, "cmd");
+        if (cmd.recurrence() == null) {
+            throw new InvalidRecurrenceException("recurrence must be set");
         }
 
-        booking.setStatus(BookingStatus.CANCELED);
-        BookingEntity saved = bookingRepository.save(booking);
+        UUID me = currentUser.currentUserId();
+        log.info("booking.createSeries requestedBy={} resourceId={} start={} end={} recurrence={}",
+                me, cmd.resourceId(), cmd.startTime(), cmd.endTime(), cmd.recurrence());
+
+        validateTimeRange(cmd.startTime(), cmd.endTime());
+        List<TimeSlot> slots = cmd.recurrence().expand(cmd.startTime(), cmd.endTime(), MAX_SERIES_OCCURRENCES);
+
+        for (TimeSlot slot : slots) {
+            if (indexedConflict(cmd.resourceId(), slot.startTime(), slot.endTime(), null)) {
+                log.warn("booking.createSeries conflict source=index requestedBy={} resourceId={} start={} end={}",
+                        me, cmd.resourceId(), slot.startTime(), slot.endTime());
+                throw new BookingConflictException(cmd.resourceId(), slot.startTime(), slot.endTime());
+            }
+        }
+
+        ResourceEntity resource = resourceRepository.findById(cmd.resourceId())
+                .orElseThrow(() -> new ResourceNotFoundException(cmd.resourceId()));
+        if (!resource.isActive()) {
+            throw new ResourceInactiveException(resource.getId());
+        }
+
+        // все вхождения проверяются одним запросом: unnest(tstzrange[]) против booking;
+        // expand возвращает вхождения по возрастанию, нижняя граница секций — от первого
+        List<Long> conflicting = bookingRepository.findConflictingOccurrences(
+                resource.getId(), toRangeArray(slots), BookingPartitioning.minStart(slots.get(0).startTime()));
+        if (!conflicting.isEmpty()) {
+            TimeSlot first = slots.get(conflicting.get(0).intValue() - 1);
+            log.warn("booking.createSeries conflict requestedBy={} resourceId={} occurrences={} firstStart={}",
+                    me, resource.getId(), conflicting.size(), first.startTime());
+            throw new BookingConflictException(resource.getId(), first.startTime(), first.endTime());
+        }
+
+        AppUserEntity user = appUserRepository.getReferenceById(me);
+        UUID seriesId = UUID.randomUUID();
+
+        List<BookingEntity> drafts = new ArrayList<>(slots.size());
+        for (TimeSlot slot : slots) {
+            BookingEntity booking = new BookingEntity(
+                    UUID.randomUUID(),
+                    user,
+                    resource,
+                    slot.startTime(),
+                    slot.endTime(),
+                    BookingStatus.DRAFT
+            );
+            booking.setSeriesId(seriesId);
+            drafts.add(booking);
+        }
+
+        List<BookingEntity> saved = bookingRepository.saveAll(drafts);
+        saved.forEach(b -> publishStatusChanged(b, null));
+
+        log.info("booking.createSeries created requestedBy={} seriesId={} occurrences={}", me, seriesId, saved.size());
+        return toSeriesView(seriesId, saved);
+    }
+
+    // Переводит все вхождения серии из DRAFT в WAITING_PAYMENT в одной транзакции
+    // Отменённые вхождения пропускаются; любой другой статус, кроме DRAFT, отклоняет серию
+    @Transactional
+    public BookingSeriesView markSeriesWaitingPayment(UUID seriesId) {
+        Objects.requireNonNull(seriesId, "seriesId");
 
+        UUID me = currentUser.currentUserId();
+        log.info("booking.markSeriesWaitingPayment requestedBy={} seriesId={}", me, seriesId);
+
+        List<BookingEntity> bookings = loadSeries(seriesId);
+        List<BookingEntity> drafts = new ArrayList<>(bookings.size());
+
+        for (BookingEntity b : bookings) {
+            if (b.getStatus() == BookingStatus.CANCELED) {
+                continue;
+            }
+            if (b.getStatus() != BookingStatus.DRAFT) {
+                log.warn("booking.markSeriesWaitingPayment invalidStatus requestedBy={} seriesId={} bookingId={} current={}",
+                        me, seriesId, b.getId(), b.getStatus());
+                throw new BookingStatusException(b.getId(), b.getStatus(), "DRAFT");
+            }
+            if (indexedConflict(b.getResource().getId(), b.getStartTime(), b.getEndTime(), b.getId())) {
+                throw new BookingConflictException(b.getResource().getId(), b.getStartTime(), b.getEndTime());
+            }
+            drafts.add(b);
+        }
+        if (drafts.isEmpty()) {
+            BookingEntity first = bookings.get(0);
+            throw new BookingStatusException(first.getId(), first.getStatus(), "DRAFT");
+        }
+
+        UUID resourceId = drafts.get(0).getResource().getId();
+        ResourceEntity resource = resourceRepository.findByIdForShare(resourceId)
+                .orElseThrow(() -> new ResourceNotFoundException(resourceId));
+        if (!resource.isActive()) {
+            throw new ResourceInactiveException(resourceId);
+        }
+
+        // по одному flush на вхождение: нарушение booking_no_overlap указывает на конкретное вхождение,
+        // а откат транзакции возвращает уже переведённые
+        List<BookingEntity> saved = new ArrayList<>(drafts.size());
+        for (BookingEntity b : drafts) {
+            b.setStatus(BookingStatus.WAITING_PAYMENT);
+            try {
+                saved.add(bookingRepository.saveAndFlush(b));
+            } catch (DataIntegrityViolationException e) {
+                log.warn("booking.markSeriesWaitingPayment conflict requestedBy={} seriesId={} bookingId={} start={}",
+                        me, seriesId, b.getId(), b.getStartTime());
+                throw new BookingConflictException(resourceId, b.getStartTime(), b.getEndTime());
+            }
+        }
+
+        saved.forEach(b -> publishStatusChanged(b, BookingStatus.DRAFT));
+        log.info("booking.markSeriesWaitingPayment done requestedBy={} seriesId={} occurrences={} skipped={}",
+                me, seriesId, saved.size(), bookings.size() - saved.size());
+        return toSeriesView(seriesId, bookings);
+    }
+
+    // Отменяет все вхождения серии; если хоть одно CONFIRMED — серия не меняется
+    @Transactional
+    public BookingSeriesView cancelSeries(UUID seriesId) {
+        Objects.requireNonNull(seriesId, "seriesId");
+
+        UUID me = currentUser.currentUserId();
+        log.info("booking.cancelSeries requestedBy={} seriesId={}", me, seriesId);
+
+        List<BookingEntity> bookings = loadSeries(seriesId);
+
+        for (BookingEntity b : bookings) {
+            if (b.getStatus() == BookingStatus.CONFIRMED) {
+                log.warn("booking.cancelSeries invalidStatus requestedBy={} seriesId={} bookingId={} current={}",
+                        me, seriesId, b.getId(), b.getStatus());
+                throw new BookingStatusException(b.getId(), b.getStatus(), "not CONFIRMED");
+            }
+        }
+
+        List<BookingEntity> changed = new ArrayList<>();
+        List<BookingStatus> previous = new ArrayList<>();
+        for (BookingEntity b : bookings) {
+            if (b.getStatus() != BookingStatus.CANCELED) {
+                previous.add(b.getStatus());
+                b.setStatus(BookingStatus.CANCELED);
+                changed.add(b);
+            }
+        }
+
+        List<BookingEntity> saved = bookingRepository.saveAll(changed);
+        for (int k = 0; k < saved.size(); k++) {
+            publishStatusChanged(saved.get(k), previous.get(k));
+        }
+
+        log.info("booking.cancelSeries done requestedBy={} seriesId={} canceled={}", me, seriesId, saved.size());
+        return toSeriesView(seriesId, bookings);
+    }
+
+    private List<BookingEntity> loadSeries(UUID seriesId) {
+        List<BookingEntity> bookings = bookingRepository.findBySeriesId(seriesId);
+        if (bookings.isEmpty()) {
+            throw new BookingSeriesNotFoundException(seriesId);
+        }
+        bookings.forEach(this::assertCanManage);
+        return bookings;
+    }
+
+    // Литерал массива для cast(:ranges as tstzrange[]); границы в ISO-8601, интервалы полуоткрытые
+    static String toRangeArray(List<TimeSlot> slots) {
+        return slots.stream()
+                .map(s -> "\"[" + s.startTime() + "," + s.endTime() + ")\"")
+                .collect(Collectors.joining(",", "{", "}"));
+    }
+
+    private BookingSeriesView toSeriesView(UUID seriesId, List<BookingEntity> bookings) {
+        return new BookingSeriesView(seriesId, bookings.stream().map(this::toView).toList());
+    }
+
+    @Transactional
+    public BookingView cancel(UUID bookingId) {
+        Objects.requireNonNull(bookingId, "bookingId");
+
+        UUID me = currentUser.currentUserId();
+        boolean admin = currentUser.isAdmin();
+
+        log.info("booking.cancel requestedBy={} admin={} bookingId={}", me, admin, bookingId);
+
+        BookingTransition t = bookingRepository.transition(
+                StatusTransition.of(bookingId, admin ? ADMIN_CANCELABLE : CANCELABLE, BookingStatus.CANCELED,
+                                currentUser.currentUserEmail())
+                        .ownedBy(admin ? null : me));
+
+        if (!t.isApplied()) {
+            if (t.outcome() == TransitionOutcome.WRONG_STATE && t.observedStatus() == BookingStatus.CANCELED) {
+                log.info("booking.cancel alreadyCanceled requestedBy={} bookingId={}", me, bookingId);
+                return bookingRepository.findViewById(bookingId)
+                        .orElseThrow(() -> new BookingNotFoundException(bookingId));
+            }
+            throw rejected("cancel", bookingId, t, "not CONFIRMED");
+        }
+
+        publishStatusChanged(t);
         log.info("booking.cancel done requestedBy={} bookingId={} fromStatus={} toStatus={}",
-                me, bookingId, current, saved.getStatus());
+                me, bookingId, t.observedStatus(), t.booking().status());
 
-        return toView(saved);
+        return t.booking();
+    }
+
+    // Ресурс бронирования без проверки доступа: нужен только чтобы выбрать очередь допуска
+    @Transactional(readOnly = true)
+    public Optional<UUID> findResourceId(UUID bookingId) {
+        return bookingRepository.findResourceId(Objects.requireNonNull(bookingId, "bookingId"));
     }
 
     @Transactional(readOnly = true)
@@ -170,46 +522,65 @@ public class BookingService {
 
         log.info("booking.getById requestedBy={} admin={} bookingId={}", me, admin, bookingId);
 
-        BookingEntity booking = bookingRepository.findById(bookingId)
+        BookingView booking = bookingRepository.findViewById(bookingId)
                 .orElseThrow(() -> {
                     log.warn("booking.getById bookingNotFound requestedBy={} bookingId={}", me, bookingId);
                     return new BookingNotFoundException(bookingId);
                 });
 
-        assertCanView(booking);
+        assertCanView(booking.id(), booking.userId());
 
-        log.info("booking.getById ok requestedBy={} bookingId={} status={}", me, bookingId, booking.getStatus());
-        return toView(booking);
+        log.info("booking.getById ok requestedBy={} bookingId={} status={}", me, bookingId, booking.status());
+        return booking;
     }
 
     @Transactional(readOnly = true)
-    public List<BookingView> listMyBookings() {
+    public BookingPage listMyBookings(BookingFilter filter, String after, int first) {
         UUID me = currentUser.currentUserId();
-        log.info("booking.listMyBookings requestedBy={}", me);
+        log.info("booking.listMyBookings requestedBy={} first={} after={}", me, first, after);
 
-        List<BookingView> result = bookingRepository.findByUserId(me).stream().map(this::toView).toList();
+        BookingPage result = page(me, filter, after, first);
 
-        log.info("booking.listMyBookings result requestedBy={} count={}", me, result.size());
+        log.info("booking.listMyBookings result requestedBy={} count={} hasNext={}",
+                me, result.items().size(), result.hasNext());
         return result;
     }
 
     @Transactional(readOnly = true)
-    public List<BookingView> listAll() {
+    public BookingPage listAll(BookingFilter filter, String after, int first) {
         UUID me = currentUser.currentUserId();
         boolean admin = currentUser.isAdmin();
 
-        log.info("booking.listAll requestedBy={} admin={}", me, admin);
+        log.info("booking.listAll requestedBy={} admin={} first={} after={}", me, admin, first, after);
 
         if (!admin) {
             log.warn("booking.listAll accessDenied requestedBy={}", me);
             throw new BookingAccessDeniedException(null);
         }
 
-        List<BookingView> result = bookingRepository.findAllOrderByStartTimeDesc().stream().map(this::toView).toList();
-        log.info("booking.listAll result requestedBy={} count={}", me, result.size());
+        BookingPage result = page(null, filter, after, first);
+        log.info("booking.listAll result requestedBy={} count={} hasNext={}",
+                me, result.items().size(), result.hasNext());
         return result;
     }
 
+    // Keyset-пагинация: читаем first + 1 строку, лишняя означает, что есть следующая страница
+    private BookingPage page(UUID userId, BookingFilter filter, String after, int first) {
+        if (first < 1 || first > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("first must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        BookingFilter f = filter == null ? BookingFilter.NONE : filter;
+        if (f.from() != null && f.to() != null && !f.to().isAfter(f.from())) {
+            throw new BookingTimeRangeException(f.from(), f.to());
+        }
+        BookingCursor cursor = after == null || after.isBlank() ? null : BookingCursor.decode(after);
+
+        List<BookingView> rows = bookingRepository.findPage(userId, f, cursor, first + 1);
+        boolean hasNext = rows.size() > first;
+        List<BookingView> items = hasNext ? rows.subList(0, first) : rows;
+        return new BookingPage(items, hasNext);
+    }
+
     @Transactional
     public BookingView markWaitingPayment(UUID bookingId) {
         Objects.requireNonNull(bookingId, "bookingId");
@@ -219,37 +590,36 @@ public class BookingService {
 
         log.info("booking.markWaitingPayment requestedBy={} admin={} bookingId={}", me, admin, bookingId);
 
-        BookingEntity booking = bookingRepository.findById(bookingId)
-                .orElseThrow(() -> {
-                    log.warn("booking.markWaitingPayment bookingNotFound requestedBy={} bookingId={}", me, bookingId);
-                    return new BookingNotFoundException(bookingId);
-                });
-
-        assertCanManage(booking);
-
-        BookingStatus current = booking.getStatus();
-        if (current != BookingStatus.DRAFT) {
-            log.warn("booking.markWaitingPayment invalidStatus requestedBy={} bookingId={} current={}",
-                    me, bookingId, current);
-            throw new BookingStatusException(bookingId, current, "DRAFT");
+        // интервал известен только для черновиков, созданных на этой ноде; иначе конфликт проверит UPDATE
+        Optional<BookingInterval> draft = intervalIndex.draft(bookingId);
+        if (draft.isPresent() && indexedConflict(draft.get().resourceId(), draft.get().startTime(),
+                draft.get().endTime(), bookingId)) {
+            log.warn("booking.markWaitingPayment conflict source=index requestedBy={} bookingId={}", me, bookingId);
+            throw new BookingConflictException(bookingId);
         }
 
-        booking.setStatus(BookingStatus.WAITING_PAYMENT);
+        // ресурс блокируется FOR SHARE тем же UPDATE: его не деактивируют, пока бронь занимает слот
+        StatusTransition transition = StatusTransition
+                .of(bookingId, Set.of(BookingStatus.DRAFT), BookingStatus.WAITING_PAYMENT, currentUser.currentUserEmail())
+                .ownedBy(admin ? null : me)
+                .withActiveResource();
 
+        BookingTransition t;
         try {
-            BookingEntity saved = bookingRepository.saveAndFlush(booking);
-            log.info("booking.markWaitingPayment done requestedBy={} bookingId={} fromStatus={} toStatus={}",
-                    me, bookingId, current, saved.getStatus());
-            return toView(saved);
+            t = bookingRepository.transition(transition);
         } catch (DataIntegrityViolationException e) {
-            log.warn("booking.markWaitingPayment conflict requestedBy={} bookingId={} resourceId={} start={} end={}",
-                    me, bookingId, booking.getResource().getId(), booking.getStartTime(), booking.getEndTime());
-            throw new BookingConflictException(
-                    booking.getResource().getId(),
-                    booking.getStartTime(),
-                    booking.getEndTime()
-            );
+            log.warn("booking.markWaitingPayment conflict requestedBy={} bookingId={}", me, bookingId);
+            throw new BookingConflictException(bookingId);
+        }
+
+        if (!t.isApplied()) {
+            throw rejected("markWaitingPayment", bookingId, t, "DRAFT");
         }
+
+        publishStatusChanged(t);
+        log.info("booking.markWaitingPayment done requestedBy={} bookingId={} fromStatus={} toStatus={}",
+                me, bookingId, t.observedStatus(), t.booking().status());
+        return t.booking();
     }
 
     @Transactional
@@ -261,52 +631,44 @@ public class BookingService {
 
         log.info("booking.confirmAfterPayment requestedBy={} admin={} bookingId={}", me, admin, bookingId);
 
-        BookingEntity booking = bookingRepository.findById(bookingId)
-                .orElseThrow(() -> {
-                    log.warn("booking.confirmAfterPayment bookingNotFound requestedBy={} bookingId={}", me, bookingId);
-                    return new BookingNotFoundException(bookingId);
-                });
-
         if (!admin) {
             log.warn("booking.confirmAfterPayment accessDenied requestedBy={} bookingId={}", me, bookingId);
             throw new BookingAccessDeniedException(bookingId);
         }
 
-        BookingStatus current = booking.getStatus();
-        if (current != BookingStatus.WAITING_PAYMENT) {
-            log.warn("booking.confirmAfterPayment invalidStatus requestedBy={} bookingId={} current={}",
-                    me, bookingId, current);
-            throw new BookingStatusException(bookingId, current, "WAITING_PAYMENT");
-        }
-
-        booking.setStatus(BookingStatus.CONFIRMED);
-
+        BookingTransition t;
         try {
-            BookingEntity saved = bookingRepository.saveAndFlush(booking);
-            log.info("booking.confirmAfterPayment done requestedBy={} bookingId={} fromStatus={} toStatus={}",
-                    me, bookingId, current, saved.getStatus());
-            return toView(saved);
+            t = bookingRepository.transition(StatusTransition.of(bookingId, Set.of(BookingStatus.WAITING_PAYMENT),
+                    BookingStatus.CONFIRMED, currentUser.currentUserEmail()));
         } catch (DataIntegrityViolationException e) {
-            log.warn("booking.confirmAfterPayment conflict requestedBy={} bookingId={} resourceId={} start={} end={}",
-                    me, bookingId, booking.getResource().getId(), booking.getStartTime(), booking.getEndTime());
-            throw new BookingConflictException(
-                    booking.getResource().getId(),
-                    booking.getStartTime(),
-                    booking.getEndTime()
-            );
+            log.warn("booking.confirmAfterPayment conflict requestedBy={} bookingId={}", me, bookingId);
+            throw new BookingConflictException(bookingId);
         }
+
+        if (!t.isApplied()) {
+            throw rejected("confirmAfterPayment", bookingId, t, "WAITING_PAYMENT");
+        }
+
+        publishStatusChanged(t);
+        log.info("booking.confirmAfterPayment done requestedBy={} bookingId={} fromStatus={} toStatus={}",
+                me, bookingId, t.observedStatus(), t.booking().status());
+        return t.booking();
     }
 
     private void assertCanView(BookingEntity booking) {
+        assertCanView(booking.getId(), booking.getUser().getId());
+    }
+
+    private void assertCanView(UUID bookingId, UUID ownerId) {
         UUID me = currentUser.currentUserId();
         boolean admin = currentUser.isAdmin();
 
         if (admin) return;
 
-        if (!booking.getUser().getId().equals(me)) {
+        if (!ownerId.equals(me)) {
             log.warn("booking.accessDenied requestedBy={} bookingId={} bookingUserId={}",
-                    me, booking.getId(), booking.getUser().getId());
-            throw new BookingAccessDeniedException(booking.getId());
+                    me, bookingId, ownerId);
+            throw new BookingAccessDeniedException(bookingId);
         }
     }
 
@@ -314,10 +676,48 @@ public class BookingService {
         assertCanView(booking);
     }
 
-    private static void validateTimeRange(OffsetDateTime start, OffsetDateTime end) {
+    private static String timeRangeError(OffsetDateTime start, OffsetDateTime end) {
+        try {
+            validateTimeRange(start, end);
+            return null;
+        } catch (BookingTimeRangeException e) {
+            return e.getMessage();
+        }
+    }
+
+    static void validateTimeRange(OffsetDateTime start, OffsetDateTime end) {
         if (!end.isAfter(start)) {
             throw new BookingTimeRangeException(start, end);
         }
+        // chk_booking_max_duration: на этом ограничении держится отсечение секций booking
+        if (end.isAfter(start.plus(BookingPartitioning.MAX_DURATION))) {
+            throw BookingTimeRangeException.tooLong(start, end, BookingPartitioning.MAX_DURATION);
+        }
+    }
+
+    // Слушатели (индекс интервалов и т.д.) получают событие после коммита
+    private void publishStatusChanged(BookingEntity b, BookingStatus from) {
+        events.publishEvent(new BookingStatusChangedEvent(
+                b.getId(), b.getResource().getId(), b.getStartTime(), b.getEndTime(), from, b.getStatus()));
+    }
+
+    private void publishStatusChanged(BookingTransition t) {
+        BookingView b = t.booking();
+        events.publishEvent(new BookingStatusChangedEvent(
+                b.id(), b.resourceId(), b.startTime(), b.endTime(), t.observedStatus(), b.status()));
+    }
+
+    // Отказ условной смены статуса -> доменное исключение
+    private RuntimeException rejected(String op, UUID bookingId, BookingTransition t, String expected) {
+        log.warn("booking.{} rejected outcome={} requestedBy={} bookingId={} current={}",
+                op, t.outcome(), currentUser.currentUserId(), bookingId, t.observedStatus());
+        return switch (t.outcome()) {
+            case NOT_FOUND -> new BookingNotFoundException(bookingId);
+            case NOT_OWNER -> new BookingAccessDeniedException(bookingId);
+            case RESOURCE_INACTIVE -> new ResourceInactiveException(t.resourceId());
+            case WRONG_STATE -> new BookingStatusException(bookingId, t.observedStatus(), expected);
+            case APPLIED -> new IllegalStateException("Transition applied: " + bookingId);
+        };
     }
 
     private BookingView toView(BookingEntity b) {
@@ -0,0 +1,221 @@
+package com.ramil.booking.resource_booking.domain.booking.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ramil.booking.resource_booking.domain.booking.dto.DayOccupancy;
+import com.ramil.booking.resource_booking.domain.booking.dto.ResourceOccupancy;
+import com.ramil.booking.resource_booking.domain.booking.event.BookingStatusChangedEvent;
+import com.ramil.booking.resource_booking.domain.booking.index.BookingInterval;
+import com.ramil.booking.resource_booking.domain.booking.model.BookingStatus;
+import com.ramil.booking.resource_booking.domain.booking.occupancy.DayBitmap;
+import com.ramil.booking.resource_booking.domain.booking.repository.BookingRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+// Тепловая карта календаря: занятость ресурсов по 15-минутным слотам суток (UTC)
+// Каждый (ресурс, день) — DayBitmap; промахи кэша по всем ресурсам и дням запроса читаются одним запросом,
+// после коммита смены статуса затронутые дни удаляются из кэша и перечитываются при следующем запросе
+// Загрузка, начатая до коммита, могла прочитать старое состояние: версия ресурса (полоса versions) снимается
+// до чтения, и если к концу загрузки она сменилась, прочитанные дни отдаются в ответ, но в кэш не попадают
+@Service
+public class OccupancyService {
+
+    private static final Logger log = LoggerFactory.getLogger(OccupancyService.class);
+
+    private static final List<BookingStatus> ACTIVE_FOR_CONFLICT = List.of(
+            BookingStatus.WAITING_PAYMENT,
+            BookingStatus.CONFIRMED
+    );
+    private static final int SLOT_MINUTES = (int) DayBitmap.SLOT.toMinutes();
+    private static final int VERSION_STRIPES = 256;
+
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate readOnlyTx;
+    private final int maxDays;
+    private final int maxResources;
+    private final Cache<Key, long[]> cache;
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    public OccupancyService(
+            BookingRepository bookingRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.booking.occupancy.max-days:42}") int maxDays,
+            @Value("${app.booking.occupancy.max-resources:500}") int maxResources,
+            @Value("${app.booking.occupancy.cache-ttl:PT10M}") Duration cacheTtl,
+            @Value("${app.booking.occupancy.cache-max-size:500000}") long cacheMaxSize
+    ) {
+        this.bookingRepository = Objects.requireNonNull(bookingRepository);
+        this.readOnlyTx = new TransactionTemplate(Objects.requireNonNull(transactionManager));
+        this.readOnlyTx.setReadOnly(true);
+        this.maxDays = maxDays;
+        this.maxResources = maxResources;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Objects.requireNonNull(cacheTtl))
+                .maximumSize(cacheMaxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "occupancy");
+    }
+
+    // Занятость ресурсов за дни [from, to] включительно; порядок ресурсов — как в запросе, без повторов
+    // Неизвестный ресурс не ошибка: его дни просто пустые
+    public List<ResourceOccupancy> occupancy(Collection<UUID> resourceIds, LocalDate from, LocalDate to) {
+        Objects.requireNonNull(resourceIds, "resourceIds");
+        Objects.requireNonNull(from, "from");
+        Objects.requireNonNull(to, "to");
+
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Occupancy range is empty: from " + from + " is after to " + to);
+        }
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        if (days > maxDays) {
+            throw new IllegalArgumentException("Occupancy range must not exceed " + maxDays + " days");
+        }
+        Set<UUID> ids = new LinkedHashSet<>(resourceIds);
+        if (ids.size() > maxResources) {
+            throw new IllegalArgumentException("Occupancy request must not exceed " + maxResources + " resources");
+        }
+
+        List<Key> keys = new ArrayList<>((int) (ids.size() * days));
+        for (UUID id : ids) {
+            for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+                keys.add(new Key(Objects.requireNonNull(id, "resourceId"), d));
+            }
+        }
+        Map<Key, long[]> bitmaps = new HashMap<>(cache.getAllPresent(keys));
+        if (bitmaps.size() < keys.size()) {
+            Set<Key> missing = new LinkedHashSet<>(keys);
+            missing.removeAll(bitmaps.keySet());
+            bitmaps.putAll(loadAndCache(missing));
+        }
+
+        List<ResourceOccupancy> result = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            List<DayOccupancy> row = new ArrayList<>((int) days);
+            for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+                long[] bits = bitmaps.get(new Key(id, d));
+                row.add(new DayOccupancy(d, SLOT_MINUTES, DayBitmap.toHex(bits), DayBitmap.occupied(bits)));
+            }
+            result.add(new ResourceOccupancy(id, List.copyOf(row)));
+        }
+        return result;
+    }
+
+    // Кэширует только дни ресурсов, у которых версия не менялась с начала загрузки
+    // Проверка после put закрывает окно между сравнением и put: событие, пришедшее в это окно, уже удалило
+    // или удалит день, а если put случился после его удаления — день удаляется здесь
+    private Map<Key, long[]> loadAndCache(Set<Key> missing) {
+        Map<UUID, Long> before = new HashMap<>();
+        missing.forEach(key -> before.computeIfAbsent(key.resourceId(), this::version));
+
+        Map<Key, long[]> loaded = load(missing);
+
+        Map<Key, long[]> fresh = new HashMap<>(loaded.size() * 2);
+        loaded.forEach((key, bits) -> {
+            if (version(key.resourceId()) == before.get(key.resourceId())) {
+                fresh.put(key, bits);
+            }
+        });
+        cache.putAll(fresh);
+        for (Key key : fresh.keySet()) {
+            if (version(key.resourceId()) != before.get(key.resourceId())) {
+                cache.invalidate(key);
+            }
+        }
+        if (fresh.size() < loaded.size()) {
+            log.debug("booking.occupancy.staleLoad skipped={}", loaded.size() - fresh.size());
+        }
+        return loaded;
+    }
+
+    // Промахи кэша: один запрос по всем ресурсам на охватывающем окне дней
+    // Свободные дни делят один пустой массив
+    private Map<Key, long[]> load(Set<? extends Key> missing) {
+        Set<UUID> ids = new LinkedHashSet<>();
+        LocalDate minDay = null;
+        LocalDate maxDay = null;
+        for (Key key : missing) {
+            ids.add(key.resourceId());
+            minDay = minDay == null || key.day().isBefore(minDay) ? key.day() : minDay;
+            maxDay = maxDay == null || key.day().isAfter(maxDay) ? key.day() : maxDay;
+        }
+        OffsetDateTime from = minDay.atStartOfDay().atOffset(ZoneOffset.UTC);
+        OffsetDateTime to = maxDay.plusDays(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+
+        List<BookingInterval> intervals = readOnlyTx.execute(
+                status -> bookingRepository.findActiveIntervals(ids, from, to, ACTIVE_FOR_CONFLICT));
+
+        Map<Key, long[]> loaded = new HashMap<>(missing.size() * 2);
+        for (BookingInterval interval : intervals) {
+            Instant start = interval.startTime().toInstant();
+            Instant end = interval.endTime().toInstant();
+            for (LocalDate day : DayBitmap.days(start, end)) {
+                Key key = new Key(interval.resourceId(), day);
+                if (missing.contains(key)) {
+                    DayBitmap.mark(loaded.computeIfAbsent(key, k -> DayBitmap.newBitmap()), day, start, end);
+                }
+            }
+        }
+        for (Key key : missing) {
+            loaded.putIfAbsent(key, DayBitmap.empty());
+        }
+
+        log.debug("booking.occupancy.load resources={} from={} to={} intervals={} days={}",
+                ids.size(), minDay, maxDay, intervals.size(), missing.size());
+        return loaded;
+    }
+
+    // Затронутые дни удаляются, а не правятся: правка поверх загрузки, прочитавшей старое состояние,
+    // закрепила бы его в кэше. Версия растёт до удаления, чтобы идущая загрузка не вернула день в кэш
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(BookingStatusChangedEvent event) {
+        if (event.occupiedBefore() == event.occupiedAfter()) {
+            return;
+        }
+        versions.incrementAndGet(stripe(event.resourceId()));
+
+        List<Key> days = new ArrayList<>();
+        for (LocalDate day : DayBitmap.days(event.startTime().toInstant(), event.endTime().toInstant())) {
+            days.add(new Key(event.resourceId(), day));
+        }
+        cache.invalidateAll(days);
+    }
+
+    private long version(UUID resourceId) {
+        return versions.get(stripe(resourceId));
+    }
+
+    private static int stripe(UUID resourceId) {
+        return Math.floorMod(resourceId.hashCode(), VERSION_STRIPES);
+    }
+
+    private record Key(UUID resourceId, LocalDate day) {
+    }
+}
@@ -0,0 +1,132 @@
+package com.ramil.booking.resource_booking.domain.booking.service;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ramil.booking.resource_booking.domain.booking.dto.CreateBookingCommand;
+import com.ramil.booking.resource_booking.domain.booking.dto.WaitlistEntryView;
+import com.ramil.booking.resource_booking.domain.booking.dto.WaitlistPromotion;
+import com.ramil.booking.resource_booking.domain.booking.event.BookingStatusChangedEvent;
+import com.ramil.booking.resource_booking.domain.booking.exception.WaitlistAccessDeniedException;
+import com.ramil.booking.resource_booking.domain.booking.exception.WaitlistEntryNotFoundException;
+import com.ramil.booking.resource_booking.domain.booking.model.BookingStatus;
+import com.ramil.booking.resource_booking.domain.booking.repository.WaitlistRepository;
+import com.ramil.booking.resource_booking.domain.resource.dto.ResourceView;
+import com.ramil.booking.resource_booking.domain.resource.exception.ResourceInactiveException;
+import com.ramil.booking.resource_booking.domain.resource.exception.ResourceNotFoundException;
+import com.ramil.booking.resource_booking.domain.resource.repository.ResourceRepository;
+import com.ramil.booking.resource_booking.domain.user.security.CurrentUserProvider;
+
+// Лист ожидания занятых интервалов (V12): вместо повторных createBookingDraft после BookingConflictException
+// Освобождение слота (отмена, серия, истечение, неудачная оплата) продвигает ожидающих синхронным @EventListener
+// в той же транзакции: самый ранний ожидающий, чей интервал теперь свободен, получает бронирование в WAITING_PAYMENT
+// и видит его в myBookings / myWaitlist; не оплатит вовремя — бронирование истечёт и продвинет следующего
+@Service
+public class WaitlistService {
+
+    private static final Logger log = LoggerFactory.getLogger(WaitlistService.class);
+
+    private final WaitlistRepository waitlistRepository;
+    private final ResourceRepository resourceRepository;
+    private final CurrentUserProvider currentUser;
+    private final ApplicationEventPublisher events;
+    private final int maxEntriesPerUser;
+
+    public WaitlistService(
+            WaitlistRepository waitlistRepository,
+            ResourceRepository resourceRepository,
+            CurrentUserProvider currentUser,
+            ApplicationEventPublisher events,
+            @Value("${app.booking.waitlist.max-entries-per-user:20}") int maxEntriesPerUser
+    ) {
+        this.waitlistRepository = Objects.requireNonNull(waitlistRepository);
+        this.resourceRepository = Objects.requireNonNull(resourceRepository);
+        this.currentUser = Objects.requireNonNull(currentUser);
+        this.events = Objects.requireNonNull(events);
+        this.maxEntriesPerUser = maxEntriesPerUser;
+    }
+
+    // Встаёт в очередь на интервал; если он уже свободен, запись сразу продвигается (вернётся PROMOTED)
+    @Transactional
+    public WaitlistEntryView join(CreateBookingCommand cmd) {
+        Objects.requireNonNull(cmd, "cmd");
+
+        UUID me = currentUser.currentUserId();
+        log.info("booking.waitlist.join requestedBy={} resourceId={} start={} end={}",
+                me, cmd.resourceId(), cmd.startTime(), cmd.endTime());
+
+        BookingService.validateTimeRange(cmd.startTime(), cmd.endTime());
+
+        ResourceView resource = resourceRepository.findViewById(cmd.resourceId())
+                .orElseThrow(() -> new ResourceNotFoundException(cmd.resourceId()));
+        if (!resource.active()) {
+            throw new ResourceInactiveException(resource.id());
+        }
+        if (waitlistRepository.countWaitingByUserId(me) >= maxEntriesPerUser) {
+            throw new IllegalArgumentException("Waitlist limit reached: " + maxEntriesPerUser + " waiting entries");
+        }
+
+        UUID id = UUID.randomUUID();
+        waitlistRepository.insert(id, me, resource.id(), cmd.startTime(), cmd.endTime(),
+                currentUser.currentUserEmail());
+
+        // слот мог освободиться между конфликтом у клиента и этим вызовом
+        promote(resource.id(), cmd.startTime(), cmd.endTime());
+
+        return waitlistRepository.findViewById(id).orElseThrow(() -> new WaitlistEntryNotFoundException(id));
+    }
+
+    // Снимает ожидающую запись; для уже продвинутой или снятой ничего не меняет
+    @Transactional
+    public WaitlistEntryView leave(UUID entryId) {
+        Objects.requireNonNull(entryId, "entryId");
+
+        WaitlistEntryView entry = waitlistRepository.findViewById(entryId)
+                .orElseThrow(() -> new WaitlistEntryNotFoundException(entryId));
+        UUID me = currentUser.currentUserId();
+        if (!currentUser.isAdmin() && !entry.userId().equals(me)) {
+            log.warn("booking.waitlist.accessDenied requestedBy={} entryId={}", me, entryId);
+            throw new WaitlistAccessDeniedException(entryId);
+        }
+
+        if (!waitlistRepository.cancel(entryId, currentUser.currentUserEmail())) {
+            return entry;
+        }
+        log.info("booking.waitlist.leave requestedBy={} entryId={}", me, entryId);
+        return waitlistRepository.findViewById(entryId).orElseThrow(() -> new WaitlistEntryNotFoundException(entryId));
+    }
+
+    @Transactional(readOnly = true)
+    public List<WaitlistEntryView> listMine() {
+        return waitlistRepository.findActiveViewsByUserId(currentUser.currentUserId());
+    }
+
+    @EventListener
+    public void onStatusChanged(BookingStatusChangedEvent event) {
+        if (!event.occupiedBefore() || event.occupiedAfter()) {
+            return;
+        }
+        promote(event.resourceId(), event.startTime(), event.endTime());
+    }
+
+    private void promote(UUID resourceId, OffsetDateTime from, OffsetDateTime to) {
+        List<WaitlistPromotion> promoted = waitlistRepository.promote(resourceId, from, to);
+        for (WaitlistPromotion p : promoted) {
+            log.info("booking.waitlist.promote entryId={} bookingId={} userId={} resourceId={} start={} end={}",
+                    p.waitlistId(), p.bookingId(), p.userId(), p.resourceId(), p.startTime(), p.endTime());
+            // индекс интервалов, кэши и агрегаты узнают о новом бронировании как о любом другом
+            events.publishEvent(new BookingStatusChangedEvent(
+                    p.bookingId(), p.resourceId(), p.startTime(), p.endTime(), null, BookingStatus.WAITING_PAYMENT));
+        }
+    }
+}
@@ -1,12 +1,14 @@
 package com.ramil.booking.resource_booking.domain.common.persistence;
 
 import java.time.Instant;
+import java.util.UUID;
 
 import lombok.Getter;
 import org.springframework.data.annotation.CreatedBy;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedBy;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.domain.Persistable;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import jakarta.persistence.Column;
@@ -16,7 +18,7 @@ import jakarta.persistence.MappedSuperclass;
 @Getter
 @MappedSuperclass
 @EntityListeners(AuditingEntityListener.class)
-public abstract class AuditableEntity {
+public abstract class AuditableEntity implements Persistable<UUID> {
 
   @CreatedDate
   @Column(name = "created_at", nullable = false, updatable = false)
@@ -34,4 +36,11 @@ public abstract class AuditableEntity {
   @Column(name = "updated_by", nullable = false, length = 255)
   private String updatedBy;
 
-}
\ No newline at end of file
+  // id назначается в коде, поэтому по нему Spring Data не отличит новую сущность от существующей
+  // и сделал бы merge (лишний SELECT на каждый save, без JDBC-батчей); created_at пуст только до INSERT
+  @Override
+  public boolean isNew() {
+    return createdAt == null;
+  }
+
+}
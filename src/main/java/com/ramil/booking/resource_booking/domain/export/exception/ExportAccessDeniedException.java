@@ -0,0 +1,9 @@
+package com.ramil.booking.resource_booking.domain.export.exception;
+
+import java.util.UUID;
+
+public class ExportAccessDeniedException extends RuntimeException {
+    public ExportAccessDeniedException(UUID userId) {
+        super("Export is available to admins only, requestedBy: " + userId);
+    }
+}
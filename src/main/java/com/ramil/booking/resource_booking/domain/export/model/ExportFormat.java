@@ -0,0 +1,23 @@
+package com.ramil.booking.resource_booking.domain.export.model;
+
+// Формат выгрузки: NDJSON — один JSON-объект на строку, CSV — с заголовком, RFC 4180
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+}
@@ -0,0 +1,177 @@
+package com.ramil.booking.resource_booking.domain.export.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingView;
+import com.ramil.booking.resource_booking.domain.booking.entity.BookingEntity;
+import com.ramil.booking.resource_booking.domain.booking.mapper.BookingMapper;
+import com.ramil.booking.resource_booking.domain.booking.repository.BookingRepository;
+import com.ramil.booking.resource_booking.domain.export.exception.ExportAccessDeniedException;
+import com.ramil.booking.resource_booking.domain.export.model.ExportFormat;
+import com.ramil.booking.resource_booking.domain.payment.dto.PaymentView;
+import com.ramil.booking.resource_booking.domain.payment.repository.PaymentRepository;
+import com.ramil.booking.resource_booking.domain.user.security.CurrentUserProvider;
+
+import jakarta.persistence.EntityManager;
+
+// Полная выгрузка бронирований и платежей для бухгалтерии
+// Строки читаются курсором (fetch size 500) и сразу пишутся в ответ; после каждой пачки
+// persistence context очищается, поэтому память не зависит от размера таблицы
+@Service
+public class ExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportService.class);
+
+    // Совпадает с fetch size в streamAllForExport
+    static final int CLEAR_EVERY = 500;
+
+    private static final List<String> BOOKING_COLUMNS =
+            List.of("id", "userId", "resourceId", "startTime", "endTime", "status", "seriesId");
+    private static final List<String> PAYMENT_COLUMNS =
+            List.of("id", "bookingId", "provider", "type", "status", "amount", "currency");
+
+    private final BookingRepository bookingRepository;
+    private final PaymentRepository paymentRepository;
+    private final BookingMapper bookingMapper;
+    private final CurrentUserProvider currentUser;
+    private final EntityManager entityManager;
+    private final ObjectWriter jsonWriter;
+
+    public ExportService(
+            BookingRepository bookingRepository,
+            PaymentRepository paymentRepository,
+            BookingMapper bookingMapper,
+            CurrentUserProvider currentUser,
+            EntityManager entityManager,
+            ObjectMapper objectMapper
+    ) {
+        this.bookingRepository = Objects.requireNonNull(bookingRepository);
+        this.paymentRepository = Objects.requireNonNull(paymentRepository);
+        this.bookingMapper = Objects.requireNonNull(bookingMapper);
+        this.currentUser = Objects.requireNonNull(currentUser);
+        this.entityManager = Objects.requireNonNull(entityManager);
+        this.jsonWriter = Objects.requireNonNull(objectMapper).writer();
+    }
+
+    @Transactional(readOnly = true)
+    public long exportBookings(ExportFormat format, OutputStream out) {
+        UUID me = requireAdmin("exportBookings");
+        log.info("export.bookings requestedBy={} format={}", me, format);
+
+        long count;
+        try (Stream<BookingEntity> rows = bookingRepository.streamAllForExport()) {
+            count = write(rows, bookingMapper::toView, BOOKING_COLUMNS, ExportService::bookingRow, format, out);
+        }
+
+        log.info("export.bookings result requestedBy={} format={} count={}", me, format, count);
+        return count;
+    }
+
+    @Transactional(readOnly = true)
+    public long exportPayments(ExportFormat format, OutputStream out) {
+        UUID me = requireAdmin("exportPayments");
+        log.info("export.payments requestedBy={} format={}", me, format);
+
+        long count;
+        try (Stream<PaymentView> rows = paymentRepository.streamAllForExport()) {
+            count = write(rows, Function.identity(), PAYMENT_COLUMNS, ExportService::paymentRow, format, out);
+        }
+
+        log.info("export.payments result requestedBy={} format={} count={}", me, format, count);
+        return count;
+    }
+
+    private UUID requireAdmin(String op) {
+        UUID me = currentUser.currentUserId();
+        if (!currentUser.isAdmin()) {
+            log.warn("export.{} accessDenied requestedBy={}", op, me);
+            throw new ExportAccessDeniedException(me);
+        }
+        return me;
+    }
+
+    private <E, V> long write(Stream<E> rows,
+                              Function<E, V> toView,
+                              List<String> columns,
+                              Function<V, List<Object>> csvRow,
+                              ExportFormat format,
+                              OutputStream out) {
+        Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        long count = 0;
+        try {
+            if (format == ExportFormat.CSV) {
+                writeCsvLine(w, columns);
+            }
+            Iterator<E> it = rows.iterator();
+            while (it.hasNext()) {
+                V view = toView.apply(it.next());
+                if (format == ExportFormat.CSV) {
+                    writeCsvLine(w, csvRow.apply(view));
+                } else {
+                    w.write(jsonWriter.writeValueAsString(view));
+                    w.write('\n');
+                }
+                // записанные строки больше не нужны: освобождаем сущности и прокси связей
+                if (++count % CLEAR_EVERY == 0) {
+                    entityManager.clear();
+                }
+            }
+            w.flush();
+        } catch (IOException e) {
+            // чаще всего клиент оборвал загрузку; курсор закроется вместе со stream
+            throw new UncheckedIOException(e);
+        }
+        return count;
+    }
+
+    private static List<Object> bookingRow(BookingView b) {
+        return Arrays.asList(b.id(), b.userId(), b.resourceId(), b.startTime(), b.endTime(), b.status(),
+                b.seriesId());
+    }
+
+    private static List<Object> paymentRow(PaymentView p) {
+        return Arrays.asList(p.id(), p.bookingId(), p.provider(), p.type(), p.status(),
+                p.amount() == null ? null : p.amount().toPlainString(), p.currency());
+    }
+
+    private static void writeCsvLine(Writer w, List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                w.write(',');
+            }
+            w.write(csvValue(values.get(i)));
+        }
+        w.write("\r\n");
+    }
+
+    static String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String s = value.toString();
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) {
+            return s;
+        }
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+}
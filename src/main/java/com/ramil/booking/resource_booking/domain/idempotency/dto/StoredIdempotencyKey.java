@@ -0,0 +1,8 @@
+package com.ramil.booking.resource_booking.domain.idempotency.dto;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+// Строка idempotency_key; resultId == null — первое выполнение ещё не завершилось
+public record StoredIdempotencyKey(byte[] requestHash, UUID resultId, OffsetDateTime lockedUntil) {
+}
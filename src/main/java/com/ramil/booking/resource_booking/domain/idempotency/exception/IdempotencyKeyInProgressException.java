@@ -0,0 +1,7 @@
+package com.ramil.booking.resource_booking.domain.idempotency.exception;
+
+public class IdempotencyKeyInProgressException extends RuntimeException {
+    public IdempotencyKeyInProgressException(String idempotencyKey) {
+        super("Request with idempotency key is still in progress: " + idempotencyKey);
+    }
+}
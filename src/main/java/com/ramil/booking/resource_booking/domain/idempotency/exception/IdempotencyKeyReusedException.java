@@ -0,0 +1,7 @@
+package com.ramil.booking.resource_booking.domain.idempotency.exception;
+
+public class IdempotencyKeyReusedException extends RuntimeException {
+    public IdempotencyKeyReusedException(String idempotencyKey) {
+        super("Idempotency key was already used with different parameters: " + idempotencyKey);
+    }
+}
@@ -0,0 +1,23 @@
+package com.ramil.booking.resource_booking.domain.idempotency.exception;
+
+import java.util.UUID;
+
+// Действие уже записало результат resultId, но чем оно закончилось, неизвестно (например, провайдер не ответил)
+// IdempotencyService не освобождает ключ, а запоминает resultId и пробрасывает исходную ошибку failure()
+public class IdempotentOutcomeUnknownException extends RuntimeException {
+
+    private final UUID resultId;
+
+    public IdempotentOutcomeUnknownException(UUID resultId, RuntimeException failure) {
+        super("Outcome is unknown for result " + resultId, failure);
+        this.resultId = resultId;
+    }
+
+    public UUID resultId() {
+        return resultId;
+    }
+
+    public RuntimeException failure() {
+        return (RuntimeException) getCause();
+    }
+}
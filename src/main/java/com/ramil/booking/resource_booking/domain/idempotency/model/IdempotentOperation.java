@@ -0,0 +1,7 @@
+package com.ramil.booking.resource_booking.domain.idempotency.model;
+
+// Мутации, принимающие idempotencyKey; ключ уникален в пределах пользователя и операции
+public enum IdempotentOperation {
+    CREATE_BOOKING_DRAFT,
+    START_PAYMENT
+}
@@ -0,0 +1,116 @@
+package com.ramil.booking.resource_booking.domain.idempotency.repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+
+import com.ramil.booking.resource_booking.domain.idempotency.dto.StoredIdempotencyKey;
+import com.ramil.booking.resource_booking.domain.idempotency.model.IdempotentOperation;
+
+import jakarta.persistence.EntityManager;
+
+// Ключи идемпотентности (V13) без сущности: строку захватывают и перехватывают условным upsert,
+// состояние между вызовами в persistence context не нужно
+@Repository
+public class IdempotencyKeyRepository {
+
+    private final EntityManager em;
+
+    public IdempotencyKeyRepository(EntityManager em) {
+        this.em = Objects.requireNonNull(em);
+    }
+
+    // Захватывает ключ для выполнения: новый, просроченный или брошенный (lockedUntil прошёл без результата)
+    // false — ключ занят другим выполнением или уже хранит результат
+    public boolean claim(UUID userId, IdempotentOperation operation, String key, byte[] requestHash,
+                         OffsetDateTime now, OffsetDateTime lockedUntil, OffsetDateTime expiresAt) {
+        return em.createNativeQuery("""
+                        insert into idempotency_key(user_id, operation, idempotency_key, request_hash, result_id,
+                                                    locked_until, expires_at)
+                        values (:userId, :operation, :key, :hash, null, :lockedUntil, :expiresAt)
+                        on conflict (user_id, operation, idempotency_key) do update
+                        set request_hash = excluded.request_hash,
+                            result_id = null,
+                            locked_until = excluded.locked_until,
+                            expires_at = excluded.expires_at
+                        where idempotency_key.expires_at < :now
+                           or (idempotency_key.result_id is null and idempotency_key.locked_until < :now)
+                        """)
+                .setParameter("userId", userId)
+                .setParameter("operation", operation.name())
+                .setParameter("key", key)
+                .setParameter("hash", requestHash)
+                .setParameter("lockedUntil", lockedUntil)
+                .setParameter("expiresAt", expiresAt)
+                .setParameter("now", now)
+                .executeUpdate() > 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public Optional<StoredIdempotencyKey> find(UUID userId, IdempotentOperation operation, String key) {
+        List<Object[]> rows = em.createNativeQuery("""
+                        select request_hash, result_id, locked_until
+                        from idempotency_key
+                        where user_id = :userId and operation = :operation and idempotency_key = :key
+                        """)
+                .setParameter("userId", userId)
+                .setParameter("operation", operation.name())
+                .setParameter("key", key)
+                .unwrap(NativeQuery.class)
+                .addScalar("request_hash", byte[].class)
+                .addScalar("result_id", UUID.class)
+                .addScalar("locked_until", OffsetDateTime.class)
+                .getResultList();
+
+        return rows.stream()
+                .map(r -> new StoredIdempotencyKey((byte[]) r[0], (UUID) r[1], (OffsetDateTime) r[2]))
+                .findFirst();
+    }
+
+    public void complete(UUID userId, IdempotentOperation operation, String key, UUID resultId) {
+        em.createNativeQuery("""
+                        update idempotency_key
+                        set result_id = :resultId
+                        where user_id = :userId and operation = :operation and idempotency_key = :key
+                          and result_id is null
+                        """)
+                .setParameter("userId", userId)
+                .setParameter("operation", operation.name())
+                .setParameter("key", key)
+                .setParameter("resultId", resultId)
+                .executeUpdate();
+    }
+
+    // Освобождает ключ после ошибки: ошибки не запоминаются, повтор выполнит запрос заново
+    public void release(UUID userId, IdempotentOperation operation, String key) {
+        em.createNativeQuery("""
+                        delete from idempotency_key
+                        where user_id = :userId and operation = :operation and idempotency_key = :key
+                          and result_id is null
+                        """)
+                .setParameter("userId", userId)
+                .setParameter("operation", operation.name())
+                .setParameter("key", key)
+                .executeUpdate();
+    }
+
+    // Удаляет до limit просроченных ключей; возвращает число удалённых
+    public int deleteExpired(OffsetDateTime now, int limit) {
+        return em.createNativeQuery("""
+                        delete from idempotency_key
+                        where ctid in (
+                            select ctid from idempotency_key
+                            where expires_at < :now
+                            limit :limit
+                            for update skip locked)
+                        """)
+                .setParameter("now", now)
+                .setParameter("limit", limit)
+                .executeUpdate();
+    }
+}
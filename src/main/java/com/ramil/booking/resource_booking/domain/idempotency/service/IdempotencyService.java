@@ -0,0 +1,312 @@
+package com.ramil.booking.resource_booking.domain.idempotency.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ramil.booking.resource_booking.domain.idempotency.dto.StoredIdempotencyKey;
+import com.ramil.booking.resource_booking.domain.idempotency.exception.IdempotencyKeyInProgressException;
+import com.ramil.booking.resource_booking.domain.idempotency.exception.IdempotencyKeyReusedException;
+import com.ramil.booking.resource_booking.domain.idempotency.exception.IdempotentOutcomeUnknownException;
+import com.ramil.booking.resource_booking.domain.idempotency.model.IdempotentOperation;
+import com.ramil.booking.resource_booking.domain.idempotency.repository.IdempotencyKeyRepository;
+import com.ramil.booking.resource_booking.domain.user.security.CurrentUserProvider;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+// Идемпотентные мутации: повтор с тем же idempotencyKey возвращает результат первого выполнения
+// Хранится только id результата (idempotency_key, V13) — повтор перечитывает его, а не выполняет запрос снова;
+// завершённые ключи дублируются в Caffeine, чтобы частые повторы не ходили в БД
+// Одновременные дубли ждут первое выполнение: на этой ноде — его CompletableFuture, на других — опросом строки
+// до locked_until. Ошибка до побочного эффекта освобождает ключ, и повтор выполнит запрос заново; если результат
+// уже записан, а исход неизвестен (IdempotentOutcomeUnknownException), ключ запоминает его, и повтор вернёт его
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    static final int MAX_KEY_LENGTH = 128;
+
+    private final IdempotencyKeyRepository repository;
+    private final CurrentUserProvider currentUser;
+    private final TransactionTemplate tx;
+    private final Clock clock;
+    private final Duration ttl;
+    private final Duration lease;
+    private final Duration waitTimeout;
+    private final Duration pollInterval;
+    private final int cleanupBatchSize;
+    private final Cache<Key, Completed> completed;
+    private final ConcurrentMap<Key, CompletableFuture<Completed>> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public IdempotencyService(
+            IdempotencyKeyRepository repository,
+            CurrentUserProvider currentUser,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.idempotency.ttl:PT24H}") Duration ttl,
+            @Value("${app.idempotency.lease:PT2M}") Duration lease,
+            @Value("${app.idempotency.wait-timeout:PT30S}") Duration waitTimeout,
+            @Value("${app.idempotency.poll-interval:PT0.1S}") Duration pollInterval,
+            @Value("${app.idempotency.cache-max-size:100000}") long cacheMaxSize,
+            @Value("${app.idempotency.cleanup-batch-size:1000}") int cleanupBatchSize
+    ) {
+        this(repository, currentUser, transactionManager, meterRegistry, Clock.systemUTC(),
+                ttl, lease, waitTimeout, pollInterval, cacheMaxSize, cleanupBatchSize);
+    }
+
+    IdempotencyService(
+            IdempotencyKeyRepository repository,
+            CurrentUserProvider currentUser,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            Clock clock,
+            Duration ttl,
+            Duration lease,
+            Duration waitTimeout,
+            Duration pollInterval,
+            long cacheMaxSize,
+            int cleanupBatchSize
+    ) {
+        this.repository = Objects.requireNonNull(repository);
+        this.currentUser = Objects.requireNonNull(currentUser);
+        // ключ фиксируется и освобождается отдельными короткими транзакциями: другие ноды должны видеть его сразу
+        this.tx = new TransactionTemplate(Objects.requireNonNull(transactionManager));
+        this.tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.clock = Objects.requireNonNull(clock);
+        this.ttl = Objects.requireNonNull(ttl);
+        this.lease = Objects.requireNonNull(lease);
+        this.waitTimeout = Objects.requireNonNull(waitTimeout);
+        this.pollInterval = Objects.requireNonNull(pollInterval);
+        if (cleanupBatchSize < 1) {
+            throw new IllegalArgumentException("app.idempotency.cleanup-batch-size must be positive: " + cleanupBatchSize);
+        }
+        this.cleanupBatchSize = cleanupBatchSize;
+        this.completed = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(cacheMaxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, completed, "idempotency");
+    }
+
+    // Выполняет action не больше одного раза на (пользователь, operation, idempotencyKey)
+    // request — параметры запроса: повтор ключа с другими параметрами отклоняется
+    // resultId / load — id результата для хранения и его перечитывание при повторе
+    // idempotencyKey == null — обычное выполнение без защиты от повторов
+    public <T> T execute(IdempotentOperation operation, String idempotencyKey, Object request,
+                         Supplier<T> action, Function<T, UUID> resultId, Function<UUID, T> load) {
+        Objects.requireNonNull(operation, "operation");
+        Objects.requireNonNull(action, "action");
+        if (idempotencyKey == null) {
+            try {
+                return action.get();
+            } catch (IdempotentOutcomeUnknownException e) {
+                throw e.failure();
+            }
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(
+                    "Invalid idempotencyKey: expected 1.." + MAX_KEY_LENGTH + " characters");
+        }
+
+        Key key = new Key(currentUser.currentUserId(), operation, idempotencyKey);
+        byte[] hash = hash(operation, request);
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+
+        while (true) {
+            Completed done = completed.getIfPresent(key);
+            if (done != null) {
+                return replay(key, done, hash, load);
+            }
+
+            CompletableFuture<Completed> mine = new CompletableFuture<>();
+            CompletableFuture<Completed> running = inFlight.putIfAbsent(key, mine);
+            if (running == null) {
+                try {
+                    return runOwned(key, hash, action, resultId, load, mine, deadline);
+                } finally {
+                    inFlight.remove(key, mine);
+                }
+            }
+
+            // тот же ключ уже выполняется на этой ноде
+            Completed other = await(key, running, deadline);
+            if (other != null) {
+                return replay(key, other, hash, load);
+            }
+            // первое выполнение завершилось ошибкой и освободило ключ — выполняем сами
+        }
+    }
+
+    private <T> T runOwned(Key key, byte[] hash, Supplier<T> action, Function<T, UUID> resultId,
+                           Function<UUID, T> load, CompletableFuture<Completed> mine, long deadline) {
+        try {
+            while (true) {
+                OffsetDateTime now = OffsetDateTime.now(clock);
+                Boolean claimed = tx.execute(status -> repository.claim(key.userId(), key.operation(), key.key(), hash,
+                        now, now.plus(lease), now.plus(ttl)));
+                if (Boolean.TRUE.equals(claimed)) {
+                    T result = runClaimed(key, hash, action, mine);
+                    Completed done = new Completed(hash, resultId.apply(result));
+                    store(key, done);
+                    mine.complete(done);
+                    return result;
+                }
+
+                // ключ держит другая нода или он уже выполнен
+                StoredIdempotencyKey stored = tx.execute(status ->
+                        repository.find(key.userId(), key.operation(), key.key()).orElse(null));
+                if (stored != null && stored.resultId() != null) {
+                    Completed done = new Completed(stored.requestHash(), stored.resultId());
+                    completed.put(key, done);
+                    mine.complete(done);
+                    return replay(key, done, hash, load);
+                }
+                if (stored != null && !Arrays.equals(stored.requestHash(), hash)) {
+                    throw new IdempotencyKeyReusedException(key.key());
+                }
+                sleepUntilNextPoll(key, deadline);
+            }
+        } catch (RuntimeException e) {
+            // ожидающие на этой ноде попробуют выполнить запрос сами
+            mine.complete(null);
+            throw e;
+        }
+    }
+
+    private <T> T runClaimed(Key key, byte[] hash, Supplier<T> action, CompletableFuture<Completed> mine) {
+        try {
+            return action.get();
+        } catch (IdempotentOutcomeUnknownException e) {
+            // результат уже записан: повтор должен вернуть его, а не выполнить запрос снова
+            log.warn("idempotency.outcomeUnknown operation={} key={} resultId={}",
+                    key.operation(), key.key(), e.resultId());
+            Completed done = new Completed(hash, e.resultId());
+            store(key, done);
+            mine.complete(done);
+            throw e.failure();
+        } catch (RuntimeException e) {
+            try {
+                tx.executeWithoutResult(status -> repository.release(key.userId(), key.operation(), key.key()));
+            } catch (RuntimeException releaseError) {
+                // ключ освободится сам по истечении lease
+                log.warn("idempotency.release.failed operation={} key={}", key.operation(), key.key(), releaseError);
+            }
+            throw e;
+        }
+    }
+
+    private void store(Key key, Completed done) {
+        try {
+            tx.executeWithoutResult(status ->
+                    repository.complete(key.userId(), key.operation(), key.key(), done.resultId()));
+        } catch (RuntimeException e) {
+            // результат уже есть; повторы на этой ноде получат его из кэша, на других — после lease выполнят заново
+            log.warn("idempotency.complete.failed operation={} key={} resultId={}",
+                    key.operation(), key.key(), done.resultId(), e);
+        }
+        completed.put(key, done);
+    }
+
+    private <T> T replay(Key key, Completed done, byte[] hash, Function<UUID, T> load) {
+        if (!Arrays.equals(done.requestHash(), hash)) {
+            throw new IdempotencyKeyReusedException(key.key());
+        }
+        log.info("idempotency.replay userId={} operation={} key={} resultId={}",
+                key.userId(), key.operation(), key.key(), done.resultId());
+        return load.apply(done.resultId());
+    }
+
+    // null — первое выполнение завершилось ошибкой
+    private Completed await(Key key, CompletableFuture<Completed> running, long deadline) {
+        try {
+            return running.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new IdempotencyKeyInProgressException(key.key());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyInProgressException(key.key());
+        } catch (ExecutionException e) {
+            // runOwned завершает future только значением
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void sleepUntilNextPoll(Key key, long deadline) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            throw new IdempotencyKeyInProgressException(key.key());
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(Math.min(remaining, pollInterval.toNanos()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyInProgressException(key.key());
+        }
+    }
+
+    @Scheduled(
+            initialDelayString = "${app.idempotency.cleanup-interval:PT1H}",
+            fixedDelayString = "${app.idempotency.cleanup-interval:PT1H}"
+    )
+    public void purgeExpired() {
+        OffsetDateTime now = OffsetDateTime.now(clock);
+        int total = 0;
+        while (true) {
+            Integer deleted = tx.execute(status -> repository.deleteExpired(now, cleanupBatchSize));
+            int n = deleted == null ? 0 : deleted;
+            total += n;
+            if (n < cleanupBatchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("idempotency.purge deleted={}", total);
+        }
+    }
+
+    // SHA-256 операции и параметров запроса (toString записей-команд)
+    static byte[] hash(IdempotentOperation operation, Object request) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            return sha.digest((operation.name() + '\n' + request).getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Key(UUID userId, IdempotentOperation operation, String key) {
+    }
+
+    private record Completed(byte[] requestHash, UUID resultId) {
+    }
+}
@@ -0,0 +1,15 @@
+package com.ramil.booking.resource_booking.domain.payment.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentStatus;
+
+// Платёж, переведённый в CANCELING, и статус до перевода — для события выручки
+public record CancelingPayment(
+        UUID paymentId,
+        UUID bookingId,
+        PaymentStatus previousStatus,
+        BigDecimal amount,
+        String currency) {
+}
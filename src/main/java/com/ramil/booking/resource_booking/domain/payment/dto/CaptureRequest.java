@@ -0,0 +1,8 @@
+package com.ramil.booking.resource_booking.domain.payment.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// Авторизация, которую нужно списать; paymentId — ключ идемпотентности у провайдера
+public record CaptureRequest(UUID paymentId, BigDecimal amount, String currency, String payloadJson) {
+}
@@ -0,0 +1,13 @@
+package com.ramil.booking.resource_booking.domain.payment.dto;
+
+import java.util.Set;
+import java.util.UUID;
+
+// Ответ провайдера на пачку списаний: captured — списаны, declined — явно отклонены
+// paymentId, которого нет ни в одном множестве, провайдер не обработал: авторизация остаётся, списание повторится
+public record CaptureResult(Set<UUID> captured, Set<UUID> declined) {
+    public CaptureResult {
+        captured = Set.copyOf(captured);
+        declined = Set.copyOf(declined);
+    }
+}
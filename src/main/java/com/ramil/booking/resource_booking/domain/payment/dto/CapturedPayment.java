@@ -0,0 +1,15 @@
+package com.ramil.booking.resource_booking.domain.payment.dto;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+// Платёж, переведённый из AUTHORIZED в SUCCESS, с данными бронирования для события выручки
+public record CapturedPayment(
+        UUID paymentId,
+        UUID bookingId,
+        UUID resourceId,
+        OffsetDateTime bookingStartTime,
+        BigDecimal amount,
+        String currency) {
+}
@@ -0,0 +1,22 @@
+package com.ramil.booking.resource_booking.domain.payment.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentProvider;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentStatus;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentType;
+
+// Платёж из очереди (payment_outbox или payment_refund) с тем, что нужно для вызова провайдера;
+// attempts — с учётом текущего захвата
+public record OutboxPayment(
+        UUID paymentId,
+        PaymentProvider provider,
+        PaymentType type,
+        PaymentStatus status,
+        BigDecimal amount,
+        String currency,
+        String payloadJson,
+        int attempts
+) {
+}
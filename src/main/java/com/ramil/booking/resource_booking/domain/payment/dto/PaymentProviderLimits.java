@@ -0,0 +1,15 @@
+package com.ramil.booking.resource_booking.domain.payment.dto;
+
+// Ограничения асинхронных списаний одного провайдера
+// maxInFlight — одновременных вызовов charge на ноде, maxQueued — строк в payment_outbox, после чего startPayment отказывает
+public record PaymentProviderLimits(int maxInFlight, int maxQueued) {
+
+    public PaymentProviderLimits {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+        if (maxQueued < 1) {
+            throw new IllegalArgumentException("maxQueued must be positive: " + maxQueued);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.ramil.booking.resource_booking.domain.payment.dto;
+
+import java.time.Duration;
+import java.util.Objects;
+
+// Настройки защиты вызовов одного провайдера (ResilientPaymentProviderClient)
+// callTimeout — на весь вызов вместе с повторами, maxConcurrent — одновременных вызовов на ноде,
+// windowSize / minCalls / failureRatePercent / openDuration — автомат отключения,
+// hedgeDelay / maxAttempts — повторы только для идемпотентных операций (cancel)
+public record PaymentProviderResilience(
+        Duration callTimeout,
+        int maxConcurrent,
+        int windowSize,
+        int minCalls,
+        int failureRatePercent,
+        Duration openDuration,
+        Duration hedgeDelay,
+        int maxAttempts
+) {
+
+    public PaymentProviderResilience {
+        Objects.requireNonNull(callTimeout, "callTimeout");
+        Objects.requireNonNull(openDuration, "openDuration");
+        Objects.requireNonNull(hedgeDelay, "hedgeDelay");
+        if (callTimeout.isNegative() || callTimeout.isZero()) {
+            throw new IllegalArgumentException("callTimeout must be positive: " + callTimeout);
+        }
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent must be positive: " + maxConcurrent);
+        }
+        if (windowSize < 1 || minCalls < 1 || minCalls > windowSize) {
+            throw new IllegalArgumentException("minCalls must be within 1.." + windowSize + ": " + minCalls);
+        }
+        if (failureRatePercent < 1 || failureRatePercent > 100) {
+            throw new IllegalArgumentException("failureRatePercent must be within 1..100: " + failureRatePercent);
+        }
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be positive: " + maxAttempts);
+        }
+    }
+}
@@ -12,6 +12,7 @@ import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.UUID;
 
 @Entity
@@ -45,6 +46,11 @@ public class PaymentEntity extends AuditableEntity {
     @Column(name = "currency", nullable = false, length = 3)
     private String currency;
 
+    // момент авторизации DEFERRED-платежа; от него отсчитывается срок списания
+    @Setter
+    @Column(name = "authorized_at")
+    private Instant authorizedAt;
+
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(name = "provider_payload", columnDefinition = "jsonb")
     private JsonNode providerPayload;
@@ -98,6 +104,10 @@ public class PaymentEntity extends AuditableEntity {
         return currency;
     }
 
+    public Instant getAuthorizedAt() {
+        return authorizedAt;
+    }
+
     public JsonNode getProviderPayload() {
         return providerPayload;
     }
@@ -0,0 +1,29 @@
+package com.ramil.booking.resource_booking.domain.payment.event;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentStatus;
+
+// Публикуется при смене статуса платежа, влияющей на выручку, внутри той же транзакции:
+// NEW/AUTHORIZED -> SUCCESS (списание) и AUTHORIZED/SUCCESS -> CANCELING (возврат поставлен в очередь)
+// resourceId / bookingStartTime — бронирования, за которое платёж (для агрегатов по ресурсу без чтения booking)
+public record PaymentStatusChangedEvent(
+        UUID paymentId,
+        UUID bookingId,
+        UUID resourceId,
+        OffsetDateTime bookingStartTime,
+        BigDecimal amount,
+        String currency,
+        PaymentStatus from,
+        PaymentStatus to) {
+
+    public boolean succeededBefore() {
+        return from == PaymentStatus.SUCCESS;
+    }
+
+    public boolean succeededAfter() {
+        return to == PaymentStatus.SUCCESS;
+    }
+}
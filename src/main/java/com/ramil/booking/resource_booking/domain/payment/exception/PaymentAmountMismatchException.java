@@ -0,0 +1,10 @@
+package com.ramil.booking.resource_booking.domain.payment.exception;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public class PaymentAmountMismatchException extends RuntimeException {
+    public PaymentAmountMismatchException(UUID bookingId, BigDecimal expected, String currency) {
+        super("Payment amount does not match booking price for " + bookingId + ". Expected: " + expected + " " + currency);
+    }
+}
@@ -0,0 +1,9 @@
+package com.ramil.booking.resource_booking.domain.payment.exception;
+
+import java.util.UUID;
+
+public class PaymentNotFoundException extends RuntimeException {
+    public PaymentNotFoundException(UUID id) {
+        super("Payment not found: " + id);
+    }
+}
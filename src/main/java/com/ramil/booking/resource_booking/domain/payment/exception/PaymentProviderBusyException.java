@@ -0,0 +1,10 @@
+package com.ramil.booking.resource_booking.domain.payment.exception;
+
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentProvider;
+
+// Очередь или лимит одновременных вызовов провайдера исчерпаны; до провайдера запрос не дошёл
+public class PaymentProviderBusyException extends RuntimeException {
+    public PaymentProviderBusyException(PaymentProvider provider) {
+        super("Payment provider is saturated, retry later: " + provider);
+    }
+}
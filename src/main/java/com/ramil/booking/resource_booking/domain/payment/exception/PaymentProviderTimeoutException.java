@@ -0,0 +1,12 @@
+package com.ramil.booking.resource_booking.domain.payment.exception;
+
+import java.time.Duration;
+
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentProvider;
+
+// Ответа не дождались: провайдер мог выполнить операцию, повторять списание нельзя
+public class PaymentProviderTimeoutException extends RuntimeException {
+    public PaymentProviderTimeoutException(PaymentProvider provider, Duration timeout) {
+        super("Payment provider did not answer within " + timeout + ": " + provider);
+    }
+}
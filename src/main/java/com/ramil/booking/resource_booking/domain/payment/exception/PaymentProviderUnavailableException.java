@@ -0,0 +1,9 @@
+package com.ramil.booking.resource_booking.domain.payment.exception;
+
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentProvider;
+
+public class PaymentProviderUnavailableException extends RuntimeException {
+    public PaymentProviderUnavailableException(PaymentProvider provider) {
+        super("Payment provider is temporarily disabled after repeated failures: " + provider);
+    }
+}
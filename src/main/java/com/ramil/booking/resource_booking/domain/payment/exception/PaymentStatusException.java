@@ -0,0 +1,11 @@
+package com.ramil.booking.resource_booking.domain.payment.exception;
+
+import java.util.UUID;
+
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentStatus;
+
+public class PaymentStatusException extends RuntimeException {
+    public PaymentStatusException(UUID paymentId, PaymentStatus current, String expected) {
+        super("Invalid payment status for " + paymentId + ". Current=" + current + ", expected: " + expected);
+    }
+}
@@ -2,7 +2,11 @@ package com.ramil.booking.resource_booking.domain.payment.model;
 
 public enum PaymentStatus {
     NEW,
+    // DEFERRED: сумма зарезервирована у провайдера, списание — PaymentSettlementService
+    AUTHORIZED,
     SUCCESS,
     FAILED,
+    // возврат поставлен в очередь, ждём подтверждения провайдера (PaymentRefundWorker)
+    CANCELING,
     CANCELED
-}
\ No newline at end of file
+}
@@ -1,12 +1,19 @@
 package com.ramil.booking.resource_booking.domain.payment.provider;
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Component;
 
+import com.ramil.booking.resource_booking.domain.payment.dto.CaptureRequest;
+import com.ramil.booking.resource_booking.domain.payment.dto.CaptureResult;
 import com.ramil.booking.resource_booking.domain.payment.model.PaymentProvider;
 
 @Component
-public class CardPaymentClient implements PaymentProviderClient {
+public class CardPaymentClient implements DeferredCapturePaymentClient {
 
     @Override
     public PaymentProvider provider() {
@@ -19,8 +26,23 @@ public class CardPaymentClient implements PaymentProviderClient {
         return payloadJson == null || !payloadJson.contains("\"forceFail\":true");
     }
 
+    @Override
+    public boolean authorize(BigDecimal amount, String currency, String payloadJson) {
+        return charge(amount, currency, payloadJson);
+    }
+
+    @Override
+    public CaptureResult capture(List<CaptureRequest> batch) {
+        // для тестов: "forceCaptureFail":true -> провайдер отклоняет списание
+        Map<Boolean, Set<UUID>> byResult = batch.stream()
+                .collect(Collectors.partitioningBy(
+                        r -> r.payloadJson() == null || !r.payloadJson().contains("\"forceCaptureFail\":true"),
+                        Collectors.mapping(CaptureRequest::paymentId, Collectors.toSet())));
+        return new CaptureResult(byResult.get(true), byResult.get(false));
+    }
+
     @Override
     public boolean cancel(String payloadJson) {
         return true;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,18 @@
+package com.ramil.booking.resource_booking.domain.payment.provider;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import com.ramil.booking.resource_booking.domain.payment.dto.CaptureRequest;
+import com.ramil.booking.resource_booking.domain.payment.dto.CaptureResult;
+
+// Провайдер с отложенным списанием (PaymentType.DEFERRED)
+// authorize резервирует сумму, capture списывает пачку авторизаций одним вызовом
+public interface DeferredCapturePaymentClient extends PaymentProviderClient {
+
+    boolean authorize(BigDecimal amount, String currency, String payloadJson);
+
+    // Списанные и явно отклонённые paymentId; не попавшие в ответ остаются авторизованными до повтора
+    // Повторный capture уже списанной авторизации должен вернуть её как списанную (ключ — paymentId)
+    CaptureResult capture(List<CaptureRequest> batch);
+}
@@ -0,0 +1,117 @@
+package com.ramil.booking.resource_booking.domain.payment.provider;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import com.ramil.booking.resource_booking.domain.payment.dto.PaymentProviderLimits;
+import com.ramil.booking.resource_booking.domain.payment.dto.PaymentProviderResilience;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentProvider;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+
+// Клиенты платёжных провайдеров и их ограничения для асинхронных списаний
+// Ограничения: app.payment.async.providers.<PROVIDER>.max-in-flight / max-queued,
+// по умолчанию — app.payment.async.max-in-flight / max-queued
+// Клиенты отдаются обёрнутыми в ResilientPaymentProviderClient (если не выключено app.payment.resilience.enabled);
+// настройки — app.payment.resilience.providers.<PROVIDER>.*, по умолчанию — app.payment.resilience.*
+@Component
+public class PaymentProviderRegistry {
+
+    private final Map<PaymentProvider, PaymentProviderClient> clients = new EnumMap<>(PaymentProvider.class);
+    private final Map<PaymentProvider, PaymentProviderLimits> limits = new EnumMap<>(PaymentProvider.class);
+    // потоки вызовов провайдеров: виртуальные, их число ограничивает bulkhead каждого провайдера
+    private final ExecutorService callExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public PaymentProviderRegistry(List<PaymentProviderClient> clientList, Environment env, MeterRegistry meterRegistry) {
+        boolean resilient = env.getProperty("app.payment.resilience.enabled", Boolean.class, true);
+        for (PaymentProviderClient client : clientList) {
+            if (clients.containsKey(client.provider())) {
+                continue;
+            }
+            clients.put(client.provider(), resilient ? resilient(client, env, meterRegistry) : client);
+        }
+        for (PaymentProvider provider : clients.keySet()) {
+            limits.put(provider, new PaymentProviderLimits(
+                    intSetting(env, "app.payment.async", provider, "max-in-flight", 16),
+                    intSetting(env, "app.payment.async", provider, "max-queued", 1000)));
+        }
+    }
+
+    public PaymentProviderClient client(PaymentProvider provider) {
+        PaymentProviderClient client = clients.get(provider);
+        if (client == null) {
+            throw new IllegalArgumentException("No client for provider: " + provider);
+        }
+        return client;
+    }
+
+    // Клиент для PaymentType.DEFERRED: провайдер должен поддерживать отложенное списание
+    public DeferredCapturePaymentClient deferredClient(PaymentProvider provider) {
+        if (client(provider) instanceof DeferredCapturePaymentClient deferred) {
+            return deferred;
+        }
+        throw new IllegalArgumentException("Deferred capture is not supported by provider: " + provider);
+    }
+
+    public boolean supportsDeferred(PaymentProvider provider) {
+        return clients.get(provider) instanceof DeferredCapturePaymentClient;
+    }
+
+    public PaymentProviderLimits limits(PaymentProvider provider) {
+        client(provider);
+        return limits.get(provider);
+    }
+
+    public Set<PaymentProvider> providers() {
+        return Collections.unmodifiableSet(clients.keySet());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        callExecutor.shutdownNow();
+    }
+
+    private PaymentProviderClient resilient(PaymentProviderClient client, Environment env, MeterRegistry meterRegistry) {
+        PaymentProviderResilience settings = resilience(env, client.provider());
+        if (client instanceof DeferredCapturePaymentClient deferred) {
+            return new ResilientDeferredCaptureClient(deferred, settings, callExecutor, meterRegistry, Clock.systemUTC());
+        }
+        return new ResilientPaymentProviderClient(client, settings, callExecutor, meterRegistry, Clock.systemUTC());
+    }
+
+    private static PaymentProviderResilience resilience(Environment env, PaymentProvider provider) {
+        String prefix = "app.payment.resilience";
+        return new PaymentProviderResilience(
+                durationSetting(env, prefix, provider, "call-timeout", "PT5S"),
+                intSetting(env, prefix, provider, "max-concurrent", 32),
+                intSetting(env, prefix, provider, "window-size", 20),
+                intSetting(env, prefix, provider, "min-calls", 10),
+                intSetting(env, prefix, provider, "failure-rate-percent", 50),
+                durationSetting(env, prefix, provider, "open-duration", "PT30S"),
+                durationSetting(env, prefix, provider, "hedge-delay", "PT0.5S"),
+                intSetting(env, prefix, provider, "max-attempts", 2));
+    }
+
+    private static int intSetting(Environment env, String prefix, PaymentProvider provider, String name, int fallback) {
+        int defaultValue = env.getProperty(prefix + "." + name, Integer.class, fallback);
+        return env.getProperty(prefix + ".providers." + provider.name() + "." + name, Integer.class, defaultValue);
+    }
+
+    private static Duration durationSetting(Environment env, String prefix, PaymentProvider provider, String name,
+                                            String fallback) {
+        String defaultValue = env.getProperty(prefix + "." + name, fallback);
+        return Duration.parse(env.getProperty(prefix + ".providers." + provider.name() + "." + name, defaultValue));
+    }
+}
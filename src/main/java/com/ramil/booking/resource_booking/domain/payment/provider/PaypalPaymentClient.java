@@ -1,12 +1,18 @@
 package com.ramil.booking.resource_booking.domain.payment.provider;
 
+import com.ramil.booking.resource_booking.domain.payment.dto.CaptureRequest;
+import com.ramil.booking.resource_booking.domain.payment.dto.CaptureResult;
 import com.ramil.booking.resource_booking.domain.payment.model.PaymentProvider;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Component
-public class PaypalPaymentClient implements PaymentProviderClient {
+public class PaypalPaymentClient implements DeferredCapturePaymentClient {
     @Override public PaymentProvider provider() { return PaymentProvider.PAYPAL; }
 
     @Override
@@ -14,6 +20,16 @@ public class PaypalPaymentClient implements PaymentProviderClient {
         return payloadJson == null || !payloadJson.contains("fail");
     }
 
+    @Override
+    public boolean authorize(BigDecimal amount, String currency, String payloadJson) {
+        return charge(amount, currency, payloadJson);
+    }
+
+    @Override
+    public CaptureResult capture(List<CaptureRequest> batch) {
+        return new CaptureResult(batch.stream().map(CaptureRequest::paymentId).collect(Collectors.toSet()), Set.of());
+    }
+
     @Override
     public boolean cancel(String payloadJson) { return true; }
 }
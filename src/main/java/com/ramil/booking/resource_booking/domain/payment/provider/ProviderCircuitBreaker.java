@@ -0,0 +1,110 @@
+package com.ramil.booking.resource_booking.domain.payment.provider;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Objects;
+
+// Автомат отключения провайдера по скользящему окну последних windowSize вызовов
+// CLOSED: доля ошибок (исключения и таймауты, не отказ в оплате) >= failureRatePercent при minCalls вызовах в окне — OPEN
+// OPEN: вызовы отклоняются openDuration, затем HALF_OPEN
+// HALF_OPEN: пропускается один пробный вызов; успех — CLOSED с пустым окном, ошибка — снова OPEN
+final class ProviderCircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final boolean[] window;
+    private final int minCalls;
+    private final int failureRatePercent;
+    private final long openMillis;
+    private final Clock clock;
+
+    private int next;
+    private int recorded;
+    private int failures;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    ProviderCircuitBreaker(int windowSize, int minCalls, int failureRatePercent, Duration openDuration, Clock clock) {
+        this.window = new boolean[windowSize];
+        this.minCalls = minCalls;
+        this.failureRatePercent = failureRatePercent;
+        this.openMillis = openDuration.toMillis();
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    // Можно ли выполнить вызов; true обязывает сообщить его исход (onSuccess / onFailure / release)
+    synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (clock.millis() - openedAt < openMillis) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return false;
+            }
+            trialInFlight = true;
+        }
+        return true;
+    }
+
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            close();
+            return;
+        }
+        record(false);
+    }
+
+    synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && recorded >= minCalls && failures * 100 >= failureRatePercent * recorded) {
+            open();
+        }
+    }
+
+    // Вызов не состоялся (например, не хватило места в bulkhead) — исход не учитывается
+    synchronized void release() {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == window.length) {
+            if (window[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        window[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % window.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = clock.millis();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        next = 0;
+        recorded = 0;
+        failures = 0;
+    }
+}
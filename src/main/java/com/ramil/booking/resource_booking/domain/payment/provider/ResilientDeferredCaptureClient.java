@@ -0,0 +1,40 @@
+package com.ramil.booking.resource_booking.domain.payment.provider;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import com.ramil.booking.resource_booking.domain.payment.dto.CaptureRequest;
+import com.ramil.booking.resource_booking.domain.payment.dto.CaptureResult;
+import com.ramil.booking.resource_booking.domain.payment.dto.PaymentProviderResilience;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// ResilientPaymentProviderClient для провайдера с отложенным списанием
+// authorize, как и charge, не повторяется; capture идемпотентен по paymentId — повторяется как cancel
+final class ResilientDeferredCaptureClient extends ResilientPaymentProviderClient implements DeferredCapturePaymentClient {
+
+    private final DeferredCapturePaymentClient delegate;
+
+    ResilientDeferredCaptureClient(
+            DeferredCapturePaymentClient delegate,
+            PaymentProviderResilience settings,
+            ExecutorService executor,
+            MeterRegistry meterRegistry,
+            Clock clock
+    ) {
+        super(delegate, settings, executor, meterRegistry, clock);
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean authorize(BigDecimal amount, String currency, String payloadJson) {
+        return call("authorize", 1, () -> delegate.authorize(amount, currency, payloadJson));
+    }
+
+    @Override
+    public CaptureResult capture(List<CaptureRequest> batch) {
+        return call("capture", settings.maxAttempts(), () -> delegate.capture(batch));
+    }
+}
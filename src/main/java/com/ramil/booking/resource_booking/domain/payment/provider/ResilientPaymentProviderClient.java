@@ -0,0 +1,238 @@
+package com.ramil.booking.resource_booking.domain.payment.provider;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ramil.booking.resource_booking.domain.payment.dto.PaymentProviderResilience;
+import com.ramil.booking.resource_booking.domain.payment.exception.PaymentProviderBusyException;
+import com.ramil.booking.resource_booking.domain.payment.exception.PaymentProviderTimeoutException;
+import com.ramil.booking.resource_booking.domain.payment.exception.PaymentProviderUnavailableException;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentProvider;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// Обёртка клиента провайдера: деградация одного провайдера не должна занимать потоки запросов остальных
+// - вызов выполняется в отдельном (виртуальном) потоке и ждётся не дольше callTimeout — PaymentProviderTimeoutException
+// - не больше maxConcurrent одновременных вызовов (bulkhead); место освобождается, когда вызов действительно завершился,
+//   а не когда его перестали ждать — PaymentProviderBusyException без ожидания
+// - автомат отключения (ProviderCircuitBreaker) — PaymentProviderUnavailableException без вызова
+// - cancel идемпотентен: если ответа нет через hedgeDelay или вызов упал, параллельно запускается ещё одна попытка
+//   (до maxAttempts), берётся первый ответ. charge не повторяется: у провайдера нет ключа идемпотентности
+// Метрики: payment.provider.call{provider, operation, outcome}, payment.provider.rejected{provider, reason},
+// payment.provider.hedges{provider, operation}, payment.provider.circuit.state{provider} (0 — CLOSED, 1 — OPEN, 2 — HALF_OPEN),
+// payment.provider.bulkhead.available{provider}
+class ResilientPaymentProviderClient implements PaymentProviderClient {
+
+    private static final Logger log = LoggerFactory.getLogger(ResilientPaymentProviderClient.class);
+
+    private final PaymentProviderClient delegate;
+    private final PaymentProvider provider;
+    final PaymentProviderResilience settings;
+    private final ExecutorService executor;
+    private final MeterRegistry meterRegistry;
+    private final Semaphore bulkhead;
+    private final ProviderCircuitBreaker circuit;
+    private final Counter rejectedCircuitOpen;
+    private final Counter rejectedBulkheadFull;
+
+    ResilientPaymentProviderClient(
+            PaymentProviderClient delegate,
+            PaymentProviderResilience settings,
+            ExecutorService executor,
+            MeterRegistry meterRegistry,
+            Clock clock
+    ) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.provider = Objects.requireNonNull(delegate.provider());
+        this.settings = Objects.requireNonNull(settings);
+        this.executor = Objects.requireNonNull(executor);
+        this.meterRegistry = Objects.requireNonNull(meterRegistry);
+        this.bulkhead = new Semaphore(settings.maxConcurrent());
+        this.circuit = new ProviderCircuitBreaker(settings.windowSize(), settings.minCalls(),
+                settings.failureRatePercent(), settings.openDuration(), clock);
+
+        this.rejectedCircuitOpen = Counter.builder("payment.provider.rejected")
+                .description("Provider calls rejected without reaching the provider")
+                .tag("provider", provider.name())
+                .tag("reason", "circuit_open")
+                .register(meterRegistry);
+        this.rejectedBulkheadFull = Counter.builder("payment.provider.rejected")
+                .description("Provider calls rejected without reaching the provider")
+                .tag("provider", provider.name())
+                .tag("reason", "bulkhead_full")
+                .register(meterRegistry);
+        Gauge.builder("payment.provider.circuit.state", circuit, c -> c.state().ordinal())
+                .description("Circuit breaker state: 0 closed, 1 open, 2 half-open")
+                .tag("provider", provider.name())
+                .register(meterRegistry);
+        Gauge.builder("payment.provider.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .description("Free slots for concurrent provider calls on this node")
+                .tag("provider", provider.name())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public PaymentProvider provider() {
+        return provider;
+    }
+
+    @Override
+    public boolean charge(BigDecimal amount, String currency, String payloadJson) {
+        return call("charge", 1, () -> delegate.charge(amount, currency, payloadJson));
+    }
+
+    @Override
+    public boolean cancel(String payloadJson) {
+        return call("cancel", settings.maxAttempts(), () -> delegate.cancel(payloadJson));
+    }
+
+    ProviderCircuitBreaker.State circuitState() {
+        return circuit.state();
+    }
+
+    <T> T call(String operation, int maxAttempts, Supplier<T> action) {
+        if (!circuit.tryAcquire()) {
+            rejectedCircuitOpen.increment();
+            log.warn("payment.provider.rejected provider={} operation={} reason=circuitOpen", provider, operation);
+            throw new PaymentProviderUnavailableException(provider);
+        }
+
+        long started = System.nanoTime();
+        String outcome = "failure";
+        try {
+            T result = attempts(operation, maxAttempts, action);
+            circuit.onSuccess();
+            outcome = "success";
+            return result;
+        } catch (PaymentProviderBusyException e) {
+            circuit.release();
+            outcome = null;
+            throw e;
+        } catch (PaymentProviderTimeoutException e) {
+            circuit.onFailure();
+            outcome = "timeout";
+            log.warn("payment.provider.timeout provider={} operation={} timeout={}",
+                    provider, operation, settings.callTimeout());
+            throw e;
+        } catch (RuntimeException e) {
+            circuit.onFailure();
+            throw e;
+        } finally {
+            if (outcome != null) {
+                Timer.builder("payment.provider.call")
+                        .tag("provider", provider.name())
+                        .tag("operation", operation)
+                        .tag("outcome", outcome)
+                        .register(meterRegistry)
+                        .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    // Первая попытка сразу; следующие — если за hedgeDelay нет ответа или попытка упала. Ответ — первый успешный
+    private <T> T attempts(String operation, int maxAttempts, Supplier<T> action) {
+        if (!bulkhead.tryAcquire()) {
+            rejectedBulkheadFull.increment();
+            log.warn("payment.provider.rejected provider={} operation={} reason=bulkheadFull maxConcurrent={}",
+                    provider, operation, settings.maxConcurrent());
+            throw new PaymentProviderBusyException(provider);
+        }
+
+        ExecutorCompletionService<T> completion = new ExecutorCompletionService<>(executor);
+        List<Future<T>> started = new ArrayList<>(maxAttempts);
+        started.add(submit(completion, action));
+        int running = 1;
+        RuntimeException lastFailure = null;
+        long deadline = System.nanoTime() + settings.callTimeout().toNanos();
+        try {
+            while (true) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new PaymentProviderTimeoutException(provider, settings.callTimeout());
+                }
+                boolean canHedge = started.size() < maxAttempts;
+                long wait = canHedge ? Math.min(remaining, settings.hedgeDelay().toNanos()) : remaining;
+
+                Future<T> done = completion.poll(wait, TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    if (canHedge && hedge(operation, completion, action, started)) {
+                        running++;
+                    }
+                    continue;
+                }
+
+                running--;
+                try {
+                    return done.get();
+                } catch (ExecutionException e) {
+                    lastFailure = unwrap(e);
+                }
+                if (canHedge && hedge(operation, completion, action, started)) {
+                    running++;
+                } else if (running == 0) {
+                    throw lastFailure;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for payment provider " + provider, e);
+        } finally {
+            // оставшиеся попытки больше не нужны; место в bulkhead они освободят, когда действительно завершатся
+            started.forEach(f -> f.cancel(true));
+        }
+    }
+
+    private <T> boolean hedge(String operation, ExecutorCompletionService<T> completion, Supplier<T> action,
+                              List<Future<T>> started) {
+        if (!bulkhead.tryAcquire()) {
+            return false;
+        }
+        started.add(submit(completion, action));
+        meterRegistry.counter("payment.provider.hedges", "provider", provider.name(), "operation", operation)
+                .increment();
+        return true;
+    }
+
+    // Вызывается с уже занятым местом в bulkhead
+    private <T> Future<T> submit(ExecutorCompletionService<T> completion, Supplier<T> action) {
+        try {
+            return completion.submit(() -> {
+                try {
+                    return action.get();
+                } finally {
+                    bulkhead.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            bulkhead.release();
+            throw e;
+        }
+    }
+
+    private static RuntimeException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException re) {
+            return re;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(cause);
+    }
+}
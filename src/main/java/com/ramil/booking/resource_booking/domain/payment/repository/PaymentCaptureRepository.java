@@ -0,0 +1,125 @@
+package com.ramil.booking.resource_booking.domain.payment.repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+
+import com.ramil.booking.resource_booking.domain.payment.dto.CaptureRequest;
+import com.ramil.booking.resource_booking.domain.payment.dto.CapturedPayment;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentProvider;
+
+import jakarta.persistence.EntityManager;
+
+// Списание авторизаций DEFERRED-платежей (V15): захват пачки и её завершение — по одному запросу на пачку
+@Repository
+public class PaymentCaptureRepository {
+
+    private static final String CAPTURE_SQL = """
+            with captured as (
+                update payment
+                set status = 'SUCCESS', capture_locked_until = null, updated_at = now(), updated_by = :actor
+                where id in (:ids) and status = 'AUTHORIZED'
+                returning id, booking_id, amount, currency
+            ), paid as (
+                update booking b
+                set paid_at = coalesce(b.paid_at, now()), paid_by = coalesce(b.paid_by, :actor)
+                where b.id in (select booking_id from captured)
+                returning b.id, b.resource_id, b.start_time
+            )
+            select c.id, c.booking_id, p.resource_id, p.start_time, c.amount, c.currency
+            from captured c
+            join paid p on p.id = c.booking_id
+            """;
+
+    private final EntityManager em;
+
+    public PaymentCaptureRepository(EntityManager em) {
+        this.em = Objects.requireNonNull(em);
+    }
+
+    // Захватывает до limit авторизаций провайдера, созревших к dueBefore, до lockedUntil;
+    // строки, которые держат другие ноды, пропускаются
+    @SuppressWarnings("unchecked")
+    public List<CaptureRequest> claimDue(PaymentProvider provider, Instant dueBefore, OffsetDateTime now,
+                                        OffsetDateTime lockedUntil, int limit) {
+        List<Object[]> rows = em.createNativeQuery("""
+                        update payment
+                        set capture_locked_until = :lockedUntil
+                        where id in (
+                            select id from payment
+                            where status = 'AUTHORIZED'
+                              and provider = :provider
+                              and authorized_at <= :dueBefore
+                              and (capture_locked_until is null or capture_locked_until < :now)
+                            order by authorized_at
+                            limit :limit
+                            for update skip locked)
+                        returning id, amount, currency, cast(provider_payload as text) as payload
+                        """)
+                .setParameter("provider", provider.name())
+                .setParameter("dueBefore", dueBefore)
+                .setParameter("now", now)
+                .setParameter("lockedUntil", lockedUntil)
+                .setParameter("limit", limit)
+                .unwrap(NativeQuery.class)
+                .addScalar("id", UUID.class)
+                .addScalar("amount", BigDecimal.class)
+                .addScalar("currency", String.class)
+                .addScalar("payload", String.class)
+                .getResultList();
+
+        return rows.stream()
+                .map(r -> new CaptureRequest((UUID) r[0], (BigDecimal) r[1], (String) r[2], (String) r[3]))
+                .toList();
+    }
+
+    // AUTHORIZED -> SUCCESS и отметка оплаты бронирований одним запросом
+    @SuppressWarnings("unchecked")
+    public List<CapturedPayment> markCaptured(Collection<UUID> paymentIds, String actor) {
+        if (paymentIds.isEmpty()) {
+            return List.of();
+        }
+        List<Object[]> rows = em.createNativeQuery(CAPTURE_SQL)
+                .setParameter("ids", paymentIds)
+                .setParameter("actor", actor)
+                .unwrap(NativeQuery.class)
+                .addScalar("id", UUID.class)
+                .addScalar("booking_id", UUID.class)
+                .addScalar("resource_id", UUID.class)
+                .addScalar("start_time", OffsetDateTime.class)
+                .addScalar("amount", BigDecimal.class)
+                .addScalar("currency", String.class)
+                .getResultList();
+
+        return rows.stream()
+                .map(r -> new CapturedPayment((UUID) r[0], (UUID) r[1], (UUID) r[2], (OffsetDateTime) r[3],
+                        (BigDecimal) r[4], (String) r[5]))
+                .toList();
+    }
+
+    // AUTHORIZED -> FAILED для отклонённых провайдером; возвращает id их бронирований
+    @SuppressWarnings("unchecked")
+    public List<UUID> markDeclined(Collection<UUID> paymentIds, String actor) {
+        if (paymentIds.isEmpty()) {
+            return List.of();
+        }
+        return em.createNativeQuery("""
+                        update payment
+                        set status = 'FAILED', capture_locked_until = null, updated_at = now(), updated_by = :actor
+                        where id in (:ids) and status = 'AUTHORIZED'
+                        returning booking_id
+                        """)
+                .setParameter("ids", paymentIds)
+                .setParameter("actor", actor)
+                .unwrap(NativeQuery.class)
+                .addScalar("booking_id", UUID.class)
+                .getResultList();
+    }
+}
@@ -0,0 +1,148 @@
+package com.ramil.booking.resource_booking.domain.payment.repository;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+
+import com.ramil.booking.resource_booking.domain.payment.dto.OutboxPayment;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentProvider;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentStatus;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentType;
+
+import jakarta.persistence.EntityManager;
+
+// Очередь асинхронных списаний (V14) без сущности: строки захватываются одним UPDATE ... SKIP LOCKED
+@Repository
+public class PaymentOutboxRepository {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final EntityManager em;
+
+    public PaymentOutboxRepository(EntityManager em) {
+        this.em = Objects.requireNonNull(em);
+    }
+
+    // flush: строка ссылается на payment, только что сохранённый в этой транзакции
+    public void enqueue(UUID paymentId, PaymentProvider provider) {
+        em.flush();
+        em.createNativeQuery("""
+                        insert into payment_outbox(payment_id, provider, attempts, available_at, created_at)
+                        values (:paymentId, :provider, 0, now(), now())
+                        """)
+                .setParameter("paymentId", paymentId)
+                .setParameter("provider", provider.name())
+                .executeUpdate();
+    }
+
+    // Длина очереди провайдера, но не больше limit: для back-pressure точнее не нужно
+    public int countQueued(PaymentProvider provider, int limit) {
+        Number count = (Number) em.createNativeQuery("""
+                        select count(*) from (
+                            select 1 from payment_outbox
+                            where provider = :provider and available_at <> 'infinity'
+                            limit :limit) q
+                        """)
+                .setParameter("provider", provider.name())
+                .setParameter("limit", limit)
+                .getSingleResult();
+        return count.intValue();
+    }
+
+    // Захватывает до limit готовых строк провайдера до lockedUntil; строки, которые держат другие ноды, пропускаются
+    @SuppressWarnings("unchecked")
+    public List<UUID> claim(PaymentProvider provider, int limit, OffsetDateTime now, OffsetDateTime lockedUntil) {
+        return em.createNativeQuery("""
+                        update payment_outbox
+                        set locked_until = :lockedUntil, attempts = attempts + 1
+                        where payment_id in (
+                            select payment_id from payment_outbox
+                            where provider = :provider
+                              and available_at <= :now
+                              and (locked_until is null or locked_until < :now)
+                            order by available_at
+                            limit :limit
+                            for update skip locked)
+                        returning payment_id
+                        """)
+                .setParameter("provider", provider.name())
+                .setParameter("limit", limit)
+                .setParameter("now", now)
+                .setParameter("lockedUntil", lockedUntil)
+                .unwrap(NativeQuery.class)
+                .addScalar("payment_id", UUID.class)
+                .getResultList();
+    }
+
+    @SuppressWarnings("unchecked")
+    public Optional<OutboxPayment> findPayment(UUID paymentId) {
+        List<Object[]> rows = em.createNativeQuery("""
+                        select o.payment_id, p.provider, p.type, p.status, p.amount, p.currency,
+                               cast(p.provider_payload as text) as payload, o.attempts
+                        from payment_outbox o
+                        join payment p on p.id = o.payment_id
+                        where o.payment_id = :paymentId
+                        """)
+                .setParameter("paymentId", paymentId)
+                .unwrap(NativeQuery.class)
+                .addScalar("payment_id", UUID.class)
+                .addScalar("provider", String.class)
+                .addScalar("type", String.class)
+                .addScalar("status", String.class)
+                .addScalar("amount", BigDecimal.class)
+                .addScalar("currency", String.class)
+                .addScalar("payload", String.class)
+                .addScalar("attempts", Integer.class)
+                .getResultList();
+
+        return rows.stream()
+                .map(r -> new OutboxPayment((UUID) r[0], PaymentProvider.valueOf((String) r[1]),
+                        PaymentType.valueOf((String) r[2]), PaymentStatus.valueOf((String) r[3]), (BigDecimal) r[4],
+                        (String) r[5], (String) r[6], (Integer) r[7]))
+                .findFirst();
+    }
+
+    public void delete(UUID paymentId) {
+        em.createNativeQuery("delete from payment_outbox where payment_id = :paymentId")
+                .setParameter("paymentId", paymentId)
+                .executeUpdate();
+    }
+
+    // Возвращает строку в очередь: её заберут не раньше availableAt
+    public void retryLater(UUID paymentId, OffsetDateTime availableAt, String error) {
+        em.createNativeQuery("""
+                        update payment_outbox
+                        set available_at = :availableAt, locked_until = null, last_error = :error
+                        where payment_id = :paymentId
+                        """)
+                .setParameter("paymentId", paymentId)
+                .setParameter("availableAt", availableAt)
+                .setParameter("error", truncate(error))
+                .executeUpdate();
+    }
+
+    // Откладывает строку навсегда (available_at = infinity) — для ручного разбора
+    public void park(UUID paymentId, String error) {
+        em.createNativeQuery("""
+                        update payment_outbox
+                        set available_at = 'infinity', locked_until = null, last_error = :error
+                        where payment_id = :paymentId
+                        """)
+                .setParameter("paymentId", paymentId)
+                .setParameter("error", truncate(error))
+                .executeUpdate();
+    }
+
+    private static String truncate(String error) {
+        if (error == null || error.length() <= MAX_ERROR_LENGTH) {
+            return error;
+        }
+        return error.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -0,0 +1,184 @@
+package com.ramil.booking.resource_booking.domain.payment.repository;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+
+import com.ramil.booking.resource_booking.domain.payment.dto.CancelingPayment;
+import com.ramil.booking.resource_booking.domain.payment.dto.OutboxPayment;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentProvider;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentStatus;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentType;
+
+import jakarta.persistence.EntityManager;
+
+// Очередь возвратов (V16) без сущности, устроена как payment_outbox
+@Repository
+public class PaymentRefundRepository {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    // AUTHORIZED/SUCCESS -> CANCELING и строка очереди одним запросом; FOR UPDATE — чтобы не разойтись
+    // со списанием PaymentSettlementService (оно меняет только AUTHORIZED)
+    private static final String REQUEST_SQL = """
+            with target as (
+                select id, status from payment
+                where %s and status in ('AUTHORIZED', 'SUCCESS')
+                for update
+            ), canceling as (
+                update payment p
+                set status = 'CANCELING', capture_locked_until = null, updated_at = now(), updated_by = :actor
+                from target t
+                where p.id = t.id
+                returning p.id, p.booking_id, p.provider, t.status as previous, p.amount, p.currency
+            ), queued as (
+                insert into payment_refund(payment_id, provider, attempts, available_at, created_at)
+                select id, provider, 0, now(), now() from canceling
+                on conflict (payment_id) do nothing
+            )
+            select id, booking_id, previous, amount, currency from canceling
+            """;
+
+    private final EntityManager em;
+
+    public PaymentRefundRepository(EntityManager em) {
+        this.em = Objects.requireNonNull(em);
+    }
+
+    // Пусто — платёж уже не AUTHORIZED/SUCCESS
+    public List<CancelingPayment> requestForPayment(UUID paymentId, String actor) {
+        return request("id = :id", paymentId, actor);
+    }
+
+    public List<CancelingPayment> requestForBooking(UUID bookingId, String actor) {
+        return request("booking_id = :id", bookingId, actor);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<CancelingPayment> request(String filter, UUID id, String actor) {
+        // flush: условие читает платежи, которые могли измениться в этой транзакции
+        em.flush();
+        List<Object[]> rows = em.createNativeQuery(REQUEST_SQL.formatted(filter))
+                .setParameter("id", id)
+                .setParameter("actor", actor)
+                .unwrap(NativeQuery.class)
+                .addScalar("id", UUID.class)
+                .addScalar("booking_id", UUID.class)
+                .addScalar("previous", String.class)
+                .addScalar("amount", BigDecimal.class)
+                .addScalar("currency", String.class)
+                .getResultList();
+
+        return rows.stream()
+                .map(r -> new CancelingPayment((UUID) r[0], (UUID) r[1], PaymentStatus.valueOf((String) r[2]),
+                        (BigDecimal) r[3], (String) r[4]))
+                .toList();
+    }
+
+    // Захватывает до limit готовых строк до lockedUntil; строки, которые держат другие ноды, пропускаются
+    @SuppressWarnings("unchecked")
+    public List<UUID> claim(int limit, OffsetDateTime now, OffsetDateTime lockedUntil) {
+        return em.createNativeQuery("""
+                        update payment_refund
+                        set locked_until = :lockedUntil, attempts = attempts + 1
+                        where payment_id in (
+                            select payment_id from payment_refund
+                            where available_at <= :now
+                              and (locked_until is null or locked_until < :now)
+                            order by available_at
+                            limit :limit
+                            for update skip locked)
+                        returning payment_id
+                        """)
+                .setParameter("limit", limit)
+                .setParameter("now", now)
+                .setParameter("lockedUntil", lockedUntil)
+                .unwrap(NativeQuery.class)
+                .addScalar("payment_id", UUID.class)
+                .getResultList();
+    }
+
+    @SuppressWarnings("unchecked")
+    public Optional<OutboxPayment> findPayment(UUID paymentId) {
+        List<Object[]> rows = em.createNativeQuery("""
+                        select r.payment_id, p.provider, p.type, p.status, p.amount, p.currency,
+                               cast(p.provider_payload as text) as payload, r.attempts
+                        from payment_refund r
+                        join payment p on p.id = r.payment_id
+                        where r.payment_id = :paymentId
+                        """)
+                .setParameter("paymentId", paymentId)
+                .unwrap(NativeQuery.class)
+                .addScalar("payment_id", UUID.class)
+                .addScalar("provider", String.class)
+                .addScalar("type", String.class)
+                .addScalar("status", String.class)
+                .addScalar("amount", BigDecimal.class)
+                .addScalar("currency", String.class)
+                .addScalar("payload", String.class)
+                .addScalar("attempts", Integer.class)
+                .getResultList();
+
+        return rows.stream()
+                .map(r -> new OutboxPayment((UUID) r[0], PaymentProvider.valueOf((String) r[1]),
+                        PaymentType.valueOf((String) r[2]), PaymentStatus.valueOf((String) r[3]), (BigDecimal) r[4],
+                        (String) r[5], (String) r[6], (Integer) r[7]))
+                .findFirst();
+    }
+
+    // CANCELING -> CANCELED; false — платёж уже не CANCELING
+    public boolean markCanceled(UUID paymentId, String actor) {
+        return em.createNativeQuery("""
+                        update payment
+                        set status = 'CANCELED', updated_at = now(), updated_by = :actor
+                        where id = :paymentId and status = 'CANCELING'
+                        """)
+                .setParameter("paymentId", paymentId)
+                .setParameter("actor", actor)
+                .executeUpdate() == 1;
+    }
+
+    public void delete(UUID paymentId) {
+        em.createNativeQuery("delete from payment_refund where payment_id = :paymentId")
+                .setParameter("paymentId", paymentId)
+                .executeUpdate();
+    }
+
+    // Возвращает строку в очередь: её заберут не раньше availableAt
+    public void retryLater(UUID paymentId, OffsetDateTime availableAt, String error) {
+        em.createNativeQuery("""
+                        update payment_refund
+                        set available_at = :availableAt, locked_until = null, last_error = :error
+                        where payment_id = :paymentId
+                        """)
+                .setParameter("paymentId", paymentId)
+                .setParameter("availableAt", availableAt)
+                .setParameter("error", truncate(error))
+                .executeUpdate();
+    }
+
+    // Откладывает строку навсегда (available_at = infinity) — для ручного разбора
+    public void park(UUID paymentId, String error) {
+        em.createNativeQuery("""
+                        update payment_refund
+                        set available_at = 'infinity', locked_until = null, last_error = :error
+                        where payment_id = :paymentId
+                        """)
+                .setParameter("paymentId", paymentId)
+                .setParameter("error", truncate(error))
+                .executeUpdate();
+    }
+
+    private static String truncate(String error) {
+        if (error == null || error.length() <= MAX_ERROR_LENGTH) {
+            return error;
+        }
+        return error.substring(0, MAX_ERROR_LENGTH);
+    }
+}
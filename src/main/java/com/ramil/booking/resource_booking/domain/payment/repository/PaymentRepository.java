@@ -1,14 +1,68 @@
 package com.ramil.booking.resource_booking.domain.payment.repository;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import com.ramil.booking.resource_booking.domain.payment.dto.PaymentView;
 
 import com.ramil.booking.resource_booking.domain.payment.entity.PaymentEntity;
 
-public interface PaymentRepository extends JpaRepository<PaymentEntity, UUID> {
-    List<PaymentEntity> findByBooking_Id(UUID bookingId);
+import jakarta.persistence.QueryHint;
+
+public interface PaymentRepository extends JpaRepository<PaymentEntity, UUID>, PaymentRepositoryCustom {
+
+    // Списки платежей для чтения: сразу PaymentView, без сущностей в persistence context
+    // provider_payload (jsonb) не читается; p.booking.id — это payment.booking_id, join не нужен
+    @Query("""
+            select new com.ramil.booking.resource_booking.domain.payment.dto.PaymentView(
+                p.id, p.booking.id, p.provider, p.type, p.status, p.amount, p.currency)
+            from PaymentEntity p
+            where p.booking.id = :bookingId
+            """)
+    List<PaymentView> findViewsByBookingId(@Param("bookingId") UUID bookingId);
+
+    @Query("""
+            select new com.ramil.booking.resource_booking.domain.payment.dto.PaymentView(
+                p.id, p.booking.id, p.provider, p.type, p.status, p.amount, p.currency)
+            from PaymentEntity p
+            where p.id = :id
+            """)
+    Optional<PaymentView> findViewById(@Param("id") UUID id);
+
+    @Query("""
+            select new com.ramil.booking.resource_booking.domain.payment.dto.PaymentView(
+                p.id, p.booking.id, p.provider, p.type, p.status, p.amount, p.currency)
+            from PaymentEntity p
+            where p.booking.user.id = :userId
+            """)
+    List<PaymentView> findViewsByUserId(@Param("userId") UUID userId);
+
+    @Query("""
+            select new com.ramil.booking.resource_booking.domain.payment.dto.PaymentView(
+                p.id, p.booking.id, p.provider, p.type, p.status, p.amount, p.currency)
+            from PaymentEntity p
+            """)
+    List<PaymentView> findAllViews();
 
-    List<PaymentEntity> findByBooking_User_Id(UUID userId);
+    // Выгрузка всех платежей курсором, см. BookingRepository.streamAllForExport
+    // Сразу PaymentView без provider_payload; порядок (created_at, id) стабилен между выгрузками (idx_payment_created)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select new com.ramil.booking.resource_booking.domain.payment.dto.PaymentView(
+                p.id, p.booking.id, p.provider, p.type, p.status, p.amount, p.currency)
+            from PaymentEntity p
+            order by p.createdAt, p.id
+            """)
+    Stream<PaymentView> streamAllForExport();
 }
@@ -0,0 +1,13 @@
+package com.ramil.booking.resource_booking.domain.payment.repository;
+
+import java.util.UUID;
+
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentStatus;
+
+// Условные переходы статуса платежа, которые не выражаются через dirty checking
+public interface PaymentRepositoryCustom {
+
+    // NEW -> to одним UPDATE ... WHERE status = 'NEW'; для AUTHORIZED заодно ставится authorized_at
+    // false — платёж уже завершил другой исполнитель (повтор воркера, параллельный вызов) или его нет
+    boolean finalizeNew(UUID paymentId, PaymentStatus to, String actor);
+}
@@ -0,0 +1,32 @@
+package com.ramil.booking.resource_booking.domain.payment.repository;
+
+import java.util.Objects;
+import java.util.UUID;
+
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentStatus;
+
+import jakarta.persistence.EntityManager;
+
+public class PaymentRepositoryCustomImpl implements PaymentRepositoryCustom {
+
+    private final EntityManager em;
+
+    public PaymentRepositoryCustomImpl(EntityManager em) {
+        this.em = Objects.requireNonNull(em);
+    }
+
+    @Override
+    public boolean finalizeNew(UUID paymentId, PaymentStatus to, String actor) {
+        return em.createNativeQuery("""
+                        update payment
+                        set status = :to,
+                            authorized_at = case when :to = 'AUTHORIZED' then now() else authorized_at end,
+                            updated_at = now(), updated_by = :actor
+                        where id = :id and status = 'NEW'
+                        """)
+                .setParameter("to", to.name())
+                .setParameter("actor", actor)
+                .setParameter("id", paymentId)
+                .executeUpdate() == 1;
+    }
+}
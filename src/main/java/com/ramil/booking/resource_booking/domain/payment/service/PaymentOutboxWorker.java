@@ -0,0 +1,273 @@
+package com.ramil.booking.resource_booking.domain.payment.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ramil.booking.resource_booking.domain.payment.dto.OutboxPayment;
+import com.ramil.booking.resource_booking.domain.payment.exception.PaymentProviderBusyException;
+import com.ramil.booking.resource_booking.domain.payment.exception.PaymentProviderUnavailableException;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentProvider;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentStatus;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentType;
+import com.ramil.booking.resource_booking.domain.payment.provider.PaymentProviderRegistry;
+import com.ramil.booking.resource_booking.domain.payment.repository.PaymentOutboxRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+
+// Выполняет списания из payment_outbox (асинхронный startPayment)
+// Раз в poll-interval захватывает по каждому провайдеру столько строк, сколько у него свободно
+// слотов max-in-flight на этой ноде, и вызывает charge в виртуальных потоках: медленный провайдер
+// занимает только свои слоты и не держит ни потоки запросов, ни соединения Hikari
+// Провайдер перегружен или отключён (запрос до него не дошёл) — повтор через retry-backoff * попытка,
+// после max-attempts платёж FAILED; любая другая ошибка, включая таймаут, не повторяется — исход списания
+// неизвестен, строка откладывается, как и ниже
+// Если платёж не удалось завершить после ответа провайдера, строка откладывается (park) для ручного разбора:
+// повторное списание хуже зависшего платежа
+// Доставка at-least-once: нода, упавшая посреди charge, отдаст строку другой ноде по истечении lease
+// Метрика: payment.outbox.processed{provider, result}
+@Service
+public class PaymentOutboxWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentOutboxWorker.class);
+
+    private final PaymentOutboxRepository outboxRepository;
+    private final PaymentProviderRegistry providers;
+    private final PaymentTxService paymentTxService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate tx;
+    private final ExecutorService executor;
+    private final Clock clock;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration lease;
+    private final Duration retryBackoff;
+    private final int maxAttempts;
+    private final Map<PaymentProvider, Semaphore> inFlight = new EnumMap<>(PaymentProvider.class);
+
+    @Autowired
+    public PaymentOutboxWorker(
+            PaymentOutboxRepository outboxRepository,
+            PaymentProviderRegistry providers,
+            PaymentTxService paymentTxService,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.payment.outbox.enabled:true}") boolean enabled,
+            @Value("${app.payment.outbox.batch-size:50}") int batchSize,
+            @Value("${app.payment.outbox.lease:PT2M}") Duration lease,
+            @Value("${app.payment.outbox.retry-backoff:PT10S}") Duration retryBackoff,
+            @Value("${app.payment.outbox.max-attempts:5}") int maxAttempts
+    ) {
+        this(outboxRepository, providers, paymentTxService, objectMapper, transactionManager, meterRegistry,
+                Executors.newVirtualThreadPerTaskExecutor(), Clock.systemUTC(),
+                enabled, batchSize, lease, retryBackoff, maxAttempts);
+    }
+
+    PaymentOutboxWorker(
+            PaymentOutboxRepository outboxRepository,
+            PaymentProviderRegistry providers,
+            PaymentTxService paymentTxService,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            ExecutorService executor,
+            Clock clock,
+            boolean enabled,
+            int batchSize,
+            Duration lease,
+            Duration retryBackoff,
+            int maxAttempts
+    ) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("app.payment.outbox.batch-size must be positive: " + batchSize);
+        }
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("app.payment.outbox.max-attempts must be positive: " + maxAttempts);
+        }
+        this.outboxRepository = Objects.requireNonNull(outboxRepository);
+        this.providers = Objects.requireNonNull(providers);
+        this.paymentTxService = Objects.requireNonNull(paymentTxService);
+        this.objectMapper = Objects.requireNonNull(objectMapper);
+        this.meterRegistry = Objects.requireNonNull(meterRegistry);
+        this.tx = new TransactionTemplate(Objects.requireNonNull(transactionManager));
+        this.executor = Objects.requireNonNull(executor);
+        this.clock = Objects.requireNonNull(clock);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.lease = Objects.requireNonNull(lease);
+        this.retryBackoff = Objects.requireNonNull(retryBackoff);
+        this.maxAttempts = maxAttempts;
+
+        for (PaymentProvider provider : providers.providers()) {
+            inFlight.put(provider, new Semaphore(providers.limits(provider).maxInFlight()));
+        }
+    }
+
+    @Scheduled(
+            initialDelayString = "${app.payment.outbox.poll-interval:PT0.5S}",
+            fixedDelayString = "${app.payment.outbox.poll-interval:PT0.5S}"
+    )
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        inFlight.keySet().forEach(this::dispatch);
+    }
+
+    // Захватывает строки провайдера под свободные слоты и отдаёт их исполнителю; возвращает число захваченных
+    int dispatch(PaymentProvider provider) {
+        Semaphore permits = inFlight.get(provider);
+        int free = Math.min(permits.availablePermits(), batchSize);
+        if (free == 0) {
+            return 0;
+        }
+
+        OffsetDateTime now = OffsetDateTime.now(clock);
+        List<UUID> claimed = tx.execute(status -> outboxRepository.claim(provider, free, now, now.plus(lease)));
+        if (claimed == null) {
+            return 0;
+        }
+
+        // poll выполняется в одном потоке планировщика, поэтому захваченных строк не больше свободных слотов
+        for (UUID paymentId : claimed) {
+            permits.acquireUninterruptibly();
+            try {
+                executor.execute(() -> {
+                    try {
+                        process(paymentId);
+                    } catch (RuntimeException e) {
+                        // строку заберут повторно по истечении lease
+                        log.error("payment.outbox.error paymentId={} provider={}", paymentId, provider, e);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // остановка приложения: строку заберут по истечении lease
+                permits.release();
+            }
+        }
+        return claimed.size();
+    }
+
+    // Одно списание: строка уже захвачена этой нодой
+    void process(UUID paymentId) {
+        Optional<OutboxPayment> found = tx.execute(status -> outboxRepository.findPayment(paymentId));
+        if (found == null || found.isEmpty()) {
+            return;
+        }
+        OutboxPayment payment = found.get();
+
+        // платёж уже завершён (например, предыдущая попытка упала после finalize, но до удаления строки)
+        if (payment.status() != PaymentStatus.NEW) {
+            tx.executeWithoutResult(status -> outboxRepository.delete(paymentId));
+            log.info("payment.outbox.skip paymentId={} status={}", paymentId, payment.status());
+            return;
+        }
+
+        boolean ok;
+        try {
+            String payloadJson = payloadJson(payment.payloadJson());
+            if (payment.type() == PaymentType.DEFERRED) {
+                ok = providers.deferredClient(payment.provider())
+                        .authorize(payment.amount(), payment.currency(), payloadJson);
+            } else {
+                ok = providers.client(payment.provider()).charge(payment.amount(), payment.currency(), payloadJson);
+            }
+        } catch (PaymentProviderBusyException | PaymentProviderUnavailableException e) {
+            // запрос до провайдера не дошёл: повтор безопасен, а после max-attempts платёж можно считать неуспешным
+            if (payment.attempts() >= maxAttempts) {
+                log.error("payment.outbox.charge.error paymentId={} provider={} attempt={} giveUp=true",
+                        paymentId, payment.provider(), payment.attempts(), e);
+                finish(payment, false);
+                return;
+            }
+            OffsetDateTime retryAt = OffsetDateTime.now(clock).plus(retryBackoff.multipliedBy(payment.attempts()));
+            tx.executeWithoutResult(status -> outboxRepository.retryLater(paymentId, retryAt, e.toString()));
+            count(payment.provider(), "retry");
+            log.warn("payment.outbox.charge.error paymentId={} provider={} attempt={} retryAt={}",
+                    paymentId, payment.provider(), payment.attempts(), retryAt, e);
+            return;
+        } catch (RuntimeException e) {
+            // таймаут или любая другая ошибка: списание могло пройти — ни повтора, ни FAILED,
+            // только сверка с провайдером вручную (как в синхронном startPayment)
+            tx.executeWithoutResult(status -> outboxRepository.park(paymentId, e.toString()));
+            count(payment.provider(), "parked");
+            log.error("payment.outbox.charge.unknown paymentId={} provider={} attempt={}",
+                    paymentId, payment.provider(), payment.attempts(), e);
+            return;
+        }
+
+        log.info("payment.outbox.charge.result paymentId={} provider={} attempt={} ok={}",
+                paymentId, payment.provider(), payment.attempts(), ok);
+        finish(payment, ok);
+    }
+
+    // Завершает платёж и убирает строку одной транзакцией
+    private void finish(OutboxPayment payment, boolean ok) {
+        UUID paymentId = payment.paymentId();
+        try {
+            tx.executeWithoutResult(status -> {
+                paymentTxService.finalizePaymentTx(paymentId, ok);
+                outboxRepository.delete(paymentId);
+            });
+        } catch (RuntimeException e) {
+            // провайдер уже ответил: повторять charge нельзя
+            tx.executeWithoutResult(status -> outboxRepository.park(paymentId, e.toString()));
+            count(payment.provider(), "parked");
+            log.error("payment.outbox.parked paymentId={} provider={} ok={}", paymentId, payment.provider(), ok, e);
+            return;
+        }
+        count(payment.provider(), ok ? "success" : "failed");
+        log.info("payment.outbox.finalized paymentId={} provider={} ok={}", paymentId, payment.provider(), ok);
+    }
+
+    // jsonb отдаёт текст с пробелами после ":" и ","; провайдеру уходит компактный JSON
+    private String payloadJson(String stored) {
+        if (stored == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(stored).toString();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored payment payload is not JSON", e);
+        }
+    }
+
+    private void count(PaymentProvider provider, String result) {
+        meterRegistry.counter("payment.outbox.processed", "provider", provider.name(), "result", result).increment();
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        // незавершённые списания вернутся в очередь по истечении lease
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,219 @@
+package com.ramil.booking.resource_booking.domain.payment.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ramil.booking.resource_booking.domain.payment.dto.OutboxPayment;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentProvider;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentStatus;
+import com.ramil.booking.resource_booking.domain.payment.provider.PaymentProviderRegistry;
+import com.ramil.booking.resource_booking.domain.payment.repository.PaymentRefundRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Выполняет возвраты из payment_refund (cancelPayment, отмена подтверждённого бронирования администратором)
+// Раз в poll-interval захватывает до batch-size строк и по очереди вызывает cancel провайдера; транзакции
+// короткие (захват, чтение, завершение) и на время вызова провайдера не держатся
+// cancel идемпотентен, поэтому и ошибка, и таймаут, и отказ провайдера (false) повторяются:
+// через retry-backoff * 2^(попытка - 1), но не реже max-backoff; после max-attempts строка откладывается
+// для ручного разбора, платёж остаётся CANCELING
+// lease должен быть больше batch-size * app.payment.resilience.call-timeout
+// Метрика: payment.refund.processed{provider, result}
+@Service
+public class PaymentRefundWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentRefundWorker.class);
+
+    private final PaymentRefundRepository refundRepository;
+    private final PaymentProviderRegistry providers;
+    private final PaymentTxService paymentTxService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate tx;
+    private final Clock clock;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration lease;
+    private final Duration retryBackoff;
+    private final Duration maxBackoff;
+    private final int maxAttempts;
+
+    @Autowired
+    public PaymentRefundWorker(
+            PaymentRefundRepository refundRepository,
+            PaymentProviderRegistry providers,
+            PaymentTxService paymentTxService,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.payment.refund.enabled:true}") boolean enabled,
+            @Value("${app.payment.refund.batch-size:10}") int batchSize,
+            @Value("${app.payment.refund.lease:PT2M}") Duration lease,
+            @Value("${app.payment.refund.retry-backoff:PT10S}") Duration retryBackoff,
+            @Value("${app.payment.refund.max-backoff:PT30M}") Duration maxBackoff,
+            @Value("${app.payment.refund.max-attempts:10}") int maxAttempts
+    ) {
+        this(refundRepository, providers, paymentTxService, objectMapper, transactionManager, meterRegistry,
+                Clock.systemUTC(), enabled, batchSize, lease, retryBackoff, maxBackoff, maxAttempts);
+    }
+
+    PaymentRefundWorker(
+            PaymentRefundRepository refundRepository,
+            PaymentProviderRegistry providers,
+            PaymentTxService paymentTxService,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            Clock clock,
+            boolean enabled,
+            int batchSize,
+            Duration lease,
+            Duration retryBackoff,
+            Duration maxBackoff,
+            int maxAttempts
+    ) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("app.payment.refund.batch-size must be positive: " + batchSize);
+        }
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("app.payment.refund.max-attempts must be positive: " + maxAttempts);
+        }
+        this.refundRepository = Objects.requireNonNull(refundRepository);
+        this.providers = Objects.requireNonNull(providers);
+        this.paymentTxService = Objects.requireNonNull(paymentTxService);
+        this.objectMapper = Objects.requireNonNull(objectMapper);
+        this.meterRegistry = Objects.requireNonNull(meterRegistry);
+        this.tx = new TransactionTemplate(Objects.requireNonNull(transactionManager));
+        this.clock = Objects.requireNonNull(clock);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.lease = Objects.requireNonNull(lease);
+        this.retryBackoff = Objects.requireNonNull(retryBackoff);
+        this.maxBackoff = Objects.requireNonNull(maxBackoff);
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Scheduled(
+            initialDelayString = "${app.payment.refund.poll-interval:PT5S}",
+            fixedDelayString = "${app.payment.refund.poll-interval:PT5S}"
+    )
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        OffsetDateTime now = OffsetDateTime.now(clock);
+        List<UUID> claimed = tx.execute(status -> refundRepository.claim(batchSize, now, now.plus(lease)));
+        if (claimed == null) {
+            return;
+        }
+        for (UUID paymentId : claimed) {
+            try {
+                process(paymentId);
+            } catch (RuntimeException e) {
+                // строку заберут повторно по истечении lease
+                log.error("payment.refund.error paymentId={}", paymentId, e);
+            }
+        }
+    }
+
+    // Один возврат: строка уже захвачена этой нодой
+    void process(UUID paymentId) {
+        Optional<OutboxPayment> found = tx.execute(status -> refundRepository.findPayment(paymentId));
+        if (found == null || found.isEmpty()) {
+            return;
+        }
+        OutboxPayment payment = found.get();
+
+        // возврат уже завершён (предыдущая попытка упала после markCanceled, но до удаления строки)
+        if (payment.status() != PaymentStatus.CANCELING) {
+            tx.executeWithoutResult(status -> refundRepository.delete(paymentId));
+            log.info("payment.refund.skip paymentId={} status={}", paymentId, payment.status());
+            return;
+        }
+
+        String error = cancel(payment);
+        if (error == null) {
+            finish(payment);
+            return;
+        }
+
+        if (payment.attempts() >= maxAttempts) {
+            tx.executeWithoutResult(status -> refundRepository.park(paymentId, error));
+            count(payment.provider(), "parked");
+            log.error("payment.refund.parked paymentId={} provider={} attempt={} error={}",
+                    paymentId, payment.provider(), payment.attempts(), error);
+            return;
+        }
+        OffsetDateTime retryAt = OffsetDateTime.now(clock).plus(backoff(payment.attempts()));
+        tx.executeWithoutResult(status -> refundRepository.retryLater(paymentId, retryAt, error));
+        count(payment.provider(), "retry");
+        log.warn("payment.refund.retry paymentId={} provider={} attempt={} retryAt={} error={}",
+                paymentId, payment.provider(), payment.attempts(), retryAt, error);
+    }
+
+    // Вызов провайдера вне транзакции; null — возврат подтверждён, иначе причина неудачи
+    private String cancel(OutboxPayment payment) {
+        try {
+            if (providers.client(payment.provider()).cancel(payloadJson(payment.payloadJson()))) {
+                return null;
+            }
+            return "provider declined cancel";
+        } catch (RuntimeException e) {
+            log.warn("payment.refund.cancel.error paymentId={} provider={} attempt={}",
+                    payment.paymentId(), payment.provider(), payment.attempts(), e);
+            return e.toString();
+        }
+    }
+
+    // retry-backoff * 2^(attempt - 1), не больше max-backoff
+    Duration backoff(int attempt) {
+        int shift = Math.min(Math.max(attempt - 1, 0), 30);
+        Duration delay = retryBackoff.multipliedBy(1L << shift);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    // Завершает платёж и убирает строку одной транзакцией; если не вышло — строка вернётся по истечении lease,
+    // повторный cancel безопасен
+    private void finish(OutboxPayment payment) {
+        UUID paymentId = payment.paymentId();
+        tx.executeWithoutResult(status -> {
+            paymentTxService.completeRefundTx(paymentId);
+            refundRepository.delete(paymentId);
+        });
+        count(payment.provider(), "refunded");
+        log.info("payment.refund.done paymentId={} provider={} attempt={}",
+                paymentId, payment.provider(), payment.attempts());
+    }
+
+    // jsonb отдаёт текст с пробелами после ":" и ","; провайдеру уходит компактный JSON
+    private String payloadJson(String stored) {
+        if (stored == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(stored).toString();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored payment payload is not JSON", e);
+        }
+    }
+
+    private void count(PaymentProvider provider, String result) {
+        meterRegistry.counter("payment.refund.processed", "provider", provider.name(), "result", result).increment();
+    }
+}
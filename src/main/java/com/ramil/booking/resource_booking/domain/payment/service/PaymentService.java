@@ -3,33 +3,37 @@ package com.ramil.booking.resource_booking.domain.payment.service;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.ramil.booking.resource_booking.domain.booking.entity.BookingEntity;
 import com.ramil.booking.resource_booking.domain.booking.exception.BookingNotFoundException;
 import com.ramil.booking.resource_booking.domain.booking.repository.BookingRepository;
+import com.ramil.booking.resource_booking.domain.idempotency.exception.IdempotentOutcomeUnknownException;
 import com.ramil.booking.resource_booking.domain.payment.dto.PaymentView;
 import com.ramil.booking.resource_booking.domain.payment.dto.StartPaymentCommand;
 import com.ramil.booking.resource_booking.domain.payment.entity.PaymentEntity;
 import com.ramil.booking.resource_booking.domain.payment.mapper.PaymentMapper;
 import com.ramil.booking.resource_booking.domain.payment.exception.PaymentAccessDeniedException;
-import com.ramil.booking.resource_booking.domain.payment.model.PaymentProvider;
+import com.ramil.booking.resource_booking.domain.payment.exception.PaymentProviderBusyException;
+import com.ramil.booking.resource_booking.domain.payment.exception.PaymentProviderUnavailableException;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentType;
+import com.ramil.booking.resource_booking.domain.payment.provider.DeferredCapturePaymentClient;
 import com.ramil.booking.resource_booking.domain.payment.provider.PaymentProviderClient;
+import com.ramil.booking.resource_booking.domain.payment.provider.PaymentProviderRegistry;
 import com.ramil.booking.resource_booking.domain.payment.repository.PaymentRepository;
 import com.ramil.booking.resource_booking.domain.user.security.CurrentUserProvider;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 // Сервис для обработки платежей через различные провайдеры
 // После успешной оплаты автоматически подтверждает бронирование
+// С app.payment.async.enabled списание уходит в payment_outbox, его выполняет PaymentOutboxWorker
 @Service
 public class PaymentService {
 
@@ -37,8 +41,9 @@ public class PaymentService {
 
     private final PaymentRepository paymentRepository;
     private final PaymentTxService paymentTxService;
-    private final Map<PaymentProvider, PaymentProviderClient> clients;
+    private final PaymentProviderRegistry providers;
     private final ObjectMapper objectMapper;
+    private final boolean async;
 
     private final BookingRepository bookingRepository;
     private final CurrentUserProvider currentUser;
@@ -47,28 +52,26 @@ public class PaymentService {
     public PaymentService(
             PaymentRepository paymentRepository,
             PaymentTxService paymentTxService,
-            List<PaymentProviderClient> clientList,
+            PaymentProviderRegistry providers,
             ObjectMapper objectMapper,
             BookingRepository bookingRepository,
             CurrentUserProvider currentUser,
-            PaymentMapper paymentMapper
+            PaymentMapper paymentMapper,
+            @Value("${app.payment.async.enabled:false}") boolean async
     ) {
         this.paymentRepository = Objects.requireNonNull(paymentRepository);
         this.paymentTxService = Objects.requireNonNull(paymentTxService);
+        this.providers = Objects.requireNonNull(providers);
         this.objectMapper = Objects.requireNonNull(objectMapper);
         this.bookingRepository = Objects.requireNonNull(bookingRepository);
         this.currentUser = Objects.requireNonNull(currentUser);
         this.paymentMapper = Objects.requireNonNull(paymentMapper);
-
-        this.clients = clientList.stream().collect(Collectors.toMap(
-                PaymentProviderClient::provider,
-                c -> c,
-                (a, b) -> a
-        ));
+        this.async = async;
     }
 
     // Запускает процесс оплаты бронирования
     // После успешной оплаты бронирование автоматически подтверждается
+    // В асинхронном режиме возвращает платёж в статусе NEW, не дожидаясь провайдера
     public PaymentView startPayment(StartPaymentCommand cmd) {
         Objects.requireNonNull(cmd, "cmd");
         Objects.requireNonNull(cmd.bookingId(), "bookingId");
@@ -85,33 +88,61 @@ public class PaymentService {
                 cmd.payloadJson() != null && !cmd.payloadJson().isBlank()
         );
 
-        PaymentProviderClient client = clients.get(cmd.provider());
-        if (client == null) {
+        PaymentProviderClient client;
+        try {
+            client = cmd.type() == PaymentType.DEFERRED
+                    ? providers.deferredClient(cmd.provider())
+                    : providers.client(cmd.provider());
+        } catch (IllegalArgumentException e) {
             log.warn("payment.start unknownProvider requestedBy={} bookingId={} provider={}",
                     me, cmd.bookingId(), cmd.provider());
-            throw new IllegalArgumentException("No client for provider: " + cmd.provider());
+            throw e;
         }
 
         JsonNode payload = parsePayload(cmd.payloadJson());
 
+        if (async) {
+            PaymentEntity queued = paymentTxService.startAsyncPaymentTx(cmd, payload,
+                    providers.limits(cmd.provider()).maxQueued());
+            log.info("payment.queued requestedBy={} bookingId={} paymentId={} provider={}",
+                    me, cmd.bookingId(), queued.getId(), cmd.provider());
+            return toView(queued);
+        }
+
         UUID paymentId = paymentTxService.startPaymentTx(cmd, payload);
         log.info("payment.tx.started requestedBy={} bookingId={} paymentId={}",
                 me, cmd.bookingId(), paymentId);
 
         boolean ok;
         try {
-            ok = client.charge(cmd.amount(), cmd.currency(), cmd.payloadJson());
-        } catch (RuntimeException e) {
-            // если провайдер упал — логируем как error и пробрасываем дальше
+            // DEFERRED только авторизует сумму, списание — PaymentSettlementService
+            if (client instanceof DeferredCapturePaymentClient deferred && cmd.type() == PaymentType.DEFERRED) {
+                ok = deferred.authorize(cmd.amount(), cmd.currency(), cmd.payloadJson());
+            } else {
+                ok = client.charge(cmd.amount(), cmd.currency(), cmd.payloadJson());
+            }
+        } catch (PaymentProviderBusyException | PaymentProviderUnavailableException e) {
+            // запрос к провайдеру не отправлялся — повтор может выполнить его заново
             log.error("payment.charge.error requestedBy={} bookingId={} paymentId={} provider={}",
                     me, cmd.bookingId(), paymentId, cmd.provider(), e);
             throw e;
+        } catch (RuntimeException e) {
+            // если провайдер упал — логируем как error; списание могло пройти, повтор с тем же ключом вернёт этот платёж
+            log.error("payment.charge.error requestedBy={} bookingId={} paymentId={} provider={}",
+                    me, cmd.bookingId(), paymentId, cmd.provider(), e);
+            throw new IdempotentOutcomeUnknownException(paymentId, e);
         }
 
         log.info("payment.charge.result requestedBy={} bookingId={} paymentId={} ok={}",
                 me, cmd.bookingId(), paymentId, ok);
 
-        PaymentEntity finalized = paymentTxService.finalizePaymentTx(paymentId, ok);
+        PaymentEntity finalized;
+        try {
+            finalized = paymentTxService.finalizePaymentTx(paymentId, ok);
+        } catch (RuntimeException e) {
+            // провайдер уже ответил, не записан только итог
+            throw new IdempotentOutcomeUnknownException(paymentId, e);
+        }
 
         log.info("payment.finalized requestedBy={} bookingId={} paymentId={} status={}",
                 me, finalized.getBooking().getId(), finalized.getId(), finalized.getStatus());
@@ -138,26 +169,60 @@ public class PaymentService {
 
         log.info("payment.listByBooking requestedBy={} admin={} bookingId={}", me, admin, bookingId);
 
-        BookingEntity booking = bookingRepository.findById(bookingId)
+        UUID ownerId = bookingRepository.findOwnerId(bookingId)
                 .orElseThrow(() -> {
                     log.warn("payment.listByBooking bookingNotFound requestedBy={} bookingId={}", me, bookingId);
                     return new BookingNotFoundException(bookingId);
                 });
 
-        if (!admin && !booking.getUser().getId().equals(me)) {
+        if (!admin && !ownerId.equals(me)) {
             log.warn("payment.listByBooking accessDenied requestedBy={} bookingId={} bookingUserId={}",
-                    me, bookingId, booking.getUser().getId());
+                    me, bookingId, ownerId);
             throw new PaymentAccessDeniedException(bookingId);
         }
 
-        List<PaymentView> result = paymentRepository.findByBooking_Id(bookingId).stream()
-                .map(this::toView)
-                .toList();
+        List<PaymentView> result = paymentRepository.findViewsByBookingId(bookingId);
 
         log.info("payment.listByBooking result requestedBy={} bookingId={} count={}", me, bookingId, result.size());
         return result;
     }
 
+    // Отмена оплаты: возврат ставится в очередь (PaymentRefundWorker), платёж сразу становится CANCELING,
+    // подтверждённое бронирование отменяется
+    public PaymentView cancelPayment(UUID paymentId) {
+        Objects.requireNonNull(paymentId, "paymentId");
+
+        UUID me = currentUser.currentUserId();
+        log.info("payment.cancel requestedBy={} admin={} paymentId={}", me, currentUser.isAdmin(), paymentId);
+
+        PaymentView payment = paymentTxService.cancelPaymentTx(paymentId);
+
+        log.info("payment.cancel done requestedBy={} paymentId={} status={}", me, paymentId, payment.status());
+        return payment;
+    }
+
+    // Платёж по id; нужен повтору startPayment с тем же idempotencyKey
+    @Transactional(readOnly = true)
+    public PaymentView getById(UUID paymentId) {
+        Objects.requireNonNull(paymentId, "paymentId");
+
+        UUID me = currentUser.currentUserId();
+        boolean admin = currentUser.isAdmin();
+
+        // платежи не удаляются, id приходит из уже выполненного startPayment
+        PaymentView payment = paymentRepository.findViewById(paymentId)
+                .orElseThrow(() -> new IllegalStateException("Payment not found: " + paymentId));
+        UUID ownerId = bookingRepository.findOwnerId(payment.bookingId())
+                .orElseThrow(() -> new BookingNotFoundException(payment.bookingId()));
+
+        if (!admin && !ownerId.equals(me)) {
+            log.warn("payment.getById accessDenied requestedBy={} paymentId={} bookingUserId={}",
+                    me, paymentId, ownerId);
+            throw new PaymentAccessDeniedException(payment.bookingId());
+        }
+        return payment;
+    }
+
     private PaymentView toView(PaymentEntity p) {
         return paymentMapper.toView(p);
     }
@@ -167,9 +232,7 @@ public class PaymentService {
         UUID me = currentUser.currentUserId();
         log.info("payment.listMyPayments requestedBy={}", me);
 
-        List<PaymentView> result = paymentRepository.findByBooking_User_Id(me).stream()
-                .map(this::toView)
-                .toList();
+        List<PaymentView> result = paymentRepository.findViewsByUserId(me);
 
         log.info("payment.listMyPayments result requestedBy={} count={}", me, result.size());
         return result;
@@ -187,9 +250,7 @@ public class PaymentService {
             throw new PaymentAccessDeniedException(null);
         }
 
-        List<PaymentView> result = paymentRepository.findAll().stream()
-                .map(this::toView)
-                .toList();
+        List<PaymentView> result = paymentRepository.findAllViews();
 
         log.info("payment.listAllPayments result requestedBy={} count={}", me, result.size());
         return result;
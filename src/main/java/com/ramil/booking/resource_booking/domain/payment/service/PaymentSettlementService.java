@@ -0,0 +1,172 @@
+package com.ramil.booking.resource_booking.domain.payment.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ramil.booking.resource_booking.domain.payment.dto.CaptureRequest;
+import com.ramil.booking.resource_booking.domain.payment.dto.CaptureResult;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentProvider;
+import com.ramil.booking.resource_booking.domain.payment.provider.DeferredCapturePaymentClient;
+import com.ramil.booking.resource_booking.domain.payment.provider.PaymentProviderRegistry;
+import com.ramil.booking.resource_booking.domain.payment.repository.PaymentCaptureRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Списывает авторизации DEFERRED-платежей пачками: созревшей считается авторизация старше capture-delay
+// (окно, в которое резерв ещё можно снять без списания)
+// Для каждого провайдера: захват до batch-size строк (SKIP LOCKED, аренда lease) -> один вызов capture ->
+// одна транзакция completeCaptureTx на пачку. Ошибка провайдера прерывает его обход; строки вернутся по истечении lease,
+// повторный capture безопасен — он идемпотентен по paymentId. FAILED — только явно отклонённые провайдером;
+// paymentId, которых нет в ответе, остаются AUTHORIZED и тоже повторяются после lease
+// Метрики: payment.settlement.captured{provider, result}, payment.settlement.batches{provider}
+@Service
+public class PaymentSettlementService {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentSettlementService.class);
+
+    private final PaymentCaptureRepository captureRepository;
+    private final PaymentProviderRegistry providers;
+    private final PaymentTxService paymentTxService;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate tx;
+    private final Clock clock;
+    private final boolean enabled;
+    private final Duration captureDelay;
+    private final Duration lease;
+    private final int batchSize;
+
+    @Autowired
+    public PaymentSettlementService(
+            PaymentCaptureRepository captureRepository,
+            PaymentProviderRegistry providers,
+            PaymentTxService paymentTxService,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.payment.settlement.enabled:true}") boolean enabled,
+            @Value("${app.payment.settlement.capture-delay:PT1H}") Duration captureDelay,
+            @Value("${app.payment.settlement.lease:PT5M}") Duration lease,
+            @Value("${app.payment.settlement.batch-size:100}") int batchSize
+    ) {
+        this(captureRepository, providers, paymentTxService, transactionManager, meterRegistry, Clock.systemUTC(),
+                enabled, captureDelay, lease, batchSize);
+    }
+
+    PaymentSettlementService(
+            PaymentCaptureRepository captureRepository,
+            PaymentProviderRegistry providers,
+            PaymentTxService paymentTxService,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            Clock clock,
+            boolean enabled,
+            Duration captureDelay,
+            Duration lease,
+            int batchSize
+    ) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("app.payment.settlement.batch-size must be positive: " + batchSize);
+        }
+        this.captureRepository = Objects.requireNonNull(captureRepository);
+        this.providers = Objects.requireNonNull(providers);
+        this.paymentTxService = Objects.requireNonNull(paymentTxService);
+        this.meterRegistry = Objects.requireNonNull(meterRegistry);
+        this.tx = new TransactionTemplate(Objects.requireNonNull(transactionManager));
+        this.clock = Objects.requireNonNull(clock);
+        this.enabled = enabled;
+        this.captureDelay = Objects.requireNonNull(captureDelay);
+        this.lease = Objects.requireNonNull(lease);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(
+            initialDelayString = "${app.payment.settlement.interval:PT1M}",
+            fixedDelayString = "${app.payment.settlement.interval:PT1M}"
+    )
+    public void settleDue() {
+        if (!enabled) {
+            return;
+        }
+        // у провайдера без отложенного списания AUTHORIZED-платежей быть не может
+        for (PaymentProvider provider : providers.providers()) {
+            if (providers.supportsDeferred(provider)) {
+                settle(provider);
+            }
+        }
+    }
+
+    // Возвращает число завершённых платежей провайдера
+    int settle(PaymentProvider provider) {
+        DeferredCapturePaymentClient client = providers.deferredClient(provider);
+        int total = 0;
+        int claimed;
+        do {
+            OffsetDateTime now = OffsetDateTime.now(clock);
+            Instant dueBefore = now.toInstant().minus(captureDelay);
+            List<CaptureRequest> batch = tx.execute(status ->
+                    captureRepository.claimDue(provider, dueBefore, now, now.plus(lease), batchSize));
+            claimed = batch == null ? 0 : batch.size();
+            if (claimed == 0) {
+                break;
+            }
+
+            CaptureResult result;
+            try {
+                result = client.capture(batch);
+            } catch (RuntimeException e) {
+                log.warn("payment.settlement.capture.error provider={} batch={}", provider, claimed, e);
+                counter(provider, "error").increment(claimed);
+                break;
+            }
+
+            List<UUID> succeeded = new ArrayList<>(claimed);
+            List<UUID> declined = new ArrayList<>();
+            List<UUID> unreported = new ArrayList<>();
+            for (CaptureRequest r : batch) {
+                if (result.captured().contains(r.paymentId())) {
+                    succeeded.add(r.paymentId());
+                } else if (result.declined().contains(r.paymentId())) {
+                    declined.add(r.paymentId());
+                } else {
+                    unreported.add(r.paymentId());
+                }
+            }
+            total += paymentTxService.completeCaptureTx(succeeded, declined);
+
+            meterRegistry.counter("payment.settlement.batches", "provider", provider.name()).increment();
+            counter(provider, "captured").increment(succeeded.size());
+            counter(provider, "declined").increment(declined.size());
+            counter(provider, "unreported").increment(unreported.size());
+            if (!declined.isEmpty()) {
+                log.warn("payment.settlement.declined provider={} paymentIds={}", provider, declined);
+            }
+            if (!unreported.isEmpty()) {
+                log.warn("payment.settlement.unreported provider={} paymentIds={}", provider, unreported);
+            }
+        } while (claimed == batchSize);
+
+        if (total > 0) {
+            log.info("payment.settlement provider={} settled={}", provider, total);
+        }
+        return total;
+    }
+
+    private Counter counter(PaymentProvider provider, String result) {
+        return meterRegistry.counter("payment.settlement.captured", "provider", provider.name(), "result", result);
+    }
+}
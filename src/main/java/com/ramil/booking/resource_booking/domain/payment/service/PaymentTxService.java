@@ -1,23 +1,49 @@
 package com.ramil.booking.resource_booking.domain.payment.service;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingTransition;
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingView;
+import com.ramil.booking.resource_booking.domain.booking.dto.StatusTransition;
 import com.ramil.booking.resource_booking.domain.booking.entity.BookingEntity;
+import com.ramil.booking.resource_booking.domain.booking.event.BookingStatusChangedEvent;
 import com.ramil.booking.resource_booking.domain.booking.exception.BookingNotFoundException;
 import com.ramil.booking.resource_booking.domain.booking.exception.BookingStatusException;
 import com.ramil.booking.resource_booking.domain.booking.model.BookingStatus;
 import com.ramil.booking.resource_booking.domain.booking.repository.BookingRepository;
+import com.ramil.booking.resource_booking.domain.payment.dto.CancelingPayment;
+import com.ramil.booking.resource_booking.domain.payment.dto.CapturedPayment;
+import com.ramil.booking.resource_booking.domain.payment.dto.PaymentView;
 import com.ramil.booking.resource_booking.domain.payment.dto.StartPaymentCommand;
 import com.ramil.booking.resource_booking.domain.payment.entity.PaymentEntity;
+import com.ramil.booking.resource_booking.domain.payment.event.PaymentStatusChangedEvent;
 import com.ramil.booking.resource_booking.domain.payment.exception.PaymentAccessDeniedException;
+import com.ramil.booking.resource_booking.domain.payment.exception.PaymentAmountMismatchException;
+import com.ramil.booking.resource_booking.domain.payment.exception.PaymentNotFoundException;
+import com.ramil.booking.resource_booking.domain.payment.exception.PaymentProviderBusyException;
+import com.ramil.booking.resource_booking.domain.payment.exception.PaymentStatusException;
 import com.ramil.booking.resource_booking.domain.payment.model.PaymentStatus;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentType;
+import com.ramil.booking.resource_booking.domain.payment.repository.PaymentCaptureRepository;
+import com.ramil.booking.resource_booking.domain.payment.repository.PaymentOutboxRepository;
+import com.ramil.booking.resource_booking.domain.payment.repository.PaymentRefundRepository;
 import com.ramil.booking.resource_booking.domain.payment.repository.PaymentRepository;
+import com.ramil.booking.resource_booking.domain.pricing.dto.PriceQuote;
+import com.ramil.booking.resource_booking.domain.pricing.service.PricingService;
 import com.ramil.booking.resource_booking.domain.user.security.CurrentUserProvider;
 
 // Транзакционный сервис для операций с платежами
@@ -25,25 +51,60 @@ import com.ramil.booking.resource_booking.domain.user.security.CurrentUserProvid
 @Service
 public class PaymentTxService {
 
+    private static final Logger log = LoggerFactory.getLogger(PaymentTxService.class);
+
     private final PaymentRepository paymentRepository;
+    private final PaymentOutboxRepository outboxRepository;
+    private final PaymentCaptureRepository captureRepository;
+    private final PaymentRefundRepository refundRepository;
     private final BookingRepository bookingRepository;
+    private final PricingService pricingService;
     private final CurrentUserProvider currentUser;
+    private final ApplicationEventPublisher events;
 
     public PaymentTxService(
             PaymentRepository paymentRepository,
+            PaymentOutboxRepository outboxRepository,
+            PaymentCaptureRepository captureRepository,
+            PaymentRefundRepository refundRepository,
             BookingRepository bookingRepository,
-            CurrentUserProvider currentUser
+            PricingService pricingService,
+            CurrentUserProvider currentUser,
+            ApplicationEventPublisher events
     ) {
         this.paymentRepository = Objects.requireNonNull(paymentRepository);
+        this.outboxRepository = Objects.requireNonNull(outboxRepository);
+        this.captureRepository = Objects.requireNonNull(captureRepository);
+        this.refundRepository = Objects.requireNonNull(refundRepository);
         this.bookingRepository = Objects.requireNonNull(bookingRepository);
+        this.pricingService = Objects.requireNonNull(pricingService);
         this.currentUser = Objects.requireNonNull(currentUser);
+        this.events = Objects.requireNonNull(events);
     }
 
     // Начинает транзакцию оплаты
     // Ожидает бронирование в статусе WAITING_PAYMENT (после markBookingWaitingPayment)
     // Создаёт запись платежа
+    // Если у ресурса есть тариф, сумма и валюта должны совпасть с ценой, посчитанной сервером
     @Transactional
     public UUID startPaymentTx(StartPaymentCommand cmd, JsonNode payload) {
+        return createPayment(cmd, payload).getId();
+    }
+
+    // То же, что startPaymentTx, но списание ставится в payment_outbox той же транзакцией:
+    // платёж без строки очереди (или строка без платежа) не появится
+    // Очередь провайдера длиннее maxQueued — PaymentProviderBusyException, платёж не создаётся
+    @Transactional
+    public PaymentEntity startAsyncPaymentTx(StartPaymentCommand cmd, JsonNode payload, int maxQueued) {
+        if (outboxRepository.countQueued(cmd.provider(), maxQueued) >= maxQueued) {
+            throw new PaymentProviderBusyException(cmd.provider());
+        }
+        PaymentEntity payment = createPayment(cmd, payload);
+        outboxRepository.enqueue(payment.getId(), payment.getProvider());
+        return payment;
+    }
+
+    private PaymentEntity createPayment(StartPaymentCommand cmd, JsonNode payload) {
         BookingEntity booking = bookingRepository.findById(cmd.bookingId())
                 .orElseThrow(() -> new BookingNotFoundException(cmd.bookingId()));
 
@@ -56,6 +117,14 @@ public class PaymentTxService {
             throw new BookingStatusException(booking.getId(), booking.getStatus(), "WAITING_PAYMENT");
         }
 
+        // без тарифа сумму по-прежнему задаёт клиент
+        Optional<PriceQuote> price = pricingService.quoteIfPriced(booking.getResource().getId(),
+                booking.getStartTime(), booking.getEndTime());
+        if (price.isPresent() && (price.get().amount().compareTo(cmd.amount()) != 0
+                || !price.get().currency().equalsIgnoreCase(cmd.currency()))) {
+            throw new PaymentAmountMismatchException(booking.getId(), price.get().amount(), price.get().currency());
+        }
+
         UUID paymentId = UUID.randomUUID();
         PaymentEntity payment = new PaymentEntity(
                 paymentId,
@@ -68,42 +137,175 @@ public class PaymentTxService {
                 payload
         );
 
-        paymentRepository.save(payment);
-        return paymentId;
+        return paymentRepository.save(payment);
     }
 
     // Завершает транзакцию оплаты
     // При успехе: подтверждает бронирование (CONFIRMED), при ошибке: отменяет (CANCELED)
+    // DEFERRED при успехе становится AUTHORIZED: бронирование подтверждается, а оплата отмечается при списании
+    // Если бронирование за время списания истекло или отменено, оплата сразу уходит на возврат
+    // Платёж меняется только из NEW (finalizeNew): если его уже завершил другой исполнитель, бронирование
+    // не трогается и возвращается платёж как есть
+    // Статус бронирования меняется одним условным UPDATE, сущность бронирования не загружается
     @Transactional
     public PaymentEntity finalizePaymentTx(UUID paymentId, boolean ok) {
-        PaymentEntity payment = paymentRepository.findById(paymentId)
+        PaymentView current = paymentRepository.findViewById(paymentId)
                 .orElseThrow(() -> new IllegalArgumentException("Payment not found: " + paymentId));
 
-        BookingEntity booking = payment.getBooking();
+        UUID bookingId = current.bookingId();
+        String actor = currentUser.currentUserEmail();
+        PaymentStatus to = !ok ? PaymentStatus.FAILED
+                : current.type() == PaymentType.DEFERRED ? PaymentStatus.AUTHORIZED : PaymentStatus.SUCCESS;
 
-        if (ok) {
-            payment.setStatus(PaymentStatus.SUCCESS);
+        if (!paymentRepository.finalizeNew(paymentId, to, actor)) {
+            return load(paymentId);
+        }
 
-            if (booking.getStatus() != BookingStatus.WAITING_PAYMENT) {
-                throw new BookingStatusException(booking.getId(), booking.getStatus(), "WAITING_PAYMENT");
+        if (to == PaymentStatus.AUTHORIZED) {
+            BookingTransition t = bookingRepository.transition(StatusTransition
+                    .of(bookingId, Set.of(BookingStatus.WAITING_PAYMENT), BookingStatus.CONFIRMED, actor));
+            if (!t.isApplied()) {
+                return refundLatePayment(paymentId, bookingId, t.observedStatus(), actor);
             }
-
-            if (booking.getPaidAt() == null) {
-                booking.setPaidAt(OffsetDateTime.now(java.time.ZoneOffset.UTC));
-                booking.setPaidBy(currentUser.currentUserEmail());
+            publishStatusChanged(t);
+            return load(paymentId);
+        }
+        if (to == PaymentStatus.SUCCESS) {
+            BookingTransition t = bookingRepository.transition(StatusTransition
+                    .of(bookingId, Set.of(BookingStatus.WAITING_PAYMENT), BookingStatus.CONFIRMED, actor)
+                    .markPaidBy(actor));
+            if (!t.isApplied()) {
+                return refundLatePayment(paymentId, bookingId, t.observedStatus(), actor);
             }
+            publishStatusChanged(t);
+            PaymentEntity payment = load(paymentId);
+            publishPaymentStatusChanged(payment, PaymentStatus.NEW, t.booking());
+            return payment;
+        }
+
+        // бронь могли уже отменить или перевести в EXPIRED — тогда менять нечего
+        BookingTransition t = bookingRepository.transition(StatusTransition
+                .of(bookingId, Set.of(BookingStatus.WAITING_PAYMENT), BookingStatus.CANCELED, actor));
+        if (t.isApplied()) {
+            publishStatusChanged(t);
+        }
+        return load(paymentId);
+    }
+
+    // Бронирование ушло из WAITING_PAYMENT, пока шло списание (истекло, отменено): деньги уже у провайдера,
+    // поэтому платёж не откатывается, а сразу ставится в payment_refund (CANCELING)
+    // Выручка по нему не учитывалась, поэтому PaymentStatusChangedEvent не публикуется
+    private PaymentEntity refundLatePayment(UUID paymentId, UUID bookingId, BookingStatus observed, String actor) {
+        refundRepository.requestForPayment(paymentId, actor);
+        log.warn("payment.finalize.bookingMissed paymentId={} bookingId={} bookingStatus={} refund=queued",
+                paymentId, bookingId, observed);
+        return load(paymentId);
+    }
 
-            booking.setStatus(BookingStatus.CONFIRMED);
-            bookingRepository.save(booking);
-        } else {
-            payment.setStatus(PaymentStatus.FAILED);
+    // После finalizeNew: сущность ещё не в persistence context, поэтому читается уже с новым статусом
+    private PaymentEntity load(UUID paymentId) {
+        return paymentRepository.findById(paymentId)
+                .orElseThrow(() -> new IllegalArgumentException("Payment not found: " + paymentId));
+    }
+
+    // Завершает пачку списаний PaymentSettlementService: captured — SUCCESS (выручка, отметка оплаты бронирования),
+    // declined — FAILED с отменой подтверждённого бронирования. Платежи меняются set-based запросами на всю пачку
+    // Возвращает число платежей, действительно сменивших статус
+    @Transactional
+    public int completeCaptureTx(Collection<UUID> captured, Collection<UUID> declined) {
+        String actor = currentUser.currentUserEmail();
+
+        List<CapturedPayment> succeeded = captureRepository.markCaptured(captured, actor);
+        for (CapturedPayment p : succeeded) {
+            events.publishEvent(new PaymentStatusChangedEvent(p.paymentId(), p.bookingId(), p.resourceId(),
+                    p.bookingStartTime(), p.amount(), p.currency(), PaymentStatus.AUTHORIZED, PaymentStatus.SUCCESS));
+        }
 
-            if (booking.getStatus() == BookingStatus.WAITING_PAYMENT) {
-                booking.setStatus(BookingStatus.CANCELED);
-                bookingRepository.save(booking);
+        // отказ в списании редок: бронирования отменяются по одному, чтобы слушатели получили события
+        List<UUID> failedBookings = captureRepository.markDeclined(declined, actor);
+        for (UUID bookingId : failedBookings) {
+            BookingTransition t = bookingRepository.transition(StatusTransition
+                    .of(bookingId, Set.of(BookingStatus.CONFIRMED), BookingStatus.CANCELED, actor));
+            if (t.isApplied()) {
+                publishStatusChanged(t);
             }
         }
+        return succeeded.size() + failedBookings.size();
+    }
 
-        return paymentRepository.save(payment);
+    // Ставит возврат в очередь payment_refund: AUTHORIZED/SUCCESS -> CANCELING (выручка вычитается сразу),
+    // подтверждённое бронирование отменяется и освобождает слот, не дожидаясь провайдера
+    // Повторный вызов для CANCELING/CANCELED возвращает платёж как есть
+    // Пользователь — только свои платежи и только до начала бронирования, администратор — любые
+    @Transactional
+    public PaymentView cancelPaymentTx(UUID paymentId) {
+        PaymentView payment = paymentRepository.findViewById(paymentId)
+                .orElseThrow(() -> new PaymentNotFoundException(paymentId));
+        BookingView booking = bookingRepository.findViewById(payment.bookingId())
+                .orElseThrow(() -> new BookingNotFoundException(payment.bookingId()));
+
+        boolean admin = currentUser.isAdmin();
+        if (!admin && !booking.userId().equals(currentUser.currentUserId())) {
+            throw new PaymentAccessDeniedException(booking.id());
+        }
+        if (payment.status() == PaymentStatus.CANCELING || payment.status() == PaymentStatus.CANCELED) {
+            return payment;
+        }
+        if (!admin && !booking.startTime().isAfter(OffsetDateTime.now())) {
+            throw new BookingStatusException(booking.id(), booking.status(), "not started");
+        }
+
+        String actor = currentUser.currentUserEmail();
+        List<CancelingPayment> canceling = refundRepository.requestForPayment(paymentId, actor);
+        if (canceling.isEmpty()) {
+            throw new PaymentStatusException(paymentId, payment.status(), "AUTHORIZED or SUCCESS");
+        }
+        publishCanceling(canceling, booking.resourceId(), booking.startTime());
+
+        BookingTransition t = bookingRepository.transition(StatusTransition
+                .of(booking.id(), Set.of(BookingStatus.CONFIRMED), BookingStatus.CANCELED, actor));
+        if (t.isApplied()) {
+            publishStatusChanged(t);
+        }
+
+        return new PaymentView(payment.id(), payment.bookingId(), payment.provider(), payment.type(),
+                PaymentStatus.CANCELING, payment.amount(), payment.currency());
+    }
+
+    // Администратор отменил подтверждённое бронирование — его оплата возвращается
+    // После cancelPaymentTx и отказа в списании подходящих платежей у бронирования уже нет
+    @EventListener
+    public void onBookingStatusChanged(BookingStatusChangedEvent event) {
+        if (event.from() != BookingStatus.CONFIRMED || event.to() != BookingStatus.CANCELED) {
+            return;
+        }
+        List<CancelingPayment> canceling =
+                refundRepository.requestForBooking(event.bookingId(), currentUser.currentUserEmail());
+        publishCanceling(canceling, event.resourceId(), event.startTime());
+    }
+
+    // Провайдер подтвердил возврат: CANCELING -> CANCELED; выручка уже вычтена при постановке в очередь
+    @Transactional
+    public boolean completeRefundTx(UUID paymentId) {
+        return refundRepository.markCanceled(paymentId, currentUser.currentUserEmail());
+    }
+
+    private void publishCanceling(List<CancelingPayment> canceling, UUID resourceId, OffsetDateTime startTime) {
+        for (CancelingPayment p : canceling) {
+            events.publishEvent(new PaymentStatusChangedEvent(p.paymentId(), p.bookingId(), resourceId, startTime,
+                    p.amount(), p.currency(), p.previousStatus(), PaymentStatus.CANCELING));
+        }
+    }
+
+    // Только для SUCCESS: неудачный платёж выручку не меняет, а бронирование может уже не застать
+    private void publishPaymentStatusChanged(PaymentEntity payment, PaymentStatus from, BookingView booking) {
+        events.publishEvent(new PaymentStatusChangedEvent(payment.getId(), booking.id(), booking.resourceId(),
+                booking.startTime(), payment.getAmount(), payment.getCurrency(), from, payment.getStatus()));
+    }
+
+    private void publishStatusChanged(BookingTransition t) {
+        BookingView b = t.booking();
+        events.publishEvent(new BookingStatusChangedEvent(
+                b.id(), b.resourceId(), b.startTime(), b.endTime(), t.observedStatus(), b.status()));
     }
 }
@@ -0,0 +1,22 @@
+package com.ramil.booking.resource_booking.domain.pricing.dto;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.util.Objects;
+
+// Пиковое окно тарифа: [startMinute, endMinute) минут суток UTC; dayOfWeek = null — каждый день
+public record PeakWindow(
+        DayOfWeek dayOfWeek,
+        int startMinute,
+        int endMinute,
+        BigDecimal hourlyRate
+) {
+
+    public PeakWindow {
+        Objects.requireNonNull(hourlyRate, "hourlyRate must not be null");
+    }
+
+    public boolean appliesTo(DayOfWeek day) {
+        return dayOfWeek == null || dayOfWeek == day;
+    }
+}
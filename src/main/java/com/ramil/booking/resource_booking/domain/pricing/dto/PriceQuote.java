@@ -0,0 +1,16 @@
+package com.ramil.booking.resource_booking.domain.pricing.dto;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+// Цена интервала по тарифу версии rateCardVersion; minimumApplied — цена поднята до minimum_amount
+public record PriceQuote(
+        UUID resourceId,
+        OffsetDateTime start,
+        OffsetDateTime end,
+        BigDecimal amount,
+        String currency,
+        boolean minimumApplied,
+        long rateCardVersion
+) {}
@@ -0,0 +1,24 @@
+package com.ramil.booking.resource_booking.domain.pricing.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+public record RateCard(
+        UUID resourceId,
+        String currency,
+        BigDecimal hourlyRate,
+        BigDecimal minimumAmount,
+        List<PeakWindow> peaks,
+        long version
+) {
+
+    public RateCard {
+        Objects.requireNonNull(resourceId, "resourceId must not be null");
+        Objects.requireNonNull(currency, "currency must not be null");
+        Objects.requireNonNull(hourlyRate, "hourlyRate must not be null");
+        Objects.requireNonNull(minimumAmount, "minimumAmount must not be null");
+        peaks = peaks == null ? List.of() : List.copyOf(peaks);
+    }
+}
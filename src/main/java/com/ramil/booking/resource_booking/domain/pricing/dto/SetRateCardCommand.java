@@ -0,0 +1,23 @@
+package com.ramil.booking.resource_booking.domain.pricing.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+public record SetRateCardCommand(
+        UUID resourceId,
+        String currency,
+        BigDecimal hourlyRate,
+        BigDecimal minimumAmount,
+        List<PeakWindow> peaks
+) {
+
+    public SetRateCardCommand {
+        Objects.requireNonNull(resourceId, "resourceId must not be null");
+        Objects.requireNonNull(currency, "currency must not be null");
+        Objects.requireNonNull(hourlyRate, "hourlyRate must not be null");
+        minimumAmount = minimumAmount == null ? BigDecimal.ZERO : minimumAmount;
+        peaks = peaks == null ? List.of() : List.copyOf(peaks);
+    }
+}
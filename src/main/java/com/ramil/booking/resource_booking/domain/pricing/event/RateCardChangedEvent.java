@@ -0,0 +1,6 @@
+package com.ramil.booking.resource_booking.domain.pricing.event;
+
+import java.util.UUID;
+
+// Тариф ресурса создан, изменён или удалён; PricingRuleLoader перечитывает его после коммита
+public record RateCardChangedEvent(UUID resourceId) {}
@@ -0,0 +1,7 @@
+package com.ramil.booking.resource_booking.domain.pricing.exception;
+
+public class InvalidRateCardException extends RuntimeException {
+    public InvalidRateCardException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,9 @@
+package com.ramil.booking.resource_booking.domain.pricing.exception;
+
+import java.util.UUID;
+
+public class RateCardNotFoundException extends RuntimeException {
+    public RateCardNotFoundException(UUID resourceId) {
+        super("Rate card not found for resource: " + resourceId);
+    }
+}
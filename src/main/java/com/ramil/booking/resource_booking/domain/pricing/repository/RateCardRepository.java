@@ -0,0 +1,150 @@
+package com.ramil.booking.resource_booking.domain.pricing.repository;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+
+import com.ramil.booking.resource_booking.domain.pricing.dto.PeakWindow;
+import com.ramil.booking.resource_booking.domain.pricing.dto.RateCard;
+import com.ramil.booking.resource_booking.domain.pricing.dto.SetRateCardCommand;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+// Тарифы ресурсов (V17) без сущностей: читаются целиком при загрузке PricingRuleCache
+@Repository
+public class RateCardRepository {
+
+    private static final String CARD_COLUMNS = "resource_id, currency, hourly_rate, minimum_amount, version";
+    private static final String PEAK_COLUMNS = "resource_id, day_of_week, start_minute, end_minute, hourly_rate";
+
+    private final EntityManager em;
+
+    public RateCardRepository(EntityManager em) {
+        this.em = Objects.requireNonNull(em);
+    }
+
+    // Все тарифы двумя запросами (карточки и окна), окна раскладываются по ресурсам в памяти
+    public List<RateCard> findAll() {
+        Map<UUID, List<PeakWindow>> peaks = new HashMap<>();
+        for (Object[] r : peakRows("select " + PEAK_COLUMNS + " from resource_rate_peak order by resource_id, position",
+                null)) {
+            peaks.computeIfAbsent((UUID) r[0], id -> new ArrayList<>()).add(peak(r));
+        }
+        return cardRows("select " + CARD_COLUMNS + " from resource_rate_card", null).stream()
+                .map(r -> card(r, peaks.getOrDefault((UUID) r[0], List.of())))
+                .toList();
+    }
+
+    public Optional<RateCard> findByResourceId(UUID resourceId) {
+        List<Object[]> cards = cardRows("select " + CARD_COLUMNS + " from resource_rate_card where resource_id = :id",
+                resourceId);
+        if (cards.isEmpty()) {
+            return Optional.empty();
+        }
+        List<PeakWindow> peaks = peakRows("select " + PEAK_COLUMNS
+                + " from resource_rate_peak where resource_id = :id order by position", resourceId).stream()
+                .map(RateCardRepository::peak)
+                .toList();
+        return Optional.of(card(cards.get(0), peaks));
+    }
+
+    // Создаёт или заменяет тариф целиком (окна переписываются); возвращает новую version
+    public long save(SetRateCardCommand cmd, String actor) {
+        Number version = (Number) em.createNativeQuery("""
+                        insert into resource_rate_card(resource_id, currency, hourly_rate, minimum_amount,
+                                                       version, updated_at, updated_by)
+                        values (:id, :currency, :hourlyRate, :minimumAmount, 0, now(), :actor)
+                        on conflict (resource_id) do update
+                        set currency = excluded.currency,
+                            hourly_rate = excluded.hourly_rate,
+                            minimum_amount = excluded.minimum_amount,
+                            version = resource_rate_card.version + 1,
+                            updated_at = excluded.updated_at,
+                            updated_by = excluded.updated_by
+                        returning version
+                        """)
+                .setParameter("id", cmd.resourceId())
+                .setParameter("currency", cmd.currency())
+                .setParameter("hourlyRate", cmd.hourlyRate())
+                .setParameter("minimumAmount", cmd.minimumAmount())
+                .setParameter("actor", actor)
+                .getSingleResult();
+
+        em.createNativeQuery("delete from resource_rate_peak where resource_id = :id")
+                .setParameter("id", cmd.resourceId())
+                .executeUpdate();
+        int position = 0;
+        for (PeakWindow peak : cmd.peaks()) {
+            em.createNativeQuery("""
+                            insert into resource_rate_peak(resource_id, position, day_of_week, start_minute,
+                                                           end_minute, hourly_rate)
+                            values (:id, :position, cast(:dayOfWeek as smallint), :startMinute, :endMinute, :hourlyRate)
+                            """)
+                    .setParameter("id", cmd.resourceId())
+                    .setParameter("position", position++)
+                    .setParameter("dayOfWeek", peak.dayOfWeek() == null ? null : peak.dayOfWeek().getValue())
+                    .setParameter("startMinute", peak.startMinute())
+                    .setParameter("endMinute", peak.endMinute())
+                    .setParameter("hourlyRate", peak.hourlyRate())
+                    .executeUpdate();
+        }
+        return version.longValue();
+    }
+
+    // Окна удаляются каскадом; false — тарифа не было
+    public boolean delete(UUID resourceId) {
+        return em.createNativeQuery("delete from resource_rate_card where resource_id = :id")
+                .setParameter("id", resourceId)
+                .executeUpdate() == 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> cardRows(String sql, UUID resourceId) {
+        Query query = em.createNativeQuery(sql);
+        if (resourceId != null) {
+            query.setParameter("id", resourceId);
+        }
+        return query.unwrap(NativeQuery.class)
+                .addScalar("resource_id", UUID.class)
+                .addScalar("currency", String.class)
+                .addScalar("hourly_rate", BigDecimal.class)
+                .addScalar("minimum_amount", BigDecimal.class)
+                .addScalar("version", Long.class)
+                .getResultList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> peakRows(String sql, UUID resourceId) {
+        Query query = em.createNativeQuery(sql);
+        if (resourceId != null) {
+            query.setParameter("id", resourceId);
+        }
+        return query.unwrap(NativeQuery.class)
+                .addScalar("resource_id", UUID.class)
+                .addScalar("day_of_week", Integer.class)
+                .addScalar("start_minute", Integer.class)
+                .addScalar("end_minute", Integer.class)
+                .addScalar("hourly_rate", BigDecimal.class)
+                .getResultList();
+    }
+
+    private static RateCard card(Object[] r, List<PeakWindow> peaks) {
+        return new RateCard((UUID) r[0], (String) r[1], (BigDecimal) r[2], (BigDecimal) r[3], peaks, (Long) r[4]);
+    }
+
+    private static PeakWindow peak(Object[] r) {
+        Integer day = (Integer) r[1];
+        return new PeakWindow(day == null ? null : DayOfWeek.of(day), (Integer) r[2], (Integer) r[3],
+                (BigDecimal) r[4]);
+    }
+}
@@ -0,0 +1,158 @@
+package com.ramil.booking.resource_booking.domain.pricing.rules;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import com.ramil.booking.resource_booking.domain.pricing.dto.PeakWindow;
+import com.ramil.booking.resource_booking.domain.pricing.dto.PriceQuote;
+import com.ramil.booking.resource_booking.domain.pricing.dto.RateCard;
+
+// Тариф, скомпилированный в недельное расписание: отрезки [boundaries[i], boundaries[i + 1]) секунд от понедельника
+// 00:00 UTC со ставкой centsPerHour[i]; пики уже наложены на базовую ставку, соседние равные отрезки склеены
+// Цена считается в цент-секундах (секунды × центы в час) и делится на 3600 один раз с округлением HALF_UP;
+// полные недели — одним умножением, поэтому время расчёта не зависит от длины интервала
+// Неизменяемый: PricingRuleCache подменяет объект целиком
+public final class CompiledRateCard {
+
+    static final int WEEK_SECONDS = 7 * 86_400;
+    private static final int DAY_SECONDS = 86_400;
+    private static final long SECONDS_PER_HOUR = 3_600;
+    // 1970-01-05 00:00 UTC — понедельник
+    private static final long FIRST_MONDAY_EPOCH_SECOND = 4L * DAY_SECONDS;
+
+    private final UUID resourceId;
+    private final String currency;
+    private final long minimumCents;
+    private final long version;
+    private final int[] boundaries;
+    private final long[] centsPerHour;
+    private final long weekCentSeconds;
+
+    private CompiledRateCard(UUID resourceId, String currency, long minimumCents, long version,
+                             int[] boundaries, long[] centsPerHour) {
+        this.resourceId = resourceId;
+        this.currency = currency;
+        this.minimumCents = minimumCents;
+        this.version = version;
+        this.boundaries = boundaries;
+        this.centsPerHour = centsPerHour;
+        long week = 0;
+        for (int i = 0; i < centsPerHour.length; i++) {
+            week = Math.addExact(week, Math.multiplyExact(boundaries[i + 1] - boundaries[i], centsPerHour[i]));
+        }
+        this.weekCentSeconds = week;
+    }
+
+    public static CompiledRateCard compile(RateCard card) {
+        // границы элементарных отрезков: начало недели и края каждого окна в каждый его день
+        TreeSet<Integer> cuts = new TreeSet<>(List.of(0, WEEK_SECONDS));
+        for (PeakWindow peak : card.peaks()) {
+            for (DayOfWeek day : DayOfWeek.values()) {
+                if (peak.appliesTo(day)) {
+                    int dayStart = (day.getValue() - 1) * DAY_SECONDS;
+                    cuts.add(dayStart + peak.startMinute() * 60);
+                    cuts.add(dayStart + peak.endMinute() * 60);
+                }
+            }
+        }
+
+        long baseCents = cents(card.hourlyRate());
+        List<Integer> bounds = new ArrayList<>();
+        List<Long> rates = new ArrayList<>();
+        Integer from = null;
+        for (int cut : cuts) {
+            if (from != null) {
+                long rate = rateAt(card.peaks(), from, baseCents);
+                // соседний отрезок с той же ставкой продолжает предыдущий
+                if (rates.isEmpty() || rates.get(rates.size() - 1) != rate) {
+                    bounds.add(from);
+                    rates.add(rate);
+                }
+            }
+            from = cut;
+        }
+        bounds.add(WEEK_SECONDS);
+
+        return new CompiledRateCard(card.resourceId(), card.currency(), cents(card.minimumAmount()), card.version(),
+                bounds.stream().mapToInt(Integer::intValue).toArray(),
+                rates.stream().mapToLong(Long::longValue).toArray());
+    }
+
+    public UUID resourceId() {
+        return resourceId;
+    }
+
+    public String currency() {
+        return currency;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    // Интервал в UTC; смещение start/end на результат не влияет
+    public PriceQuote quote(OffsetDateTime start, OffsetDateTime end) {
+        long cents = priceCents(start.toEpochSecond(), end.toEpochSecond());
+        boolean minimumApplied = cents < minimumCents;
+        return new PriceQuote(resourceId, start, end, BigDecimal.valueOf(Math.max(cents, minimumCents), 2),
+                currency, minimumApplied, version);
+    }
+
+    // Цена [from, to) в центах без учёта минимума, с точностью до секунды
+    long priceCents(long fromEpochSecond, long toEpochSecond) {
+        long length = toEpochSecond - fromEpochSecond;
+        if (length <= 0) {
+            return 0;
+        }
+        long centSeconds = Math.multiplyExact(length / WEEK_SECONDS, weekCentSeconds);
+
+        long remaining = length % WEEK_SECONDS;
+        int position = (int) Math.floorMod(fromEpochSecond - FIRST_MONDAY_EPOCH_SECOND, (long) WEEK_SECONDS);
+        int i = segmentAt(position);
+        while (remaining > 0) {
+            long take = Math.min(remaining, boundaries[i + 1] - position);
+            centSeconds = Math.addExact(centSeconds, take * centsPerHour[i]);
+            remaining -= take;
+            position += (int) take;
+            i++;
+            if (position == WEEK_SECONDS) {
+                position = 0;
+                i = 0;
+            }
+        }
+        // HALF_UP для неотрицательных значений
+        return (centSeconds + SECONDS_PER_HOUR / 2) / SECONDS_PER_HOUR;
+    }
+
+    int segments() {
+        return centsPerHour.length;
+    }
+
+    private int segmentAt(int position) {
+        int found = Arrays.binarySearch(boundaries, position);
+        return found >= 0 ? found : -found - 2;
+    }
+
+    // Ставка элементарного отрезка, начинающегося в start: большая из пересекающихся окон, иначе базовая
+    private static long rateAt(List<PeakWindow> peaks, int start, long baseCents) {
+        DayOfWeek day = DayOfWeek.of(start / DAY_SECONDS + 1);
+        int second = start % DAY_SECONDS;
+        long rate = -1;
+        for (PeakWindow peak : peaks) {
+            if (peak.appliesTo(day) && peak.startMinute() * 60 <= second && second < peak.endMinute() * 60) {
+                rate = Math.max(rate, cents(peak.hourlyRate()));
+            }
+        }
+        return rate < 0 ? baseCents : rate;
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount.movePointRight(2).longValueExact();
+    }
+}
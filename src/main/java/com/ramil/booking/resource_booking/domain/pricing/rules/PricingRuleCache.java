@@ -0,0 +1,65 @@
+package com.ramil.booking.resource_booking.domain.pricing.rules;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.stereotype.Component;
+
+import com.ramil.booking.resource_booking.domain.pricing.dto.RateCard;
+
+// Скомпилированные тарифы всех ресурсов в памяти процесса
+// Снимок — неизменяемая Map за volatile-ссылкой: чтение без блокировок, запись (редкая, администратором)
+// копирует снимок целиком. Версии не откатываются: полная загрузка, прочитанная до изменения,
+// не затирает более новый тариф, уже положенный put
+@Component
+public class PricingRuleCache {
+
+    private volatile Map<UUID, CompiledRateCard> rules = Map.of();
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Optional<CompiledRateCard> find(UUID resourceId) {
+        return Optional.ofNullable(rules.get(resourceId));
+    }
+
+    public int size() {
+        return rules.size();
+    }
+
+    public synchronized void replaceAll(Collection<RateCard> cards) {
+        Map<UUID, CompiledRateCard> current = rules;
+        Map<UUID, CompiledRateCard> fresh = new HashMap<>(cards.size() * 2);
+        for (RateCard card : cards) {
+            CompiledRateCard known = current.get(card.resourceId());
+            fresh.put(card.resourceId(), known != null && known.version() >= card.version()
+                    ? known : CompiledRateCard.compile(card));
+        }
+        rules = Map.copyOf(fresh);
+        ready = true;
+    }
+
+    public synchronized void put(RateCard card) {
+        CompiledRateCard known = rules.get(card.resourceId());
+        if (known != null && known.version() >= card.version()) {
+            return;
+        }
+        Map<UUID, CompiledRateCard> fresh = new HashMap<>(rules);
+        fresh.put(card.resourceId(), CompiledRateCard.compile(card));
+        rules = Map.copyOf(fresh);
+    }
+
+    public synchronized void remove(UUID resourceId) {
+        if (!rules.containsKey(resourceId)) {
+            return;
+        }
+        Map<UUID, CompiledRateCard> fresh = new HashMap<>(rules);
+        fresh.remove(resourceId);
+        rules = Map.copyOf(fresh);
+    }
+}
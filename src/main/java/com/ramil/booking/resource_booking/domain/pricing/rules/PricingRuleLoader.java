@@ -0,0 +1,75 @@
+package com.ramil.booking.resource_booking.domain.pricing.rules;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ramil.booking.resource_booking.domain.pricing.dto.RateCard;
+import com.ramil.booking.resource_booking.domain.pricing.event.RateCardChangedEvent;
+import com.ramil.booking.resource_booking.domain.pricing.repository.RateCardRepository;
+
+// Загрузка PricingRuleCache при старте, перечитывание изменённого тарифа после коммита
+// и периодическая полная загрузка (изменения с других нод, ручной SQL)
+@Component
+public class PricingRuleLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(PricingRuleLoader.class);
+
+    private final PricingRuleCache cache;
+    private final RateCardRepository rateCardRepository;
+    private final TransactionTemplate readOnlyTx;
+
+    public PricingRuleLoader(
+            PricingRuleCache cache,
+            RateCardRepository rateCardRepository,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.cache = Objects.requireNonNull(cache);
+        this.rateCardRepository = Objects.requireNonNull(rateCardRepository);
+        this.readOnlyTx = new TransactionTemplate(Objects.requireNonNull(transactionManager));
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        log.info("pricing.rules.loaded rateCards={}", reload());
+    }
+
+    @Scheduled(
+            initialDelayString = "${app.pricing.refresh-interval:PT1M}",
+            fixedDelayString = "${app.pricing.refresh-interval:PT1M}"
+    )
+    public void refresh() {
+        log.debug("pricing.rules.refreshed rateCards={}", reload());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRateCardChanged(RateCardChangedEvent event) {
+        Optional<RateCard> card = readOnlyTx.execute(status -> rateCardRepository.findByResourceId(event.resourceId()));
+        if (card != null && card.isPresent()) {
+            cache.put(card.get());
+        } else {
+            cache.remove(event.resourceId());
+        }
+        log.debug("pricing.rules.apply resourceId={} present={}", event.resourceId(), card != null && card.isPresent());
+    }
+
+    private int reload() {
+        List<RateCard> cards = readOnlyTx.execute(status -> rateCardRepository.findAll());
+        if (cards == null) {
+            return 0;
+        }
+        cache.replaceAll(cards);
+        return cards.size();
+    }
+}
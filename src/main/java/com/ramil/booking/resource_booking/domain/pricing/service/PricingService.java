@@ -0,0 +1,167 @@
+package com.ramil.booking.resource_booking.domain.pricing.service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ramil.booking.resource_booking.domain.booking.exception.BookingTimeRangeException;
+import com.ramil.booking.resource_booking.domain.booking.model.BookingPartitioning;
+import com.ramil.booking.resource_booking.domain.pricing.dto.PeakWindow;
+import com.ramil.booking.resource_booking.domain.pricing.dto.PriceQuote;
+import com.ramil.booking.resource_booking.domain.pricing.dto.RateCard;
+import com.ramil.booking.resource_booking.domain.pricing.dto.SetRateCardCommand;
+import com.ramil.booking.resource_booking.domain.pricing.event.RateCardChangedEvent;
+import com.ramil.booking.resource_booking.domain.pricing.exception.InvalidRateCardException;
+import com.ramil.booking.resource_booking.domain.pricing.exception.RateCardNotFoundException;
+import com.ramil.booking.resource_booking.domain.pricing.repository.RateCardRepository;
+import com.ramil.booking.resource_booking.domain.pricing.rules.CompiledRateCard;
+import com.ramil.booking.resource_booking.domain.pricing.rules.PricingRuleCache;
+import com.ramil.booking.resource_booking.domain.resource.exception.ResourceNotFoundException;
+import com.ramil.booking.resource_booking.domain.resource.repository.ResourceRepository;
+import com.ramil.booking.resource_booking.domain.user.security.CurrentUserProvider;
+
+// Цена бронирования по тарифу ресурса
+// Расчёт идёт по скомпилированным правилам из PricingRuleCache без обращения к БД; пока кэш не загружен
+// (старт приложения) тариф читается и компилируется на каждый запрос
+@Service
+public class PricingService {
+
+    private static final int MAX_PEAKS = 50;
+    private static final int MINUTES_PER_DAY = 1_440;
+    // numeric(12,2)
+    private static final BigDecimal MAX_RATE = new BigDecimal("9999999999.99");
+
+    private final RateCardRepository rateCardRepository;
+    private final ResourceRepository resourceRepository;
+    private final PricingRuleCache cache;
+    private final CurrentUserProvider currentUser;
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate readOnlyTx;
+
+    public PricingService(
+            RateCardRepository rateCardRepository,
+            ResourceRepository resourceRepository,
+            PricingRuleCache cache,
+            CurrentUserProvider currentUser,
+            ApplicationEventPublisher events,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.rateCardRepository = Objects.requireNonNull(rateCardRepository);
+        this.resourceRepository = Objects.requireNonNull(resourceRepository);
+        this.cache = Objects.requireNonNull(cache);
+        this.currentUser = Objects.requireNonNull(currentUser);
+        this.events = Objects.requireNonNull(events);
+        this.readOnlyTx = new TransactionTemplate(Objects.requireNonNull(transactionManager));
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    // Цена [start, end) для ресурса; интервал — по тем же правилам, что и бронирование
+    public PriceQuote quote(UUID resourceId, OffsetDateTime start, OffsetDateTime end) {
+        Objects.requireNonNull(resourceId, "resourceId");
+        validateRange(start, end);
+        return rules(resourceId)
+                .orElseThrow(() -> new RateCardNotFoundException(resourceId))
+                .quote(start, end);
+    }
+
+    // Для проверки суммы платежа: пусто — у ресурса нет тарифа, сумму задаёт клиент
+    public Optional<PriceQuote> quoteIfPriced(UUID resourceId, OffsetDateTime start, OffsetDateTime end) {
+        return rules(resourceId).map(rules -> rules.quote(start, end));
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<RateCard> getRateCard(UUID resourceId) {
+        Objects.requireNonNull(resourceId, "resourceId");
+        return rateCardRepository.findByResourceId(resourceId);
+    }
+
+    // Создаёт или заменяет тариф; кэш обновляется после коммита (RateCardChangedEvent)
+    @Transactional
+    public RateCard setRateCard(SetRateCardCommand cmd) {
+        Objects.requireNonNull(cmd, "cmd must not be null");
+        SetRateCardCommand normalized = validate(cmd);
+        if (!resourceRepository.existsById(normalized.resourceId())) {
+            throw new ResourceNotFoundException(normalized.resourceId());
+        }
+
+        long version = rateCardRepository.save(normalized, currentUser.currentUserEmail());
+        events.publishEvent(new RateCardChangedEvent(normalized.resourceId()));
+        return new RateCard(normalized.resourceId(), normalized.currency(), normalized.hourlyRate(),
+                normalized.minimumAmount(), normalized.peaks(), version);
+    }
+
+    // false — тарифа не было; после удаления цену ресурса снова задаёт клиент
+    @Transactional
+    public boolean deleteRateCard(UUID resourceId) {
+        Objects.requireNonNull(resourceId, "resourceId");
+        boolean deleted = rateCardRepository.delete(resourceId);
+        if (deleted) {
+            events.publishEvent(new RateCardChangedEvent(resourceId));
+        }
+        return deleted;
+    }
+
+    private Optional<CompiledRateCard> rules(UUID resourceId) {
+        if (cache.isReady()) {
+            return cache.find(resourceId);
+        }
+        Optional<RateCard> card = readOnlyTx.execute(status -> rateCardRepository.findByResourceId(resourceId));
+        return card == null ? Optional.empty() : card.map(CompiledRateCard::compile);
+    }
+
+    private static void validateRange(OffsetDateTime start, OffsetDateTime end) {
+        Objects.requireNonNull(start, "start");
+        Objects.requireNonNull(end, "end");
+        if (!end.isAfter(start)) {
+            throw new BookingTimeRangeException(start, end);
+        }
+        if (Duration.between(start, end).compareTo(BookingPartitioning.MAX_DURATION) > 0) {
+            throw BookingTimeRangeException.tooLong(start, end, BookingPartitioning.MAX_DURATION);
+        }
+    }
+
+    private static SetRateCardCommand validate(SetRateCardCommand cmd) {
+        String currency = cmd.currency().trim().toUpperCase(Locale.ROOT);
+        if (!currency.matches("[A-Z]{3}")) {
+            throw new InvalidRateCardException("Currency must be an ISO 4217 code: " + cmd.currency());
+        }
+        if (cmd.peaks().size() > MAX_PEAKS) {
+            throw new InvalidRateCardException("Rate card must not have more than " + MAX_PEAKS + " peak windows");
+        }
+
+        List<PeakWindow> peaks = new ArrayList<>(cmd.peaks().size());
+        for (PeakWindow peak : cmd.peaks()) {
+            if (peak.startMinute() < 0 || peak.startMinute() >= peak.endMinute() || peak.endMinute() > MINUTES_PER_DAY) {
+                throw new InvalidRateCardException("Invalid peak window: start=" + peak.startMinute()
+                        + ", end=" + peak.endMinute());
+            }
+            peaks.add(new PeakWindow(peak.dayOfWeek(), peak.startMinute(), peak.endMinute(),
+                    amount("peak hourlyRate", peak.hourlyRate())));
+        }
+        return new SetRateCardCommand(cmd.resourceId(), currency, amount("hourlyRate", cmd.hourlyRate()),
+                amount("minimumAmount", cmd.minimumAmount()), peaks);
+    }
+
+    // Неотрицательная сумма не больше numeric(12,2), не больше двух знаков после запятой
+    private static BigDecimal amount(String name, BigDecimal value) {
+        if (value.signum() < 0 || value.compareTo(MAX_RATE) > 0) {
+            throw new InvalidRateCardException(name + " must be between 0 and " + MAX_RATE + ": " + value);
+        }
+        if (value.stripTrailingZeros().scale() > 2) {
+            throw new InvalidRateCardException(name + " must not have more than 2 decimal places: " + value);
+        }
+        return value.setScale(2);
+    }
+}
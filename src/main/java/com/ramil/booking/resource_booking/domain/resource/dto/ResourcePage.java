@@ -0,0 +1,7 @@
+package com.ramil.booking.resource_booking.domain.resource.dto;
+
+import java.util.List;
+
+// Страница ресурсов: hasNext считается по лишней (size + 1) строке, без count(*)
+public record ResourcePage(List<ResourceView> items, int page, int size, boolean hasNext) {
+}
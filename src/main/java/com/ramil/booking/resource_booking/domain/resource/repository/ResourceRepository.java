@@ -1,5 +1,6 @@
 package com.ramil.booking.resource_booking.domain.resource.repository;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -9,6 +10,7 @@ import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import com.ramil.booking.resource_booking.domain.resource.dto.ResourceView;
 import com.ramil.booking.resource_booking.domain.resource.entity.ResourceEntity;
 
 import jakarta.persistence.LockModeType;
@@ -17,7 +19,65 @@ public interface ResourceRepository extends JpaRepository<ResourceEntity, UUID>
 
     List<ResourceEntity> findByActive(boolean active);
 
+    // Чтение для API: сразу ResourceView, без сущностей в persistence context
+    @Query("""
+            select new com.ramil.booking.resource_booking.domain.resource.dto.ResourceView(
+                r.id, r.name, r.description, r.active)
+            from ResourceEntity r
+            where r.id = :id
+            """)
+    Optional<ResourceView> findViewById(@Param("id") UUID id);
+
+    @Query("""
+            select new com.ramil.booking.resource_booking.domain.resource.dto.ResourceView(
+                r.id, r.name, r.description, r.active)
+            from ResourceEntity r
+            """)
+    List<ResourceView> findAllViews();
+
+    @Query("""
+            select new com.ramil.booking.resource_booking.domain.resource.dto.ResourceView(
+                r.id, r.name, r.description, r.active)
+            from ResourceEntity r
+            where r.active = :active
+            """)
+    List<ResourceView> findViewsByActive(@Param("active") boolean active);
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("select r from ResourceEntity r where r.id = :id")
     Optional<ResourceEntity> findByIdForUpdate(@Param("id") UUID id);
+
+    // FOR SHARE: держит ресурс от деактивации/удаления до конца транзакции, но не мешает другим читателям
+    // Нужен только при переходе бронирования в статус, занимающий слот
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("select r from ResourceEntity r where r.id = :id")
+    Optional<ResourceEntity> findByIdForShare(@Param("id") UUID id);
+
+    // Активные ресурсы без занятых бронирований в [from, to): один anti-join по всему каталогу
+    // Статусы и tstzrange записаны литералами так же, как в booking_no_overlap (V5),
+    // чтобы планировщик мог использовать частичный GiST-индекс ограничения;
+    // границы start_time отсекают секции booking вне окна: minStart — BookingPartitioning.minStart(from)
+    @Query(value = """
+            select r.*
+            from resource r
+            where r.active = true
+              and (cast(:namePattern as text) is null or lower(r.name) like cast(:namePattern as text) escape '\\')
+              and not exists (
+                  select 1
+                  from booking b
+                  where b.resource_id = r.id
+                    and b.status in ('WAITING_PAYMENT', 'CONFIRMED')
+                    and b.start_time < :to
+                    and b.start_time > :minStart
+                    and tstzrange(b.start_time, b.end_time, '[)') && tstzrange(:from, :to, '[)')
+              )
+            order by r.name, r.id
+            limit :limit offset :offset
+            """, nativeQuery = true)
+    List<ResourceEntity> findFree(@Param("from") OffsetDateTime from,
+                                  @Param("to") OffsetDateTime to,
+                                  @Param("minStart") OffsetDateTime minStart,
+                                  @Param("namePattern") String namePattern,
+                                  @Param("limit") int limit,
+                                  @Param("offset") long offset);
 }
@@ -1,5 +1,6 @@
 package com.ramil.booking.resource_booking.domain.resource.service;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
@@ -9,7 +10,10 @@ import com.ramil.booking.resource_booking.domain.resource.exception.InvalidResou
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.ramil.booking.resource_booking.domain.booking.exception.BookingTimeRangeException;
+import com.ramil.booking.resource_booking.domain.booking.model.BookingPartitioning;
 import com.ramil.booking.resource_booking.domain.resource.dto.CreateResourceCommand;
+import com.ramil.booking.resource_booking.domain.resource.dto.ResourcePage;
 import com.ramil.booking.resource_booking.domain.resource.dto.ResourceView;
 import com.ramil.booking.resource_booking.domain.resource.dto.UpdateResourceCommand;
 import com.ramil.booking.resource_booking.domain.resource.entity.ResourceEntity;
@@ -24,6 +28,7 @@ public class ResourceService {
 
     private static final int MAX_NAME_LEN = 100;
     private static final int MAX_DESC_LEN = 1000;
+    private static final int MAX_PAGE_SIZE = 100;
 
     private final ResourceRepository resourceRepository;
     private final ResourceMapper resourceMapper;
@@ -107,19 +112,51 @@ public class ResourceService {
     public ResourceView getById(UUID id) {
         Objects.requireNonNull(id, "id must not be null");
 
-        ResourceEntity entity = resourceRepository.findById(id)
+        return resourceRepository.findViewById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(id));
-
-        return toView(entity);
     }
 
     @Transactional(readOnly = true)
     public List<ResourceView> list(Boolean active) {
-        List<ResourceEntity> list = (active == null)
-                ? resourceRepository.findAll()
-                : resourceRepository.findByActive(active);
+        return (active == null)
+                ? resourceRepository.findAllViews()
+                : resourceRepository.findViewsByActive(active);
+    }
 
-        return list.stream().map(this::toView).toList();
+    // Активные ресурсы, свободные на весь интервал [from, to)
+    // nameContains — необязательный фильтр по подстроке названия (без учёта регистра)
+    @Transactional(readOnly = true)
+    public ResourcePage findFree(OffsetDateTime from, OffsetDateTime to, String nameContains, int page, int size) {
+        Objects.requireNonNull(from, "from must not be null");
+        Objects.requireNonNull(to, "to must not be null");
+
+        if (!to.isAfter(from)) {
+            throw new BookingTimeRangeException(from, to);
+        }
+        if (page < 0) {
+            throw new IllegalArgumentException("page must not be negative: " + page);
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_PAGE_SIZE + ": " + size);
+        }
+
+        List<ResourceEntity> rows = resourceRepository.findFree(
+                from, to, BookingPartitioning.minStart(from), toLikePattern(nameContains), size + 1, (long) page * size);
+
+        boolean hasNext = rows.size() > size;
+        List<ResourceView> items = rows.stream().limit(size).map(this::toView).toList();
+        return new ResourcePage(items, page, size, hasNext);
+    }
+
+    private static String toLikePattern(String nameContains) {
+        if (nameContains == null || nameContains.isBlank()) {
+            return null;
+        }
+        String escaped = nameContains.trim().toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
     }
 
     private String normalizeAndValidateName(String name) {
@@ -0,0 +1,14 @@
+package com.ramil.booking.resource_booking.domain.stats.dto;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.UUID;
+
+// Выручка ресурса за месяц начала бронирований (UTC) в одной валюте
+public record ResourceRevenueMonth(
+        UUID resourceId,
+        YearMonth month,
+        String currency,
+        BigDecimal amount,
+        int payments) {
+}
@@ -0,0 +1,19 @@
+package com.ramil.booking.resource_booking.domain.stats.dto;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+// Загрузка ресурса за сутки (UTC) подтверждёнными бронированиями
+public record ResourceUtilizationDay(
+        UUID resourceId,
+        LocalDate day,
+        long bookedSeconds,
+        int bookings) {
+
+    private static final double DAY_SECONDS = 24 * 60 * 60;
+
+    // Доля занятых суток, 0..1
+    public double utilization() {
+        return bookedSeconds / DAY_SECONDS;
+    }
+}
@@ -0,0 +1,136 @@
+package com.ramil.booking.resource_booking.domain.stats.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+
+import com.ramil.booking.resource_booking.domain.stats.dto.ResourceRevenueMonth;
+import com.ramil.booking.resource_booking.domain.stats.dto.ResourceUtilizationDay;
+
+import jakarta.persistence.EntityManager;
+
+// Таблицы агрегатов (V11) без сущностей: строки меняются только дельтами и пересчётом
+// Чтение — по первичному ключу (resource_id, day / month), время не зависит от объёма истории
+@Repository
+public class ResourceStatsRepository {
+
+    private static final String ADD_UTILIZATION_SQL = """
+            insert into resource_utilization_daily as u (resource_id, day, booked_seconds, bookings)
+            values (:resourceId, :day, :seconds, :bookings)
+            on conflict (resource_id, day) do update
+            set booked_seconds = u.booked_seconds + excluded.booked_seconds,
+                bookings = u.bookings + excluded.bookings
+            """;
+
+    private static final String ADD_REVENUE_SQL = """
+            insert into resource_revenue_monthly as r (resource_id, month, currency, amount, payments)
+            values (:resourceId, :month, :currency, :amount, :payments)
+            on conflict (resource_id, month, currency) do update
+            set amount = r.amount + excluded.amount,
+                payments = r.payments + excluded.payments
+            """;
+
+    private final EntityManager em;
+
+    public ResourceStatsRepository(EntityManager em) {
+        this.em = Objects.requireNonNull(em);
+    }
+
+    // Дельта загрузки за сутки; отрицательная — при уходе бронирования из CONFIRMED
+    public void addUtilization(UUID resourceId, LocalDate day, long seconds, int bookings) {
+        em.createNativeQuery(ADD_UTILIZATION_SQL)
+                .setParameter("resourceId", resourceId)
+                .setParameter("day", day)
+                .setParameter("seconds", seconds)
+                .setParameter("bookings", bookings)
+                .executeUpdate();
+    }
+
+    public void addRevenue(UUID resourceId, YearMonth month, String currency, BigDecimal amount, int payments) {
+        em.createNativeQuery(ADD_REVENUE_SQL)
+                .setParameter("resourceId", resourceId)
+                .setParameter("month", month.atDay(1))
+                .setParameter("currency", currency)
+                .setParameter("amount", amount)
+                .setParameter("payments", payments)
+                .executeUpdate();
+    }
+
+    // Дни [from, to] с подтверждёнными бронированиями, по ресурсу и дате
+    @SuppressWarnings("unchecked")
+    public List<ResourceUtilizationDay> findUtilization(Collection<UUID> resourceIds, LocalDate from, LocalDate to) {
+        List<Object[]> rows = em.createNativeQuery("""
+                        select resource_id, day, booked_seconds, bookings
+                        from resource_utilization_daily
+                        where resource_id in (:resourceIds)
+                          and day between :from and :to
+                          and bookings > 0
+                        order by resource_id, day
+                        """)
+                .setParameter("resourceIds", resourceIds)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .unwrap(NativeQuery.class)
+                .addScalar("resource_id", UUID.class)
+                .addScalar("day", LocalDate.class)
+                .addScalar("booked_seconds", Long.class)
+                .addScalar("bookings", Integer.class)
+                .getResultList();
+
+        return rows.stream()
+                .map(r -> new ResourceUtilizationDay((UUID) r[0], (LocalDate) r[1], (Long) r[2], (Integer) r[3]))
+                .toList();
+    }
+
+    // Месяцы [from, to] с успешными платежами, по ресурсу, месяцу и валюте
+    @SuppressWarnings("unchecked")
+    public List<ResourceRevenueMonth> findRevenue(Collection<UUID> resourceIds, YearMonth from, YearMonth to) {
+        List<Object[]> rows = em.createNativeQuery("""
+                        select resource_id, month, currency, amount, payments
+                        from resource_revenue_monthly
+                        where resource_id in (:resourceIds)
+                          and month between :from and :to
+                          and payments > 0
+                        order by resource_id, month, currency
+                        """)
+                .setParameter("resourceIds", resourceIds)
+                .setParameter("from", from.atDay(1))
+                .setParameter("to", to.atDay(1))
+                .unwrap(NativeQuery.class)
+                .addScalar("resource_id", UUID.class)
+                .addScalar("month", LocalDate.class)
+                .addScalar("currency", String.class)
+                .addScalar("amount", BigDecimal.class)
+                .addScalar("payments", Integer.class)
+                .getResultList();
+
+        return rows.stream()
+                .map(r -> new ResourceRevenueMonth((UUID) r[0], YearMonth.from((LocalDate) r[1]), (String) r[2],
+                        (BigDecimal) r[3], (Integer) r[4]))
+                .toList();
+    }
+
+    // Пересчёт из booking / payment (функции V11); возвращают число записанных строк
+    public int rebuildUtilization(LocalDate from, LocalDate toExclusive) {
+        Object rows = em.createNativeQuery("select resource_utilization_rebuild(:from, :to)")
+                .setParameter("from", from)
+                .setParameter("to", toExclusive)
+                .getSingleResult();
+        return ((Number) rows).intValue();
+    }
+
+    public int rebuildRevenue(YearMonth from, YearMonth toExclusive) {
+        Object rows = em.createNativeQuery("select resource_revenue_rebuild(:from, :to)")
+                .setParameter("from", from.atDay(1))
+                .setParameter("to", toExclusive.atDay(1))
+                .getSingleResult();
+        return ((Number) rows).intValue();
+    }
+}
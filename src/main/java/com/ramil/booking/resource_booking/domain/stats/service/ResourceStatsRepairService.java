@@ -0,0 +1,87 @@
+package com.ramil.booking.resource_booking.domain.stats.service;
+
+import java.time.Clock;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ramil.booking.resource_booking.domain.stats.repository.ResourceStatsRepository;
+
+// Ночной пересчёт агрегатов из booking / payment за месяцы [текущий - lookback-months, текущий + ahead-months]
+// Каждый месяц — отдельная транзакция: на время пересчёта месяца обновления агрегата из переходов статуса ждут
+// (блокировка таблицы в функциях V11), поэтому окно держится коротким. Более старые месяцы не пересчитываются:
+// переходы в них редки и уже учтены дельтами
+@Service
+public class ResourceStatsRepairService {
+
+    private static final Logger log = LoggerFactory.getLogger(ResourceStatsRepairService.class);
+
+    private final ResourceStatsRepository statsRepository;
+    private final TransactionTemplate tx;
+    private final Clock clock;
+    private final boolean enabled;
+    private final int lookbackMonths;
+    private final int aheadMonths;
+
+    @Autowired
+    public ResourceStatsRepairService(
+            ResourceStatsRepository statsRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.stats.repair.enabled:true}") boolean enabled,
+            @Value("${app.stats.repair.lookback-months:2}") int lookbackMonths,
+            @Value("${app.stats.repair.ahead-months:12}") int aheadMonths
+    ) {
+        this(statsRepository, transactionManager, Clock.systemUTC(), enabled, lookbackMonths, aheadMonths);
+    }
+
+    ResourceStatsRepairService(
+            ResourceStatsRepository statsRepository,
+            PlatformTransactionManager transactionManager,
+            Clock clock,
+            boolean enabled,
+            int lookbackMonths,
+            int aheadMonths
+    ) {
+        this.statsRepository = Objects.requireNonNull(statsRepository);
+        this.tx = new TransactionTemplate(Objects.requireNonNull(transactionManager));
+        this.clock = Objects.requireNonNull(clock);
+        this.enabled = enabled;
+        if (lookbackMonths < 0 || aheadMonths < 0) {
+            throw new IllegalArgumentException("app.stats.repair lookback-months and ahead-months must not be negative");
+        }
+        this.lookbackMonths = lookbackMonths;
+        this.aheadMonths = aheadMonths;
+    }
+
+    @Scheduled(cron = "${app.stats.repair.cron:0 30 3 * * *}", zone = "UTC")
+    public void repair() {
+        if (!enabled) {
+            return;
+        }
+        YearMonth current = YearMonth.now(clock.withZone(ZoneOffset.UTC));
+        repair(current.minusMonths(lookbackMonths), current.plusMonths(aheadMonths));
+    }
+
+    // Месяцы [from, to] включительно; возвращает число пересчитанных строк агрегатов
+    int repair(YearMonth from, YearMonth to) {
+        int rows = 0;
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            YearMonth m = month;
+            Integer written = tx.execute(status ->
+                    statsRepository.rebuildUtilization(m.atDay(1), m.plusMonths(1).atDay(1))
+                            + statsRepository.rebuildRevenue(m, m.plusMonths(1)));
+            rows += written == null ? 0 : written;
+        }
+        log.info("stats.repair from={} to={} rows={}", from, to, rows);
+        return rows;
+    }
+}
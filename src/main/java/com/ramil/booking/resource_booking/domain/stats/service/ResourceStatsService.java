@@ -0,0 +1,131 @@
+package com.ramil.booking.resource_booking.domain.stats.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ramil.booking.resource_booking.domain.booking.event.BookingStatusChangedEvent;
+import com.ramil.booking.resource_booking.domain.booking.model.BookingStatus;
+import com.ramil.booking.resource_booking.domain.payment.event.PaymentStatusChangedEvent;
+import com.ramil.booking.resource_booking.domain.stats.dto.ResourceRevenueMonth;
+import com.ramil.booking.resource_booking.domain.stats.dto.ResourceUtilizationDay;
+import com.ramil.booking.resource_booking.domain.stats.repository.ResourceStatsRepository;
+
+// Загрузка ресурсов по дням и выручка по месяцам из таблиц агрегатов (V11)
+// Агрегаты обновляются дельтами синхронным @EventListener — в той же транзакции, что и смена статуса
+// (confirmAfterPayment, finalizePaymentTx, cancel, cancelSeries): откат перехода откатывает и дельту
+// Расхождения (ручные правки в БД, сбои) исправляет ночной ResourceStatsRepairService
+@Service
+public class ResourceStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(ResourceStatsService.class);
+
+    private final ResourceStatsRepository statsRepository;
+    private final int maxResources;
+    private final int maxDays;
+    private final int maxMonths;
+
+    public ResourceStatsService(
+            ResourceStatsRepository statsRepository,
+            @Value("${app.stats.max-resources:500}") int maxResources,
+            @Value("${app.stats.max-days:366}") int maxDays,
+            @Value("${app.stats.max-months:36}") int maxMonths
+    ) {
+        this.statsRepository = Objects.requireNonNull(statsRepository);
+        this.maxResources = maxResources;
+        this.maxDays = maxDays;
+        this.maxMonths = maxMonths;
+    }
+
+    // Дни [from, to] включительно; дни без подтверждённых бронирований не возвращаются
+    @Transactional(readOnly = true)
+    public List<ResourceUtilizationDay> utilization(Collection<UUID> resourceIds, LocalDate from, LocalDate to) {
+        Objects.requireNonNull(from, "from");
+        Objects.requireNonNull(to, "to");
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Utilization range is empty: from " + from + " is after to " + to);
+        }
+        if (ChronoUnit.DAYS.between(from, to) + 1 > maxDays) {
+            throw new IllegalArgumentException("Utilization range must not exceed " + maxDays + " days");
+        }
+        Set<UUID> ids = resourceIds(resourceIds);
+        return ids.isEmpty() ? List.of() : statsRepository.findUtilization(ids, from, to);
+    }
+
+    // Месяцы [from, to] включительно; месяцы без успешных платежей не возвращаются
+    @Transactional(readOnly = true)
+    public List<ResourceRevenueMonth> revenue(Collection<UUID> resourceIds, YearMonth from, YearMonth to) {
+        Objects.requireNonNull(from, "from");
+        Objects.requireNonNull(to, "to");
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Revenue range is empty: from " + from + " is after to " + to);
+        }
+        if (ChronoUnit.MONTHS.between(from, to) + 1 > maxMonths) {
+            throw new IllegalArgumentException("Revenue range must not exceed " + maxMonths + " months");
+        }
+        Set<UUID> ids = resourceIds(resourceIds);
+        return ids.isEmpty() ? List.of() : statsRepository.findRevenue(ids, from, to);
+    }
+
+    // Вход в CONFIRMED или выход из него; остальные переходы загрузку не меняют
+    @EventListener
+    public void onBookingStatusChanged(BookingStatusChangedEvent event) {
+        boolean before = event.from() == BookingStatus.CONFIRMED;
+        boolean after = event.to() == BookingStatus.CONFIRMED;
+        if (before == after) {
+            return;
+        }
+        int sign = after ? 1 : -1;
+        OffsetDateTime start = event.startTime().withOffsetSameInstant(ZoneOffset.UTC);
+        OffsetDateTime end = event.endTime().withOffsetSameInstant(ZoneOffset.UTC);
+
+        // бронирование через полночь раскладывается по суткам
+        for (OffsetDateTime dayStart = start.truncatedTo(ChronoUnit.DAYS); dayStart.isBefore(end);
+             dayStart = dayStart.plusDays(1)) {
+            OffsetDateTime from = start.isAfter(dayStart) ? start : dayStart;
+            OffsetDateTime dayEnd = dayStart.plusDays(1);
+            OffsetDateTime to = end.isBefore(dayEnd) ? end : dayEnd;
+            statsRepository.addUtilization(event.resourceId(), dayStart.toLocalDate(),
+                    sign * Duration.between(from, to).toSeconds(), sign);
+        }
+        log.debug("stats.utilization bookingId={} resourceId={} sign={}", event.bookingId(), event.resourceId(), sign);
+    }
+
+    @EventListener
+    public void onPaymentStatusChanged(PaymentStatusChangedEvent event) {
+        if (event.succeededBefore() == event.succeededAfter()) {
+            return;
+        }
+        int sign = event.succeededAfter() ? 1 : -1;
+        YearMonth month = YearMonth.from(event.bookingStartTime().withOffsetSameInstant(ZoneOffset.UTC));
+        statsRepository.addRevenue(event.resourceId(), month, event.currency(),
+                sign > 0 ? event.amount() : event.amount().negate(), sign);
+        log.debug("stats.revenue paymentId={} resourceId={} month={} sign={}",
+                event.paymentId(), event.resourceId(), month, sign);
+    }
+
+    private Set<UUID> resourceIds(Collection<UUID> resourceIds) {
+        Objects.requireNonNull(resourceIds, "resourceIds");
+        Set<UUID> ids = new LinkedHashSet<>(resourceIds);
+        if (ids.size() > maxResources) {
+            throw new IllegalArgumentException("Stats request must not exceed " + maxResources + " resources");
+        }
+        return ids;
+    }
+}
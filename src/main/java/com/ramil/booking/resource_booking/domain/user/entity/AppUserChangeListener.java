@@ -0,0 +1,29 @@
+package com.ramil.booking.resource_booking.domain.user.entity;
+
+import java.util.Objects;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import com.ramil.booking.resource_booking.domain.user.event.UserCredentialsChangedEvent;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+// JPA-листенер AppUserEntity: изменяемые поля у пользователя только password_hash и role,
+// поэтому любой UPDATE/DELETE — повод сбросить кэш аутентификаций
+@Component
+public class AppUserChangeListener {
+
+    private final ApplicationEventPublisher events;
+
+    public AppUserChangeListener(ApplicationEventPublisher events) {
+        this.events = Objects.requireNonNull(events);
+    }
+
+    @PostUpdate
+    @PostRemove
+    void onChange(AppUserEntity user) {
+        events.publishEvent(new UserCredentialsChangedEvent(user.getEmail()));
+    }
+}
@@ -7,6 +7,7 @@ import com.ramil.booking.resource_booking.domain.user.model.Role;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.Id;
@@ -14,6 +15,7 @@ import jakarta.persistence.Table;
 
 @Entity
 @Table(name = "app_user")
+@EntityListeners(AppUserChangeListener.class)
 public class AppUserEntity extends AuditableEntity {
 
     @Id
@@ -0,0 +1,5 @@
+package com.ramil.booking.resource_booking.domain.user.event;
+
+// Изменились password_hash или role пользователя
+public record UserCredentialsChangedEvent(String email) {
+}
@@ -0,0 +1,200 @@
+-- booking секционируется по start_time помесячно: booking_YYYY_MM, границы месяцев в UTC
+-- Первичный ключ обязан включать ключ секционирования: (id, start_time); id — UUID из приложения
+-- EXCLUDE на секционированной таблице PostgreSQL 16 не поддерживает, поэтому booking_no_overlap
+-- создаётся в каждой секции, а пересечения через границу секций проверяет триггер booking_overlap_guard
+-- Бронирование не длиннее booking_max_duration() (31 день): условие end_time > X даёт
+-- start_time > X - booking_max_duration(), и планировщик отсекает старые секции (см. BookingPartitioning)
+
+-- Предел длины бронирования для SQL; в Java — BookingPartitioning.MAX_DURATION, значения должны совпадать
+CREATE FUNCTION booking_max_duration() RETURNS interval
+LANGUAGE sql IMMUTABLE PARALLEL SAFE AS $$ SELECT interval '31 days' $$;
+
+-- Проверка до переноса: раньше длина бронирования не ограничивалась, и строка длиннее предела
+-- оборвала бы миграцию на INSERT в середине. Такие бронирования нужно сократить или разбить вручную
+DO $$
+DECLARE
+    v_count bigint;
+    v_ids text;
+BEGIN
+    SELECT count(*), string_agg(id::text, ', ')
+    INTO v_count, v_ids
+    FROM (SELECT id FROM booking WHERE end_time > start_time + booking_max_duration() ORDER BY start_time, id) b;
+
+    IF v_count > 0 THEN
+        RAISE EXCEPTION 'booking partitioning: % booking(s) longer than %: %', v_count, booking_max_duration(), v_ids
+            USING HINT = 'Shorten or split them before migrating: '
+                      || 'SELECT * FROM booking WHERE end_time > start_time + interval ''31 days''';
+    END IF;
+END $$;
+
+CREATE SCHEMA IF NOT EXISTS booking_archive;
+
+-- внешний ключ на секционированную таблицу требует (id, start_time) в payment; заменён триггером ниже
+ALTER TABLE payment DROP CONSTRAINT IF EXISTS payment_booking_id_fkey;
+
+ALTER TABLE booking RENAME TO booking_old;
+ALTER INDEX booking_pkey RENAME TO booking_old_pkey;
+
+CREATE TABLE booking (
+  id uuid not null,
+
+  user_id uuid not null references app_user(id),
+  resource_id uuid not null references resource(id),
+
+  start_time timestamptz not null,
+  end_time timestamptz not null,
+
+  status varchar(32) not null, -- DRAFT / WAITING_PAYMENT / CONFIRMED / CANCELED / EXPIRED
+
+  created_at timestamptz not null,
+  created_by varchar(255) not null,
+  updated_at timestamptz not null,
+  updated_by varchar(255) not null,
+
+  paid_at timestamptz,
+  paid_by varchar(255),
+  series_id uuid,
+
+  constraint booking_pkey primary key (id, start_time),
+  constraint chk_booking_time_range check (end_time > start_time),
+  constraint chk_booking_max_duration check (end_time <= start_time + booking_max_duration())
+) PARTITION BY RANGE (start_time);
+
+-- строки за пределами созданных секций (далёкое будущее); переносятся при создании секции месяца
+CREATE TABLE booking_default PARTITION OF booking DEFAULT;
+ALTER TABLE booking_default
+    ADD CONSTRAINT booking_default_no_overlap
+    EXCLUDE USING gist (
+  resource_id WITH =,
+  tstzrange(start_time, end_time, '[)') WITH &&
+)
+WHERE (status IN ('WAITING_PAYMENT', 'CONFIRMED'));
+
+-- Создаёт секцию месяца p_month со своим booking_no_overlap; false — секция уже есть
+-- Вызывается миграцией и BookingPartitionService
+CREATE FUNCTION booking_create_partition(p_month date) RETURNS boolean
+LANGUAGE plpgsql AS $$
+DECLARE
+    v_from timestamptz := date_trunc('month', p_month::timestamp) AT TIME ZONE 'UTC';
+    v_to   timestamptz := (date_trunc('month', p_month::timestamp) + interval '1 month') AT TIME ZONE 'UTC';
+    v_name text := 'booking_' || to_char(p_month, 'YYYY_MM');
+BEGIN
+    -- секциями могут заниматься несколько нод одновременно
+    PERFORM pg_advisory_xact_lock(hashtext('booking_partitions'));
+    IF to_regclass(v_name) IS NOT NULL THEN
+        RETURN false;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I (LIKE booking INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', v_name);
+    -- строки этого месяца из booking_default переносятся до ATTACH, иначе ATTACH не пройдёт
+    EXECUTE format('WITH moved AS (DELETE FROM booking_default WHERE start_time >= %L AND start_time < %L RETURNING *)
+                    INSERT INTO %I SELECT * FROM moved', v_from, v_to, v_name);
+    EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I EXCLUDE USING gist (
+                        resource_id WITH =, tstzrange(start_time, end_time, %L) WITH &&)
+                    WHERE (status IN (%L, %L))',
+                   v_name, v_name || '_no_overlap', '[)', 'WAITING_PAYMENT', 'CONFIRMED');
+    EXECUTE format('ALTER TABLE booking ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)', v_name, v_from, v_to);
+    RETURN true;
+END $$;
+
+-- Отсоединяет секции месяцев раньше p_before и переносит их в схему booking_archive
+-- Данные не удаляются; возвращает имена перенесённых секций
+CREATE FUNCTION booking_archive_partitions(p_before date) RETURNS SETOF text
+LANGUAGE plpgsql AS $$
+DECLARE
+    v_name text;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('booking_partitions'));
+    FOR v_name IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'booking'::regclass
+          AND c.relname ~ '^booking_[0-9]{4}_[0-9]{2}$'
+          AND to_date(substr(c.relname, 9), 'YYYY_MM') < date_trunc('month', p_before::timestamp)::date
+        ORDER BY c.relname
+    LOOP
+        EXECUTE format('ALTER TABLE booking DETACH PARTITION %I', v_name);
+        EXECUTE format('ALTER TABLE %I SET SCHEMA booking_archive', v_name);
+        RETURN NEXT v_name;
+    END LOOP;
+END $$;
+
+-- секции на все месяцы с данными и на 12 месяцев вперёд
+DO $$
+DECLARE
+    v_month date;
+BEGIN
+    FOR v_month IN
+        SELECT generate_series(
+                   date_trunc('month', least((SELECT min(start_time) FROM booking_old), now()) AT TIME ZONE 'UTC'),
+                   date_trunc('month', greatest((SELECT max(start_time) FROM booking_old),
+                                                now() + interval '12 months') AT TIME ZONE 'UTC'),
+                   interval '1 month')::date
+    LOOP
+        PERFORM booking_create_partition(v_month);
+    END LOOP;
+END $$;
+
+INSERT INTO booking (id, user_id, resource_id, start_time, end_time, status,
+                     created_at, created_by, updated_at, updated_by, paid_at, paid_by, series_id)
+SELECT id, user_id, resource_id, start_time, end_time, status,
+       created_at, created_by, updated_at, updated_by, paid_at, paid_by, series_id
+FROM booking_old;
+
+DROP TABLE booking_old;
+
+-- индексы родителя создаются во всех секциях, в том числе будущих
+CREATE INDEX idx_booking_resource_time ON booking(resource_id, start_time, end_time);
+CREATE INDEX idx_booking_start_id ON booking(start_time DESC, id DESC);
+CREATE INDEX idx_booking_user_start_id ON booking(user_id, start_time DESC, id DESC);
+CREATE INDEX idx_booking_series ON booking(series_id) WHERE series_id IS NOT NULL;
+CREATE INDEX idx_booking_expiry ON booking(status, updated_at) WHERE status IN ('DRAFT', 'WAITING_PAYMENT');
+
+-- Пересечения занятых бронирований одного ресурса во всех секциях
+-- Advisory-блокировка по ресурсу держится до конца транзакции: занятия слотов одного ресурса
+-- проверяются по очереди, и следующая транзакция (READ COMMITTED) видит закоммиченную строку предыдущей
+-- Ошибка та же, что у EXCLUDE (23P01, booking_no_overlap) — приложение обрабатывает её как раньше
+CREATE FUNCTION booking_overlap_guard() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF NEW.status NOT IN ('WAITING_PAYMENT', 'CONFIRMED') THEN
+        RETURN NULL;
+    END IF;
+
+    PERFORM pg_advisory_xact_lock(hashtextextended(NEW.resource_id::text, 0));
+
+    IF EXISTS (
+        SELECT 1
+        FROM booking b
+        WHERE b.resource_id = NEW.resource_id
+          AND b.id <> NEW.id
+          AND b.status IN ('WAITING_PAYMENT', 'CONFIRMED')
+          AND b.start_time < NEW.end_time
+          AND b.start_time > NEW.start_time - booking_max_duration()
+          AND tstzrange(b.start_time, b.end_time, '[)') && tstzrange(NEW.start_time, NEW.end_time, '[)')
+    ) THEN
+        RAISE EXCEPTION 'conflicting booking for resource % in [%, %)', NEW.resource_id, NEW.start_time, NEW.end_time
+            USING ERRCODE = 'exclusion_violation', CONSTRAINT = 'booking_no_overlap';
+    END IF;
+    RETURN NULL;
+END $$;
+
+CREATE TRIGGER booking_overlap_guard
+    AFTER INSERT OR UPDATE OF status, resource_id, start_time, end_time ON booking
+    FOR EACH ROW EXECUTE FUNCTION booking_overlap_guard();
+
+-- Замена payment_booking_id_fkey: бронирования не удаляются, поэтому достаточно проверки при записи платежа
+CREATE FUNCTION payment_booking_exists() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM booking WHERE id = NEW.booking_id) THEN
+        RAISE EXCEPTION 'booking % does not exist', NEW.booking_id
+            USING ERRCODE = 'foreign_key_violation';
+    END IF;
+    RETURN NEW;
+END $$;
+
+CREATE TRIGGER payment_booking_exists
+    BEFORE INSERT OR UPDATE OF booking_id ON payment
+    FOR EACH ROW EXECUTE FUNCTION payment_booking_exists();
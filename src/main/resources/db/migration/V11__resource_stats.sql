@@ -0,0 +1,95 @@
+-- Агрегаты для отчётов администратора: загрузка ресурса по дням и выручка по месяцам
+-- Обновляются в транзакции смены статуса (ResourceStatsService), ночная задача пересчитывает недавние периоды
+-- Сутки и месяцы — в UTC
+
+-- Подтверждённые (CONFIRMED) бронирования: секунды внутри суток и число бронирований, задевающих сутки
+CREATE TABLE resource_utilization_daily (
+  resource_id uuid not null references resource(id),
+  day date not null,
+  booked_seconds bigint not null,
+  bookings integer not null,
+
+  constraint resource_utilization_daily_pkey primary key (resource_id, day)
+);
+
+-- Успешные (SUCCESS) платежи по месяцу начала бронирования: месяц оказания услуги не меняется,
+-- поэтому пересчёт за период даёт то же, что накопили инкрементальные обновления
+CREATE TABLE resource_revenue_monthly (
+  resource_id uuid not null references resource(id),
+  month date not null, -- первое число месяца
+  currency varchar(3) not null,
+  amount numeric(14,2) not null,
+  payments integer not null,
+
+  constraint resource_revenue_monthly_pkey primary key (resource_id, month, currency)
+);
+
+-- Пересчёт дней [p_from, p_to); возвращает число строк
+-- SHARE ROW EXCLUSIVE ждёт транзакции, уже обновившие агрегат, и не пускает новые до коммита пересчёта:
+-- следующий оператор функции (READ COMMITTED) видит все их изменения, и дельты не теряются
+CREATE FUNCTION resource_utilization_rebuild(p_from date, p_to date) RETURNS integer
+LANGUAGE plpgsql AS $$
+DECLARE
+    v_rows integer;
+BEGIN
+    LOCK TABLE resource_utilization_daily IN SHARE ROW EXCLUSIVE MODE;
+    DELETE FROM resource_utilization_daily WHERE day >= p_from AND day < p_to;
+
+    INSERT INTO resource_utilization_daily (resource_id, day, booked_seconds, bookings)
+    SELECT b.resource_id,
+           g.day::date,
+           sum(extract(epoch FROM least(b.end_time, (g.day + interval '1 day') AT TIME ZONE 'UTC')
+                                - greatest(b.start_time, g.day AT TIME ZONE 'UTC')))::bigint,
+           count(*)
+    FROM booking b
+    CROSS JOIN LATERAL generate_series(date_trunc('day', b.start_time AT TIME ZONE 'UTC'),
+                                       (b.end_time AT TIME ZONE 'UTC') - interval '1 microsecond',
+                                       interval '1 day') AS g(day)
+    WHERE b.status = 'CONFIRMED'
+      AND b.start_time < p_to::timestamp AT TIME ZONE 'UTC'
+      -- нижняя граница start_time отсекает старые секции booking (см. booking_max_duration, V10)
+      AND b.start_time > (p_from::timestamp AT TIME ZONE 'UTC') - booking_max_duration()
+      AND b.end_time > p_from::timestamp AT TIME ZONE 'UTC'
+      AND g.day >= p_from
+      AND g.day < p_to
+    GROUP BY b.resource_id, g.day;
+
+    GET DIAGNOSTICS v_rows = ROW_COUNT;
+    RETURN v_rows;
+END $$;
+
+-- Пересчёт месяцев [p_from, p_to) (первые числа месяцев); блокировка — как у resource_utilization_rebuild
+CREATE FUNCTION resource_revenue_rebuild(p_from date, p_to date) RETURNS integer
+LANGUAGE plpgsql AS $$
+DECLARE
+    v_rows integer;
+BEGIN
+    LOCK TABLE resource_revenue_monthly IN SHARE ROW EXCLUSIVE MODE;
+    DELETE FROM resource_revenue_monthly WHERE month >= p_from AND month < p_to;
+
+    INSERT INTO resource_revenue_monthly (resource_id, month, currency, amount, payments)
+    SELECT b.resource_id,
+           date_trunc('month', b.start_time AT TIME ZONE 'UTC')::date,
+           p.currency,
+           sum(p.amount),
+           count(*)
+    FROM payment p
+    JOIN booking b ON b.id = p.booking_id
+    WHERE p.status = 'SUCCESS'
+      AND b.start_time >= p_from::timestamp AT TIME ZONE 'UTC'
+      AND b.start_time < p_to::timestamp AT TIME ZONE 'UTC'
+    GROUP BY 1, 2, 3;
+
+    GET DIAGNOSTICS v_rows = ROW_COUNT;
+    RETURN v_rows;
+END $$;
+
+-- начальное заполнение по всей истории
+SELECT resource_utilization_rebuild(
+    coalesce((SELECT min(start_time AT TIME ZONE 'UTC')::date FROM booking), current_date),
+    coalesce((SELECT max(end_time AT TIME ZONE 'UTC')::date + 1 FROM booking), current_date));
+
+SELECT resource_revenue_rebuild(
+    coalesce((SELECT date_trunc('month', min(start_time AT TIME ZONE 'UTC'))::date FROM booking), current_date),
+    coalesce((SELECT (date_trunc('month', max(start_time AT TIME ZONE 'UTC')) + interval '1 month')::date
+              FROM booking), current_date));
@@ -0,0 +1,88 @@
+-- Лист ожидания: пользователь ждёт занятый интервал ресурса, вместо того чтобы опрашивать createBookingDraft
+-- Когда занятое бронирование освобождает слот (отмена, истечение, неудачная оплата), в той же транзакции
+-- самый ранний подходящий ожидающий получает бронирование в WAITING_PAYMENT (booking_waitlist_promote)
+
+CREATE TABLE booking_waitlist (
+  id uuid primary key,
+
+  user_id uuid not null references app_user(id),
+  resource_id uuid not null references resource(id),
+
+  start_time timestamptz not null,
+  end_time timestamptz not null,
+
+  status varchar(32) not null, -- WAITING / PROMOTED / CANCELED
+  booking_id uuid,             -- бронирование после PROMOTED; без FK — booking секционирована (V10)
+
+  created_at timestamptz not null,
+  created_by varchar(255) not null,
+  updated_at timestamptz not null,
+  updated_by varchar(255) not null,
+
+  constraint chk_booking_waitlist_time_range check (end_time > start_time)
+);
+
+-- Поиск ожидающих, чей интервал пересекается с освободившимся: ресурс + && по диапазону, только WAITING
+CREATE INDEX idx_booking_waitlist_overlap ON booking_waitlist
+    USING gist (resource_id, tstzrange(start_time, end_time, '[)'))
+    WHERE status = 'WAITING';
+
+CREATE INDEX idx_booking_waitlist_user ON booking_waitlist(user_id, created_at DESC);
+
+-- Продвигает ожидающих, чей интервал пересекается с [p_from, p_to), в порядке записи в лист
+-- Ожидающий, чей интервал задевает другое занятое бронирование, пропускается и ждёт дальше
+-- Вставка — в подблоке (savepoint): конфликт с параллельной транзакцией или взаимоблокировка
+-- на advisory-блокировке booking_overlap_guard откатывают только эту попытку, а не вызывающую транзакцию
+-- Строки листа берутся FOR UPDATE SKIP LOCKED: параллельные освобождения не продвинут одного ожидающего дважды
+CREATE FUNCTION booking_waitlist_promote(p_resource_id uuid, p_from timestamptz, p_to timestamptz)
+RETURNS TABLE (waitlist_id uuid, promoted_booking_id uuid, waiter_id uuid, slot_start timestamptz, slot_end timestamptz)
+LANGUAGE plpgsql AS $$
+DECLARE
+    w record;
+    v_booking_id uuid;
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM resource r WHERE r.id = p_resource_id AND r.active) THEN
+        RETURN;
+    END IF;
+
+    FOR w IN
+        SELECT q.id, q.user_id, q.start_time, q.end_time
+        FROM booking_waitlist q
+        WHERE q.resource_id = p_resource_id
+          AND q.status = 'WAITING'
+          AND tstzrange(q.start_time, q.end_time, '[)') && tstzrange(p_from, p_to, '[)')
+          AND q.start_time > now()
+        ORDER BY q.created_at, q.id
+        FOR UPDATE SKIP LOCKED
+    LOOP
+        CONTINUE WHEN EXISTS (
+            SELECT 1
+            FROM booking b
+            WHERE b.resource_id = p_resource_id
+              AND b.status IN ('WAITING_PAYMENT', 'CONFIRMED')
+              AND b.start_time < w.end_time
+              AND b.start_time > w.start_time - booking_max_duration()
+              AND b.end_time > w.start_time);
+
+        v_booking_id := gen_random_uuid();
+        BEGIN
+            INSERT INTO booking (id, user_id, resource_id, start_time, end_time, status,
+                                 created_at, created_by, updated_at, updated_by)
+            VALUES (v_booking_id, w.user_id, p_resource_id, w.start_time, w.end_time, 'WAITING_PAYMENT',
+                    now(), 'waitlist', now(), 'waitlist');
+        EXCEPTION WHEN exclusion_violation OR deadlock_detected THEN
+            CONTINUE;
+        END;
+
+        UPDATE booking_waitlist
+        SET status = 'PROMOTED', booking_id = v_booking_id, updated_at = now(), updated_by = 'waitlist'
+        WHERE id = w.id;
+
+        waitlist_id := w.id;
+        promoted_booking_id := v_booking_id;
+        waiter_id := w.user_id;
+        slot_start := w.start_time;
+        slot_end := w.end_time;
+        RETURN NEXT;
+    END LOOP;
+END $$;
@@ -0,0 +1,22 @@
+-- Ключи идемпотентности мутаций (createBookingDraft, startPayment): повтор запроса с тем же ключом
+-- возвращает результат первого выполнения, а не создаёт второй черновик / второе списание
+-- Хранится только ссылка на результат (id бронирования / платежа) и SHA-256 параметров запроса
+-- result_id = null — первое выполнение ещё идёт; locked_until — до какого момента его ждать,
+-- после этого ключ может перехватить другой запрос (нода упала посреди выполнения)
+
+CREATE TABLE idempotency_key (
+  user_id uuid not null,
+  operation varchar(32) not null, -- CREATE_BOOKING_DRAFT / START_PAYMENT
+  idempotency_key varchar(128) not null,
+
+  request_hash bytea not null,
+  result_id uuid,
+
+  locked_until timestamptz not null,
+  expires_at timestamptz not null,
+
+  constraint idempotency_key_pkey primary key (user_id, operation, idempotency_key)
+);
+
+-- Очистка просроченных ключей пачками
+CREATE INDEX idx_idempotency_key_expires ON idempotency_key(expires_at);
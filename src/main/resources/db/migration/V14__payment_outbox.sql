@@ -0,0 +1,20 @@
+-- Очередь асинхронных списаний (app.payment.async.enabled): startPayment в одной транзакции пишет платёж NEW
+-- и строку payment_outbox, воркер PaymentOutboxWorker забирает строки (SKIP LOCKED), вызывает провайдера
+-- и в одной транзакции завершает платёж и удаляет строку
+-- locked_until — до какого момента строку держит воркер; после этого (нода упала) строку заберут снова
+-- available_at = 'infinity' — строка отложена для ручного разбора (завершить платёж не удалось)
+
+CREATE TABLE payment_outbox (
+  payment_id uuid primary key references payment(id),
+  provider varchar(32) not null, -- PAYPAL / CARD
+
+  attempts int not null default 0,
+  available_at timestamptz not null,
+  locked_until timestamptz,
+  last_error varchar(500),
+
+  created_at timestamptz not null
+);
+
+-- Выборка готовых строк провайдера в порядке очереди и подсчёт очереди для back-pressure
+CREATE INDEX idx_payment_outbox_provider ON payment_outbox(provider, available_at);
@@ -0,0 +1,10 @@
+-- Отложенное списание (PaymentType.DEFERRED): startPayment только авторизует сумму (status = AUTHORIZED),
+-- PaymentSettlementService списывает созревшие авторизации пачками по провайдеру
+
+ALTER TABLE payment
+    ADD COLUMN authorized_at timestamptz,
+    -- аренда пачки на время вызова capture; строки, которые держит другая нода, пропускаются
+    ADD COLUMN capture_locked_until timestamptz;
+
+-- Очередь списания: только авторизованные платежи, по провайдеру в порядке авторизации
+CREATE INDEX idx_payment_authorized ON payment(provider, authorized_at) WHERE status = 'AUTHORIZED';
@@ -0,0 +1,18 @@
+-- Очередь возвратов: cancelPayment и отмена подтверждённого бронирования администратором переводят платёж
+-- в CANCELING и пишут строку payment_refund в той же транзакции; PaymentRefundWorker вызывает cancel провайдера
+-- вне транзакции и завершает платёж (CANCELED) вместе с удалением строки
+-- Повторы с экспоненциальной задержкой; available_at = 'infinity' — отложено для ручного разбора (как в payment_outbox)
+
+CREATE TABLE payment_refund (
+  payment_id uuid primary key references payment(id),
+  provider varchar(32) not null, -- PAYPAL / CARD
+
+  attempts int not null default 0,
+  available_at timestamptz not null,
+  locked_until timestamptz,
+  last_error varchar(500),
+
+  created_at timestamptz not null
+);
+
+CREATE INDEX idx_payment_refund_available ON payment_refund(available_at);
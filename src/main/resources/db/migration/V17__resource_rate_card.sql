@@ -0,0 +1,30 @@
+-- Тарифы ресурсов: цена считается на сервере (quote, проверка суммы в startPayment)
+-- PricingRuleCache держит тарифы скомпилированными в памяти; version растёт при каждом изменении
+-- Часы пиков и расчёт — в UTC, как и календарь занятости
+
+CREATE TABLE resource_rate_card (
+  resource_id uuid primary key references resource(id) on delete cascade,
+
+  currency varchar(3) not null,
+  hourly_rate numeric(12,2) not null check (hourly_rate >= 0),
+  minimum_amount numeric(12,2) not null default 0 check (minimum_amount >= 0), -- цена не ниже, чем minimum_amount
+
+  version bigint not null default 0,
+  updated_at timestamptz not null,
+  updated_by varchar(255) not null
+);
+
+-- Пиковые окна: в [start_minute, end_minute) суток действует hourly_rate окна вместо базового
+-- day_of_week — ISO (1 = понедельник), null — каждый день; при пересечении окон берётся большая ставка
+CREATE TABLE resource_rate_peak (
+  resource_id uuid not null references resource_rate_card(resource_id) on delete cascade,
+  position int not null,
+
+  day_of_week smallint check (day_of_week between 1 and 7),
+  start_minute int not null,
+  end_minute int not null,
+  hourly_rate numeric(12,2) not null check (hourly_rate >= 0),
+
+  primary key (resource_id, position),
+  check (start_minute >= 0 and start_minute < end_minute and end_minute <= 1440)
+);
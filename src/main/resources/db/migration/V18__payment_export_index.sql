@@ -0,0 +1,3 @@
+-- Выгрузка платежей идёт курсором в порядке (created_at, id): индекс отдаёт строки уже упорядоченными,
+-- без сортировки всей таблицы перед первой строкой
+CREATE INDEX idx_payment_created ON payment(created_at, id);
@@ -0,0 +1,24 @@
+-- Срок истечения (BookingExpiryService) отсчитывается от последней смены статуса, а не от updated_at:
+-- updated_at меняет любая запись строки (отметка оплаты, правки), и бронирование истекало бы позже срока
+ALTER TABLE booking ADD COLUMN status_changed_at timestamptz;
+UPDATE booking SET status_changed_at = updated_at;
+ALTER TABLE booking
+    ALTER COLUMN status_changed_at SET DEFAULT now(),
+    ALTER COLUMN status_changed_at SET NOT NULL;
+
+-- Ставится в БД, чтобы покрыть все пути записи: сущность, UPDATE ... RETURNING, ручной SQL
+CREATE FUNCTION booking_status_changed_at() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'INSERT' OR NEW.status IS DISTINCT FROM OLD.status THEN
+        NEW.status_changed_at := now();
+    END IF;
+    RETURN NEW;
+END $$;
+
+CREATE TRIGGER booking_status_changed_at
+    BEFORE INSERT OR UPDATE OF status ON booking
+    FOR EACH ROW EXECUTE FUNCTION booking_status_changed_at();
+
+DROP INDEX IF EXISTS idx_booking_expiry;
+CREATE INDEX idx_booking_expiry ON booking(status, status_changed_at) WHERE status IN ('DRAFT', 'WAITING_PAYMENT');
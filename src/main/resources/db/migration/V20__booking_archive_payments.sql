@@ -0,0 +1,40 @@
+-- Архивирование секций booking (BookingPartitionService) вместе с платежами
+-- booking_archive_partitions (V10) отсоединял секции внутри одной транзакции под ACCESS EXCLUSIVE на booking
+-- и оставлял в payment платежи без бронирований. Теперь секцию отсоединяет приложение отдельной командой вне
+-- транзакции (DETACH ... CONCURRENTLY, если у booking нет секции по умолчанию), а платежи её бронирований
+-- переносятся в booking_archive.payment в одной транзакции с переносом самой секции
+DROP FUNCTION booking_archive_partitions(date);
+
+CREATE TABLE booking_archive.payment (LIKE payment INCLUDING ALL);
+
+-- Секцию можно архивировать, только если в ней нет незавершённых бронирований, а у её платежей —
+-- незавершённых статусов и строк в очередях payment_outbox / payment_refund (в том числе отложенных для разбора)
+CREATE FUNCTION booking_archive_ready(p_partition text) RETURNS boolean
+LANGUAGE plpgsql AS $$
+DECLARE
+    v_busy boolean;
+BEGIN
+    EXECUTE format($q$
+        SELECT EXISTS (SELECT 1 FROM public.%1$I b WHERE b.status IN ('DRAFT', 'WAITING_PAYMENT'))
+            OR EXISTS (
+                SELECT 1
+                FROM payment p
+                JOIN public.%1$I b ON b.id = p.booking_id
+                WHERE p.status IN ('NEW', 'AUTHORIZED', 'CANCELING')
+                   OR EXISTS (SELECT 1 FROM payment_outbox o WHERE o.payment_id = p.id)
+                   OR EXISTS (SELECT 1 FROM payment_refund r WHERE r.payment_id = p.id)
+            )
+        $q$, p_partition) INTO v_busy;
+    RETURN NOT v_busy;
+END $$;
+
+-- Переносит платежи бронирований уже отсоединённой секции в booking_archive.payment, а саму секцию —
+-- в схему booking_archive; одна транзакция, поэтому платёж не остаётся без бронирования
+CREATE FUNCTION booking_archive_detached(p_partition text) RETURNS void
+LANGUAGE plpgsql AS $$
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('booking_partitions'));
+    EXECUTE format('WITH moved AS (DELETE FROM payment p USING public.%I b WHERE p.booking_id = b.id RETURNING p.*)
+                    INSERT INTO booking_archive.payment SELECT * FROM moved', p_partition);
+    EXECUTE format('ALTER TABLE public.%I SET SCHEMA booking_archive', p_partition);
+END $$;
@@ -0,0 +1,4 @@
+-- Серии повторяющихся бронирований: вхождения связаны общим series_id
+ALTER TABLE booking ADD COLUMN series_id uuid;
+
+CREATE INDEX idx_booking_series ON booking(series_id) WHERE series_id IS NOT NULL;
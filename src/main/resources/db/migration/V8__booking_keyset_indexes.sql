@@ -0,0 +1,6 @@
+-- Keyset-пагинация myBookings / allBookings по (start_time desc, id desc)
+CREATE INDEX idx_booking_start_id ON booking(start_time DESC, id DESC);
+CREATE INDEX idx_booking_user_start_id ON booking(user_id, start_time DESC, id DESC);
+
+-- покрывается префиксом idx_booking_user_start_id
+DROP INDEX IF EXISTS idx_booking_user;
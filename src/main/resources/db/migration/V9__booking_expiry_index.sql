@@ -0,0 +1,2 @@
+-- Поиск кандидатов на истечение (BookingExpiryService): только незавершённые статусы, по возрастанию updated_at
+CREATE INDEX idx_booking_expiry ON booking(status, updated_at) WHERE status IN ('DRAFT', 'WAITING_PAYMENT');
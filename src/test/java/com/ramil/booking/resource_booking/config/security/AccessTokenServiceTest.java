@@ -0,0 +1,116 @@
+package com.ramil.booking.resource_booking.config.security;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ramil.booking.resource_booking.domain.user.event.UserCredentialsChangedEvent;
+import com.ramil.booking.resource_booking.domain.user.model.Role;
+
+class AccessTokenServiceTest {
+
+    private static final byte[] SECRET = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+    private static final Instant NOW = Instant.parse("2026-02-10T10:00:00Z");
+
+    private final AppUserPrincipal user =
+            new AppUserPrincipal(UUID.randomUUID(), "u@test.com", Role.USER, "hash");
+
+    @Test
+    void issued_token_verifies_to_same_user() {
+        AccessTokenService service = service(Clock.fixed(NOW, ZoneOffset.UTC));
+
+        IssuedTokens tokens = service.issue(user);
+        AppUserPrincipal principal = service.verify(tokens.accessToken());
+
+        assertThat(principal.getId()).isEqualTo(user.getId());
+        assertThat(principal.getEmail()).isEqualTo("u@test.com");
+        assertThat(principal.getRole()).isEqualTo(Role.USER);
+        assertThat(principal.getPassword()).isNull();
+        assertThat(tokens.accessTokenExpiresAt()).isEqualTo(NOW.plus(Duration.ofMinutes(15)));
+    }
+
+    @Test
+    void tampered_token_is_rejected() {
+        AccessTokenService service = service(Clock.fixed(NOW, ZoneOffset.UTC));
+        String token = service.issue(user).accessToken();
+
+        String[] parts = token.split("\\.");
+        String forgedPayload = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                ("{\"sub\":\"" + user.getId() + "\",\"email\":\"u@test.com\",\"role\":\"ADMIN\",\"sid\":\"x\",\"exp\":9999999999}")
+                        .getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> service.verify(parts[0] + "." + forgedPayload + "." + parts[2]))
+                .isInstanceOf(InvalidTokenException.class);
+    }
+
+    @Test
+    void token_signed_with_other_secret_is_rejected() {
+        AccessTokenService service = service(Clock.fixed(NOW, ZoneOffset.UTC));
+        AccessTokenService other = new AccessTokenService(
+                "fedcba9876543210fedcba9876543210".getBytes(StandardCharsets.UTF_8),
+                Duration.ofMinutes(15), Duration.ofDays(7), new ObjectMapper(), Clock.fixed(NOW, ZoneOffset.UTC));
+
+        assertThatThrownBy(() -> service.verify(other.issue(user).accessToken()))
+                .isInstanceOf(InvalidTokenException.class);
+    }
+
+    @Test
+    void expired_token_is_rejected() {
+        String token = service(Clock.fixed(NOW, ZoneOffset.UTC)).issue(user).accessToken();
+        AccessTokenService later = service(Clock.fixed(NOW.plus(Duration.ofMinutes(16)), ZoneOffset.UTC));
+
+        assertThatThrownBy(() -> later.verify(token))
+                .isInstanceOf(InvalidTokenException.class)
+                .hasMessageContaining("expired");
+    }
+
+    @Test
+    void refresh_rotates_refresh_token() {
+        AccessTokenService service = service(Clock.fixed(NOW, ZoneOffset.UTC));
+        IssuedTokens first = service.issue(user);
+
+        IssuedTokens second = service.refresh(first.refreshToken());
+
+        assertThat(service.verify(second.accessToken()).getId()).isEqualTo(user.getId());
+        assertThatThrownBy(() -> service.refresh(first.refreshToken()))
+                .isInstanceOf(InvalidTokenException.class);
+    }
+
+    @Test
+    void revoke_invalidates_access_tokens_of_the_session() {
+        AccessTokenService service = service(Clock.fixed(NOW, ZoneOffset.UTC));
+        IssuedTokens tokens = service.issue(user);
+
+        service.revoke(tokens.refreshToken());
+
+        assertThatThrownBy(() -> service.verify(tokens.accessToken()))
+                .isInstanceOf(InvalidTokenException.class)
+                .hasMessageContaining("revoked");
+        assertThatThrownBy(() -> service.refresh(tokens.refreshToken()))
+                .isInstanceOf(InvalidTokenException.class);
+    }
+
+    @Test
+    void credentials_change_revokes_all_sessions_of_user() {
+        AccessTokenService service = service(Clock.fixed(NOW, ZoneOffset.UTC));
+        IssuedTokens tokens = service.issue(user);
+
+        service.onUserCredentialsChanged(new UserCredentialsChangedEvent("u@test.com"));
+
+        assertThatThrownBy(() -> service.verify(tokens.accessToken()))
+                .isInstanceOf(InvalidTokenException.class);
+    }
+
+    private static AccessTokenService service(Clock clock) {
+        return new AccessTokenService(SECRET, Duration.ofMinutes(15), Duration.ofDays(7), new ObjectMapper(), clock);
+    }
+}
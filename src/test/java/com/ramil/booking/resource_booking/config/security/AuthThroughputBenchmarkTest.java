@@ -0,0 +1,88 @@
+package com.ramil.booking.resource_booking.config.security;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+// Запросы в секунду: HTTP Basic (BCrypt на каждый запрос), HTTP Basic с кэшем и Bearer-токен
+// Запуск: docker-compose up -d && ./mvnw test -Pbenchmark -Dtest=AuthThroughputBenchmarkTest
+@Tag("benchmark")
+@SpringBootTest
+@AutoConfigureMockMvc
+class AuthThroughputBenchmarkTest {
+
+    private static final Duration RUN = Duration.ofSeconds(5);
+    private static final String QUERY = "{\"query\":\"{ __typename }\"}";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private CachingAuthenticationProvider authenticationProvider;
+
+    @Autowired
+    private AccessTokenService accessTokenService;
+
+    @Test
+    void basic_vs_token() throws Exception {
+        String basic = "Basic " + Base64.getEncoder()
+                .encodeToString("user@test.com:user".getBytes(StandardCharsets.UTF_8));
+
+        AppUserPrincipal principal = (AppUserPrincipal) authenticationProvider.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated("user@test.com", "user")).getPrincipal();
+        String bearer = "Bearer " + accessTokenService.issue(principal).accessToken();
+
+        report("basic (no cache)", measure(() -> {
+            authenticationProvider.invalidateAll();
+            return basic;
+        }));
+        report("basic (cached)", measure(() -> basic));
+        report("bearer token", measure(() -> bearer));
+    }
+
+    private double measure(Supplier<String> authorization) throws Exception {
+        // прогрев
+        for (int i = 0; i < 20; i++) {
+            call(authorization.get());
+        }
+        long deadline = System.nanoTime() + RUN.toNanos();
+        long started = System.nanoTime();
+        long count = 0;
+        while (System.nanoTime() < deadline) {
+            call(authorization.get());
+            count++;
+        }
+        return count / ((System.nanoTime() - started) / 1e9);
+    }
+
+    private void call(String authorization) throws Exception {
+        MvcResult result = mvc.perform(post("/graphql")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.AUTHORIZATION, authorization)
+                        .content(QUERY))
+                .andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            mvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+        }
+    }
+
+    private static void report(String name, double rps) {
+        System.out.printf("%-18s %10.1f req/s%n", name, rps);
+    }
+}
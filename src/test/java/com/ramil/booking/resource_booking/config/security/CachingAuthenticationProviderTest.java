@@ -0,0 +1,110 @@
+package com.ramil.booking.resource_booking.config.security;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import com.ramil.booking.resource_booking.domain.user.event.UserCredentialsChangedEvent;
+import com.ramil.booking.resource_booking.domain.user.model.Role;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CachingAuthenticationProviderTest {
+
+    private AuthenticationProvider delegate;
+    private SimpleMeterRegistry meterRegistry;
+    private CachingAuthenticationProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(AuthenticationProvider.class);
+        meterRegistry = new SimpleMeterRegistry();
+        provider = new CachingAuthenticationProvider(delegate, Duration.ofMinutes(5), 100, meterRegistry);
+
+        when(delegate.authenticate(any())).thenAnswer(inv -> {
+            Authentication in = inv.getArgument(0);
+            if (!"secret".equals(in.getCredentials())) {
+                throw new BadCredentialsException("bad");
+            }
+            return UsernamePasswordAuthenticationToken.authenticated(
+                    in.getName(), null, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        });
+    }
+
+    @Test
+    void second_authentication_with_same_credentials_is_served_from_cache() {
+        Authentication first = provider.authenticate(basic("u@test.com", "secret"));
+        Authentication second = provider.authenticate(basic("u@test.com", "secret"));
+
+        assertThat(first.isAuthenticated()).isTrue();
+        assertThat(second.isAuthenticated()).isTrue();
+        assertThat(second.getName()).isEqualTo("u@test.com");
+        assertThat(second.getAuthorities()).extracting("authority").containsExactly("ROLE_USER");
+
+        verify(delegate, times(1)).authenticate(any());
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "auth").tag("result", "hit").functionCounter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void cached_authentication_keeps_no_credentials() {
+        AppUserPrincipal principal = new AppUserPrincipal(UUID.randomUUID(), "u@test.com", Role.USER, "hash");
+        doAnswer(inv -> UsernamePasswordAuthenticationToken.authenticated(principal,
+                ((Authentication) inv.getArgument(0)).getCredentials(), principal.getAuthorities()))
+                .when(delegate).authenticate(any());
+
+        Authentication result = provider.authenticate(basic("u@test.com", "secret"));
+
+        assertThat(result.getCredentials()).isNull();
+        assertThat(principal.getPassword()).isNull();
+    }
+
+    @Test
+    void wrong_password_is_not_served_from_cache() {
+        provider.authenticate(basic("u@test.com", "secret"));
+
+        assertThatThrownBy(() -> provider.authenticate(basic("u@test.com", "wrong")))
+                .isInstanceOf(BadCredentialsException.class);
+
+        verify(delegate, times(2)).authenticate(any());
+    }
+
+    @Test
+    void failed_authentication_is_not_cached() {
+        assertThatThrownBy(() -> provider.authenticate(basic("u@test.com", "wrong")))
+                .isInstanceOf(BadCredentialsException.class);
+        assertThatThrownBy(() -> provider.authenticate(basic("u@test.com", "wrong")))
+                .isInstanceOf(BadCredentialsException.class);
+
+        verify(delegate, times(2)).authenticate(any());
+    }
+
+    @Test
+    void credentials_change_invalidates_only_that_user() {
+        provider.authenticate(basic("u@test.com", "secret"));
+        provider.authenticate(basic("other@test.com", "secret"));
+
+        provider.onUserCredentialsChanged(new UserCredentialsChangedEvent("u@test.com"));
+
+        provider.authenticate(basic("u@test.com", "secret"));
+        provider.authenticate(basic("other@test.com", "secret"));
+
+        verify(delegate, times(3)).authenticate(any());
+    }
+
+    private static UsernamePasswordAuthenticationToken basic(String username, String password) {
+        return UsernamePasswordAuthenticationToken.unauthenticated(username, password);
+    }
+}
@@ -0,0 +1,89 @@
+package com.ramil.booking.resource_booking.config.security;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+
+class GraphqlOperationRequestMatcherTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final GraphqlOperationRequestMatcher matcher =
+            new GraphqlOperationRequestMatcher(Set.of("login", "refreshToken"), objectMapper);
+
+    @Test
+    void login_mutation_is_public() throws Exception {
+        assertThat(matcher.matches(cached(body(
+                "mutation { login(email: \"u@test.com\", password: \"p\") { accessToken } }", null)))).isTrue();
+    }
+
+    @Test
+    void named_operation_is_selected_by_operationName() throws Exception {
+        String document = "query Me { ping } mutation Auth { refreshToken(refreshToken: \"t\") { accessToken } }";
+
+        assertThat(matcher.matches(cached(body(document, "Auth")))).isTrue();
+        assertThat(matcher.matches(cached(body(document, "Me")))).isFalse();
+        assertThat(matcher.matches(cached(body(document, null)))).isFalse();
+    }
+
+    @Test
+    void queries_introspection_and_mixed_mutations_need_authentication() throws Exception {
+        assertThat(matcher.matches(cached(body("{ ping }", null)))).isFalse();
+        assertThat(matcher.matches(cached(body("{ __schema { types { name } } }", null)))).isFalse();
+        assertThat(matcher.matches(cached(body(
+                "mutation { login(email: \"a\", password: \"b\") { accessToken } deleteResource(id: \"1\") }",
+                null)))).isFalse();
+        assertThat(matcher.matches(cached(body("mutation { ...F } fragment F on Mutation { deleteResource(id: \"1\") }",
+                null)))).isFalse();
+    }
+
+    @Test
+    void unparsable_or_uncached_body_needs_authentication() throws Exception {
+        assertThat(matcher.matches(cached("not json"))).isFalse();
+        assertThat(matcher.matches(cached(body("mutation {", null)))).isFalse();
+        assertThat(matcher.matches(new MockHttpServletRequest("POST", "/graphql"))).isFalse();
+    }
+
+    @Test
+    void cached_body_is_still_readable_downstream() throws Exception {
+        String json = body("mutation { login(email: \"a\", password: \"b\") { accessToken } }", null);
+        MockFilterChain chain = new MockFilterChain();
+
+        new GraphqlRequestBodyCachingFilter("/graphql").doFilter(request(json), new MockHttpServletResponse(), chain);
+
+        HttpServletRequest passed = (HttpServletRequest) chain.getRequest();
+        assertThat(new String(passed.getInputStream().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(json);
+        assertThat(matcher.matches(passed)).isTrue();
+    }
+
+    private HttpServletRequest cached(String json) throws ServletException, IOException {
+        MockFilterChain chain = new MockFilterChain();
+        new GraphqlRequestBodyCachingFilter("/graphql").doFilter(request(json), new MockHttpServletResponse(), chain);
+        return (HttpServletRequest) chain.getRequest();
+    }
+
+    private static MockHttpServletRequest request(String json) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/graphql");
+        request.setContentType("application/json");
+        request.setContent(json.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private String body(String query, String operationName) throws IOException {
+        return operationName == null
+                ? objectMapper.writeValueAsString(Map.of("query", query))
+                : objectMapper.writeValueAsString(Map.of("query", query, "operationName", operationName));
+    }
+}
@@ -0,0 +1,62 @@
+package com.ramil.booking.resource_booking.config.security;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.ramil.booking.resource_booking.domain.user.exception.UserNotFoundException;
+import com.ramil.booking.resource_booking.domain.user.model.Role;
+
+class SpringSecurityCurrentUserProviderTest {
+
+    private final SpringSecurityCurrentUserProvider provider = new SpringSecurityCurrentUserProvider();
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void reads_user_from_principal() {
+        UUID userId = UUID.randomUUID();
+        authenticate(new AppUserPrincipal(userId, "u@test.com", Role.USER, null));
+
+        assertThat(provider.currentUserId()).isEqualTo(userId);
+        assertThat(provider.currentUserEmail()).isEqualTo("u@test.com");
+        assertThat(provider.isAdmin()).isFalse();
+    }
+
+    @Test
+    void admin_role_is_taken_from_principal() {
+        authenticate(new AppUserPrincipal(UUID.randomUUID(), "admin@test.com", Role.ADMIN, null));
+
+        assertThat(provider.isAdmin()).isTrue();
+    }
+
+    @Test
+    void currentUserId_throws_without_authentication() {
+        assertThatThrownBy(provider::currentUserId)
+                .isInstanceOf(UserNotFoundException.class);
+        assertThat(provider.currentUserEmail()).isEqualTo("system");
+    }
+
+    @Test
+    void principal_drops_password_hash_on_erase() {
+        AppUserPrincipal principal = new AppUserPrincipal(UUID.randomUUID(), "u@test.com", Role.USER, "hash");
+
+        principal.eraseCredentials();
+
+        assertThat(principal.getPassword()).isNull();
+        assertThat(principal.getUsername()).isEqualTo("u@test.com");
+    }
+
+    private static void authenticate(AppUserPrincipal principal) {
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities()));
+    }
+}
@@ -0,0 +1,157 @@
+package com.ramil.booking.resource_booking.domain.booking.admission;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.ramil.booking.resource_booking.domain.booking.exception.ResourceBusyException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ResourceAdmissionTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UUID resourceId = UUID.randomUUID();
+    // свой пул: общий ForkJoinPool на маленькой машине может не дать второго потока
+    private final ExecutorService pool = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void requests_for_one_resource_run_one_at_a_time() throws Exception {
+        ResourceAdmission admission = admission(1, 32, Duration.ofSeconds(5));
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        List<CompletableFuture<Integer>> calls = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            calls.add(CompletableFuture.supplyAsync(() -> admission.run(resourceId, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(5);
+                return running.decrementAndGet();
+            }), pool));
+        }
+        CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+        assertThat(maxRunning).hasValue(1);
+    }
+
+    @Test
+    void full_queue_fails_fast() throws Exception {
+        ResourceAdmission admission = admission(1, 1, Duration.ofSeconds(5));
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> holder = CompletableFuture.supplyAsync(() -> admission.run(resourceId, () -> {
+            inside.countDown();
+            await(release);
+            return "first";
+        }), pool);
+        assertThat(inside.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> admission.run(resourceId, () -> "second"), pool);
+        waitUntil(() -> admission.waiting(resourceId) == 1);
+
+        assertThatThrownBy(() -> admission.run(resourceId, () -> "third"))
+                .isInstanceOf(ResourceBusyException.class);
+        assertThat(meterRegistry.get("booking.admission.rejected").tag("reason", "queue_full").counter().count())
+                .isEqualTo(1);
+
+        release.countDown();
+        assertThat(holder.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("second");
+    }
+
+    @Test
+    void waiting_longer_than_timeout_is_rejected() throws Exception {
+        ResourceAdmission admission = admission(1, 32, Duration.ofMillis(50));
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> holder = CompletableFuture.supplyAsync(() -> admission.run(resourceId, () -> {
+            inside.countDown();
+            await(release);
+            return "first";
+        }), pool);
+        assertThat(inside.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> admission.run(resourceId, () -> "late"))
+                .isInstanceOf(ResourceBusyException.class);
+        assertThat(meterRegistry.get("booking.admission.rejected").tag("reason", "timeout").counter().count())
+                .isEqualTo(1);
+
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void failed_action_frees_the_stripe() {
+        ResourceAdmission admission = admission(1, 32, Duration.ofMillis(50));
+
+        assertThatThrownBy(() -> admission.run(resourceId, () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(admission.run(resourceId, () -> "next")).isEqualTo("next");
+    }
+
+    @Test
+    void disabled_admission_runs_directly() throws Exception {
+        ResourceAdmission admission = new ResourceAdmission(meterRegistry, false, 1, 1, Duration.ofMillis(1));
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> holder = CompletableFuture.supplyAsync(() -> admission.run(resourceId, () -> {
+            inside.countDown();
+            await(release);
+            return "first";
+        }), pool);
+        assertThat(inside.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(admission.run(resourceId, () -> "parallel")).isEqualTo("parallel");
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+    }
+
+    private ResourceAdmission admission(int stripes, int queueDepth, Duration waitTimeout) {
+        return new ResourceAdmission(meterRegistry, true, stripes, queueDepth, waitTimeout);
+    }
+
+    private static void waitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            sleep(5);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
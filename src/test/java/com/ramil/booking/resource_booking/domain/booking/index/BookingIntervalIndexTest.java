@@ -0,0 +1,109 @@
+package com.ramil.booking.resource_booking.domain.booking.index;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import com.ramil.booking.resource_booking.domain.booking.event.BookingStatusChangedEvent;
+import com.ramil.booking.resource_booking.domain.booking.model.BookingStatus;
+
+class BookingIntervalIndexTest {
+
+    private final BookingIntervalIndex index = new BookingIntervalIndex();
+
+    private final UUID resourceId = UUID.randomUUID();
+    private final OffsetDateTime t0 = OffsetDateTime.parse("2026-02-10T10:00:00Z");
+
+    @Test
+    void reports_no_conflicts_until_loaded() {
+        index.onStatusChanged(occupy(UUID.randomUUID(), t0, t0.plusHours(1)));
+
+        assertThat(index.isReady()).isFalse();
+        assertThat(index.hasConflict(resourceId, t0, t0.plusHours(1), null)).isFalse();
+    }
+
+    @Test
+    void detects_overlaps_with_half_open_semantics() {
+        UUID existing = UUID.randomUUID();
+        index.rebuild(Stream.of(new BookingInterval(existing, resourceId, t0, t0.plusHours(1))));
+
+        assertThat(index.hasConflict(resourceId, t0.plusMinutes(30), t0.plusHours(2), null)).isTrue();
+        assertThat(index.hasConflict(resourceId, t0.minusHours(1), t0.plusMinutes(1), null)).isTrue();
+        // [10:00, 11:00) и [11:00, 12:00) не пересекаются — как tstzrange '[)' в booking_no_overlap
+        assertThat(index.hasConflict(resourceId, t0.plusHours(1), t0.plusHours(2), null)).isFalse();
+        assertThat(index.hasConflict(resourceId, t0.minusHours(1), t0, null)).isFalse();
+        assertThat(index.hasConflict(UUID.randomUUID(), t0, t0.plusHours(1), null)).isFalse();
+        assertThat(index.hasConflict(resourceId, t0, t0.plusHours(1), existing)).isFalse();
+    }
+
+    @Test
+    void long_interval_started_earlier_is_found() {
+        index.rebuild(Stream.of(
+                new BookingInterval(UUID.randomUUID(), resourceId, t0.minusDays(3), t0.plusDays(3)),
+                new BookingInterval(UUID.randomUUID(), resourceId, t0.minusHours(2), t0.minusHours(1))));
+
+        assertThat(index.hasConflict(resourceId, t0, t0.plusHours(1), null)).isTrue();
+    }
+
+    @Test
+    void follows_status_transitions() {
+        index.rebuild(Stream.empty());
+        UUID bookingId = UUID.randomUUID();
+
+        index.onStatusChanged(event(bookingId, null, BookingStatus.DRAFT));
+        assertThat(index.hasConflict(resourceId, t0, t0.plusHours(1), null)).isFalse();
+
+        index.onStatusChanged(event(bookingId, BookingStatus.DRAFT, BookingStatus.WAITING_PAYMENT));
+        assertThat(index.hasConflict(resourceId, t0, t0.plusHours(1), null)).isTrue();
+
+        index.onStatusChanged(event(bookingId, BookingStatus.WAITING_PAYMENT, BookingStatus.CONFIRMED));
+        assertThat(index.size()).isEqualTo(1);
+
+        index.onStatusChanged(event(bookingId, BookingStatus.WAITING_PAYMENT, BookingStatus.CANCELED));
+        assertThat(index.hasConflict(resourceId, t0, t0.plusHours(1), null)).isFalse();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void remembers_local_drafts_until_they_change_status_or_end() {
+        index.rebuild(Stream.empty());
+        UUID draft = UUID.randomUUID();
+        UUID expired = UUID.randomUUID();
+        index.onStatusChanged(new BookingStatusChangedEvent(draft, resourceId, t0, t0.plusHours(1),
+                null, BookingStatus.DRAFT));
+        index.onStatusChanged(new BookingStatusChangedEvent(expired, resourceId, t0.minusDays(1),
+                t0.minusDays(1).plusHours(1), null, BookingStatus.DRAFT));
+
+        assertThat(index.draft(draft)).contains(new BookingInterval(draft, resourceId, t0, t0.plusHours(1)));
+        assertThat(index.pruneDrafts(t0)).isEqualTo(1);
+        assertThat(index.draft(expired)).isEmpty();
+
+        index.onStatusChanged(new BookingStatusChangedEvent(draft, resourceId, t0, t0.plusHours(1),
+                BookingStatus.DRAFT, BookingStatus.WAITING_PAYMENT));
+        assertThat(index.draft(draft)).isEmpty();
+    }
+
+    @Test
+    void rebuild_replaces_content_and_snapshot_matches_source() {
+        index.rebuild(Stream.of(new BookingInterval(UUID.randomUUID(), resourceId, t0, t0.plusHours(1))));
+
+        BookingInterval fresh = new BookingInterval(UUID.randomUUID(), resourceId, t0.plusHours(5), t0.plusHours(6));
+        index.rebuild(Stream.of(fresh));
+
+        assertThat(index.hasConflict(resourceId, t0, t0.plusHours(1), null)).isFalse();
+        assertThat(index.snapshot()).containsExactly(BookingIntervalIndex.normalize(fresh));
+    }
+
+    private BookingStatusChangedEvent occupy(UUID bookingId, OffsetDateTime start, OffsetDateTime end) {
+        return new BookingStatusChangedEvent(bookingId, resourceId, start, end,
+                BookingStatus.DRAFT, BookingStatus.WAITING_PAYMENT);
+    }
+
+    private BookingStatusChangedEvent event(UUID bookingId, BookingStatus from, BookingStatus to) {
+        return new BookingStatusChangedEvent(bookingId, resourceId, t0, t0.plusHours(1), from, to);
+    }
+}
@@ -0,0 +1,61 @@
+package com.ramil.booking.resource_booking.domain.booking.model;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.ramil.booking.resource_booking.domain.booking.dto.TimeSlot;
+import com.ramil.booking.resource_booking.domain.booking.exception.InvalidRecurrenceException;
+
+class RecurrenceTest {
+
+    private final OffsetDateTime monday9 = OffsetDateTime.parse("2026-02-16T09:00:00Z");
+
+    @Test
+    void weekly_with_count_expands_to_same_weekday() {
+        List<TimeSlot> slots = new Recurrence(RecurrenceFrequency.WEEKLY, 1, 26, null)
+                .expand(monday9, monday9.plusHours(1), 366);
+
+        assertThat(slots).hasSize(26);
+        assertThat(slots.get(1)).isEqualTo(new TimeSlot(monday9.plusWeeks(1), monday9.plusWeeks(1).plusHours(1)));
+        assertThat(slots.get(25).startTime()).isEqualTo(monday9.plusWeeks(25));
+    }
+
+    @Test
+    void daily_with_interval_and_until_includes_occurrence_starting_at_until() {
+        List<TimeSlot> slots = new Recurrence(RecurrenceFrequency.DAILY, 2, null, monday9.plusDays(6))
+                .expand(monday9, monday9.plusHours(1), 366);
+
+        assertThat(slots).extracting(TimeSlot::startTime)
+                .containsExactly(monday9, monday9.plusDays(2), monday9.plusDays(4), monday9.plusDays(6));
+    }
+
+    @Test
+    void rejects_occurrence_longer_than_step() {
+        Recurrence daily = new Recurrence(RecurrenceFrequency.DAILY, 1, 3, null);
+
+        assertThatThrownBy(() -> daily.expand(monday9, monday9.plusHours(25), 366))
+                .isInstanceOf(InvalidRecurrenceException.class)
+                .hasMessageContaining("step");
+        assertThat(daily.expand(monday9, monday9.plusDays(1), 366)).hasSize(3);
+    }
+
+    @Test
+    void rejects_invalid_rules() {
+        assertThatThrownBy(() -> new Recurrence(RecurrenceFrequency.DAILY, 0, 3, null))
+                .isInstanceOf(InvalidRecurrenceException.class);
+        assertThatThrownBy(() -> new Recurrence(RecurrenceFrequency.DAILY, 1, null, null))
+                .isInstanceOf(InvalidRecurrenceException.class);
+        assertThatThrownBy(() -> new Recurrence(RecurrenceFrequency.DAILY, 1, 3, monday9))
+                .isInstanceOf(InvalidRecurrenceException.class);
+        assertThatThrownBy(() -> new Recurrence(RecurrenceFrequency.DAILY, 1, 400, null)
+                .expand(monday9, monday9.plusHours(1), 366))
+                .isInstanceOf(InvalidRecurrenceException.class);
+        assertThatThrownBy(() -> new Recurrence(RecurrenceFrequency.DAILY, 1, null, monday9.minusDays(1))
+                .expand(monday9, monday9.plusHours(1), 366))
+                .isInstanceOf(InvalidRecurrenceException.class);
+    }
+}
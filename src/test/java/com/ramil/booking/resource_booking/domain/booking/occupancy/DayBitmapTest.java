@@ -0,0 +1,43 @@
+package com.ramil.booking.resource_booking.domain.booking.occupancy;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+
+class DayBitmapTest {
+
+    private final LocalDate day = LocalDate.parse("2026-02-15");
+
+    @Test
+    void marks_every_slot_touched_by_interval() {
+        // 09:10-09:50 задевает слоты 09:00, 09:15, 09:30, 09:45
+        long[] bits = DayBitmap.newBitmap();
+        DayBitmap.mark(bits, day, at("09:10"), at("09:50"));
+
+        assertThat(DayBitmap.occupied(bits)).isEqualTo(4);
+        assertThat(DayBitmap.toHex(bits)).isEqualTo("000000000f00000000000000");
+        assertThat(DayBitmap.occupied(DayBitmap.empty())).isZero();
+    }
+
+    @Test
+    void clips_interval_to_the_day_and_spans_both_words() {
+        Instant start = day.minusDays(1).atTime(22, 0).toInstant(ZoneOffset.UTC);
+        Instant end = day.plusDays(1).atTime(1, 0).toInstant(ZoneOffset.UTC);
+
+        long[] bits = DayBitmap.newBitmap();
+        DayBitmap.mark(bits, day, start, end);
+
+        assertThat(DayBitmap.occupied(bits)).isEqualTo(DayBitmap.SLOTS);
+        assertThat(DayBitmap.toHex(bits)).isEqualTo("ffffffffffffffffffffffff");
+        assertThat(DayBitmap.days(start, end)).containsExactly(day.minusDays(1), day, day.plusDays(1));
+    }
+
+    private Instant at(String time) {
+        return day.atTime(LocalTime.parse(time)).toInstant(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,165 @@
+package com.ramil.booking.resource_booking.domain.booking.repository;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.ramil.booking.resource_booking.domain.booking.model.BookingPartitioning;
+
+// Секционирование booking (V10) на живом PostgreSQL: EXPLAIN запросов в форме BookingRepository / ResourceRepository
+// затрагивает только секции окна, пересечения через границу секций отклоняются триггером
+// Секции 2032 года создаются один раз и остаются в БД, бронирования теста удаляются
+// Запуск: docker-compose up -d && ./mvnw test -Ppostgres -Dtest=BookingPartitionPruningTest
+@Tag("postgres")
+@SpringBootTest
+class BookingPartitionPruningTest {
+
+    private static final OffsetDateTime FEB = OffsetDateTime.of(2032, 2, 10, 9, 0, 0, 0, ZoneOffset.UTC);
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private UUID userId;
+    private UUID resourceId;
+
+    @BeforeEach
+    void seed() {
+        for (int month = 1; month <= 4; month++) {
+            jdbc.queryForObject("select booking_create_partition(?)", Boolean.class, LocalDate.of(2032, month, 1));
+        }
+        userId = jdbc.queryForObject("select id from app_user order by email limit 1", UUID.class);
+        resourceId = UUID.randomUUID();
+        jdbc.update("""
+                insert into resource(id, name, description, active, created_at, created_by, updated_at, updated_by)
+                values (?, 'partition-test', null, true, now(), 'test', now(), 'test')
+                """, resourceId);
+        jdbc.execute("analyze booking");
+    }
+
+    @AfterEach
+    void cleanup() {
+        jdbc.update("delete from booking where resource_id = ?", resourceId);
+        jdbc.update("delete from resource where id = ?", resourceId);
+    }
+
+    @Test
+    void findConflicts_touches_only_partitions_of_the_window() {
+        String bounded = plan("""
+                select b.id from booking b
+                where b.resource_id = ?
+                  and b.status in ('WAITING_PAYMENT', 'CONFIRMED')
+                  and b.start_time < ?
+                  and b.start_time > ?
+                  and b.end_time > ?
+                """, resourceId, FEB.plusHours(1), BookingPartitioning.minStart(FEB), FEB);
+
+        assertThat(bounded).contains("booking_2032_01", "booking_2032_02")
+                .doesNotContain("booking_2032_03", "booking_2032_04", "booking_default");
+
+        // без нижней границы start_time планировщику приходится смотреть все прошлые секции
+        String unbounded = plan("""
+                select b.id from booking b
+                where b.resource_id = ?
+                  and b.status in ('WAITING_PAYMENT', 'CONFIRMED')
+                  and b.start_time < ?
+                  and b.end_time > ?
+                """, resourceId, FEB.plusHours(1), FEB);
+
+        assertThat(unbounded).contains("booking_default");
+    }
+
+    @Test
+    void findPage_with_time_filter_is_pruned() {
+        OffsetDateTime from = FEB.withDayOfMonth(1).withHour(0);
+        OffsetDateTime to = from.plusMonths(1);
+
+        String plan = plan("""
+                select b.id from booking b
+                where b.user_id = ?
+                  and b.start_time < ?
+                  and b.end_time > ?
+                  and b.start_time > ?
+                order by b.start_time desc, b.id desc
+                limit 21
+                """, userId, to, from, BookingPartitioning.minStart(from));
+
+        assertThat(plan).contains("booking_2032_02").doesNotContain("booking_2032_03", "booking_default");
+    }
+
+    @Test
+    void findFree_anti_join_is_pruned() {
+        String plan = plan("""
+                select r.id from resource r
+                where r.active = true
+                  and not exists (
+                      select 1 from booking b
+                      where b.resource_id = r.id
+                        and b.status in ('WAITING_PAYMENT', 'CONFIRMED')
+                        and b.start_time < ?
+                        and b.start_time > ?
+                        and tstzrange(b.start_time, b.end_time, '[)') && tstzrange(?, ?, '[)'))
+                order by r.name, r.id
+                limit 21
+                """, FEB.plusHours(2), BookingPartitioning.minStart(FEB), FEB, FEB.plusHours(2));
+
+        assertThat(plan).contains("booking_2032_02").doesNotContain("booking_2032_03", "booking_default");
+    }
+
+    @Test
+    void overlap_across_partition_boundary_is_rejected() {
+        OffsetDateTime midnight = OffsetDateTime.of(2032, 3, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        insert(midnight.minusHours(2), midnight.plusHours(2), "CONFIRMED");
+
+        // вторая бронь лежит в секции марта, первая — февраля: booking_no_overlap секций этого не видит
+        assertThatThrownBy(() -> insert(midnight.plusHours(1), midnight.plusHours(3), "WAITING_PAYMENT"))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .hasMessageContaining("conflicting booking");
+
+        // черновики слот не занимают
+        insert(midnight.plusHours(1), midnight.plusHours(3), "DRAFT");
+        insert(midnight.plusHours(2), midnight.plusHours(3), "CONFIRMED");
+    }
+
+    @Test
+    void creating_partition_moves_rows_out_of_default() {
+        OffsetDateTime start = OffsetDateTime.of(2033, 5, 10, 9, 0, 0, 0, ZoneOffset.UTC);
+        jdbc.update("drop table if exists booking_2033_05");
+        UUID id = insert(start, start.plusHours(1), "DRAFT");
+        assertThat(partitionOf(id)).isEqualTo("booking_default");
+
+        assertThat(jdbc.queryForObject("select booking_create_partition(?)", Boolean.class,
+                LocalDate.of(2033, 5, 1))).isTrue();
+
+        assertThat(partitionOf(id)).isEqualTo("booking_2033_05");
+    }
+
+    private UUID insert(OffsetDateTime start, OffsetDateTime end, String status) {
+        UUID id = UUID.randomUUID();
+        jdbc.update("""
+                insert into booking(id, user_id, resource_id, start_time, end_time, status,
+                                    created_at, created_by, updated_at, updated_by)
+                values (?, ?, ?, ?, ?, ?, now(), 'test', now(), 'test')
+                """, id, userId, resourceId, start, end, status);
+        return id;
+    }
+
+    private String partitionOf(UUID id) {
+        return jdbc.queryForObject("select tableoid::regclass::text from booking where id = ?", String.class, id);
+    }
+
+    private String plan(String sql, Object... args) {
+        return String.join("\n", jdbc.queryForList("explain (costs off) " + sql, String.class, args));
+    }
+}
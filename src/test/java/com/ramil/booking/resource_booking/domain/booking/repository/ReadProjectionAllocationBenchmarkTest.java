@@ -0,0 +1,148 @@
+package com.ramil.booking.resource_booking.domain.booking.repository;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingFilter;
+import com.ramil.booking.resource_booking.domain.booking.entity.BookingEntity;
+import com.ramil.booking.resource_booking.domain.booking.mapper.BookingMapper;
+import com.ramil.booking.resource_booking.domain.payment.entity.PaymentEntity;
+import com.ramil.booking.resource_booking.domain.payment.mapper.PaymentMapper;
+import com.ramil.booking.resource_booking.domain.payment.repository.PaymentRepository;
+
+import jakarta.persistence.EntityManager;
+
+// Аллокации на строку списка: сущности + MapStruct против проекции сразу в View
+// Считаются байты, выделенные текущим потоком (ThreadMXBean), внутри read-only транзакции
+// Данные: 5 000 бронирований пользователя и по платежу с provider_payload ~1 КБ на каждое, удаляются после теста
+// Проекция должна выделять на строку меньше, чем сущность с маппером, иначе тест падает
+// Запуск: docker-compose up -d && ./mvnw test -Pbenchmark -Dtest=ReadProjectionAllocationBenchmarkTest
+@Tag("benchmark")
+@SpringBootTest
+class ReadProjectionAllocationBenchmarkTest {
+
+    private static final int ROWS = 5_000;
+    private static final int PAGE = 100;
+    private static final int RUNS = 20;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private PaymentMapper paymentMapper;
+
+    @Autowired
+    private BookingMapper bookingMapper;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readOnlyTx;
+    private UUID userId;
+    private UUID resourceId;
+
+    @BeforeEach
+    void seed() {
+        readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+
+        userId = jdbc.queryForObject("select id from app_user order by email limit 1", UUID.class);
+        resourceId = UUID.randomUUID();
+        jdbc.update("""
+                insert into resource(id, name, description, active, created_at, created_by, updated_at, updated_by)
+                values (?, 'bench-projection', null, true, now(), 'benchmark', now(), 'benchmark')
+                """, resourceId);
+
+        // часовые бронирования в DRAFT (не участвуют в booking_no_overlap) и по платежу на каждое
+        OffsetDateTime base = OffsetDateTime.of(2031, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        jdbc.update("""
+                insert into booking(id, user_id, resource_id, start_time, end_time, status,
+                                    created_at, created_by, updated_at, updated_by)
+                select gen_random_uuid(), ?, ?, ? + g * interval '1 hour', ? + (g + 1) * interval '1 hour', 'DRAFT',
+                       now(), 'benchmark', now(), 'benchmark'
+                from generate_series(0, ? - 1) g
+                """, userId, resourceId, base, base, ROWS);
+        jdbc.update("""
+                insert into payment(id, booking_id, provider, type, status, amount, currency, provider_payload,
+                                    created_at, created_by, updated_at, updated_by)
+                select gen_random_uuid(), b.id, 'CARD', 'INSTANT', 'SUCCESS', 100.00, 'USD',
+                       jsonb_build_object('trace', repeat(md5(b.id::text), 32)),
+                       now(), 'benchmark', now(), 'benchmark'
+                from booking b
+                where b.resource_id = ?
+                """, resourceId);
+    }
+
+    @AfterEach
+    void cleanup() {
+        jdbc.update("delete from payment where booking_id in (select id from booking where resource_id = ?)", resourceId);
+        jdbc.update("delete from booking where resource_id = ?", resourceId);
+        jdbc.update("delete from resource where id = ?", resourceId);
+    }
+
+    @Test
+    void entity_mapping_vs_projection() {
+        double paymentEntities = bytesPerRow(() -> entityManager.createQuery("""
+                        select p from PaymentEntity p where p.booking.user.id = :userId
+                        """, PaymentEntity.class)
+                .setParameter("userId", userId)
+                .getResultList().stream().map(paymentMapper::toView).toList());
+        double paymentViews = bytesPerRow(() -> paymentRepository.findViewsByUserId(userId));
+
+        double bookingEntities = bytesPerRow(() -> entityManager.createQuery("""
+                        select b from BookingEntity b where b.user.id = :userId
+                        order by b.startTime desc, b.id desc
+                        """, BookingEntity.class)
+                .setParameter("userId", userId)
+                .setMaxResults(PAGE)
+                .getResultList().stream().map(bookingMapper::toView).toList());
+        double bookingViews = bytesPerRow(() -> bookingRepository.findPage(userId, BookingFilter.NONE, null, PAGE));
+
+        System.out.printf("listMyPayments  entity+mapper: %10.0f B/row, projection: %10.0f B/row%n",
+                paymentEntities, paymentViews);
+        System.out.printf("listMyBookings  entity+mapper: %10.0f B/row, projection: %10.0f B/row%n",
+                bookingEntities, bookingViews);
+
+        assertThat(paymentViews).as("listMyPayments projection B/row").isLessThan(paymentEntities);
+        assertThat(bookingViews).as("listMyBookings projection B/row").isLessThan(bookingEntities);
+    }
+
+    // Первый прогон прогревает планы запросов Hibernate и JIT, в замер не входит
+    private double bytesPerRow(Supplier<List<?>> read) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        readOnlyTx.execute(status -> read.get());
+
+        long rows = 0;
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < RUNS; i++) {
+            rows += readOnlyTx.execute(status -> read.get().size());
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        return (double) allocated / rows;
+    }
+}
@@ -0,0 +1,158 @@
+package com.ramil.booking.resource_booking.domain.booking.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ramil.booking.resource_booking.domain.booking.dto.TimeSlot;
+import com.ramil.booking.resource_booking.domain.booking.event.BookingStatusChangedEvent;
+import com.ramil.booking.resource_booking.domain.booking.exception.BookingTimeRangeException;
+import com.ramil.booking.resource_booking.domain.booking.model.BookingStatus;
+import com.ramil.booking.resource_booking.domain.booking.repository.BookingRepository;
+import com.ramil.booking.resource_booking.domain.resource.entity.ResourceEntity;
+import com.ramil.booking.resource_booking.domain.resource.exception.ResourceNotFoundException;
+import com.ramil.booking.resource_booking.domain.resource.repository.ResourceRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AvailabilityServiceTest {
+
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final ResourceRepository resourceRepository = mock(ResourceRepository.class);
+
+    private final UUID resourceId = UUID.randomUUID();
+    private final OffsetDateTime t0 = OffsetDateTime.parse("2026-02-15T08:00:00Z");
+
+    private AvailabilityService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new AvailabilityService(bookingRepository, resourceRepository, mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry(), Duration.ofDays(31), Duration.ofMinutes(1), 100);
+        when(resourceRepository.findById(resourceId))
+                .thenReturn(Optional.of(new ResourceEntity(resourceId, "Room 1", null, true)));
+    }
+
+    @Test
+    void returns_gaps_between_merged_busy_slots() {
+        // 09-10 и 09:30-11 сливаются в один занятый отрезок, 12-13 отдельно
+        busy(slot(1, 2), new TimeSlot(t0.plusMinutes(90), t0.plusHours(3)), slot(4, 5));
+
+        List<TimeSlot> gaps = service.availability(resourceId, t0, t0.plusHours(12), null);
+
+        assertThat(gaps).containsExactly(slot(0, 1), slot(3, 4), slot(5, 12));
+    }
+
+    @Test
+    void clips_slots_crossing_window_bounds_and_applies_min_duration() {
+        busy(slot(-2, 1), new TimeSlot(t0.plusHours(1).plusMinutes(30), t0.plusHours(2)), slot(3, 20));
+
+        List<TimeSlot> gaps = service.availability(resourceId, t0, t0.plusHours(12), Duration.ofHours(1));
+
+        assertThat(gaps).containsExactly(slot(2, 3));
+    }
+
+    @Test
+    void second_call_is_served_from_cache_until_status_change_on_resource() {
+        busy(slot(1, 2));
+        service.availability(resourceId, t0, t0.plusHours(12), null);
+        service.availability(resourceId, t0, t0.plusHours(12), null);
+
+        verify(bookingRepository, times(1)).streamBusySlots(eq(resourceId), any(), any(), anyList());
+
+        // переход DRAFT -> CANCELED занятость не меняет
+        service.onStatusChanged(event(BookingStatus.DRAFT, BookingStatus.CANCELED));
+        service.availability(resourceId, t0, t0.plusHours(12), null);
+        verify(bookingRepository, times(1)).streamBusySlots(eq(resourceId), any(), any(), anyList());
+
+        busy(slot(1, 2));
+        service.onStatusChanged(event(BookingStatus.DRAFT, BookingStatus.WAITING_PAYMENT));
+        service.availability(resourceId, t0, t0.plusHours(12), null);
+        verify(bookingRepository, times(2)).streamBusySlots(eq(resourceId), any(), any(), anyList());
+    }
+
+    @Test
+    void load_overtaken_by_status_change_is_not_cached() {
+        // загрузка прочитала свободное окно, а коммит бронирования пришёл до её окончания
+        when(bookingRepository.streamBusySlots(eq(resourceId), any(), any(), anyList())).thenAnswer(inv -> {
+            service.onStatusChanged(event(BookingStatus.DRAFT, BookingStatus.WAITING_PAYMENT));
+            return Stream.<TimeSlot>of();
+        }).thenAnswer(inv -> Stream.of(slot(0, 1)));
+
+        assertThat(service.availability(resourceId, t0, t0.plusHours(12), null)).containsExactly(slot(0, 12));
+        assertThat(service.availability(resourceId, t0, t0.plusHours(12), null)).containsExactly(slot(1, 12));
+        assertThat(service.availability(resourceId, t0, t0.plusHours(12), null)).containsExactly(slot(1, 12));
+
+        verify(bookingRepository, times(2)).streamBusySlots(eq(resourceId), any(), any(), anyList());
+    }
+
+    @Test
+    void status_change_drops_only_windows_of_its_resource() {
+        UUID other = UUID.randomUUID();
+        when(resourceRepository.findById(other))
+                .thenReturn(Optional.of(new ResourceEntity(other, "Room 2", null, true)));
+        when(bookingRepository.streamBusySlots(any(), any(), any(), anyList()))
+                .thenAnswer(inv -> Stream.<TimeSlot>of());
+        service.availability(resourceId, t0, t0.plusHours(12), null);
+        service.availability(resourceId, t0, t0.plusHours(6), null);
+        service.availability(other, t0, t0.plusHours(12), null);
+
+        service.onStatusChanged(event(BookingStatus.DRAFT, BookingStatus.WAITING_PAYMENT));
+        service.availability(resourceId, t0, t0.plusHours(12), null);
+        service.availability(resourceId, t0, t0.plusHours(6), null);
+        service.availability(other, t0, t0.plusHours(12), null);
+
+        verify(bookingRepository, times(4)).streamBusySlots(eq(resourceId), any(), any(), anyList());
+        verify(bookingRepository, times(1)).streamBusySlots(eq(other), any(), any(), anyList());
+    }
+
+    @Test
+    void inactive_resource_has_no_availability() {
+        when(resourceRepository.findById(resourceId))
+                .thenReturn(Optional.of(new ResourceEntity(resourceId, "Room 1", null, false)));
+
+        assertThat(service.availability(resourceId, t0, t0.plusHours(1), null)).isEmpty();
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void validates_input() {
+        assertThatThrownBy(() -> service.availability(resourceId, t0, t0, null))
+                .isInstanceOf(BookingTimeRangeException.class);
+        assertThatThrownBy(() -> service.availability(resourceId, t0, t0.plusDays(32), null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.availability(resourceId, t0, t0.plusHours(1), Duration.ofMinutes(-1)))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        UUID unknown = UUID.randomUUID();
+        when(resourceRepository.findById(unknown)).thenReturn(Optional.empty());
+        assertThatThrownBy(() -> service.availability(unknown, t0, t0.plusHours(1), null))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    private void busy(TimeSlot... slots) {
+        when(bookingRepository.streamBusySlots(eq(resourceId), any(), any(), anyList()))
+                .thenReturn(Stream.of(slots));
+    }
+
+    private TimeSlot slot(int fromHour, int toHour) {
+        return new TimeSlot(t0.plusHours(fromHour), t0.plusHours(toHour));
+    }
+
+    private BookingStatusChangedEvent event(BookingStatus from, BookingStatus to) {
+        return new BookingStatusChangedEvent(UUID.randomUUID(), resourceId, t0, t0.plusHours(1), from, to);
+    }
+}
@@ -0,0 +1,82 @@
+package com.ramil.booking.resource_booking.domain.booking.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ramil.booking.resource_booking.domain.booking.event.BookingStatusChangedEvent;
+import com.ramil.booking.resource_booking.domain.booking.index.BookingInterval;
+import com.ramil.booking.resource_booking.domain.booking.model.BookingStatus;
+import com.ramil.booking.resource_booking.domain.booking.repository.BookingRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class BookingExpiryServiceTest {
+
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final ApplicationEventPublisher events = mock(ApplicationEventPublisher.class);
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+
+    private final Instant now = Instant.parse("2026-02-15T12:00:00Z");
+    private final OffsetDateTime t0 = OffsetDateTime.parse("2026-02-16T10:00:00Z");
+
+    private final BookingExpiryService service = new BookingExpiryService(bookingRepository, events,
+            mock(PlatformTransactionManager.class), meters, Clock.fixed(now, ZoneOffset.UTC),
+            true, Duration.ofHours(24), Duration.ofMinutes(30), 2, Duration.ofMinutes(15));
+
+    @Test
+    void expires_in_chunks_until_short_batch_and_publishes_events() {
+        Instant cutoff = now.minus(Duration.ofMinutes(30));
+        Instant paymentCutoff = now.minus(Duration.ofMinutes(15));
+        when(bookingRepository.expireStale(BookingStatus.WAITING_PAYMENT, cutoff, paymentCutoff, 2))
+                .thenReturn(List.of(interval(), interval()))
+                .thenReturn(List.of(interval()));
+
+        int total = service.expire(BookingStatus.WAITING_PAYMENT, Duration.ofMinutes(30));
+
+        assertThat(total).isEqualTo(3);
+        verify(bookingRepository, times(2)).expireStale(BookingStatus.WAITING_PAYMENT, cutoff, paymentCutoff, 2);
+        verify(events, times(3)).publishEvent(any(BookingStatusChangedEvent.class));
+        assertThat(meters.get("booking.expired").tag("from", "WAITING_PAYMENT").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void reports_lag_of_oldest_remaining_stale_booking() {
+        Instant cutoff = now.minus(Duration.ofHours(24));
+        when(bookingRepository.expireStale(eq(BookingStatus.DRAFT), eq(cutoff), any(), anyInt())).thenReturn(List.of());
+        when(bookingRepository.findOldestStale(BookingStatus.DRAFT, cutoff)).thenReturn(cutoff.minusSeconds(90));
+
+        service.expire(BookingStatus.DRAFT, Duration.ofHours(24));
+
+        assertThat(meters.get("booking.expiry.lag").tag("status", "DRAFT").gauge().value()).isEqualTo(90);
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    void disabled_job_does_nothing() {
+        BookingExpiryService disabled = new BookingExpiryService(bookingRepository, events,
+                mock(PlatformTransactionManager.class), new SimpleMeterRegistry(), Clock.fixed(now, ZoneOffset.UTC),
+                false, Duration.ofHours(24), Duration.ofMinutes(30), 2, Duration.ofMinutes(15));
+
+        disabled.expireStale();
+
+        verifyNoInteractions(bookingRepository);
+    }
+
+    private BookingInterval interval() {
+        return new BookingInterval(UUID.randomUUID(), UUID.randomUUID(), t0, t0.plusHours(1));
+    }
+}
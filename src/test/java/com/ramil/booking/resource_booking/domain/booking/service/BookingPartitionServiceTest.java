@@ -0,0 +1,113 @@
+package com.ramil.booking.resource_booking.domain.booking.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ramil.booking.resource_booking.domain.booking.repository.BookingArchiveRepository;
+import com.ramil.booking.resource_booking.domain.booking.repository.BookingArchiveRepository.Partition;
+import com.ramil.booking.resource_booking.domain.booking.repository.BookingRepository;
+
+class BookingPartitionServiceTest {
+
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final BookingArchiveRepository archiveRepository = mock(BookingArchiveRepository.class);
+
+    // 23:30 по Москве 31 марта — в UTC ещё март
+    private final Clock clock = Clock.fixed(Instant.parse("2026-03-31T20:30:00Z"), ZoneOffset.ofHours(3));
+
+    @Test
+    void creates_partitions_ahead_and_archives_beyond_retention() {
+        BookingPartitionService service = service(true, 2, 24);
+        when(bookingRepository.createPartition(any())).thenReturn(false);
+        when(bookingRepository.createPartition(YearMonth.of(2026, 5))).thenReturn(true);
+        Partition old = new Partition("booking_2024_02", true, false);
+        when(archiveRepository.findPartitionsBefore(YearMonth.of(2024, 3))).thenReturn(List.of(old));
+        when(archiveRepository.isReady("booking_2024_02")).thenReturn(true);
+
+        service.maintain();
+
+        verify(bookingRepository).createPartition(YearMonth.of(2026, 3));
+        verify(bookingRepository).createPartition(YearMonth.of(2026, 4));
+        verify(bookingRepository).createPartition(YearMonth.of(2026, 5));
+        verify(bookingRepository, times(3)).createPartition(any());
+        verify(archiveRepository).detach(old, Duration.ofSeconds(5));
+        verify(archiveRepository).archiveDetached("booking_2024_02");
+    }
+
+    @Test
+    void skips_partitions_that_are_not_ready_or_fail_to_detach() {
+        Partition busy = new Partition("booking_2024_01", true, false);
+        Partition locked = new Partition("booking_2024_02", true, false);
+        when(archiveRepository.findPartitionsBefore(YearMonth.of(2024, 3))).thenReturn(List.of(busy, locked));
+        when(archiveRepository.isReady("booking_2024_01")).thenReturn(false);
+        when(archiveRepository.isReady("booking_2024_02")).thenReturn(true);
+        doThrow(new RuntimeException("canceling statement due to lock timeout"))
+                .when(archiveRepository).detach(eq(locked), any());
+
+        assertThat(service(true, 1, 24).archiveOlderThan(YearMonth.of(2024, 3))).isEmpty();
+
+        verify(archiveRepository, never()).detach(eq(busy), any());
+        verify(archiveRepository, never()).archiveDetached(any());
+    }
+
+    @Test
+    void finishes_partitions_left_by_an_interrupted_run() {
+        Partition pending = new Partition("booking_2024_01", true, true);
+        Partition detached = new Partition("booking_2024_02", false, false);
+        when(archiveRepository.findPartitionsBefore(YearMonth.of(2024, 3))).thenReturn(List.of(pending, detached));
+
+        assertThat(service(true, 1, 24).archiveOlderThan(YearMonth.of(2024, 3)))
+                .containsExactly("booking_2024_01", "booking_2024_02");
+
+        verify(archiveRepository, never()).isReady(any());
+        verify(archiveRepository).detach(eq(pending), any());
+        verify(archiveRepository, never()).detach(eq(detached), any());
+        verify(archiveRepository).archiveDetached("booking_2024_02");
+    }
+
+    @Test
+    void createAhead_counts_only_new_partitions() {
+        BookingPartitionService service = service(true, 1, 0);
+        when(bookingRepository.createPartition(YearMonth.of(2026, 3))).thenReturn(false);
+        when(bookingRepository.createPartition(YearMonth.of(2026, 4))).thenReturn(true);
+
+        assertThat(service.createAhead(YearMonth.of(2026, 3))).isEqualTo(1);
+    }
+
+    @Test
+    void zero_retention_keeps_old_partitions() {
+        service(true, 1, 0).maintain();
+
+        verifyNoInteractions(archiveRepository);
+    }
+
+    @Test
+    void disabled_job_does_nothing() {
+        service(false, 12, 36).maintain();
+
+        verifyNoInteractions(bookingRepository, archiveRepository);
+    }
+
+    @Test
+    void rejects_invalid_settings() {
+        assertThatThrownBy(() -> service(true, 0, 36)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service(true, 12, -1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private BookingPartitionService service(boolean enabled, int monthsAhead, int retentionMonths) {
+        return new BookingPartitionService(bookingRepository, archiveRepository, mock(PlatformTransactionManager.class),
+                clock, enabled, monthsAhead, retentionMonths, Duration.ofSeconds(5));
+    }
+}
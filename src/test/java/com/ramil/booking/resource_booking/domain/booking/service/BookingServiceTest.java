@@ -5,21 +5,43 @@ import static org.mockito.Mockito.*;
 
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import com.ramil.booking.resource_booking.domain.booking.dto.CreateBookingCommand;
 import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingCursor;
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingDraftResult;
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingFilter;
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingPage;
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingSeriesView;
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingTransition;
 import com.ramil.booking.resource_booking.domain.booking.dto.BookingView;
+import com.ramil.booking.resource_booking.domain.booking.dto.StatusTransition;
 import com.ramil.booking.resource_booking.domain.booking.entity.BookingEntity;
+import com.ramil.booking.resource_booking.domain.booking.event.BookingStatusChangedEvent;
+import com.ramil.booking.resource_booking.domain.booking.exception.BookingAccessDeniedException;
 import com.ramil.booking.resource_booking.domain.booking.exception.BookingConflictException;
+import com.ramil.booking.resource_booking.domain.booking.exception.BookingNotFoundException;
 import com.ramil.booking.resource_booking.domain.booking.exception.BookingStatusException;
+import com.ramil.booking.resource_booking.domain.booking.exception.BookingTimeRangeException;
+import com.ramil.booking.resource_booking.domain.booking.index.BookingInterval;
+import com.ramil.booking.resource_booking.domain.booking.index.BookingIntervalIndex;
+import com.ramil.booking.resource_booking.domain.booking.model.BookingPartitioning;
 import com.ramil.booking.resource_booking.domain.booking.model.BookingStatus;
+import com.ramil.booking.resource_booking.domain.booking.model.Recurrence;
+import com.ramil.booking.resource_booking.domain.booking.model.RecurrenceFrequency;
+import com.ramil.booking.resource_booking.domain.booking.model.TransitionOutcome;
 import com.ramil.booking.resource_booking.domain.booking.repository.BookingRepository;
 import com.ramil.booking.resource_booking.domain.resource.entity.ResourceEntity;
+import com.ramil.booking.resource_booking.domain.resource.exception.ResourceInactiveException;
 import com.ramil.booking.resource_booking.domain.resource.repository.ResourceRepository;
 import com.ramil.booking.resource_booking.domain.user.entity.AppUserEntity;
 import com.ramil.booking.resource_booking.domain.user.model.Role;
@@ -34,9 +56,11 @@ class BookingServiceTest {
     private final AppUserRepository appUserRepository = mock(AppUserRepository.class);
     private final CurrentUserProvider currentUser = mock(CurrentUserProvider.class);
     private final BookingMapper bookingMapper = mock(BookingMapper.class);
+    private final BookingIntervalIndex intervalIndex = new BookingIntervalIndex();
+    private final ApplicationEventPublisher events = mock(ApplicationEventPublisher.class);
 
-    private final BookingService bookingService =
-            new BookingService(bookingRepository, resourceRepository, appUserRepository, currentUser, bookingMapper);
+    private final BookingService bookingService = new BookingService(
+            bookingRepository, resourceRepository, appUserRepository, currentUser, bookingMapper, intervalIndex, events);
 
     @Test
     void markWaitingPayment_moves_draft_to_waitingPayment() {
@@ -46,87 +70,102 @@ class BookingServiceTest {
 
         when(currentUser.isAdmin()).thenReturn(false);
         when(currentUser.currentUserId()).thenReturn(userId);
-
-        AppUserEntity user = new AppUserEntity(userId, "u@test.com", "hash", Role.USER);
-        ResourceEntity resource = new ResourceEntity(resourceId, "Room 1", null, true);
+        when(currentUser.currentUserEmail()).thenReturn("u@test.com");
 
         OffsetDateTime start = OffsetDateTime.of(2026, 2, 10, 10, 0, 0, 0, ZoneOffset.UTC);
         OffsetDateTime end = start.plusHours(1);
 
-        BookingEntity booking = new BookingEntity(
-                bookingId, user, resource, start, end, BookingStatus.DRAFT
-        );
-
-        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
-        when(bookingRepository.saveAndFlush(any(BookingEntity.class))).thenAnswer(inv -> inv.getArgument(0));
-        BookingView expectedView = new BookingView(bookingId, userId, resourceId, start, end, BookingStatus.WAITING_PAYMENT);
-        when(bookingMapper.toView(any(BookingEntity.class))).thenReturn(expectedView);
+        BookingView updated = new BookingView(bookingId, userId, resourceId, start, end, BookingStatus.WAITING_PAYMENT, null);
+        when(bookingRepository.transition(any())).thenReturn(BookingTransition.applied(updated, BookingStatus.DRAFT));
 
         BookingView result = bookingService.markWaitingPayment(bookingId);
 
-        assertThat(result.status()).isEqualTo(BookingStatus.WAITING_PAYMENT);
-        assertThat(booking.getStatus()).isEqualTo(BookingStatus.WAITING_PAYMENT);
-
-        verify(bookingRepository).saveAndFlush(booking);
+        assertThat(result).isEqualTo(updated);
+        verify(bookingRepository).transition(StatusTransition
+                .of(bookingId, Set.of(BookingStatus.DRAFT), BookingStatus.WAITING_PAYMENT, "u@test.com")
+                .ownedBy(userId)
+                .withActiveResource());
+        verify(bookingRepository, never()).findById(any());
+        verify(events).publishEvent(new BookingStatusChangedEvent(
+                bookingId, resourceId, start, end, BookingStatus.DRAFT, BookingStatus.WAITING_PAYMENT));
     }
 
     @Test
-    void markWaitingPayment_throws_if_status_not_draft() {
+    void markWaitingPayment_local_draft_without_index_conflict_goes_through_single_transition() {
         UUID userId = UUID.randomUUID();
         UUID resourceId = UUID.randomUUID();
         UUID bookingId = UUID.randomUUID();
+        asUser(userId);
 
-        when(currentUser.isAdmin()).thenReturn(false);
-        when(currentUser.currentUserId()).thenReturn(userId);
-
-        AppUserEntity user = new AppUserEntity(userId, "u@test.com", "hash", Role.USER);
-        ResourceEntity resource = new ResourceEntity(resourceId, "Room 1", null, true);
-
-        OffsetDateTime start = OffsetDateTime.of(2026, 2, 10, 10, 0, 0, 0, ZoneOffset.UTC);
-        OffsetDateTime end = start.plusHours(1);
-
-        BookingEntity booking = new BookingEntity(
-                bookingId, user, resource, start, end, BookingStatus.WAITING_PAYMENT
-        );
+        OffsetDateTime start = OffsetDateTime.parse("2026-02-10T10:00:00Z");
+        intervalIndex.rebuild(Stream.of(
+                new BookingInterval(UUID.randomUUID(), resourceId, start.minusHours(2), start)));
+        intervalIndex.onStatusChanged(new BookingStatusChangedEvent(bookingId, resourceId,
+                start, start.plusHours(1), null, BookingStatus.DRAFT));
+        BookingView updated = new BookingView(bookingId, userId, resourceId, start, start.plusHours(1),
+                BookingStatus.WAITING_PAYMENT, null);
+        when(bookingRepository.transition(any())).thenReturn(BookingTransition.applied(updated, BookingStatus.DRAFT));
+
+        assertThat(bookingService.markWaitingPayment(bookingId)).isEqualTo(updated);
+
+        // индекс проверяется до UPDATE, но сам переход остаётся одним запросом
+        verify(bookingRepository).transition(any());
+        verifyNoMoreInteractions(bookingRepository);
+    }
 
-        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+    @Test
+    void markWaitingPayment_throws_if_status_not_draft() {
+        UUID bookingId = UUID.randomUUID();
+        asUser(UUID.randomUUID());
+        when(bookingRepository.transition(any())).thenReturn(
+                BookingTransition.rejected(TransitionOutcome.WRONG_STATE, BookingStatus.WAITING_PAYMENT, UUID.randomUUID()));
 
         assertThatThrownBy(() -> bookingService.markWaitingPayment(bookingId))
                 .isInstanceOf(BookingStatusException.class)
                 .hasMessageContaining("Current=WAITING_PAYMENT")
                 .hasMessageContaining("expected: DRAFT");
 
-        verify(bookingRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(events);
     }
 
     @Test
     void markWaitingPayment_throws_conflict_when_db_constraint_fails() {
-        UUID userId = UUID.randomUUID();
-        UUID resourceId = UUID.randomUUID();
         UUID bookingId = UUID.randomUUID();
+        asUser(UUID.randomUUID());
+        when(bookingRepository.transition(any())).thenThrow(new DataIntegrityViolationException("booking_no_overlap"));
 
-        when(currentUser.isAdmin()).thenReturn(false);
-        when(currentUser.currentUserId()).thenReturn(userId);
+        assertThatThrownBy(() -> bookingService.markWaitingPayment(bookingId))
+                .isInstanceOf(BookingConflictException.class);
 
-        AppUserEntity user = new AppUserEntity(userId, "u@test.com", "hash", Role.USER);
-        ResourceEntity resource = new ResourceEntity(resourceId, "Room 1", null, true);
+        verifyNoInteractions(events);
+    }
 
-        OffsetDateTime start = OffsetDateTime.of(2026, 2, 10, 10, 0, 0, 0, ZoneOffset.UTC);
-        OffsetDateTime end = start.plusHours(1);
+    @Test
+    void markWaitingPayment_throws_if_resource_deactivated() {
+        UUID bookingId = UUID.randomUUID();
+        UUID resourceId = UUID.randomUUID();
+        asUser(UUID.randomUUID());
+        when(bookingRepository.transition(any())).thenReturn(
+                BookingTransition.rejected(TransitionOutcome.RESOURCE_INACTIVE, BookingStatus.DRAFT, resourceId));
 
-        BookingEntity booking = new BookingEntity(
-                bookingId, user, resource, start, end, BookingStatus.DRAFT
-        );
+        assertThatThrownBy(() -> bookingService.markWaitingPayment(bookingId))
+                .isInstanceOf(ResourceInactiveException.class)
+                .hasMessageContaining(resourceId.toString());
+    }
 
-        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
-        when(bookingRepository.saveAndFlush(any(BookingEntity.class)))
-                .thenThrow(new DataIntegrityViolationException("booking_no_overlap"));
+    @Test
+    void markWaitingPayment_maps_missing_and_foreign_bookings() {
+        UUID bookingId = UUID.randomUUID();
+        asUser(UUID.randomUUID());
 
-        assertThatThrownBy(() -> bookingService.markWaitingPayment(bookingId))
-                .isInstanceOf(BookingConflictException.class);
+        when(bookingRepository.transition(any()))
+                .thenReturn(BookingTransition.rejected(TransitionOutcome.NOT_FOUND, null, null))
+                .thenReturn(BookingTransition.rejected(TransitionOutcome.NOT_OWNER, null, UUID.randomUUID()));
 
-        verify(bookingRepository).saveAndFlush(booking);
-        assertThat(booking.getStatus()).isEqualTo(BookingStatus.WAITING_PAYMENT);
+        assertThatThrownBy(() -> bookingService.markWaitingPayment(bookingId))
+                .isInstanceOf(BookingNotFoundException.class);
+        assertThatThrownBy(() -> bookingService.markWaitingPayment(bookingId))
+                .isInstanceOf(BookingAccessDeniedException.class);
     }
 
     @Test
@@ -144,6 +183,55 @@ class BookingServiceTest {
         verifyNoInteractions(resourceRepository, appUserRepository, bookingRepository);
     }
 
+    @Test
+    void createDraft_rejects_booking_longer_than_partition_bound() {
+        when(currentUser.currentUserId()).thenReturn(UUID.randomUUID());
+        OffsetDateTime start = OffsetDateTime.parse("2026-02-10T10:00:00Z");
+
+        assertThatThrownBy(() -> bookingService.createDraft(
+                new CreateBookingCommand(UUID.randomUUID(), start, start.plusDays(31).plusMinutes(1))))
+                .isInstanceOf(BookingTimeRangeException.class)
+                .hasMessageContaining("must not be longer than");
+
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void createDraft_index_hit_rejects_without_database() {
+        UUID userId = UUID.randomUUID();
+        UUID resourceId = UUID.randomUUID();
+        when(currentUser.currentUserId()).thenReturn(userId);
+
+        OffsetDateTime start = OffsetDateTime.parse("2026-02-10T10:00:00Z");
+        intervalIndex.rebuild(Stream.of(
+                new BookingInterval(UUID.randomUUID(), resourceId, start, start.plusHours(2))));
+
+        assertThatThrownBy(() -> bookingService.createDraft(
+                new CreateBookingCommand(resourceId, start.plusHours(1), start.plusHours(3))))
+                .isInstanceOf(BookingConflictException.class);
+
+        verifyNoInteractions(bookingRepository, resourceRepository, appUserRepository, events);
+    }
+
+    @Test
+    void markWaitingPayment_index_hit_for_local_draft_rejects_without_database() {
+        UUID userId = UUID.randomUUID();
+        UUID resourceId = UUID.randomUUID();
+        UUID draftId = UUID.randomUUID();
+        when(currentUser.currentUserId()).thenReturn(userId);
+
+        OffsetDateTime start = OffsetDateTime.parse("2026-02-10T10:00:00Z");
+        intervalIndex.rebuild(Stream.of(
+                new BookingInterval(UUID.randomUUID(), resourceId, start, start.plusHours(2))));
+        intervalIndex.onStatusChanged(new BookingStatusChangedEvent(draftId, resourceId,
+                start.plusHours(1), start.plusHours(3), null, BookingStatus.DRAFT));
+
+        assertThatThrownBy(() -> bookingService.markWaitingPayment(draftId))
+                .isInstanceOf(BookingConflictException.class);
+
+        verifyNoInteractions(bookingRepository, events);
+    }
+
     @Test
     void createDraft_throws_if_resource_not_found() {
         UUID userId = UUID.randomUUID();
@@ -153,13 +241,14 @@ class BookingServiceTest {
         OffsetDateTime start = OffsetDateTime.parse("2026-02-10T10:00:00Z");
         OffsetDateTime end = start.plusHours(1);
 
-        when(resourceRepository.findByIdForUpdate(resourceId)).thenReturn(Optional.empty());
+        when(resourceRepository.findById(resourceId)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() ->
                 bookingService.createDraft(new CreateBookingCommand(resourceId, start, end)))
                 .isInstanceOf(com.ramil.booking.resource_booking.domain.resource.exception.ResourceNotFoundException.class);
 
-        verify(resourceRepository).findByIdForUpdate(resourceId);
+        verify(resourceRepository).findById(resourceId);
+        verify(resourceRepository, never()).findByIdForUpdate(any());
         verifyNoInteractions(appUserRepository, bookingRepository);
     }
 
@@ -173,8 +262,8 @@ class BookingServiceTest {
         AppUserEntity user = new AppUserEntity(userId, "u@test.com", "hash", Role.USER);
         ResourceEntity resource = new ResourceEntity(resourceId, "Room 1", null, true);
 
-        when(resourceRepository.findByIdForUpdate(resourceId)).thenReturn(Optional.of(resource));
-        when(appUserRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(resourceRepository.findById(resourceId)).thenReturn(Optional.of(resource));
+        when(appUserRepository.getReferenceById(userId)).thenReturn(user);
         when(bookingRepository.findConflicts(eq(resourceId), any(), any(), anyList())).thenReturn(List.of());
         when(bookingRepository.save(any(BookingEntity.class))).thenAnswer(inv -> inv.getArgument(0));
 
@@ -182,7 +271,8 @@ class BookingServiceTest {
                 UUID.randomUUID(), userId, resourceId,
                 OffsetDateTime.parse("2026-02-10T10:00:00Z"),
                 OffsetDateTime.parse("2026-02-10T11:00:00Z"),
-                BookingStatus.DRAFT
+                BookingStatus.DRAFT,
+                null
         );
         when(bookingMapper.toView(any(BookingEntity.class))).thenReturn(expectedView);
 
@@ -196,6 +286,30 @@ class BookingServiceTest {
         assertThat(view.status()).isEqualTo(BookingStatus.DRAFT);
 
         verify(bookingRepository).save(any(BookingEntity.class));
+        // пользователь берётся из principal: ни одного запроса в app_user
+        verify(appUserRepository).getReferenceById(userId);
+        verifyNoMoreInteractions(appUserRepository);
+    }
+
+    @Test
+    void getById_and_cancel_do_not_query_user_table() {
+        UUID me = UUID.randomUUID();
+        UUID bookingId = UUID.randomUUID();
+
+        asUser(me);
+
+        UUID resourceId = UUID.randomUUID();
+        OffsetDateTime start = OffsetDateTime.parse("2026-02-10T10:00:00Z");
+
+        when(bookingRepository.findViewById(bookingId)).thenReturn(Optional.of(new BookingView(
+                bookingId, me, resourceId, start, start.plusHours(1), BookingStatus.DRAFT, null)));
+        when(bookingRepository.transition(any())).thenReturn(BookingTransition.applied(new BookingView(
+                bookingId, me, resourceId, start, start.plusHours(1), BookingStatus.CANCELED, null), BookingStatus.DRAFT));
+
+        bookingService.getById(bookingId);
+        bookingService.cancel(bookingId);
+
+        verifyNoInteractions(appUserRepository);
     }
 
     @Test
@@ -208,67 +322,358 @@ class BookingServiceTest {
         when(currentUser.isAdmin()).thenReturn(false);
         when(currentUser.currentUserId()).thenReturn(me);
 
-        AppUserEntity otherUser = new AppUserEntity(other, "o@test.com", "hash", Role.USER);
-        ResourceEntity resource = new ResourceEntity(resourceId, "Room 1", null, true);
-
         OffsetDateTime start = OffsetDateTime.parse("2026-02-10T10:00:00Z");
         OffsetDateTime end = start.plusHours(1);
 
-        BookingEntity booking = new BookingEntity(bookingId, otherUser, resource, start, end, BookingStatus.DRAFT);
-        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        when(bookingRepository.findViewById(bookingId)).thenReturn(Optional.of(
+                new BookingView(bookingId, other, resourceId, start, end, BookingStatus.DRAFT, null)));
 
         assertThatThrownBy(() -> bookingService.getById(bookingId))
                 .isInstanceOf(com.ramil.booking.resource_booking.domain.booking.exception.BookingAccessDeniedException.class);
 
-        verify(bookingRepository).findById(bookingId);
+        verify(bookingRepository).findViewById(bookingId);
+        verify(bookingRepository, never()).findById(any());
     }
 
     @Test
     void cancel_throws_if_confirmed() {
+        UUID bookingId = UUID.randomUUID();
+        asUser(UUID.randomUUID());
+        when(bookingRepository.transition(any())).thenReturn(
+                BookingTransition.rejected(TransitionOutcome.WRONG_STATE, BookingStatus.CONFIRMED, UUID.randomUUID()));
+
+        assertThatThrownBy(() -> bookingService.cancel(bookingId))
+                .isInstanceOf(BookingStatusException.class);
+
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    void cancel_by_admin_allows_confirmed_booking_and_publishes_event_for_refund() {
+        UUID bookingId = UUID.randomUUID();
+        UUID resourceId = UUID.randomUUID();
+        when(currentUser.isAdmin()).thenReturn(true);
+        when(currentUser.currentUserId()).thenReturn(UUID.randomUUID());
+        when(currentUser.currentUserEmail()).thenReturn("admin@test.com");
+
+        OffsetDateTime start = OffsetDateTime.parse("2026-02-10T10:00:00Z");
+        BookingView canceled = new BookingView(bookingId, UUID.randomUUID(), resourceId, start, start.plusHours(1),
+                BookingStatus.CANCELED, null);
+        when(bookingRepository.transition(any())).thenReturn(
+                BookingTransition.applied(canceled, BookingStatus.CONFIRMED));
+
+        assertThat(bookingService.cancel(bookingId)).isEqualTo(canceled);
+
+        verify(bookingRepository).transition(StatusTransition.of(bookingId,
+                Set.of(BookingStatus.DRAFT, BookingStatus.WAITING_PAYMENT, BookingStatus.EXPIRED, BookingStatus.CONFIRMED),
+                BookingStatus.CANCELED, "admin@test.com"));
+        verify(events).publishEvent(new BookingStatusChangedEvent(
+                bookingId, resourceId, start, start.plusHours(1), BookingStatus.CONFIRMED, BookingStatus.CANCELED));
+    }
+
+    @Test
+    void cancel_is_idempotent_for_canceled_booking() {
         UUID me = UUID.randomUUID();
         UUID bookingId = UUID.randomUUID();
+        asUser(me);
+
         UUID resourceId = UUID.randomUUID();
+        OffsetDateTime start = OffsetDateTime.parse("2026-02-10T10:00:00Z");
+
+        when(bookingRepository.transition(any())).thenReturn(
+                BookingTransition.rejected(TransitionOutcome.WRONG_STATE, BookingStatus.CANCELED, resourceId));
+        BookingView view = new BookingView(bookingId, me, resourceId, start, start.plusHours(1), BookingStatus.CANCELED, null);
+        when(bookingRepository.findViewById(bookingId)).thenReturn(Optional.of(view));
+
+        assertThat(bookingService.cancel(bookingId)).isEqualTo(view);
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    void confirmAfterPayment_throws_for_non_admin() {
+        UUID bookingId = UUID.randomUUID();
 
         when(currentUser.isAdmin()).thenReturn(false);
+
+        assertThatThrownBy(() -> bookingService.confirmAfterPayment(bookingId))
+                .isInstanceOf(BookingAccessDeniedException.class);
+
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void createDrafts_reports_result_per_input_and_saves_in_one_batch() {
+        UUID me = UUID.randomUUID();
+        UUID roomA = UUID.randomUUID();
+        UUID roomB = UUID.randomUUID();
+        UUID inactive = UUID.randomUUID();
+        UUID missing = UUID.randomUUID();
         when(currentUser.currentUserId()).thenReturn(me);
 
-        AppUserEntity user = new AppUserEntity(me, "u@test.com", "hash", Role.USER);
-        ResourceEntity resource = new ResourceEntity(resourceId, "Room 1", null, true);
+        OffsetDateTime t = OffsetDateTime.parse("2026-02-10T10:00:00Z");
+        ResourceEntity a = new ResourceEntity(roomA, "Room A", null, true);
+        ResourceEntity b = new ResourceEntity(roomB, "Room B", null, true);
+        ResourceEntity off = new ResourceEntity(inactive, "Room C", null, false);
+
+        when(resourceRepository.findAllById(anyCollection())).thenReturn(List.of(a, b, off));
+        when(appUserRepository.getReferenceById(me)).thenReturn(new AppUserEntity(me, "u@test.com", "hash", Role.USER));
+        // Room B занята 10:00-12:00
+        when(bookingRepository.findActiveIntervals(anyCollection(), any(), any(), anyList()))
+                .thenReturn(List.of(new BookingInterval(UUID.randomUUID(), roomB, t, t.plusHours(2))));
+        when(bookingRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+        when(bookingMapper.toView(any(BookingEntity.class))).thenAnswer(inv -> {
+            BookingEntity e = inv.getArgument(0);
+            return new BookingView(e.getId(), me, e.getResource().getId(), e.getStartTime(), e.getEndTime(), e.getStatus(),
+                    e.getSeriesId());
+        });
+
+        List<BookingDraftResult> results = bookingService.createDrafts(List.of(
+                new CreateBookingCommand(roomA, t, t.plusHours(1)),
+                new CreateBookingCommand(roomB, t.plusHours(1), t.plusHours(3)),
+                new CreateBookingCommand(roomB, t.plusHours(2), t.plusHours(3)),
+                new CreateBookingCommand(inactive, t, t.plusHours(1)),
+                new CreateBookingCommand(missing, t, t.plusHours(1)),
+                new CreateBookingCommand(roomA, t, t)
+        ));
+
+        assertThat(results).extracting(BookingDraftResult::index).containsExactly(0, 1, 2, 3, 4, 5);
+        assertThat(results).extracting(BookingDraftResult::errorCode).containsExactly(
+                null, "BOOKING_CONFLICT", null, "RESOURCE_INACTIVE", "RESOURCE_NOT_FOUND", "INVALID_TIME_RANGE");
+        assertThat(results.get(0).booking().status()).isEqualTo(BookingStatus.DRAFT);
+        assertThat(results.get(2).booking().resourceId()).isEqualTo(roomB);
+
+        verify(resourceRepository, times(1)).findAllById(anyCollection());
+        verify(bookingRepository, times(1)).findActiveIntervals(anyCollection(), any(), any(), anyList());
+        verify(bookingRepository, times(1)).saveAll(anyList());
+        assertThat(results).filteredOn(r -> r.booking() != null).hasSize(2);
+        verify(bookingRepository, never()).save(any());
+        verify(resourceRepository, never()).findByIdForUpdate(any());
+    }
 
-        OffsetDateTime start = OffsetDateTime.parse("2026-02-10T10:00:00Z");
-        OffsetDateTime end = start.plusHours(1);
+    @Test
+    void createDrafts_rejects_oversized_batch() {
+        OffsetDateTime t = OffsetDateTime.parse("2026-02-10T10:00:00Z");
+        List<CreateBookingCommand> cmds = Collections.nCopies(501,
+                new CreateBookingCommand(UUID.randomUUID(), t, t.plusHours(1)));
 
-        BookingEntity booking = new BookingEntity(bookingId, user, resource, start, end, BookingStatus.CONFIRMED);
-        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        assertThatThrownBy(() -> bookingService.createDrafts(cmds))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> bookingService.createDrafts(List.of()))
+                .isInstanceOf(IllegalArgumentException.class);
 
-        assertThatThrownBy(() -> bookingService.cancel(bookingId))
-                .isInstanceOf(BookingStatusException.class);
+        verifyNoInteractions(resourceRepository, bookingRepository);
+    }
 
+    @Test
+    void createSeries_checks_all_occurrences_in_one_query_and_links_them() {
+        UUID me = UUID.randomUUID();
+        UUID resourceId = UUID.randomUUID();
+        when(currentUser.currentUserId()).thenReturn(me);
+
+        OffsetDateTime monday9 = OffsetDateTime.parse("2026-02-16T09:00:00Z");
+        ResourceEntity resource = new ResourceEntity(resourceId, "Room 1", null, true);
+        when(resourceRepository.findById(resourceId)).thenReturn(Optional.of(resource));
+        when(appUserRepository.getReferenceById(me)).thenReturn(new AppUserEntity(me, "u@test.com", "hash", Role.USER));
+        when(bookingRepository.findConflictingOccurrences(eq(resourceId), anyString(), any())).thenReturn(List.of());
+        when(bookingRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+        when(bookingMapper.toView(any(BookingEntity.class))).thenAnswer(inv -> {
+            BookingEntity e = inv.getArgument(0);
+            return new BookingView(e.getId(), me, resourceId, e.getStartTime(), e.getEndTime(), e.getStatus(),
+                    e.getSeriesId());
+        });
+
+        BookingSeriesView series = bookingService.createSeries(new CreateBookingCommand(
+                resourceId, monday9, monday9.plusHours(1), new Recurrence(RecurrenceFrequency.WEEKLY, 1, 3, null)));
+
+        assertThat(series.bookings()).hasSize(3);
+        assertThat(series.bookings()).extracting(BookingView::seriesId).containsOnly(series.seriesId());
+        assertThat(series.bookings()).extracting(BookingView::status).containsOnly(BookingStatus.DRAFT);
+
+        verify(bookingRepository).findConflictingOccurrences(resourceId,
+                "{\"[2026-02-16T09:00Z,2026-02-16T10:00Z)\",\"[2026-02-23T09:00Z,2026-02-23T10:00Z)\","
+                        + "\"[2026-03-02T09:00Z,2026-03-02T10:00Z)\"}",
+                BookingPartitioning.minStart(monday9));
         verify(bookingRepository, never()).save(any());
     }
 
     @Test
-    void confirmAfterPayment_throws_for_non_admin() {
+    void createSeries_rejects_whole_series_on_any_conflict() {
         UUID me = UUID.randomUUID();
-        UUID bookingId = UUID.randomUUID();
         UUID resourceId = UUID.randomUUID();
+        when(currentUser.currentUserId()).thenReturn(me);
+
+        OffsetDateTime monday9 = OffsetDateTime.parse("2026-02-16T09:00:00Z");
+        when(resourceRepository.findById(resourceId))
+                .thenReturn(Optional.of(new ResourceEntity(resourceId, "Room 1", null, true)));
+        when(bookingRepository.findConflictingOccurrences(eq(resourceId), anyString(), any())).thenReturn(List.of(2L));
+
+        assertThatThrownBy(() -> bookingService.createSeries(new CreateBookingCommand(
+                resourceId, monday9, monday9.plusHours(1), new Recurrence(RecurrenceFrequency.WEEKLY, 1, 3, null))))
+                .isInstanceOf(BookingConflictException.class)
+                .hasMessageContaining("2026-02-23T09:00Z");
+
+        verify(bookingRepository, never()).saveAll(anyList());
+    }
 
+    @Test
+    void markSeriesWaitingPayment_moves_all_or_nothing() {
+        UUID me = UUID.randomUUID();
+        UUID seriesId = UUID.randomUUID();
         when(currentUser.isAdmin()).thenReturn(false);
+        when(currentUser.currentUserId()).thenReturn(me);
 
         AppUserEntity user = new AppUserEntity(me, "u@test.com", "hash", Role.USER);
-        ResourceEntity resource = new ResourceEntity(resourceId, "Room 1", null, true);
+        ResourceEntity resource = new ResourceEntity(UUID.randomUUID(), "Room 1", null, true);
+        OffsetDateTime t = OffsetDateTime.parse("2026-02-16T09:00:00Z");
+        BookingEntity first = new BookingEntity(UUID.randomUUID(), user, resource, t, t.plusHours(1), BookingStatus.DRAFT);
+        BookingEntity second = new BookingEntity(UUID.randomUUID(), user, resource, t.plusWeeks(1),
+                t.plusWeeks(1).plusHours(1), BookingStatus.CONFIRMED);
 
-        OffsetDateTime start = OffsetDateTime.parse("2026-02-10T10:00:00Z");
-        OffsetDateTime end = start.plusHours(1);
+        when(bookingRepository.findBySeriesId(seriesId)).thenReturn(List.of(first, second));
 
-        BookingEntity booking = new BookingEntity(bookingId, user, resource, start, end, BookingStatus.WAITING_PAYMENT);
-        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        assertThatThrownBy(() -> bookingService.markSeriesWaitingPayment(seriesId))
+                .isInstanceOf(BookingStatusException.class);
+        assertThat(first.getStatus()).isEqualTo(BookingStatus.DRAFT);
+        verify(bookingRepository, never()).saveAndFlush(any());
 
-        assertThatThrownBy(() -> bookingService.confirmAfterPayment(bookingId))
-                .isInstanceOf(com.ramil.booking.resource_booking.domain.booking.exception.BookingAccessDeniedException.class);
+        second.setStatus(BookingStatus.DRAFT);
+        when(resourceRepository.findByIdForShare(resource.getId())).thenReturn(Optional.of(resource));
+        when(bookingRepository.saveAndFlush(any(BookingEntity.class))).thenAnswer(inv -> inv.getArgument(0));
 
-        verify(bookingRepository, never()).saveAndFlush(any());
+        bookingService.markSeriesWaitingPayment(seriesId);
+
+        assertThat(first.getStatus()).isEqualTo(BookingStatus.WAITING_PAYMENT);
+        assertThat(second.getStatus()).isEqualTo(BookingStatus.WAITING_PAYMENT);
+        verify(events, times(2)).publishEvent(any(BookingStatusChangedEvent.class));
+    }
+
+    @Test
+    void markSeriesWaitingPayment_skips_canceled_occurrences() {
+        UUID me = UUID.randomUUID();
+        UUID seriesId = UUID.randomUUID();
+        when(currentUser.isAdmin()).thenReturn(false);
+        when(currentUser.currentUserId()).thenReturn(me);
+
+        AppUserEntity user = new AppUserEntity(me, "u@test.com", "hash", Role.USER);
+        ResourceEntity resource = new ResourceEntity(UUID.randomUUID(), "Room 1", null, true);
+        OffsetDateTime t = OffsetDateTime.parse("2026-02-16T09:00:00Z");
+        BookingEntity draft = new BookingEntity(UUID.randomUUID(), user, resource, t, t.plusHours(1), BookingStatus.DRAFT);
+        BookingEntity canceled = new BookingEntity(UUID.randomUUID(), user, resource, t.plusWeeks(1),
+                t.plusWeeks(1).plusHours(1), BookingStatus.CANCELED);
+
+        when(bookingRepository.findBySeriesId(seriesId)).thenReturn(List.of(draft, canceled));
+        when(resourceRepository.findByIdForShare(resource.getId())).thenReturn(Optional.of(resource));
+        when(bookingRepository.saveAndFlush(any(BookingEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        bookingService.markSeriesWaitingPayment(seriesId);
+
+        assertThat(draft.getStatus()).isEqualTo(BookingStatus.WAITING_PAYMENT);
+        assertThat(canceled.getStatus()).isEqualTo(BookingStatus.CANCELED);
+        verify(bookingRepository, never()).saveAndFlush(canceled);
+        verify(events, times(1)).publishEvent(any(BookingStatusChangedEvent.class));
+    }
+
+    @Test
+    void markSeriesWaitingPayment_reports_conflicting_occurrence() {
+        UUID me = UUID.randomUUID();
+        UUID seriesId = UUID.randomUUID();
+        when(currentUser.isAdmin()).thenReturn(false);
+        when(currentUser.currentUserId()).thenReturn(me);
+
+        AppUserEntity user = new AppUserEntity(me, "u@test.com", "hash", Role.USER);
+        ResourceEntity resource = new ResourceEntity(UUID.randomUUID(), "Room 1", null, true);
+        OffsetDateTime t = OffsetDateTime.parse("2026-02-16T09:00:00Z");
+        BookingEntity first = new BookingEntity(UUID.randomUUID(), user, resource, t, t.plusHours(1), BookingStatus.DRAFT);
+        BookingEntity second = new BookingEntity(UUID.randomUUID(), user, resource, t.plusWeeks(1),
+                t.plusWeeks(1).plusHours(1), BookingStatus.DRAFT);
+        BookingEntity third = new BookingEntity(UUID.randomUUID(), user, resource, t.plusWeeks(2),
+                t.plusWeeks(2).plusHours(1), BookingStatus.DRAFT);
+
+        when(bookingRepository.findBySeriesId(seriesId)).thenReturn(List.of(first, second, third));
+        when(resourceRepository.findByIdForShare(resource.getId())).thenReturn(Optional.of(resource));
+        when(bookingRepository.saveAndFlush(any(BookingEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(bookingRepository.saveAndFlush(second)).thenThrow(new DataIntegrityViolationException("booking_no_overlap"));
+
+        assertThatThrownBy(() -> bookingService.markSeriesWaitingPayment(seriesId))
+                .isInstanceOf(BookingConflictException.class)
+                .hasMessageContaining("2026-02-23T09:00Z")
+                .hasMessageNotContaining("2026-03-02");
+
+        verify(bookingRepository, never()).saveAndFlush(third);
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    void cancelSeries_refuses_when_any_occurrence_confirmed() {
+        UUID me = UUID.randomUUID();
+        UUID seriesId = UUID.randomUUID();
+        when(currentUser.isAdmin()).thenReturn(false);
+        when(currentUser.currentUserId()).thenReturn(me);
+
+        AppUserEntity user = new AppUserEntity(me, "u@test.com", "hash", Role.USER);
+        ResourceEntity resource = new ResourceEntity(UUID.randomUUID(), "Room 1", null, true);
+        OffsetDateTime t = OffsetDateTime.parse("2026-02-16T09:00:00Z");
+        BookingEntity draft = new BookingEntity(UUID.randomUUID(), user, resource, t, t.plusHours(1), BookingStatus.DRAFT);
+        BookingEntity confirmed = new BookingEntity(UUID.randomUUID(), user, resource, t.plusWeeks(1),
+                t.plusWeeks(1).plusHours(1), BookingStatus.CONFIRMED);
+        when(bookingRepository.findBySeriesId(seriesId)).thenReturn(List.of(draft, confirmed));
+
+        assertThatThrownBy(() -> bookingService.cancelSeries(seriesId))
+                .isInstanceOf(BookingStatusException.class);
+
+        assertThat(draft.getStatus()).isEqualTo(BookingStatus.DRAFT);
+        verify(bookingRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void listMyBookings_reads_one_extra_row_to_detect_next_page() {
+        UUID me = UUID.randomUUID();
+        when(currentUser.currentUserId()).thenReturn(me);
+
+        UUID resourceId = UUID.randomUUID();
+        OffsetDateTime t = OffsetDateTime.parse("2026-02-16T09:00:00Z");
+        List<BookingView> rows = List.of(
+                new BookingView(UUID.randomUUID(), me, resourceId, t.plusHours(2), t.plusHours(3), BookingStatus.DRAFT, null),
+                new BookingView(UUID.randomUUID(), me, resourceId, t.plusHours(1), t.plusHours(2), BookingStatus.DRAFT, null),
+                new BookingView(UUID.randomUUID(), me, resourceId, t, t.plusHours(1), BookingStatus.DRAFT, null));
+
+        BookingCursor after = new BookingCursor(t.plusDays(1), UUID.randomUUID());
+        BookingFilter filter = new BookingFilter(List.of(BookingStatus.DRAFT), null, null);
+        when(bookingRepository.findPage(me, filter, after, 3)).thenReturn(rows);
+
+        BookingPage page = bookingService.listMyBookings(filter, after.encode(), 2);
+
+        assertThat(page.items()).containsExactlyElementsOf(rows.subList(0, 2));
+        assertThat(page.hasNext()).isTrue();
+        verifyNoInteractions(bookingMapper);
     }
 
+    @Test
+    void listAll_validates_page_arguments() {
+        when(currentUser.isAdmin()).thenReturn(true);
+        OffsetDateTime t = OffsetDateTime.parse("2026-02-16T09:00:00Z");
+
+        assertThatThrownBy(() -> bookingService.listAll(null, null, 101))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> bookingService.listAll(null, "not-a-cursor", 20))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Invalid cursor");
+        assertThatThrownBy(() -> bookingService.listAll(new BookingFilter(null, t, t), null, 20))
+                .isInstanceOf(BookingTimeRangeException.class);
+
+        verify(bookingRepository, never()).findPage(any(), any(), any(), anyInt());
+    }
 
+    @Test
+    void cursor_round_trips() {
+        BookingCursor cursor = new BookingCursor(OffsetDateTime.parse("2026-02-16T09:00:00.123+03:00"), UUID.randomUUID());
+
+        assertThat(BookingCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    private void asUser(UUID userId) {
+        when(currentUser.isAdmin()).thenReturn(false);
+        when(currentUser.currentUserId()).thenReturn(userId);
+        when(currentUser.currentUserEmail()).thenReturn("u@test.com");
+    }
 }
@@ -0,0 +1,114 @@
+package com.ramil.booking.resource_booking.domain.booking.service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ramil.booking.resource_booking.config.security.AppUserPrincipal;
+import com.ramil.booking.resource_booking.domain.booking.dto.CreateBookingCommand;
+import com.ramil.booking.resource_booking.domain.resource.repository.ResourceRepository;
+
+// 200 потоков создают черновики на одном ресурсе:
+// текущий createDraft (без блокировки) против прежнего поведения — FOR UPDATE на ресурс до конца транзакции
+// Запуск: docker-compose up -d && ./mvnw test -Pbenchmark -Dtest=DraftCreationConcurrencyBenchmarkTest
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.datasource.hikari.maximum-pool-size=50")
+class DraftCreationConcurrencyBenchmarkTest {
+
+    private static final int THREADS = 200;
+    private static final Duration RUN = Duration.ofSeconds(10);
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private ResourceRepository resourceRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void lock_free_vs_resource_lock() throws Exception {
+        UUID resourceId = UUID.randomUUID();
+        jdbc.update("""
+                insert into resource(id, name, description, active, created_at, created_by, updated_at, updated_by)
+                values (?, 'bench-drafts', null, true, now(), 'benchmark', now(), 'benchmark')
+                """, resourceId);
+
+        AppUserPrincipal principal = (AppUserPrincipal) userDetailsService.loadUserByUsername("user@test.com");
+
+        try {
+            double locked = measure(principal, () -> transactionTemplate.executeWithoutResult(status -> {
+                resourceRepository.findByIdForUpdate(resourceId).orElseThrow();
+                bookingService.createDraft(command(resourceId));
+            }));
+            double lockFree = measure(principal, () -> bookingService.createDraft(command(resourceId)));
+
+            System.out.printf("FOR UPDATE on resource: %10.1f drafts/s%n", locked);
+            System.out.printf("lock-free createDraft:  %10.1f drafts/s%n", lockFree);
+        } finally {
+            jdbc.update("delete from booking where resource_id = ?", resourceId);
+            jdbc.update("delete from resource where id = ?", resourceId);
+        }
+    }
+
+    private double measure(AppUserPrincipal principal, Runnable call) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicLong done = new AtomicLong();
+        long[] window = new long[2];
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(pool.submit(() -> {
+                SecurityContextHolder.getContext().setAuthentication(
+                        UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities()));
+                start.await();
+                while (System.nanoTime() < window[1]) {
+                    call.run();
+                    done.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        window[0] = System.nanoTime();
+        window[1] = window[0] + RUN.toNanos();
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get();
+        }
+        pool.shutdown();
+
+        return done.get() / ((System.nanoTime() - window[0]) / 1e9);
+    }
+
+    private static CreateBookingCommand command(UUID resourceId) {
+        OffsetDateTime startTime = OffsetDateTime.now(ZoneOffset.UTC).plusDays(1);
+        return new CreateBookingCommand(resourceId, startTime, startTime.plusHours(1));
+    }
+}
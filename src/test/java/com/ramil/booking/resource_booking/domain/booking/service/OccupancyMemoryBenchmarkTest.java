@@ -0,0 +1,99 @@
+package com.ramil.booking.resource_booking.domain.booking.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ramil.booking.resource_booking.domain.booking.index.BookingInterval;
+import com.ramil.booking.resource_booking.domain.booking.repository.BookingRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Память кэша занятости на один (ресурс, день): ключ, узел Caffeine и битовая карта
+// Данные синтетические (репозиторий — mock): 1 000 ресурсов × 42 дня, в занятом варианте
+// по 6 бронирований в день, в свободном — ни одного (пустые дни делят один массив)
+// Замер — разница занятой кучи после System.gc(), поэтому число ориентировочное
+// Запуск: ./mvnw test -Pbenchmark -Dtest=OccupancyMemoryBenchmarkTest
+@Tag("benchmark")
+class OccupancyMemoryBenchmarkTest {
+
+    private static final int RESOURCES = 1_000;
+    private static final int DAYS = 42;
+    private static final int BATCH = 100;
+    private static final int BOOKINGS_PER_DAY = 6;
+
+    private final LocalDate from = LocalDate.parse("2026-03-01");
+
+    @Test
+    void bytes_per_resource_day() {
+        List<UUID> ids = new ArrayList<>(RESOURCES);
+        for (int i = 0; i < RESOURCES; i++) {
+            ids.add(UUID.randomUUID());
+        }
+
+        System.out.printf("occupancy busy days:  %6.1f B/resource-day%n", bytesPerResourceDay(ids, busy(ids)));
+        System.out.printf("occupancy empty days: %6.1f B/resource-day%n", bytesPerResourceDay(ids, List.of()));
+    }
+
+    private double bytesPerResourceDay(List<UUID> ids, List<BookingInterval> intervals) {
+        BookingRepository bookingRepository = mock(BookingRepository.class, withSettings().stubOnly());
+        when(bookingRepository.findActiveIntervals(anyCollection(), any(), any(), anyList())).thenAnswer(inv -> {
+            Set<UUID> requested = new HashSet<>(inv.getArgument(0));
+            return intervals.stream().filter(i -> requested.contains(i.resourceId())).toList();
+        });
+        OccupancyService service = new OccupancyService(bookingRepository, mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry(), DAYS, BATCH, Duration.ofHours(1), (long) RESOURCES * DAYS);
+
+        long before = usedHeap();
+        for (int i = 0; i < RESOURCES; i += BATCH) {
+            // ответ сразу отбрасывается, в куче остаётся только кэш
+            service.occupancy(ids.subList(i, i + BATCH), from, from.plusDays(DAYS - 1));
+        }
+        long after = usedHeap();
+
+        double perDay = (double) (after - before) / ((long) RESOURCES * DAYS);
+        // service держит кэш до замера
+        service.occupancy(ids.subList(0, 1), from, from);
+        return perDay;
+    }
+
+    // Каждый час с 08:00 по 13:00, по 45 минут
+    private List<BookingInterval> busy(List<UUID> ids) {
+        List<BookingInterval> intervals = new ArrayList<>(RESOURCES * DAYS * BOOKINGS_PER_DAY);
+        for (UUID id : ids) {
+            for (int d = 0; d < DAYS; d++) {
+                OffsetDateTime day = from.plusDays(d).atStartOfDay().atOffset(ZoneOffset.UTC);
+                for (int b = 0; b < BOOKINGS_PER_DAY; b++) {
+                    OffsetDateTime start = day.plusHours(8 + b);
+                    intervals.add(new BookingInterval(UUID.randomUUID(), id, start, start.plusMinutes(45)));
+                }
+            }
+        }
+        return intervals;
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
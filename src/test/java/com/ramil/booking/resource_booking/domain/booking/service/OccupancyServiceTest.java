@@ -0,0 +1,142 @@
+package com.ramil.booking.resource_booking.domain.booking.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ramil.booking.resource_booking.domain.booking.dto.DayOccupancy;
+import com.ramil.booking.resource_booking.domain.booking.dto.ResourceOccupancy;
+import com.ramil.booking.resource_booking.domain.booking.event.BookingStatusChangedEvent;
+import com.ramil.booking.resource_booking.domain.booking.index.BookingInterval;
+import com.ramil.booking.resource_booking.domain.booking.model.BookingStatus;
+import com.ramil.booking.resource_booking.domain.booking.repository.BookingRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class OccupancyServiceTest {
+
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+
+    private final UUID room1 = UUID.randomUUID();
+    private final UUID room2 = UUID.randomUUID();
+    private final LocalDate day = LocalDate.parse("2026-02-15");
+    private final OffsetDateTime t0 = OffsetDateTime.parse("2026-02-15T08:00:00Z");
+
+    private OccupancyService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new OccupancyService(bookingRepository, mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry(), 42, 10, Duration.ofMinutes(10), 1000);
+    }
+
+    @Test
+    void loads_all_resources_and_days_with_one_query() {
+        // 08:00-09:00 и ночь с 15 на 16 февраля 23:00-01:00
+        intervals(
+                new BookingInterval(UUID.randomUUID(), room1, t0, t0.plusHours(1)),
+                new BookingInterval(UUID.randomUUID(), room2, t0.plusHours(15), t0.plusHours(17)));
+
+        List<ResourceOccupancy> result = service.occupancy(List.of(room1, room2, room1), day, day.plusDays(1));
+
+        assertThat(result).extracting(ResourceOccupancy::resourceId).containsExactly(room1, room2);
+        assertThat(result.get(0).days()).extracting(DayOccupancy::date, DayOccupancy::occupiedSlots)
+                .containsExactly(tuple(day, 4), tuple(day.plusDays(1), 0));
+        assertThat(result.get(0).days().get(0).bitmap()).isEqualTo("00000000f000000000000000");
+        assertThat(result.get(1).days()).extracting(DayOccupancy::occupiedSlots).containsExactly(4, 4);
+        assertThat(result.get(1).days().get(0).slotMinutes()).isEqualTo(15);
+
+        verify(bookingRepository, times(1)).findActiveIntervals(anyCollection(), any(), any(), anyList());
+    }
+
+    @Test
+    void status_changes_invalidate_cached_days() {
+        intervals();
+        assertThat(slots(room1)).isZero();
+
+        // DRAFT -> CANCELED занятость не меняет, кэш остаётся
+        service.onStatusChanged(event(BookingStatus.DRAFT, BookingStatus.CANCELED, t0, t0.plusHours(1)));
+        assertThat(slots(room1)).isZero();
+        verify(bookingRepository, times(1)).findActiveIntervals(anyCollection(), any(), any(), anyList());
+
+        intervals(new BookingInterval(UUID.randomUUID(), room1, t0, t0.plusHours(1)));
+        service.onStatusChanged(event(BookingStatus.DRAFT, BookingStatus.WAITING_PAYMENT, t0, t0.plusHours(1)));
+        assertThat(slots(room1)).isEqualTo(4);
+
+        intervals();
+        service.onStatusChanged(event(BookingStatus.WAITING_PAYMENT, BookingStatus.EXPIRED, t0, t0.plusHours(1)));
+        assertThat(slots(room1)).isZero();
+
+        verify(bookingRepository, times(3)).findActiveIntervals(anyCollection(), any(), any(), anyList());
+    }
+
+    @Test
+    void load_overtaken_by_status_change_is_not_cached() {
+        // загрузка прочитала пустой день, а коммит бронирования пришёл до её окончания
+        when(bookingRepository.findActiveIntervals(anyCollection(), any(), any(), anyList())).thenAnswer(inv -> {
+            service.onStatusChanged(event(BookingStatus.DRAFT, BookingStatus.WAITING_PAYMENT, t0, t0.plusHours(1)));
+            return List.of();
+        }).thenReturn(List.of(new BookingInterval(UUID.randomUUID(), room1, t0, t0.plusHours(1))));
+
+        assertThat(slots(room1)).isZero();
+        assertThat(slots(room1)).isEqualTo(4);
+        assertThat(slots(room1)).isEqualTo(4);
+
+        verify(bookingRepository, times(2)).findActiveIntervals(anyCollection(), any(), any(), anyList());
+    }
+
+    @Test
+    void release_reloads_the_day() {
+        // 08:00-08:20 и 08:20-09:00 делят слот 08:15
+        intervals(
+                new BookingInterval(UUID.randomUUID(), room1, t0, t0.plusMinutes(20)),
+                new BookingInterval(UUID.randomUUID(), room1, t0.plusMinutes(20), t0.plusHours(1)));
+        assertThat(slots(room1)).isEqualTo(4);
+
+        intervals(new BookingInterval(UUID.randomUUID(), room1, t0.plusMinutes(20), t0.plusHours(1)));
+        service.onStatusChanged(event(BookingStatus.CONFIRMED, BookingStatus.CANCELED, t0, t0.plusMinutes(20)));
+
+        assertThat(slots(room1)).isEqualTo(3);
+        verify(bookingRepository, times(2)).findActiveIntervals(anyCollection(), any(), any(), anyList());
+    }
+
+    @Test
+    void validates_input() {
+        assertThatThrownBy(() -> service.occupancy(List.of(room1), day, day.minusDays(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.occupancy(List.of(room1), day, day.plusDays(42)))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        List<UUID> tooMany = Stream.generate(UUID::randomUUID).limit(11).toList();
+        assertThatThrownBy(() -> service.occupancy(tooMany, day, day))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(bookingRepository);
+    }
+
+    private int slots(UUID resourceId) {
+        return service.occupancy(List.of(resourceId), day, day).get(0).days().get(0).occupiedSlots();
+    }
+
+    private void intervals(BookingInterval... intervals) {
+        when(bookingRepository.findActiveIntervals(anyCollection(), any(), any(), anyList()))
+                .thenReturn(List.of(intervals));
+    }
+
+    private BookingStatusChangedEvent event(BookingStatus from, BookingStatus to,
+                                            OffsetDateTime start, OffsetDateTime end) {
+        return new BookingStatusChangedEvent(UUID.randomUUID(), room1, start, end, from, to);
+    }
+}
@@ -0,0 +1,131 @@
+package com.ramil.booking.resource_booking.domain.booking.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.ramil.booking.resource_booking.domain.booking.dto.CreateBookingCommand;
+import com.ramil.booking.resource_booking.domain.booking.dto.WaitlistEntryView;
+import com.ramil.booking.resource_booking.domain.booking.dto.WaitlistPromotion;
+import com.ramil.booking.resource_booking.domain.booking.event.BookingStatusChangedEvent;
+import com.ramil.booking.resource_booking.domain.booking.exception.BookingTimeRangeException;
+import com.ramil.booking.resource_booking.domain.booking.exception.WaitlistAccessDeniedException;
+import com.ramil.booking.resource_booking.domain.booking.model.BookingStatus;
+import com.ramil.booking.resource_booking.domain.booking.model.WaitlistStatus;
+import com.ramil.booking.resource_booking.domain.booking.repository.WaitlistRepository;
+import com.ramil.booking.resource_booking.domain.resource.dto.ResourceView;
+import com.ramil.booking.resource_booking.domain.resource.exception.ResourceInactiveException;
+import com.ramil.booking.resource_booking.domain.resource.repository.ResourceRepository;
+import com.ramil.booking.resource_booking.domain.user.security.CurrentUserProvider;
+
+class WaitlistServiceTest {
+
+    private final WaitlistRepository waitlistRepository = mock(WaitlistRepository.class);
+    private final ResourceRepository resourceRepository = mock(ResourceRepository.class);
+    private final CurrentUserProvider currentUser = mock(CurrentUserProvider.class);
+    private final ApplicationEventPublisher events = mock(ApplicationEventPublisher.class);
+
+    private final WaitlistService service = new WaitlistService(
+            waitlistRepository, resourceRepository, currentUser, events, 2);
+
+    private final UUID userId = UUID.randomUUID();
+    private final UUID resourceId = UUID.randomUUID();
+    private final OffsetDateTime start = OffsetDateTime.of(2026, 2, 15, 10, 0, 0, 0, ZoneOffset.UTC);
+    private final OffsetDateTime end = start.plusHours(1);
+
+    @BeforeEach
+    void setUp() {
+        when(currentUser.currentUserId()).thenReturn(userId);
+        when(currentUser.currentUserEmail()).thenReturn("u@test.com");
+        when(resourceRepository.findViewById(resourceId))
+                .thenReturn(Optional.of(new ResourceView(resourceId, "Room 1", null, true)));
+    }
+
+    @Test
+    void join_stores_entry_and_tries_to_promote_right_away() {
+        when(waitlistRepository.promote(resourceId, start, end)).thenReturn(List.of());
+        when(waitlistRepository.findViewById(any())).thenAnswer(inv -> Optional.of(entry(inv.getArgument(0),
+                userId, WaitlistStatus.WAITING)));
+
+        WaitlistEntryView result = service.join(new CreateBookingCommand(resourceId, start, end));
+
+        assertThat(result.status()).isEqualTo(WaitlistStatus.WAITING);
+        verify(waitlistRepository).insert(result.id(), userId, resourceId, start, end, "u@test.com");
+        verify(waitlistRepository).promote(resourceId, start, end);
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    void join_validates_range_resource_and_limit() {
+        assertThatThrownBy(() -> service.join(new CreateBookingCommand(resourceId, end, start)))
+                .isInstanceOf(BookingTimeRangeException.class);
+
+        UUID inactive = UUID.randomUUID();
+        when(resourceRepository.findViewById(inactive))
+                .thenReturn(Optional.of(new ResourceView(inactive, "Room 2", null, false)));
+        assertThatThrownBy(() -> service.join(new CreateBookingCommand(inactive, start, end)))
+                .isInstanceOf(ResourceInactiveException.class);
+
+        when(waitlistRepository.countWaitingByUserId(userId)).thenReturn(2L);
+        assertThatThrownBy(() -> service.join(new CreateBookingCommand(resourceId, start, end)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Waitlist limit");
+
+        verify(waitlistRepository, never()).insert(any(), any(), any(), any(), any(), anyString());
+    }
+
+    @Test
+    void freed_slot_promotes_waiters_and_announces_their_bookings() {
+        UUID bookingId = UUID.randomUUID();
+        UUID waiterId = UUID.randomUUID();
+        when(waitlistRepository.promote(resourceId, start, end)).thenReturn(List.of(
+                new WaitlistPromotion(UUID.randomUUID(), bookingId, waiterId, resourceId, start, end.plusHours(1))));
+
+        service.onStatusChanged(new BookingStatusChangedEvent(
+                UUID.randomUUID(), resourceId, start, end, BookingStatus.WAITING_PAYMENT, BookingStatus.EXPIRED));
+
+        verify(events).publishEvent(new BookingStatusChangedEvent(
+                bookingId, resourceId, start, end.plusHours(1), null, BookingStatus.WAITING_PAYMENT));
+    }
+
+    @Test
+    void transitions_that_do_not_free_a_slot_are_ignored() {
+        service.onStatusChanged(new BookingStatusChangedEvent(
+                UUID.randomUUID(), resourceId, start, end, BookingStatus.DRAFT, BookingStatus.CANCELED));
+        service.onStatusChanged(new BookingStatusChangedEvent(
+                UUID.randomUUID(), resourceId, start, end, BookingStatus.WAITING_PAYMENT, BookingStatus.CONFIRMED));
+
+        verify(waitlistRepository, never()).promote(any(), any(), any());
+    }
+
+    @Test
+    void leave_is_owner_only_and_idempotent() {
+        UUID mine = UUID.randomUUID();
+        UUID foreign = UUID.randomUUID();
+        when(waitlistRepository.findViewById(mine))
+                .thenReturn(Optional.of(entry(mine, userId, WaitlistStatus.PROMOTED)));
+        when(waitlistRepository.findViewById(foreign))
+                .thenReturn(Optional.of(entry(foreign, UUID.randomUUID(), WaitlistStatus.WAITING)));
+        when(waitlistRepository.cancel(eq(mine), anyString())).thenReturn(false);
+
+        assertThat(service.leave(mine).status()).isEqualTo(WaitlistStatus.PROMOTED);
+        assertThatThrownBy(() -> service.leave(foreign)).isInstanceOf(WaitlistAccessDeniedException.class);
+        verify(waitlistRepository, never()).cancel(eq(foreign), anyString());
+    }
+
+    private WaitlistEntryView entry(UUID id, UUID owner, WaitlistStatus status) {
+        return new WaitlistEntryView(id, owner, resourceId, start, end, status, null, start.minusDays(1));
+    }
+}
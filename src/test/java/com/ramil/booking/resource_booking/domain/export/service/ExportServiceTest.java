@@ -0,0 +1,106 @@
+package com.ramil.booking.resource_booking.domain.export.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingView;
+import com.ramil.booking.resource_booking.domain.booking.entity.BookingEntity;
+import com.ramil.booking.resource_booking.domain.booking.mapper.BookingMapper;
+import com.ramil.booking.resource_booking.domain.booking.model.BookingStatus;
+import com.ramil.booking.resource_booking.domain.booking.repository.BookingRepository;
+import com.ramil.booking.resource_booking.domain.export.exception.ExportAccessDeniedException;
+import com.ramil.booking.resource_booking.domain.export.model.ExportFormat;
+import com.ramil.booking.resource_booking.domain.payment.dto.PaymentView;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentProvider;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentStatus;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentType;
+import com.ramil.booking.resource_booking.domain.payment.repository.PaymentRepository;
+import com.ramil.booking.resource_booking.domain.user.security.CurrentUserProvider;
+
+import jakarta.persistence.EntityManager;
+
+class ExportServiceTest {
+
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final PaymentRepository paymentRepository = mock(PaymentRepository.class);
+    private final BookingMapper bookingMapper = mock(BookingMapper.class);
+    private final CurrentUserProvider currentUser = mock(CurrentUserProvider.class);
+    private final EntityManager entityManager = mock(EntityManager.class);
+
+    private final ExportService service = new ExportService(bookingRepository, paymentRepository,
+            bookingMapper, currentUser, entityManager,
+            new ObjectMapper().findAndRegisterModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+
+    private final OffsetDateTime t0 = OffsetDateTime.parse("2026-02-15T10:00:00Z");
+
+    @Test
+    void bookings_as_ndjson_one_object_per_line() {
+        when(currentUser.isAdmin()).thenReturn(true);
+        UUID id = UUID.randomUUID();
+        when(bookingRepository.streamAllForExport()).thenReturn(Stream.of(mock(BookingEntity.class)));
+        when(bookingMapper.toView(any())).thenReturn(new BookingView(id, UUID.randomUUID(), UUID.randomUUID(),
+                t0, t0.plusHours(1), BookingStatus.CONFIRMED, null));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = service.exportBookings(ExportFormat.NDJSON, out);
+
+        String body = out.toString(StandardCharsets.UTF_8);
+        assertThat(count).isEqualTo(1);
+        assertThat(body).endsWith("}\n").contains("\"id\":\"" + id + "\"")
+                .contains("\"startTime\":\"2026-02-15T10:00:00Z\"").contains("\"status\":\"CONFIRMED\"");
+    }
+
+    @Test
+    void payments_as_csv_with_header_and_quoting() {
+        when(currentUser.isAdmin()).thenReturn(true);
+        UUID id = UUID.randomUUID();
+        UUID bookingId = UUID.randomUUID();
+        when(paymentRepository.streamAllForExport()).thenReturn(Stream.of(new PaymentView(id, bookingId,
+                PaymentProvider.CARD, PaymentType.INSTANT, PaymentStatus.SUCCESS, new BigDecimal("100.00"), "RUB")));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.exportPayments(ExportFormat.CSV, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8).split("\r\n")).containsExactly(
+                "id,bookingId,provider,type,status,amount,currency",
+                id + "," + bookingId + ",CARD,INSTANT,SUCCESS,100.00,RUB");
+        assertThat(ExportService.csvValue("a,\"b\"")).isEqualTo("\"a,\"\"b\"\"\"");
+    }
+
+    @Test
+    void clears_persistence_context_after_each_batch() {
+        when(currentUser.isAdmin()).thenReturn(true);
+        int rows = ExportService.CLEAR_EVERY * 2 + 1;
+        when(bookingRepository.streamAllForExport())
+                .thenReturn(IntStream.range(0, rows).mapToObj(i -> mock(BookingEntity.class)));
+        when(bookingMapper.toView(any())).thenReturn(new BookingView(UUID.randomUUID(), UUID.randomUUID(),
+                UUID.randomUUID(), t0, t0.plusHours(1), BookingStatus.DRAFT, null));
+
+        long count = service.exportBookings(ExportFormat.CSV, new ByteArrayOutputStream());
+
+        assertThat(count).isEqualTo(rows);
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    void non_admin_is_rejected_before_reading() {
+        when(currentUser.isAdmin()).thenReturn(false);
+
+        assertThatThrownBy(() -> service.exportBookings(ExportFormat.NDJSON, new ByteArrayOutputStream()))
+                .isInstanceOf(ExportAccessDeniedException.class);
+        verifyNoInteractions(bookingRepository);
+    }
+}
@@ -0,0 +1,211 @@
+package com.ramil.booking.resource_booking.domain.idempotency.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ramil.booking.resource_booking.domain.idempotency.dto.StoredIdempotencyKey;
+import com.ramil.booking.resource_booking.domain.idempotency.exception.IdempotencyKeyInProgressException;
+import com.ramil.booking.resource_booking.domain.idempotency.exception.IdempotencyKeyReusedException;
+import com.ramil.booking.resource_booking.domain.idempotency.exception.IdempotentOutcomeUnknownException;
+import com.ramil.booking.resource_booking.domain.idempotency.model.IdempotentOperation;
+import com.ramil.booking.resource_booking.domain.idempotency.repository.IdempotencyKeyRepository;
+import com.ramil.booking.resource_booking.domain.user.security.CurrentUserProvider;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IdempotencyServiceTest {
+
+    private static final IdempotentOperation OP = IdempotentOperation.START_PAYMENT;
+
+    private final IdempotencyKeyRepository repository = mock(IdempotencyKeyRepository.class);
+    private final CurrentUserProvider currentUser = mock(CurrentUserProvider.class);
+    private final Clock clock = Clock.fixed(Instant.parse("2026-02-15T10:00:00Z"), ZoneOffset.UTC);
+    private final UUID userId = UUID.randomUUID();
+
+    // результаты «выполненных» запросов: load при повторе читает отсюда
+    private final Map<UUID, String> results = new ConcurrentHashMap<>();
+    private final AtomicInteger executions = new AtomicInteger();
+
+    private IdempotencyService service;
+
+    @BeforeEach
+    void setUp() {
+        when(currentUser.currentUserId()).thenReturn(userId);
+        when(repository.claim(any(), any(), any(), any(), any(), any(), any())).thenReturn(true);
+        service = service(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void without_key_action_runs_every_time() {
+        assertThat(run(null, "req")).isEqualTo("result-1");
+        assertThat(run(null, "req")).isEqualTo("result-2");
+
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void retry_with_same_key_returns_stored_result_without_running_again() {
+        String first = run("k1", "req");
+        String retry = run("k1", "req");
+
+        assertThat(retry).isEqualTo(first);
+        assertThat(executions).hasValue(1);
+        verify(repository).claim(eq(userId), eq(OP), eq("k1"), any(), any(), any(), any());
+        verify(repository).complete(eq(userId), eq(OP), eq("k1"), any());
+    }
+
+    @Test
+    void same_key_with_other_parameters_is_rejected() {
+        run("k1", "req");
+
+        assertThatThrownBy(() -> run("k1", "other"))
+                .isInstanceOf(IdempotencyKeyReusedException.class);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void result_stored_by_another_node_is_replayed() {
+        UUID stored = UUID.randomUUID();
+        results.put(stored, "from-other-node");
+        when(repository.claim(any(), any(), any(), any(), any(), any(), any())).thenReturn(false);
+        when(repository.find(userId, OP, "k1")).thenReturn(Optional.of(new StoredIdempotencyKey(
+                IdempotencyService.hash(OP, "req"), stored, OffsetDateTime.now(clock))));
+
+        assertThat(run("k1", "req")).isEqualTo("from-other-node");
+        assertThat(executions).hasValue(0);
+    }
+
+    @Test
+    void failed_execution_releases_key_and_retry_runs_again() {
+        assertThatThrownBy(() -> service.execute(OP, "k1", "req",
+                () -> { throw new IllegalStateException("provider down"); }, this::idOf, results::get))
+                .isInstanceOf(IllegalStateException.class);
+        verify(repository).release(userId, OP, "k1");
+
+        assertThat(run("k1", "req")).isEqualTo("result-1");
+    }
+
+    @Test
+    void unknown_outcome_keeps_key_and_retry_returns_written_result() {
+        UUID written = UUID.randomUUID();
+        results.put(written, "written-before-timeout");
+
+        assertThatThrownBy(() -> service.execute(OP, "k1", "req",
+                () -> { throw new IdempotentOutcomeUnknownException(written, new IllegalStateException("timeout")); },
+                this::idOf, results::get))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("timeout");
+        verify(repository, never()).release(any(), any(), any());
+        verify(repository).complete(userId, OP, "k1", written);
+
+        assertThat(run("k1", "req")).isEqualTo("written-before-timeout");
+        assertThat(executions).hasValue(0);
+    }
+
+    @Test
+    void unknown_outcome_without_key_throws_original_failure() {
+        assertThatThrownBy(() -> service.execute(OP, null, "req",
+                () -> { throw new IdempotentOutcomeUnknownException(UUID.randomUUID(), new IllegalStateException("timeout")); },
+                this::idOf, results::get))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("timeout");
+    }
+
+    @Test
+    void concurrent_duplicate_waits_for_first_execution() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> service.execute(OP, "k1", "req", () -> {
+            started.countDown();
+            await(release);
+            return execute();
+        }, this::idOf, results::get));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<String> duplicate = CompletableFuture.supplyAsync(() -> run("k1", "req"));
+        Thread.sleep(100);
+        assertThat(duplicate).isNotDone();
+
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("result-1");
+        assertThat(duplicate.get(5, TimeUnit.SECONDS)).isEqualTo("result-1");
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void duplicate_of_unfinished_execution_on_another_node_times_out() {
+        service = service(Duration.ofMillis(50));
+        when(repository.claim(any(), any(), any(), any(), any(), any(), any())).thenReturn(false);
+        when(repository.find(userId, OP, "k1")).thenReturn(Optional.of(new StoredIdempotencyKey(
+                IdempotencyService.hash(OP, "req"), null, OffsetDateTime.now(clock).plusMinutes(2))));
+
+        assertThatThrownBy(() -> run("k1", "req")).isInstanceOf(IdempotencyKeyInProgressException.class);
+        assertThat(executions).hasValue(0);
+    }
+
+    @Test
+    void key_longer_than_limit_is_rejected() {
+        String key = "k".repeat(IdempotencyService.MAX_KEY_LENGTH + 1);
+
+        assertThatThrownBy(() -> run(key, "req")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void purge_deletes_in_batches_until_short_batch() {
+        when(repository.deleteExpired(any(), anyInt())).thenReturn(10, 10, 3);
+
+        service.purgeExpired();
+
+        verify(repository, times(3)).deleteExpired(OffsetDateTime.now(clock), 10);
+    }
+
+    private IdempotencyService service(Duration waitTimeout) {
+        return new IdempotencyService(repository, currentUser, mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry(), clock, Duration.ofHours(24), Duration.ofMinutes(2), waitTimeout,
+                Duration.ofMillis(10), 1000, 10);
+    }
+
+    private String run(String key, String request) {
+        return service.execute(OP, key, request, this::execute, this::idOf, results::get);
+    }
+
+    private String execute() {
+        String result = "result-" + executions.incrementAndGet();
+        results.put(UUID.nameUUIDFromBytes(result.getBytes()), result);
+        return result;
+    }
+
+    private UUID idOf(String result) {
+        return UUID.nameUUIDFromBytes(result.getBytes());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
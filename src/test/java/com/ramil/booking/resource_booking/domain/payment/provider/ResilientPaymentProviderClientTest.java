@@ -0,0 +1,190 @@
+package com.ramil.booking.resource_booking.domain.payment.provider;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.ramil.booking.resource_booking.domain.payment.dto.PaymentProviderResilience;
+import com.ramil.booking.resource_booking.domain.payment.exception.PaymentProviderBusyException;
+import com.ramil.booking.resource_booking.domain.payment.exception.PaymentProviderTimeoutException;
+import com.ramil.booking.resource_booking.domain.payment.exception.PaymentProviderUnavailableException;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentProvider;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ResilientPaymentProviderClientTest {
+
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private final ExecutorService callExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ExecutorService pool = Executors.newCachedThreadPool();
+    private final FakeProvider fake = new FakeProvider();
+
+    @AfterEach
+    void shutdown() {
+        fake.release.countDown();
+        callExecutor.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    @Test
+    void slow_provider_is_abandoned_after_call_timeout() {
+        ResilientPaymentProviderClient client = client(settings(Duration.ofMillis(100), 4, Duration.ofSeconds(1), 1));
+        fake.latencies.add(Duration.ofSeconds(5));
+
+        long started = System.nanoTime();
+        assertThatThrownBy(() -> client.charge(BigDecimal.TEN, "USD", null))
+                .isInstanceOf(PaymentProviderTimeoutException.class);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(2));
+        assertThat(meters.get("payment.provider.call").tag("outcome", "timeout").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void bulkhead_rejects_calls_over_max_concurrent_without_waiting() throws Exception {
+        ResilientPaymentProviderClient client = client(settings(Duration.ofSeconds(5), 1, Duration.ofSeconds(1), 1));
+        fake.block = true;
+
+        CompletableFuture<Boolean> holder = CompletableFuture.supplyAsync(
+                () -> client.charge(BigDecimal.TEN, "USD", null), pool);
+        assertThat(fake.inside.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> client.charge(BigDecimal.TEN, "USD", null))
+                .isInstanceOf(PaymentProviderBusyException.class);
+        assertThat(meters.get("payment.provider.rejected").tag("reason", "bulkhead_full").counter().count())
+                .isEqualTo(1);
+
+        fake.release.countDown();
+        assertThat(holder.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(client.circuitState()).isEqualTo(ProviderCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void circuit_opens_after_failures_and_recovers_after_trial_call() throws Exception {
+        ResilientPaymentProviderClient client = client(new PaymentProviderResilience(Duration.ofSeconds(5), 4,
+                4, 4, 50, Duration.ofMillis(100), Duration.ofSeconds(1), 1));
+        fake.failing = true;
+
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> client.charge(BigDecimal.TEN, "USD", null))
+                    .isInstanceOf(IllegalStateException.class);
+        }
+        assertThat(client.circuitState()).isEqualTo(ProviderCircuitBreaker.State.OPEN);
+
+        assertThatThrownBy(() -> client.charge(BigDecimal.TEN, "USD", null))
+                .isInstanceOf(PaymentProviderUnavailableException.class);
+        assertThat(fake.calls).hasValue(4);
+
+        Thread.sleep(150);
+        fake.failing = false;
+        assertThat(client.charge(BigDecimal.TEN, "USD", null)).isTrue();
+        assertThat(client.circuitState()).isEqualTo(ProviderCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void declined_payment_is_not_a_provider_failure() {
+        ResilientPaymentProviderClient client = client(new PaymentProviderResilience(Duration.ofSeconds(5), 4,
+                2, 2, 50, Duration.ofSeconds(30), Duration.ofSeconds(1), 1));
+        fake.declining = true;
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(client.charge(BigDecimal.TEN, "USD", null)).isFalse();
+        }
+        assertThat(client.circuitState()).isEqualTo(ProviderCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void slow_cancel_is_hedged_and_first_answer_wins() {
+        ResilientPaymentProviderClient client = client(settings(Duration.ofSeconds(5), 4, Duration.ofMillis(50), 2));
+        fake.latencies.add(Duration.ofSeconds(3));
+        fake.latencies.add(Duration.ZERO);
+
+        long started = System.nanoTime();
+        assertThat(client.cancel(null)).isTrue();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(2));
+        assertThat(fake.calls).hasValue(2);
+        assertThat(meters.get("payment.provider.hedges").tag("operation", "cancel").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void charge_is_never_retried() {
+        ResilientPaymentProviderClient client = client(settings(Duration.ofSeconds(5), 4, Duration.ofMillis(10), 3));
+        fake.failing = true;
+
+        assertThatThrownBy(() -> client.charge(BigDecimal.TEN, "USD", null))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(fake.calls).hasValue(1);
+    }
+
+    private ResilientPaymentProviderClient client(PaymentProviderResilience settings) {
+        return new ResilientPaymentProviderClient(fake, settings, callExecutor, meters, Clock.systemUTC());
+    }
+
+    private static PaymentProviderResilience settings(Duration callTimeout, int maxConcurrent, Duration hedgeDelay,
+                                                      int maxAttempts) {
+        return new PaymentProviderResilience(callTimeout, maxConcurrent, 20, 10, 50, Duration.ofSeconds(30),
+                hedgeDelay, maxAttempts);
+    }
+
+    // Локальный провайдер с управляемой задержкой: latencies — задержки очередных вызовов,
+    // block — ждать release, failing — бросать исключение, declining — отказывать в оплате
+    private static final class FakeProvider implements PaymentProviderClient {
+        private final Queue<Duration> latencies = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger calls = new AtomicInteger();
+        private final CountDownLatch inside = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean block;
+        private volatile boolean failing;
+        private volatile boolean declining;
+
+        @Override
+        public PaymentProvider provider() {
+            return PaymentProvider.CARD;
+        }
+
+        @Override
+        public boolean charge(BigDecimal amount, String currency, String payloadJson) {
+            return call();
+        }
+
+        @Override
+        public boolean cancel(String payloadJson) {
+            return call();
+        }
+
+        private boolean call() {
+            calls.incrementAndGet();
+            inside.countDown();
+            Duration latency = latencies.poll();
+            try {
+                if (latency != null) {
+                    Thread.sleep(latency.toMillis());
+                }
+                if (block) {
+                    release.await(5, TimeUnit.SECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted");
+            }
+            if (failing) {
+                throw new IllegalStateException("provider down");
+            }
+            return !declining;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.ramil.booking.resource_booking.domain.payment.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ramil.booking.resource_booking.domain.payment.dto.OutboxPayment;
+import com.ramil.booking.resource_booking.domain.payment.exception.PaymentProviderBusyException;
+import com.ramil.booking.resource_booking.domain.payment.exception.PaymentProviderTimeoutException;
+import com.ramil.booking.resource_booking.domain.payment.exception.PaymentProviderUnavailableException;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentProvider;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentStatus;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentType;
+import com.ramil.booking.resource_booking.domain.payment.provider.PaymentProviderClient;
+import com.ramil.booking.resource_booking.domain.payment.provider.PaymentProviderRegistry;
+import com.ramil.booking.resource_booking.domain.payment.repository.PaymentOutboxRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PaymentOutboxWorkerTest {
+
+    private final PaymentOutboxRepository outboxRepository = mock(PaymentOutboxRepository.class);
+    private final PaymentTxService paymentTxService = mock(PaymentTxService.class);
+    private final PaymentProviderClient cardClient = mock(PaymentProviderClient.class);
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private final Instant now = Instant.parse("2026-02-15T10:00:00Z");
+    private final ExecutorService pool = Executors.newCachedThreadPool();
+    private final UUID paymentId = UUID.randomUUID();
+
+    private PaymentOutboxWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        when(cardClient.provider()).thenReturn(PaymentProvider.CARD);
+        PaymentProviderRegistry providers = new PaymentProviderRegistry(List.of(cardClient),
+                new MockEnvironment()
+                        .withProperty("app.payment.async.providers.CARD.max-in-flight", "2")
+                        .withProperty("app.payment.resilience.enabled", "false"),
+                meters);
+        worker = new PaymentOutboxWorker(outboxRepository, providers, paymentTxService, new ObjectMapper(),
+                mock(PlatformTransactionManager.class), meters, pool, Clock.fixed(now, ZoneOffset.UTC),
+                true, 10, Duration.ofMinutes(2), Duration.ofSeconds(10), 3);
+    }
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void successful_charge_finalizes_payment_and_removes_row() {
+        givenQueued(PaymentStatus.NEW, 1, "{\"card\": \"4242\"}");
+        when(cardClient.charge(new BigDecimal("100.00"), "USD", "{\"card\":\"4242\"}")).thenReturn(true);
+
+        worker.process(paymentId);
+
+        verify(paymentTxService).finalizePaymentTx(paymentId, true);
+        verify(outboxRepository).delete(paymentId);
+        assertThat(meters.get("payment.outbox.processed").tag("result", "success").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void busy_provider_schedules_retry_with_growing_backoff() {
+        givenQueued(PaymentStatus.NEW, 2, null);
+        when(cardClient.charge(any(), any(), any())).thenThrow(new PaymentProviderBusyException(PaymentProvider.CARD));
+
+        worker.process(paymentId);
+
+        OffsetDateTime retryAt = OffsetDateTime.ofInstant(now, ZoneOffset.UTC).plusSeconds(20);
+        verify(outboxRepository).retryLater(eq(paymentId), eq(retryAt), any());
+        verify(paymentTxService, never()).finalizePaymentTx(any(), anyBoolean());
+    }
+
+    @Test
+    void unavailable_provider_on_last_attempt_fails_payment() {
+        givenQueued(PaymentStatus.NEW, 3, null);
+        when(cardClient.charge(any(), any(), any()))
+                .thenThrow(new PaymentProviderUnavailableException(PaymentProvider.CARD));
+
+        worker.process(paymentId);
+
+        verify(paymentTxService).finalizePaymentTx(paymentId, false);
+        verify(outboxRepository).delete(paymentId);
+        verify(outboxRepository, never()).retryLater(any(), any(), any());
+    }
+
+    @Test
+    void unexpected_provider_error_parks_row_instead_of_retrying_or_failing() {
+        givenQueued(PaymentStatus.NEW, 3, null);
+        when(cardClient.charge(any(), any(), any())).thenThrow(new RuntimeException("connection reset"));
+
+        worker.process(paymentId);
+
+        verify(outboxRepository).park(eq(paymentId), any());
+        verify(outboxRepository, never()).retryLater(any(), any(), any());
+        verify(paymentTxService, never()).finalizePaymentTx(any(), anyBoolean());
+    }
+
+    @Test
+    void provider_timeout_parks_row_because_charge_may_have_happened() {
+        givenQueued(PaymentStatus.NEW, 1, null);
+        when(cardClient.charge(any(), any(), any()))
+                .thenThrow(new PaymentProviderTimeoutException(PaymentProvider.CARD, Duration.ofSeconds(5)));
+
+        worker.process(paymentId);
+
+        verify(outboxRepository).park(eq(paymentId), any());
+        verify(outboxRepository, never()).retryLater(any(), any(), any());
+        verify(paymentTxService, never()).finalizePaymentTx(any(), anyBoolean());
+    }
+
+    @Test
+    void finalize_failure_parks_row_instead_of_charging_again() {
+        givenQueued(PaymentStatus.NEW, 1, null);
+        when(cardClient.charge(any(), any(), any())).thenReturn(true);
+        when(paymentTxService.finalizePaymentTx(paymentId, true)).thenThrow(new IllegalStateException("booking gone"));
+
+        worker.process(paymentId);
+
+        verify(outboxRepository).park(eq(paymentId), any());
+        verify(outboxRepository, never()).retryLater(any(), any(), any());
+        assertThat(meters.get("payment.outbox.processed").tag("result", "parked").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void already_finished_payment_is_not_charged() {
+        givenQueued(PaymentStatus.SUCCESS, 1, null);
+
+        worker.process(paymentId);
+
+        verify(cardClient, never()).charge(any(), any(), any());
+        verify(outboxRepository).delete(paymentId);
+    }
+
+    @Test
+    void dispatch_claims_no_more_rows_than_free_in_flight_slots() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        when(outboxRepository.claim(eq(PaymentProvider.CARD), anyInt(), any(), any()))
+                .thenReturn(List.of(first, second));
+        when(outboxRepository.findPayment(any())).thenAnswer(inv -> Optional.of(new OutboxPayment(
+                inv.getArgument(0), PaymentProvider.CARD, PaymentType.INSTANT, PaymentStatus.NEW, BigDecimal.TEN, "USD", null, 1)));
+        when(cardClient.charge(any(), any(), any())).thenAnswer(inv -> release.await(5, TimeUnit.SECONDS));
+
+        assertThat(worker.dispatch(PaymentProvider.CARD)).isEqualTo(2);
+        verify(outboxRepository).claim(eq(PaymentProvider.CARD), eq(2), any(), any());
+
+        // оба слота заняты зависшим провайдером — новые строки не захватываются
+        assertThat(worker.dispatch(PaymentProvider.CARD)).isZero();
+        verify(outboxRepository, times(1)).claim(any(), anyInt(), any(), any());
+
+        release.countDown();
+        verify(paymentTxService, timeout(5000)).finalizePaymentTx(first, true);
+        verify(paymentTxService, timeout(5000)).finalizePaymentTx(second, true);
+    }
+
+    private void givenQueued(PaymentStatus status, int attempts, String payload) {
+        when(outboxRepository.findPayment(paymentId)).thenReturn(Optional.of(new OutboxPayment(
+                paymentId, PaymentProvider.CARD, PaymentType.INSTANT, status, new BigDecimal("100.00"), "USD", payload, attempts)));
+    }
+}
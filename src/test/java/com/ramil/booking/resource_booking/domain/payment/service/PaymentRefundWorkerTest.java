@@ -0,0 +1,117 @@
+package com.ramil.booking.resource_booking.domain.payment.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ramil.booking.resource_booking.domain.payment.dto.OutboxPayment;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentProvider;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentStatus;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentType;
+import com.ramil.booking.resource_booking.domain.payment.provider.PaymentProviderClient;
+import com.ramil.booking.resource_booking.domain.payment.provider.PaymentProviderRegistry;
+import com.ramil.booking.resource_booking.domain.payment.repository.PaymentRefundRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PaymentRefundWorkerTest {
+
+    private final PaymentRefundRepository refundRepository = mock(PaymentRefundRepository.class);
+    private final PaymentTxService paymentTxService = mock(PaymentTxService.class);
+    private final PaymentProviderClient cardClient = mock(PaymentProviderClient.class);
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private final Instant now = Instant.parse("2026-02-15T10:00:00Z");
+    private final UUID paymentId = UUID.randomUUID();
+
+    private PaymentRefundWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        when(cardClient.provider()).thenReturn(PaymentProvider.CARD);
+        PaymentProviderRegistry providers = new PaymentProviderRegistry(List.of(cardClient),
+                new MockEnvironment().withProperty("app.payment.resilience.enabled", "false"), meters);
+        worker = new PaymentRefundWorker(refundRepository, providers, paymentTxService, new ObjectMapper(),
+                mock(PlatformTransactionManager.class), meters, Clock.fixed(now, ZoneOffset.UTC),
+                true, 10, Duration.ofMinutes(2), Duration.ofSeconds(10), Duration.ofMinutes(5), 4);
+    }
+
+    @Test
+    void confirmed_cancel_completes_refund_and_removes_row() {
+        givenQueued(PaymentStatus.CANCELING, 1);
+        when(cardClient.cancel("{\"card\":\"4242\"}")).thenReturn(true);
+
+        worker.process(paymentId);
+
+        verify(paymentTxService).completeRefundTx(paymentId);
+        verify(refundRepository).delete(paymentId);
+        assertThat(meters.get("payment.refund.processed").tag("result", "refunded").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void provider_error_is_retried_with_exponential_backoff() {
+        givenQueued(PaymentStatus.CANCELING, 3);
+        when(cardClient.cancel(any())).thenThrow(new IllegalStateException("provider down"));
+
+        worker.process(paymentId);
+
+        // 10s * 2^(3 - 1)
+        verify(refundRepository).retryLater(eq(paymentId),
+                eq(OffsetDateTime.ofInstant(now, ZoneOffset.UTC).plusSeconds(40)), anyString());
+        verify(paymentTxService, never()).completeRefundTx(any());
+    }
+
+    @Test
+    void declined_cancel_is_parked_after_max_attempts() {
+        givenQueued(PaymentStatus.CANCELING, 4);
+        when(cardClient.cancel(any())).thenReturn(false);
+
+        worker.process(paymentId);
+
+        verify(refundRepository).park(paymentId, "provider declined cancel");
+        verify(refundRepository, never()).retryLater(any(), any(), any());
+        verify(paymentTxService, never()).completeRefundTx(any());
+    }
+
+    @Test
+    void already_canceled_payment_only_removes_row() {
+        givenQueued(PaymentStatus.CANCELED, 2);
+
+        worker.process(paymentId);
+
+        verify(refundRepository).delete(paymentId);
+        verify(cardClient, never()).cancel(any());
+    }
+
+    @Test
+    void backoff_doubles_per_attempt_up_to_max() {
+        assertThat(worker.backoff(1)).isEqualTo(Duration.ofSeconds(10));
+        assertThat(worker.backoff(2)).isEqualTo(Duration.ofSeconds(20));
+        assertThat(worker.backoff(5)).isEqualTo(Duration.ofSeconds(160));
+        assertThat(worker.backoff(6)).isEqualTo(Duration.ofMinutes(5));
+        assertThat(worker.backoff(60)).isEqualTo(Duration.ofMinutes(5));
+    }
+
+    private void givenQueued(PaymentStatus status, int attempts) {
+        when(refundRepository.findPayment(paymentId)).thenReturn(Optional.of(new OutboxPayment(paymentId,
+                PaymentProvider.CARD, PaymentType.INSTANT, status, new BigDecimal("100.00"), "USD",
+                "{\"card\": \"4242\"}", attempts)));
+    }
+}
@@ -5,23 +5,33 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ramil.booking.resource_booking.domain.booking.entity.BookingEntity;
+import com.ramil.booking.resource_booking.domain.booking.exception.BookingNotFoundException;
 import com.ramil.booking.resource_booking.domain.booking.model.BookingStatus;
 import com.ramil.booking.resource_booking.domain.booking.repository.BookingRepository;
+import com.ramil.booking.resource_booking.domain.idempotency.exception.IdempotentOutcomeUnknownException;
 import com.ramil.booking.resource_booking.domain.payment.dto.PaymentView;
 import com.ramil.booking.resource_booking.domain.payment.dto.StartPaymentCommand;
 import com.ramil.booking.resource_booking.domain.payment.entity.PaymentEntity;
+import com.ramil.booking.resource_booking.domain.payment.exception.PaymentAccessDeniedException;
+import com.ramil.booking.resource_booking.domain.payment.exception.PaymentProviderBusyException;
+import com.ramil.booking.resource_booking.domain.payment.exception.PaymentProviderTimeoutException;
 import com.ramil.booking.resource_booking.domain.payment.model.PaymentProvider;
 import com.ramil.booking.resource_booking.domain.payment.model.PaymentStatus;
 import com.ramil.booking.resource_booking.domain.payment.model.PaymentType;
+import com.ramil.booking.resource_booking.domain.payment.provider.DeferredCapturePaymentClient;
 import com.ramil.booking.resource_booking.domain.payment.provider.PaymentProviderClient;
+import com.ramil.booking.resource_booking.domain.payment.provider.PaymentProviderRegistry;
 import com.ramil.booking.resource_booking.domain.payment.repository.PaymentRepository;
 import com.ramil.booking.resource_booking.domain.resource.entity.ResourceEntity;
 import com.ramil.booking.resource_booking.domain.user.entity.AppUserEntity;
@@ -29,6 +39,8 @@ import com.ramil.booking.resource_booking.domain.user.model.Role;
 import com.ramil.booking.resource_booking.domain.user.security.CurrentUserProvider;
 import com.ramil.booking.resource_booking.domain.payment.mapper.PaymentMapper;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 class PaymentServiceTest {
 
     private PaymentRepository paymentRepository;
@@ -58,11 +70,12 @@ class PaymentServiceTest {
         paymentService = new PaymentService(
                 paymentRepository,
                 paymentTxService,
-                List.of(cardClient),
+                new PaymentProviderRegistry(List.of(cardClient), new MockEnvironment(), new SimpleMeterRegistry()),
                 objectMapper,
                 bookingRepository,
                 currentUser,
-                paymentMapper
+                paymentMapper,
+                false
         );
     }
 
@@ -128,6 +141,60 @@ class PaymentServiceTest {
         verify(paymentTxService).finalizePaymentTx(paymentId, false);
     }
 
+    @Test
+    void startPayment_in_async_mode_queues_payment_without_calling_provider() {
+        MockEnvironment env = new MockEnvironment().withProperty("app.payment.async.max-queued", "50");
+        paymentService = new PaymentService(paymentRepository, paymentTxService,
+                new PaymentProviderRegistry(List.of(cardClient), env, new SimpleMeterRegistry()), objectMapper,
+                bookingRepository, currentUser, paymentMapper, true);
+
+        UUID bookingId = UUID.randomUUID();
+        UUID paymentId = UUID.randomUUID();
+        StartPaymentCommand cmd = new StartPaymentCommand(
+                bookingId, PaymentProvider.CARD, PaymentType.INSTANT, new BigDecimal("100.00"), "USD", "{}"
+        );
+
+        PaymentEntity queued = paymentEntity(paymentId, bookingId, PaymentStatus.NEW, cmd);
+        when(paymentTxService.startAsyncPaymentTx(eq(cmd), any(), eq(50))).thenReturn(queued);
+        PaymentView expectedView = new PaymentView(paymentId, bookingId, cmd.provider(), cmd.type(), PaymentStatus.NEW, cmd.amount(), cmd.currency());
+        when(paymentMapper.toView(queued)).thenReturn(expectedView);
+
+        PaymentView view = paymentService.startPayment(cmd);
+
+        assertThat(view.status()).isEqualTo(PaymentStatus.NEW);
+        verify(cardClient, never()).charge(any(), any(), any());
+        verify(paymentTxService, never()).finalizePaymentTx(any(), anyBoolean());
+    }
+
+    @Test
+    void startPayment_timeout_reports_written_payment_as_unknown_outcome() {
+        UUID paymentId = UUID.randomUUID();
+        StartPaymentCommand cmd = new StartPaymentCommand(UUID.randomUUID(), PaymentProvider.CARD,
+                PaymentType.INSTANT, new BigDecimal("100.00"), "USD", "{}");
+        PaymentProviderTimeoutException timeout = new PaymentProviderTimeoutException(PaymentProvider.CARD,
+                Duration.ofSeconds(5));
+        when(paymentTxService.startPaymentTx(eq(cmd), any())).thenReturn(paymentId);
+        when(cardClient.charge(any(), any(), any())).thenThrow(timeout);
+
+        assertThatThrownBy(() -> paymentService.startPayment(cmd))
+                .isInstanceOfSatisfying(IdempotentOutcomeUnknownException.class, e -> {
+                    assertThat(e.resultId()).isEqualTo(paymentId);
+                    assertThat(e.failure()).isSameAs(timeout);
+                });
+        verify(paymentTxService, never()).finalizePaymentTx(any(), anyBoolean());
+    }
+
+    @Test
+    void startPayment_busy_provider_is_rethrown_as_is() {
+        StartPaymentCommand cmd = new StartPaymentCommand(UUID.randomUUID(), PaymentProvider.CARD,
+                PaymentType.INSTANT, new BigDecimal("100.00"), "USD", "{}");
+        when(paymentTxService.startPaymentTx(eq(cmd), any())).thenReturn(UUID.randomUUID());
+        when(cardClient.charge(any(), any(), any())).thenThrow(new PaymentProviderBusyException(PaymentProvider.CARD));
+
+        assertThatThrownBy(() -> paymentService.startPayment(cmd))
+                .isInstanceOf(PaymentProviderBusyException.class);
+    }
+
     @Test
     void startPayment_throws_if_unknown_provider() {
         UUID bookingId = UUID.randomUUID();
@@ -148,6 +215,55 @@ class PaymentServiceTest {
         verifyNoInteractions(paymentTxService);
     }
 
+    @Test
+    void startPayment_deferred_rejected_if_provider_cannot_capture_later() {
+        StartPaymentCommand cmd = new StartPaymentCommand(
+                UUID.randomUUID(),
+                PaymentProvider.CARD,
+                PaymentType.DEFERRED,
+                new BigDecimal("100.00"),
+                "USD",
+                "{}"
+        );
+
+        assertThatThrownBy(() -> paymentService.startPayment(cmd))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Deferred capture is not supported");
+
+        verifyNoInteractions(paymentTxService);
+    }
+
+    @Test
+    void startPayment_deferred_authorizes_instead_of_charging() {
+        DeferredCapturePaymentClient deferredClient = mock(DeferredCapturePaymentClient.class);
+        when(deferredClient.provider()).thenReturn(PaymentProvider.PAYPAL);
+        PaymentService service = new PaymentService(paymentRepository, paymentTxService,
+                new PaymentProviderRegistry(List.of(deferredClient), new MockEnvironment(), new SimpleMeterRegistry()),
+                objectMapper, bookingRepository, currentUser, paymentMapper, false);
+
+        UUID bookingId = UUID.randomUUID();
+        UUID paymentId = UUID.randomUUID();
+        StartPaymentCommand cmd = new StartPaymentCommand(
+                bookingId,
+                PaymentProvider.PAYPAL,
+                PaymentType.DEFERRED,
+                new BigDecimal("100.00"),
+                "USD",
+                "{}"
+        );
+        when(paymentTxService.startPaymentTx(eq(cmd), any())).thenReturn(paymentId);
+        when(deferredClient.authorize(cmd.amount(), cmd.currency(), cmd.payloadJson())).thenReturn(true);
+        PaymentEntity finalized = paymentEntity(paymentId, bookingId, PaymentStatus.AUTHORIZED, cmd);
+        when(paymentTxService.finalizePaymentTx(paymentId, true)).thenReturn(finalized);
+        when(paymentMapper.toView(finalized)).thenReturn(new PaymentView(paymentId, bookingId, cmd.provider(),
+                cmd.type(), PaymentStatus.AUTHORIZED, cmd.amount(), cmd.currency()));
+
+        PaymentView view = service.startPayment(cmd);
+
+        assertThat(view.status()).isEqualTo(PaymentStatus.AUTHORIZED);
+        verify(deferredClient, never()).charge(any(), any(), any());
+    }
+
     @Test
     void startPayment_throws_if_payloadJson_invalid() {
         UUID bookingId = UUID.randomUUID();
@@ -169,6 +285,39 @@ class PaymentServiceTest {
         verify(cardClient, never()).charge(any(), any(), any()); // важно: именно charge не должен вызваться
     }
 
+    @Test
+    void listByBooking_returns_projections_without_loading_entities() {
+        UUID me = UUID.randomUUID();
+        UUID bookingId = UUID.randomUUID();
+        when(currentUser.currentUserId()).thenReturn(me);
+        when(bookingRepository.findOwnerId(bookingId)).thenReturn(Optional.of(me));
+        PaymentView row = new PaymentView(UUID.randomUUID(), bookingId, PaymentProvider.CARD, PaymentType.INSTANT,
+                PaymentStatus.SUCCESS, new BigDecimal("100.00"), "USD");
+        when(paymentRepository.findViewsByBookingId(bookingId)).thenReturn(List.of(row));
+
+        assertThat(paymentService.listByBooking(bookingId)).containsExactly(row);
+
+        verify(bookingRepository, never()).findById(any());
+        verifyNoInteractions(paymentMapper);
+    }
+
+    @Test
+    void listByBooking_denies_foreign_booking_and_reports_missing() {
+        UUID bookingId = UUID.randomUUID();
+        when(currentUser.currentUserId()).thenReturn(UUID.randomUUID());
+        when(bookingRepository.findOwnerId(bookingId)).thenReturn(Optional.of(UUID.randomUUID()));
+
+        assertThatThrownBy(() -> paymentService.listByBooking(bookingId))
+                .isInstanceOf(PaymentAccessDeniedException.class);
+
+        UUID unknown = UUID.randomUUID();
+        when(bookingRepository.findOwnerId(unknown)).thenReturn(Optional.empty());
+        assertThatThrownBy(() -> paymentService.listByBooking(unknown))
+                .isInstanceOf(BookingNotFoundException.class);
+
+        verify(paymentRepository, never()).findViewsByBookingId(any());
+    }
+
     private static PaymentEntity paymentEntity(UUID paymentId, UUID bookingId, PaymentStatus status, StartPaymentCommand cmd) {
         UUID userId = UUID.randomUUID();
         UUID resourceId = UUID.randomUUID();
@@ -0,0 +1,125 @@
+package com.ramil.booking.resource_booking.domain.payment.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ramil.booking.resource_booking.domain.payment.dto.CaptureRequest;
+import com.ramil.booking.resource_booking.domain.payment.dto.CaptureResult;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentProvider;
+import com.ramil.booking.resource_booking.domain.payment.provider.DeferredCapturePaymentClient;
+import com.ramil.booking.resource_booking.domain.payment.provider.PaymentProviderClient;
+import com.ramil.booking.resource_booking.domain.payment.provider.PaymentProviderRegistry;
+import com.ramil.booking.resource_booking.domain.payment.repository.PaymentCaptureRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PaymentSettlementServiceTest {
+
+    private final PaymentCaptureRepository captureRepository = mock(PaymentCaptureRepository.class);
+    private final PaymentTxService paymentTxService = mock(PaymentTxService.class);
+    private final DeferredCapturePaymentClient cardClient = mock(DeferredCapturePaymentClient.class);
+    private final PaymentProviderClient paypalClient = mock(PaymentProviderClient.class);
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private final Instant now = Instant.parse("2026-02-15T10:00:00Z");
+
+    private PaymentSettlementService service;
+
+    @BeforeEach
+    void setUp() {
+        when(cardClient.provider()).thenReturn(PaymentProvider.CARD);
+        when(paypalClient.provider()).thenReturn(PaymentProvider.PAYPAL);
+        PaymentProviderRegistry providers = new PaymentProviderRegistry(List.of(cardClient, paypalClient),
+                new MockEnvironment().withProperty("app.payment.resilience.enabled", "false"), meters);
+        service = new PaymentSettlementService(captureRepository, providers, paymentTxService,
+                mock(PlatformTransactionManager.class), meters, Clock.fixed(now, ZoneOffset.UTC),
+                true, Duration.ofHours(1), Duration.ofMinutes(5), 2);
+    }
+
+    @Test
+    void due_authorizations_are_captured_in_batches_until_queue_is_drained() {
+        CaptureRequest a = request();
+        CaptureRequest b = request();
+        CaptureRequest c = request();
+        when(captureRepository.claimDue(eq(PaymentProvider.CARD), eq(now.minus(Duration.ofHours(1))), any(),
+                eq(OffsetDateTime.ofInstant(now, ZoneOffset.UTC).plusMinutes(5)), eq(2)))
+                .thenReturn(List.of(a, b), List.of(c));
+        when(cardClient.capture(List.of(a, b))).thenReturn(new CaptureResult(Set.of(a.paymentId(), b.paymentId()), Set.of()));
+        when(cardClient.capture(List.of(c))).thenReturn(new CaptureResult(Set.of(), Set.of(c.paymentId())));
+        when(paymentTxService.completeCaptureTx(any(), any())).thenReturn(2, 1);
+
+        int settled = service.settle(PaymentProvider.CARD);
+
+        assertThat(settled).isEqualTo(3);
+        verify(paymentTxService).completeCaptureTx(List.of(a.paymentId(), b.paymentId()), List.of());
+        verify(paymentTxService).completeCaptureTx(List.of(), List.of(c.paymentId()));
+        verify(captureRepository, times(2)).claimDue(any(), any(), any(), any(), anyInt());
+        assertThat(meters.get("payment.settlement.captured").tag("result", "captured").counter().count())
+                .isEqualTo(2);
+        assertThat(meters.get("payment.settlement.captured").tag("result", "declined").counter().count())
+                .isEqualTo(1);
+        assertThat(meters.get("payment.settlement.batches").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void payments_missing_from_provider_response_stay_authorized_for_retry() {
+        CaptureRequest a = request();
+        CaptureRequest b = request();
+        when(captureRepository.claimDue(any(), any(), any(), any(), anyInt())).thenReturn(List.of(a, b), List.of());
+        when(cardClient.capture(List.of(a, b))).thenReturn(new CaptureResult(Set.of(a.paymentId()), Set.of()));
+        when(paymentTxService.completeCaptureTx(any(), any())).thenReturn(1);
+
+        int settled = service.settle(PaymentProvider.CARD);
+
+        assertThat(settled).isEqualTo(1);
+        verify(paymentTxService).completeCaptureTx(List.of(a.paymentId()), List.of());
+        assertThat(meters.get("payment.settlement.captured").tag("result", "unreported").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void provider_failure_leaves_batch_for_retry_after_lease() {
+        CaptureRequest a = request();
+        when(captureRepository.claimDue(any(), any(), any(), any(), anyInt())).thenReturn(List.of(a));
+        when(cardClient.capture(any())).thenThrow(new IllegalStateException("provider down"));
+
+        int settled = service.settle(PaymentProvider.CARD);
+
+        assertThat(settled).isZero();
+        verify(paymentTxService, never()).completeCaptureTx(any(), any());
+        assertThat(meters.get("payment.settlement.captured").tag("result", "error").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void providers_without_deferred_capture_are_skipped() {
+        when(captureRepository.claimDue(any(), any(), any(), any(), anyInt())).thenReturn(List.of());
+
+        service.settleDue();
+
+        verify(captureRepository).claimDue(eq(PaymentProvider.CARD), any(), any(), any(), anyInt());
+        verify(captureRepository, never()).claimDue(eq(PaymentProvider.PAYPAL), any(), any(), any(), anyInt());
+        verifyNoInteractions(paymentTxService);
+    }
+
+    private static CaptureRequest request() {
+        return new CaptureRequest(UUID.randomUUID(), new BigDecimal("100.00"), "USD", null);
+    }
+}
@@ -2,29 +2,50 @@ package com.ramil.booking.resource_booking.domain.payment.service;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
 
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingTransition;
+import com.ramil.booking.resource_booking.domain.booking.dto.BookingView;
+import com.ramil.booking.resource_booking.domain.booking.dto.StatusTransition;
 import com.ramil.booking.resource_booking.domain.booking.entity.BookingEntity;
+import com.ramil.booking.resource_booking.domain.booking.event.BookingStatusChangedEvent;
 import com.ramil.booking.resource_booking.domain.booking.exception.BookingNotFoundException;
 import com.ramil.booking.resource_booking.domain.booking.exception.BookingStatusException;
 import com.ramil.booking.resource_booking.domain.booking.model.BookingStatus;
+import com.ramil.booking.resource_booking.domain.booking.model.TransitionOutcome;
 import com.ramil.booking.resource_booking.domain.booking.repository.BookingRepository;
+import com.ramil.booking.resource_booking.domain.payment.dto.CancelingPayment;
+import com.ramil.booking.resource_booking.domain.payment.dto.CapturedPayment;
+import com.ramil.booking.resource_booking.domain.payment.dto.PaymentView;
 import com.ramil.booking.resource_booking.domain.payment.dto.StartPaymentCommand;
 import com.ramil.booking.resource_booking.domain.payment.entity.PaymentEntity;
+import com.ramil.booking.resource_booking.domain.payment.event.PaymentStatusChangedEvent;
 import com.ramil.booking.resource_booking.domain.payment.exception.PaymentAccessDeniedException;
+import com.ramil.booking.resource_booking.domain.payment.exception.PaymentAmountMismatchException;
+import com.ramil.booking.resource_booking.domain.payment.exception.PaymentProviderBusyException;
+import com.ramil.booking.resource_booking.domain.payment.exception.PaymentStatusException;
 import com.ramil.booking.resource_booking.domain.payment.model.PaymentProvider;
 import com.ramil.booking.resource_booking.domain.payment.model.PaymentStatus;
 import com.ramil.booking.resource_booking.domain.payment.model.PaymentType;
+import com.ramil.booking.resource_booking.domain.payment.repository.PaymentCaptureRepository;
+import com.ramil.booking.resource_booking.domain.payment.repository.PaymentOutboxRepository;
+import com.ramil.booking.resource_booking.domain.payment.repository.PaymentRefundRepository;
 import com.ramil.booking.resource_booking.domain.payment.repository.PaymentRepository;
+import com.ramil.booking.resource_booking.domain.pricing.dto.PriceQuote;
+import com.ramil.booking.resource_booking.domain.pricing.service.PricingService;
 import com.ramil.booking.resource_booking.domain.resource.entity.ResourceEntity;
 import com.ramil.booking.resource_booking.domain.user.entity.AppUserEntity;
 import com.ramil.booking.resource_booking.domain.user.model.Role;
@@ -33,17 +54,28 @@ import com.ramil.booking.resource_booking.domain.user.security.CurrentUserProvid
 class PaymentTxServiceTest {
 
     private PaymentRepository paymentRepository;
+    private PaymentOutboxRepository outboxRepository;
+    private PaymentCaptureRepository captureRepository;
+    private PaymentRefundRepository refundRepository;
     private BookingRepository bookingRepository;
+    private PricingService pricingService;
     private CurrentUserProvider currentUser;
+    private ApplicationEventPublisher events;
 
     private PaymentTxService paymentTxService;
 
     @BeforeEach
     void setUp() {
         paymentRepository = mock(PaymentRepository.class);
+        outboxRepository = mock(PaymentOutboxRepository.class);
+        captureRepository = mock(PaymentCaptureRepository.class);
+        refundRepository = mock(PaymentRefundRepository.class);
         bookingRepository = mock(BookingRepository.class);
+        pricingService = mock(PricingService.class);
         currentUser = mock(CurrentUserProvider.class);
-        paymentTxService = new PaymentTxService(paymentRepository, bookingRepository, currentUser);
+        events = mock(ApplicationEventPublisher.class);
+        paymentTxService = new PaymentTxService(paymentRepository, outboxRepository, captureRepository, refundRepository,
+                bookingRepository, pricingService, currentUser, events);
     }
 
     @Test
@@ -162,6 +194,84 @@ class PaymentTxServiceTest {
         verify(paymentRepository).save(any(PaymentEntity.class));
     }
 
+    @Test
+    void startPaymentTx_rejects_amount_different_from_rate_card_price() {
+        UUID userId = UUID.randomUUID();
+        BookingEntity booking = waitingPaymentBooking(userId);
+        StartPaymentCommand cmd = new StartPaymentCommand(
+                booking.getId(), PaymentProvider.CARD, PaymentType.INSTANT,
+                new BigDecimal("1.00"), "USD", null
+        );
+
+        when(currentUser.currentUserId()).thenReturn(userId);
+        when(bookingRepository.findById(booking.getId())).thenReturn(Optional.of(booking));
+        givenPrice(booking, "100.00", "USD");
+
+        assertThatThrownBy(() -> paymentTxService.startPaymentTx(cmd, null))
+                .isInstanceOf(PaymentAmountMismatchException.class);
+
+        verifyNoInteractions(paymentRepository);
+    }
+
+    @Test
+    void startPaymentTx_accepts_amount_equal_to_rate_card_price() {
+        UUID userId = UUID.randomUUID();
+        BookingEntity booking = waitingPaymentBooking(userId);
+        StartPaymentCommand cmd = new StartPaymentCommand(
+                booking.getId(), PaymentProvider.CARD, PaymentType.INSTANT,
+                new BigDecimal("100"), "usd", null
+        );
+
+        when(currentUser.currentUserId()).thenReturn(userId);
+        when(bookingRepository.findById(booking.getId())).thenReturn(Optional.of(booking));
+        when(paymentRepository.save(any(PaymentEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+        givenPrice(booking, "100.00", "USD");
+
+        assertThat(paymentTxService.startPaymentTx(cmd, null)).isNotNull();
+        verify(paymentRepository).save(any(PaymentEntity.class));
+    }
+
+    @Test
+    void startAsyncPaymentTx_enqueues_payment_in_same_transaction() {
+        UUID userId = UUID.randomUUID();
+        UUID bookingId = UUID.randomUUID();
+
+        AppUserEntity user = new AppUserEntity(userId, "u@test.com", "hash", Role.USER);
+        ResourceEntity resource = new ResourceEntity(UUID.randomUUID(), "Room 1", null, true);
+        OffsetDateTime start = OffsetDateTime.now(ZoneOffset.UTC);
+        BookingEntity booking = new BookingEntity(
+                bookingId, user, resource, start, start.plusHours(1), BookingStatus.WAITING_PAYMENT
+        );
+        StartPaymentCommand cmd = new StartPaymentCommand(
+                bookingId, PaymentProvider.PAYPAL, PaymentType.INSTANT,
+                new BigDecimal("100.00"), "USD", null
+        );
+
+        when(currentUser.currentUserId()).thenReturn(userId);
+        when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        when(paymentRepository.save(any(PaymentEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        PaymentEntity payment = paymentTxService.startAsyncPaymentTx(cmd, null, 10);
+
+        assertThat(payment.getStatus()).isEqualTo(PaymentStatus.NEW);
+        verify(outboxRepository).enqueue(payment.getId(), PaymentProvider.PAYPAL);
+    }
+
+    @Test
+    void startAsyncPaymentTx_rejects_when_provider_queue_is_full() {
+        StartPaymentCommand cmd = new StartPaymentCommand(
+                UUID.randomUUID(), PaymentProvider.PAYPAL, PaymentType.INSTANT,
+                new BigDecimal("100.00"), "USD", null
+        );
+        when(outboxRepository.countQueued(PaymentProvider.PAYPAL, 10)).thenReturn(10);
+
+        assertThatThrownBy(() -> paymentTxService.startAsyncPaymentTx(cmd, null, 10))
+                .isInstanceOf(PaymentProviderBusyException.class);
+
+        verifyNoInteractions(paymentRepository);
+        verify(outboxRepository, never()).enqueue(any(), any());
+    }
+
     @Test
     void startPaymentTx_throws_when_booking_not_waiting_payment() {
         UUID userId = UUID.randomUUID();
@@ -196,98 +306,228 @@ class PaymentTxServiceTest {
     @Test
     void finalizePaymentTx_success_confirms_booking_and_sets_paid_fields() {
         UUID paymentId = UUID.randomUUID();
-        UUID bookingId = UUID.randomUUID();
-        UUID userId = UUID.randomUUID();
-        UUID resourceId = UUID.randomUUID();
-
-        AppUserEntity user = new AppUserEntity(userId, "user@test.com", "hash", Role.USER);
-        ResourceEntity resource = new ResourceEntity(resourceId, "Room 1", null, true);
-        OffsetDateTime start = OffsetDateTime.now(ZoneOffset.UTC);
-        OffsetDateTime end = start.plusHours(1);
-
-        BookingEntity booking = new BookingEntity(
-                bookingId, user, resource, start, end, BookingStatus.WAITING_PAYMENT
-        );
-        assertThat(booking.getPaidAt()).isNull();
-        assertThat(booking.getPaidBy()).isNull();
-
-        PaymentEntity payment = new PaymentEntity(
-                paymentId, booking, PaymentProvider.CARD, PaymentType.INSTANT,
-                PaymentStatus.NEW, new BigDecimal("100.00"), "USD", null
-        );
+        PaymentEntity payment = payment(paymentId);
+        UUID bookingId = payment.getBooking().getId();
 
-        when(paymentRepository.findById(paymentId)).thenReturn(Optional.of(payment));
+        givenNewPayment(payment);
         when(currentUser.currentUserEmail()).thenReturn("user@test.com");
-        when(paymentRepository.save(any(PaymentEntity.class))).thenAnswer(inv -> inv.getArgument(0));
-        when(bookingRepository.save(any(BookingEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(bookingRepository.transition(any())).thenReturn(
+                BookingTransition.applied(view(payment, BookingStatus.CONFIRMED), BookingStatus.WAITING_PAYMENT));
 
         PaymentEntity result = paymentTxService.finalizePaymentTx(paymentId, true);
 
         assertThat(result.getStatus()).isEqualTo(PaymentStatus.SUCCESS);
-        assertThat(booking.getStatus()).isEqualTo(BookingStatus.CONFIRMED);
-        assertThat(booking.getPaidAt()).isNotNull();
-        assertThat(booking.getPaidBy()).isEqualTo("user@test.com");
-        verify(bookingRepository).save(booking);
+        verify(bookingRepository).transition(StatusTransition
+                .of(bookingId, Set.of(BookingStatus.WAITING_PAYMENT), BookingStatus.CONFIRMED, "user@test.com")
+                .markPaidBy("user@test.com"));
+        verify(events).publishEvent(any(BookingStatusChangedEvent.class));
+        verify(events).publishEvent(new PaymentStatusChangedEvent(paymentId, bookingId,
+                payment.getBooking().getResource().getId(), payment.getBooking().getStartTime(),
+                new BigDecimal("100.00"), "USD", PaymentStatus.NEW, PaymentStatus.SUCCESS));
     }
 
     @Test
     void finalizePaymentTx_failure_sets_payment_failed_and_cancels_booking() {
         UUID paymentId = UUID.randomUUID();
-        UUID bookingId = UUID.randomUUID();
-        UUID userId = UUID.randomUUID();
-        UUID resourceId = UUID.randomUUID();
+        PaymentEntity payment = payment(paymentId);
+        UUID bookingId = payment.getBooking().getId();
 
-        AppUserEntity user = new AppUserEntity(userId, "u@test.com", "hash", Role.USER);
-        ResourceEntity resource = new ResourceEntity(resourceId, "Room 1", null, true);
-        OffsetDateTime start = OffsetDateTime.now(ZoneOffset.UTC);
-        OffsetDateTime end = start.plusHours(1);
+        givenNewPayment(payment);
+        when(currentUser.currentUserEmail()).thenReturn("system");
+        when(bookingRepository.transition(any())).thenReturn(
+                BookingTransition.applied(view(payment, BookingStatus.CANCELED), BookingStatus.WAITING_PAYMENT));
 
-        BookingEntity booking = new BookingEntity(
-                bookingId, user, resource, start, end, BookingStatus.WAITING_PAYMENT
-        );
-        PaymentEntity payment = new PaymentEntity(
-                paymentId, booking, PaymentProvider.CARD, PaymentType.INSTANT,
-                PaymentStatus.NEW, new BigDecimal("100.00"), "USD", null
-        );
+        PaymentEntity result = paymentTxService.finalizePaymentTx(paymentId, false);
 
-        when(paymentRepository.findById(paymentId)).thenReturn(Optional.of(payment));
-        when(paymentRepository.save(any(PaymentEntity.class))).thenAnswer(inv -> inv.getArgument(0));
-        when(bookingRepository.save(any(BookingEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+        assertThat(result.getStatus()).isEqualTo(PaymentStatus.FAILED);
+        verify(bookingRepository).transition(StatusTransition
+                .of(bookingId, Set.of(BookingStatus.WAITING_PAYMENT), BookingStatus.CANCELED, "system"));
+    }
+
+    @Test
+    void finalizePaymentTx_failure_keeps_booking_already_moved_on() {
+        UUID paymentId = UUID.randomUUID();
+        PaymentEntity payment = payment(paymentId);
+
+        givenNewPayment(payment);
+        when(currentUser.currentUserEmail()).thenReturn("system");
+        when(bookingRepository.transition(any())).thenReturn(BookingTransition.rejected(
+                TransitionOutcome.WRONG_STATE, BookingStatus.EXPIRED, payment.getBooking().getResource().getId()));
 
         PaymentEntity result = paymentTxService.finalizePaymentTx(paymentId, false);
 
         assertThat(result.getStatus()).isEqualTo(PaymentStatus.FAILED);
-        assertThat(booking.getStatus()).isEqualTo(BookingStatus.CANCELED);
-        verify(bookingRepository).save(booking);
+        verifyNoInteractions(events);
     }
 
     @Test
-    void finalizePaymentTx_success_throws_when_booking_not_waiting_payment() {
+    void finalizePaymentTx_booking_expired_during_charge_queues_refund() {
         UUID paymentId = UUID.randomUUID();
-        UUID bookingId = UUID.randomUUID();
-        UUID userId = UUID.randomUUID();
-        UUID resourceId = UUID.randomUUID();
+        PaymentEntity payment = payment(paymentId);
+        UUID bookingId = payment.getBooking().getId();
+
+        givenNewPayment(payment);
+        when(currentUser.currentUserEmail()).thenReturn("system");
+        when(bookingRepository.transition(any())).thenReturn(BookingTransition.rejected(
+                TransitionOutcome.WRONG_STATE, BookingStatus.EXPIRED, payment.getBooking().getResource().getId()));
+        when(refundRepository.requestForPayment(paymentId, "system")).thenAnswer(inv -> {
+            payment.setStatus(PaymentStatus.CANCELING);
+            return List.of(new CancelingPayment(paymentId, bookingId, PaymentStatus.SUCCESS,
+                    new BigDecimal("100.00"), "USD"));
+        });
 
-        AppUserEntity user = new AppUserEntity(userId, "u@test.com", "hash", Role.USER);
-        ResourceEntity resource = new ResourceEntity(resourceId, "Room 1", null, true);
-        OffsetDateTime start = OffsetDateTime.now(ZoneOffset.UTC);
-        OffsetDateTime end = start.plusHours(1);
+        PaymentEntity result = paymentTxService.finalizePaymentTx(paymentId, true);
 
-        BookingEntity booking = new BookingEntity(
-                bookingId, user, resource, start, end, BookingStatus.CONFIRMED
-        );
-        PaymentEntity payment = new PaymentEntity(
-                paymentId, booking, PaymentProvider.CARD, PaymentType.INSTANT,
-                PaymentStatus.NEW, new BigDecimal("100.00"), "USD", null
-        );
+        assertThat(result.getStatus()).isEqualTo(PaymentStatus.CANCELING);
+        verify(paymentRepository).finalizeNew(paymentId, PaymentStatus.SUCCESS, "system");
+        verify(refundRepository).requestForPayment(paymentId, "system");
+        // выручка по платежу не учитывалась — событий нет
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    void finalizePaymentTx_deferred_success_authorizes_without_revenue_and_paid_mark() {
+        UUID paymentId = UUID.randomUUID();
+        PaymentEntity payment = payment(paymentId, PaymentType.DEFERRED);
+        UUID bookingId = payment.getBooking().getId();
+
+        givenNewPayment(payment);
+        when(currentUser.currentUserEmail()).thenReturn("user@test.com");
+        when(bookingRepository.transition(any())).thenReturn(
+                BookingTransition.applied(view(payment, BookingStatus.CONFIRMED), BookingStatus.WAITING_PAYMENT));
+
+        PaymentEntity result = paymentTxService.finalizePaymentTx(paymentId, true);
 
+        assertThat(result.getStatus()).isEqualTo(PaymentStatus.AUTHORIZED);
+        verify(paymentRepository).finalizeNew(paymentId, PaymentStatus.AUTHORIZED, "user@test.com");
+        verify(bookingRepository).transition(StatusTransition
+                .of(bookingId, Set.of(BookingStatus.WAITING_PAYMENT), BookingStatus.CONFIRMED, "user@test.com"));
+        verify(events).publishEvent(any(BookingStatusChangedEvent.class));
+        verify(events, never()).publishEvent(any(PaymentStatusChangedEvent.class));
+    }
+
+    @Test
+    void finalizePaymentTx_payment_already_finalized_leaves_booking_alone() {
+        UUID paymentId = UUID.randomUUID();
+        PaymentEntity payment = payment(paymentId);
+        payment.setStatus(PaymentStatus.FAILED);
+
+        when(paymentRepository.findViewById(paymentId)).thenReturn(Optional.of(view(payment)));
+        when(currentUser.currentUserEmail()).thenReturn("system");
+        when(paymentRepository.finalizeNew(paymentId, PaymentStatus.SUCCESS, "system")).thenReturn(false);
         when(paymentRepository.findById(paymentId)).thenReturn(Optional.of(payment));
 
-        assertThatThrownBy(() -> paymentTxService.finalizePaymentTx(paymentId, true))
-                .isInstanceOf(BookingStatusException.class)
-                .hasMessageContaining("WAITING_PAYMENT");
+        PaymentEntity result = paymentTxService.finalizePaymentTx(paymentId, true);
+
+        assertThat(result.getStatus()).isEqualTo(PaymentStatus.FAILED);
+        verify(bookingRepository, never()).transition(any());
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    void completeCaptureTx_publishes_revenue_for_captured_and_cancels_bookings_of_declined() {
+        UUID captured = UUID.randomUUID();
+        UUID declined = UUID.randomUUID();
+        PaymentEntity declinedPayment = payment(declined, PaymentType.DEFERRED);
+        UUID declinedBookingId = declinedPayment.getBooking().getId();
+        CapturedPayment row = new CapturedPayment(captured, UUID.randomUUID(), UUID.randomUUID(),
+                OffsetDateTime.now(ZoneOffset.UTC), new BigDecimal("50.00"), "USD");
+
+        when(currentUser.currentUserEmail()).thenReturn("system");
+        when(captureRepository.markCaptured(List.of(captured), "system")).thenReturn(List.of(row));
+        when(captureRepository.markDeclined(List.of(declined), "system")).thenReturn(List.of(declinedBookingId));
+        when(bookingRepository.transition(any())).thenReturn(
+                BookingTransition.applied(view(declinedPayment, BookingStatus.CANCELED), BookingStatus.CONFIRMED));
+
+        int changed = paymentTxService.completeCaptureTx(List.of(captured), List.of(declined));
+
+        assertThat(changed).isEqualTo(2);
+        verify(events).publishEvent(new PaymentStatusChangedEvent(captured, row.bookingId(), row.resourceId(),
+                row.bookingStartTime(), row.amount(), "USD", PaymentStatus.AUTHORIZED, PaymentStatus.SUCCESS));
+        verify(bookingRepository).transition(StatusTransition
+                .of(declinedBookingId, Set.of(BookingStatus.CONFIRMED), BookingStatus.CANCELED, "system"));
+        verify(events).publishEvent(any(BookingStatusChangedEvent.class));
+        verifyNoInteractions(paymentRepository);
+    }
+
+    @Test
+    void cancelPaymentTx_queues_refund_subtracts_revenue_and_frees_slot() {
+        PaymentEntity payment = payment(UUID.randomUUID());
+        BookingView booking = view(payment, BookingStatus.CONFIRMED);
+        givenPayment(payment, PaymentStatus.SUCCESS, booking);
+        when(currentUser.currentUserId()).thenReturn(booking.userId());
+        when(currentUser.currentUserEmail()).thenReturn("u@test.com");
+        when(refundRepository.requestForPayment(payment.getId(), "u@test.com")).thenReturn(List.of(
+                new CancelingPayment(payment.getId(), booking.id(), PaymentStatus.SUCCESS, payment.getAmount(), "USD")));
+        when(bookingRepository.transition(any())).thenReturn(
+                BookingTransition.applied(view(payment, BookingStatus.CANCELED), BookingStatus.CONFIRMED));
+
+        PaymentView view = paymentTxService.cancelPaymentTx(payment.getId());
+
+        assertThat(view.status()).isEqualTo(PaymentStatus.CANCELING);
+        verify(events).publishEvent(new PaymentStatusChangedEvent(payment.getId(), booking.id(), booking.resourceId(),
+                booking.startTime(), payment.getAmount(), "USD", PaymentStatus.SUCCESS, PaymentStatus.CANCELING));
+        verify(bookingRepository).transition(StatusTransition
+                .of(booking.id(), Set.of(BookingStatus.CONFIRMED), BookingStatus.CANCELED, "u@test.com"));
+        verify(events).publishEvent(any(BookingStatusChangedEvent.class));
+    }
+
+    @Test
+    void cancelPaymentTx_returns_already_canceling_payment_as_is() {
+        PaymentEntity payment = payment(UUID.randomUUID());
+        BookingView booking = view(payment, BookingStatus.CANCELED);
+        givenPayment(payment, PaymentStatus.CANCELING, booking);
+        when(currentUser.isAdmin()).thenReturn(true);
+
+        PaymentView view = paymentTxService.cancelPaymentTx(payment.getId());
 
-        verifyNoInteractions(bookingRepository);
+        assertThat(view.status()).isEqualTo(PaymentStatus.CANCELING);
+        verifyNoInteractions(refundRepository, events);
+    }
+
+    @Test
+    void cancelPaymentTx_rejects_payment_that_was_never_paid() {
+        PaymentEntity payment = payment(UUID.randomUUID());
+        BookingView booking = view(payment, BookingStatus.CANCELED);
+        givenPayment(payment, PaymentStatus.FAILED, booking);
+        when(currentUser.isAdmin()).thenReturn(true);
+        when(currentUser.currentUserEmail()).thenReturn("admin@test.com");
+        when(refundRepository.requestForPayment(payment.getId(), "admin@test.com")).thenReturn(List.of());
+
+        assertThatThrownBy(() -> paymentTxService.cancelPaymentTx(payment.getId()))
+                .isInstanceOf(PaymentStatusException.class);
+        verify(bookingRepository, never()).transition(any());
+    }
+
+    @Test
+    void cancelPaymentTx_denies_foreign_payment() {
+        PaymentEntity payment = payment(UUID.randomUUID());
+        givenPayment(payment, PaymentStatus.SUCCESS, view(payment, BookingStatus.CONFIRMED));
+        when(currentUser.currentUserId()).thenReturn(UUID.randomUUID());
+
+        assertThatThrownBy(() -> paymentTxService.cancelPaymentTx(payment.getId()))
+                .isInstanceOf(PaymentAccessDeniedException.class);
+        verifyNoInteractions(refundRepository);
+    }
+
+    @Test
+    void onBookingStatusChanged_queues_refunds_when_confirmed_booking_is_canceled() {
+        UUID bookingId = UUID.randomUUID();
+        UUID resourceId = UUID.randomUUID();
+        OffsetDateTime start = OffsetDateTime.now(ZoneOffset.UTC).plusDays(1);
+        CancelingPayment authorized = new CancelingPayment(UUID.randomUUID(), bookingId, PaymentStatus.AUTHORIZED,
+                new BigDecimal("30.00"), "USD");
+        when(currentUser.currentUserEmail()).thenReturn("admin@test.com");
+        when(refundRepository.requestForBooking(bookingId, "admin@test.com")).thenReturn(List.of(authorized));
+
+        paymentTxService.onBookingStatusChanged(new BookingStatusChangedEvent(bookingId, resourceId, start,
+                start.plusHours(1), BookingStatus.CONFIRMED, BookingStatus.CANCELED));
+        paymentTxService.onBookingStatusChanged(new BookingStatusChangedEvent(bookingId, resourceId, start,
+                start.plusHours(1), BookingStatus.WAITING_PAYMENT, BookingStatus.CANCELED));
+
+        verify(refundRepository, times(1)).requestForBooking(any(), any());
+        verify(events).publishEvent(new PaymentStatusChangedEvent(authorized.paymentId(), bookingId, resourceId, start,
+                authorized.amount(), "USD", PaymentStatus.AUTHORIZED, PaymentStatus.CANCELING));
     }
 
     @Test
@@ -299,4 +539,63 @@ class PaymentTxServiceTest {
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessageContaining("Payment not found");
     }
+
+    private void givenPayment(PaymentEntity payment, PaymentStatus status, BookingView booking) {
+        when(paymentRepository.findViewById(payment.getId())).thenReturn(Optional.of(new PaymentView(payment.getId(),
+                booking.id(), payment.getProvider(), payment.getType(), status, payment.getAmount(), "USD")));
+        when(bookingRepository.findViewById(booking.id())).thenReturn(Optional.of(booking));
+    }
+
+    private static PaymentEntity payment(UUID paymentId) {
+        return payment(paymentId, PaymentType.INSTANT);
+    }
+
+    private static PaymentEntity payment(UUID paymentId, PaymentType type) {
+        AppUserEntity user = new AppUserEntity(UUID.randomUUID(), "u@test.com", "hash", Role.USER);
+        ResourceEntity resource = new ResourceEntity(UUID.randomUUID(), "Room 1", null, true);
+        OffsetDateTime start = OffsetDateTime.now(ZoneOffset.UTC).plusDays(1);
+        BookingEntity booking = new BookingEntity(
+                UUID.randomUUID(), user, resource, start, start.plusHours(1), BookingStatus.WAITING_PAYMENT
+        );
+        return new PaymentEntity(
+                paymentId, booking, PaymentProvider.CARD, type,
+                PaymentStatus.NEW, new BigDecimal("100.00"), "USD", null
+        );
+    }
+
+    // finalizeNew переводит платёж из NEW; findById после него видит уже новый статус
+    private void givenNewPayment(PaymentEntity payment) {
+        when(paymentRepository.findViewById(payment.getId())).thenReturn(Optional.of(view(payment)));
+        when(paymentRepository.finalizeNew(eq(payment.getId()), any(), any())).thenAnswer(inv -> {
+            payment.setStatus(inv.getArgument(1));
+            return true;
+        });
+        when(paymentRepository.findById(payment.getId())).thenReturn(Optional.of(payment));
+    }
+
+    private static PaymentView view(PaymentEntity payment) {
+        return new PaymentView(payment.getId(), payment.getBooking().getId(), payment.getProvider(),
+                payment.getType(), payment.getStatus(), payment.getAmount(), payment.getCurrency());
+    }
+
+    private static BookingView view(PaymentEntity payment, BookingStatus status) {
+        BookingEntity b = payment.getBooking();
+        return new BookingView(b.getId(), b.getUser().getId(), b.getResource().getId(),
+                b.getStartTime(), b.getEndTime(), status, null);
+    }
+
+    private static BookingEntity waitingPaymentBooking(UUID userId) {
+        AppUserEntity user = new AppUserEntity(userId, "u@test.com", "hash", Role.USER);
+        ResourceEntity resource = new ResourceEntity(UUID.randomUUID(), "Room 1", null, true);
+        OffsetDateTime start = OffsetDateTime.now(ZoneOffset.UTC).plusDays(1);
+        return new BookingEntity(UUID.randomUUID(), user, resource, start, start.plusHours(2),
+                BookingStatus.WAITING_PAYMENT);
+    }
+
+    private void givenPrice(BookingEntity booking, String amount, String currency) {
+        UUID resourceId = booking.getResource().getId();
+        when(pricingService.quoteIfPriced(resourceId, booking.getStartTime(), booking.getEndTime()))
+                .thenReturn(Optional.of(new PriceQuote(resourceId, booking.getStartTime(), booking.getEndTime(),
+                        new BigDecimal(amount), currency, false, 0)));
+    }
 }
@@ -0,0 +1,113 @@
+package com.ramil.booking.resource_booking.domain.pricing.rules;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.ramil.booking.resource_booking.domain.pricing.dto.PeakWindow;
+import com.ramil.booking.resource_booking.domain.pricing.dto.PriceQuote;
+import com.ramil.booking.resource_booking.domain.pricing.dto.RateCard;
+
+class CompiledRateCardTest {
+
+    // 2026-02-16 — понедельник
+    private static final OffsetDateTime MONDAY = OffsetDateTime.parse("2026-02-16T00:00:00Z");
+
+    private final UUID resourceId = UUID.randomUUID();
+
+    @Test
+    void base_rate_is_charged_per_second() {
+        CompiledRateCard rules = compile("10.00", "0", List.of());
+
+        assertThat(rules.quote(MONDAY.plusHours(9), MONDAY.plusHours(11)).amount()).isEqualByComparingTo("20.00");
+        // 10 минут: 1.666... -> 1.67
+        assertThat(rules.quote(MONDAY, MONDAY.plusMinutes(10)).amount()).isEqualByComparingTo("1.67");
+    }
+
+    @Test
+    void peak_window_replaces_base_rate_only_inside_window() {
+        CompiledRateCard rules = compile("10.00", "0",
+                List.of(new PeakWindow(DayOfWeek.MONDAY, 18 * 60, 22 * 60, new BigDecimal("15.00"))));
+
+        // 17:00-18:00 по базовой, 18:00-19:00 по пиковой
+        assertThat(rules.quote(MONDAY.plusHours(17), MONDAY.plusHours(19)).amount()).isEqualByComparingTo("25.00");
+        // во вторник окно не действует
+        assertThat(rules.quote(MONDAY.plusDays(1).plusHours(17), MONDAY.plusDays(1).plusHours(19)).amount())
+                .isEqualByComparingTo("20.00");
+    }
+
+    @Test
+    void overlapping_windows_take_higher_rate() {
+        CompiledRateCard rules = compile("10.00", "0", List.of(
+                new PeakWindow(null, 9 * 60, 12 * 60, new BigDecimal("12.00")),
+                new PeakWindow(DayOfWeek.MONDAY, 10 * 60, 11 * 60, new BigDecimal("30.00"))));
+
+        assertThat(rules.quote(MONDAY.plusHours(9), MONDAY.plusHours(12)).amount()).isEqualByComparingTo("54.00");
+    }
+
+    @Test
+    void interval_crossing_end_of_week_wraps_to_monday() {
+        CompiledRateCard rules = compile("10.00", "0",
+                List.of(new PeakWindow(null, 0, 60, new BigDecimal("20.00"))));
+
+        // воскресенье 23:00 — понедельник 01:00
+        assertThat(rules.quote(MONDAY.minusHours(1), MONDAY.plusHours(1)).amount()).isEqualByComparingTo("30.00");
+    }
+
+    @Test
+    void long_interval_equals_sum_of_its_days() {
+        CompiledRateCard rules = compile("7.35", "0", List.of(
+                new PeakWindow(null, 8 * 60, 20 * 60, new BigDecimal("11.10")),
+                new PeakWindow(DayOfWeek.SATURDAY, 0, 1440, new BigDecimal("4.05"))));
+        OffsetDateTime start = MONDAY.plusHours(13).plusMinutes(7);
+
+        BigDecimal sum = BigDecimal.ZERO;
+        for (int day = 0; day < 17; day++) {
+            sum = sum.add(rules.quote(start.plusDays(day), start.plusDays(day + 1)).amount());
+        }
+
+        assertThat(rules.quote(start, start.plusDays(17)).amount()).isEqualByComparingTo(sum);
+    }
+
+    @Test
+    void offset_of_arguments_does_not_change_price() {
+        CompiledRateCard rules = compile("10.00", "0",
+                List.of(new PeakWindow(DayOfWeek.MONDAY, 18 * 60, 22 * 60, new BigDecimal("15.00"))));
+        OffsetDateTime start = MONDAY.plusHours(18).withOffsetSameInstant(ZoneOffset.ofHours(3));
+
+        assertThat(rules.quote(start, start.plusHours(1)).amount()).isEqualByComparingTo("15.00");
+    }
+
+    @Test
+    void minimum_amount_is_applied_to_short_intervals() {
+        CompiledRateCard rules = compile("10.00", "25.00", List.of());
+
+        PriceQuote quote = rules.quote(MONDAY, MONDAY.plusHours(1));
+
+        assertThat(quote.amount()).isEqualByComparingTo("25.00");
+        assertThat(quote.minimumApplied()).isTrue();
+        assertThat(quote.currency()).isEqualTo("USD");
+        assertThat(quote.rateCardVersion()).isEqualTo(3);
+    }
+
+    @Test
+    void adjacent_segments_with_same_rate_are_merged() {
+        CompiledRateCard rules = compile("10.00", "0", List.of(
+                new PeakWindow(null, 60, 120, new BigDecimal("10.00")),
+                new PeakWindow(DayOfWeek.FRIDAY, 600, 660, new BigDecimal("20.00"))));
+
+        assertThat(rules.segments()).isEqualTo(3);
+    }
+
+    private CompiledRateCard compile(String hourlyRate, String minimum, List<PeakWindow> peaks) {
+        return CompiledRateCard.compile(new RateCard(resourceId, "USD", new BigDecimal(hourlyRate),
+                new BigDecimal(minimum), peaks, 3));
+    }
+}
@@ -0,0 +1,80 @@
+package com.ramil.booking.resource_booking.domain.pricing.rules;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.ramil.booking.resource_booking.domain.pricing.dto.PeakWindow;
+import com.ramil.booking.resource_booking.domain.pricing.dto.RateCard;
+
+// Расчёт цены недели для 1 000 ресурсов по PricingRuleCache (без БД)
+// У каждого ресурса будничный вечерний пик, утренний пик каждый день и выходной тариф;
+// интервал начинается не с начала суток, чтобы попадать в середину отрезков
+// Запуск: ./mvnw test -Pbenchmark -Dtest=PricingBenchmarkTest
+@Tag("benchmark")
+class PricingBenchmarkTest {
+
+    private static final int RESOURCES = 1_000;
+    private static final int RUNS = 200;
+
+    @Test
+    void week_quote_for_thousand_resources() {
+        PricingRuleCache cache = new PricingRuleCache();
+        List<UUID> ids = new ArrayList<>(RESOURCES);
+        List<RateCard> cards = new ArrayList<>(RESOURCES);
+        for (int i = 0; i < RESOURCES; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            cards.add(new RateCard(id, "USD", new BigDecimal("10.00").add(BigDecimal.valueOf(i, 2)),
+                    new BigDecimal("5.00"), peaks(i), 0));
+        }
+
+        long started = System.nanoTime();
+        cache.replaceAll(cards);
+        double compileMs = (System.nanoTime() - started) / 1e6;
+
+        OffsetDateTime start = OffsetDateTime.parse("2026-02-16T07:13:00Z");
+        OffsetDateTime end = start.plusWeeks(1).minusMinutes(29);
+
+        BigDecimal total = BigDecimal.ZERO;
+        // прогрев JIT
+        for (int run = 0; run < RUNS; run++) {
+            total = total.add(quoteAll(cache, ids, start, end));
+        }
+        started = System.nanoTime();
+        for (int run = 0; run < RUNS; run++) {
+            total = total.add(quoteAll(cache, ids, start, end));
+        }
+        double perRunMs = (System.nanoTime() - started) / 1e6 / RUNS;
+
+        System.out.printf("pricing compile %d rate cards: %8.2f ms%n", RESOURCES, compileMs);
+        System.out.printf("pricing week quote x %d:        %8.3f ms (checksum %s)%n", RESOURCES, perRunMs, total);
+    }
+
+    private static BigDecimal quoteAll(PricingRuleCache cache, List<UUID> ids, OffsetDateTime start,
+                                       OffsetDateTime end) {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (UUID id : ids) {
+            sum = sum.add(cache.find(id).orElseThrow().quote(start, end).amount());
+        }
+        return sum;
+    }
+
+    private static List<PeakWindow> peaks(int i) {
+        List<PeakWindow> peaks = new ArrayList<>();
+        for (DayOfWeek day : List.of(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY,
+                DayOfWeek.THURSDAY, DayOfWeek.FRIDAY)) {
+            peaks.add(new PeakWindow(day, 17 * 60, 21 * 60 + i % 60, new BigDecimal("18.50")));
+        }
+        peaks.add(new PeakWindow(null, 7 * 60, 9 * 60, new BigDecimal("14.00")));
+        peaks.add(new PeakWindow(DayOfWeek.SATURDAY, 0, 1440, new BigDecimal("8.00")));
+        peaks.add(new PeakWindow(DayOfWeek.SUNDAY, 0, 1440, new BigDecimal("8.00")));
+        return peaks;
+    }
+}
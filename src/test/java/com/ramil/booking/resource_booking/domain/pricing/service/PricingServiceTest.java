@@ -0,0 +1,137 @@
+package com.ramil.booking.resource_booking.domain.pricing.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ramil.booking.resource_booking.domain.booking.exception.BookingTimeRangeException;
+import com.ramil.booking.resource_booking.domain.pricing.dto.PeakWindow;
+import com.ramil.booking.resource_booking.domain.pricing.dto.RateCard;
+import com.ramil.booking.resource_booking.domain.pricing.dto.SetRateCardCommand;
+import com.ramil.booking.resource_booking.domain.pricing.event.RateCardChangedEvent;
+import com.ramil.booking.resource_booking.domain.pricing.exception.InvalidRateCardException;
+import com.ramil.booking.resource_booking.domain.pricing.exception.RateCardNotFoundException;
+import com.ramil.booking.resource_booking.domain.pricing.repository.RateCardRepository;
+import com.ramil.booking.resource_booking.domain.pricing.rules.PricingRuleCache;
+import com.ramil.booking.resource_booking.domain.resource.exception.ResourceNotFoundException;
+import com.ramil.booking.resource_booking.domain.resource.repository.ResourceRepository;
+import com.ramil.booking.resource_booking.domain.user.security.CurrentUserProvider;
+
+class PricingServiceTest {
+
+    private static final OffsetDateTime START = OffsetDateTime.parse("2026-02-16T10:00:00Z");
+
+    private final RateCardRepository rateCardRepository = mock(RateCardRepository.class);
+    private final ResourceRepository resourceRepository = mock(ResourceRepository.class);
+    private final CurrentUserProvider currentUser = mock(CurrentUserProvider.class);
+    private final ApplicationEventPublisher events = mock(ApplicationEventPublisher.class);
+    private final PricingRuleCache cache = new PricingRuleCache();
+    private final UUID resourceId = UUID.randomUUID();
+
+    private PricingService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new PricingService(rateCardRepository, resourceRepository, cache, currentUser, events,
+                mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void quote_uses_cached_rules_without_database() {
+        cache.replaceAll(List.of(card(1)));
+
+        assertThat(service.quote(resourceId, START, START.plusHours(2)).amount()).isEqualByComparingTo("20.00");
+        verifyNoInteractions(rateCardRepository);
+    }
+
+    @Test
+    void quote_reads_rate_card_until_cache_is_loaded() {
+        when(rateCardRepository.findByResourceId(resourceId)).thenReturn(Optional.of(card(1)));
+
+        assertThat(service.quote(resourceId, START, START.plusHours(1)).amount()).isEqualByComparingTo("10.00");
+    }
+
+    @Test
+    void quote_without_rate_card_throws() {
+        cache.replaceAll(List.of());
+
+        assertThatThrownBy(() -> service.quote(resourceId, START, START.plusHours(1)))
+                .isInstanceOf(RateCardNotFoundException.class);
+        assertThat(service.quoteIfPriced(resourceId, START, START.plusHours(1))).isEmpty();
+    }
+
+    @Test
+    void quote_rejects_empty_and_too_long_intervals() {
+        cache.replaceAll(List.of(card(1)));
+
+        assertThatThrownBy(() -> service.quote(resourceId, START, START))
+                .isInstanceOf(BookingTimeRangeException.class);
+        assertThatThrownBy(() -> service.quote(resourceId, START, START.plusDays(32)))
+                .isInstanceOf(BookingTimeRangeException.class);
+    }
+
+    @Test
+    void older_full_reload_does_not_overwrite_newer_rate_card() {
+        cache.put(card(2));
+        cache.replaceAll(List.of(card(1)));
+
+        assertThat(cache.find(resourceId).orElseThrow().version()).isEqualTo(2);
+    }
+
+    @Test
+    void setRateCard_normalizes_saves_and_publishes_change() {
+        when(resourceRepository.existsById(resourceId)).thenReturn(true);
+        when(currentUser.currentUserEmail()).thenReturn("admin@test.com");
+        when(rateCardRepository.save(any(), eq("admin@test.com"))).thenReturn(4L);
+
+        RateCard saved = service.setRateCard(new SetRateCardCommand(resourceId, " usd ", new BigDecimal("10"), null,
+                List.of(new PeakWindow(null, 0, 1440, new BigDecimal("12.5")))));
+
+        assertThat(saved.currency()).isEqualTo("USD");
+        assertThat(saved.hourlyRate()).isEqualTo(new BigDecimal("10.00"));
+        assertThat(saved.minimumAmount()).isEqualTo(new BigDecimal("0.00"));
+        assertThat(saved.version()).isEqualTo(4);
+        verify(events).publishEvent(new RateCardChangedEvent(resourceId));
+    }
+
+    @Test
+    void setRateCard_rejects_invalid_peak_window() {
+        SetRateCardCommand cmd = new SetRateCardCommand(resourceId, "USD", new BigDecimal("10.00"), null,
+                List.of(new PeakWindow(null, 600, 600, new BigDecimal("12.00"))));
+
+        assertThatThrownBy(() -> service.setRateCard(cmd)).isInstanceOf(InvalidRateCardException.class);
+        verifyNoInteractions(rateCardRepository, events);
+    }
+
+    @Test
+    void setRateCard_rejects_fractional_cents() {
+        SetRateCardCommand cmd = new SetRateCardCommand(resourceId, "USD", new BigDecimal("10.005"), null, null);
+
+        assertThatThrownBy(() -> service.setRateCard(cmd)).isInstanceOf(InvalidRateCardException.class);
+    }
+
+    @Test
+    void setRateCard_for_unknown_resource_throws() {
+        when(resourceRepository.existsById(resourceId)).thenReturn(false);
+
+        assertThatThrownBy(() -> service.setRateCard(new SetRateCardCommand(resourceId, "USD",
+                new BigDecimal("10.00"), null, null))).isInstanceOf(ResourceNotFoundException.class);
+        verifyNoInteractions(rateCardRepository, events);
+    }
+
+    private RateCard card(long version) {
+        return new RateCard(resourceId, "USD", new BigDecimal("10.00"), BigDecimal.ZERO, List.of(), version);
+    }
+}
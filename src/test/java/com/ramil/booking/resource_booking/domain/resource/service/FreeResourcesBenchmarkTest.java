@@ -0,0 +1,121 @@
+package com.ramil.booking.resource_booking.domain.resource.service;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.ramil.booking.resource_booking.domain.booking.model.BookingStatus;
+import com.ramil.booking.resource_booking.domain.booking.repository.BookingRepository;
+import com.ramil.booking.resource_booking.domain.resource.dto.ResourcePage;
+import com.ramil.booking.resource_booking.domain.resource.entity.ResourceEntity;
+import com.ramil.booking.resource_booking.domain.resource.repository.ResourceRepository;
+
+// freeResources (один anti-join) против перебора resources(active:true) + проверка конфликтов по каждому ресурсу
+// Данные: 10 000 ресурсов "bench-*" и по 1 000 часовых бронирований на каждый (10 млн строк)
+// Генерируются один раз через generate_series и остаются в БД для повторных запусков (несколько минут)
+// Запуск: docker-compose up -d && ./mvnw test -Pbenchmark -Dtest=FreeResourcesBenchmarkTest
+@Tag("benchmark")
+@SpringBootTest
+class FreeResourcesBenchmarkTest {
+
+    private static final int RESOURCES = 10_000;
+    private static final int BOOKINGS_PER_RESOURCE = 1_000;
+    private static final OffsetDateTime BASE = OffsetDateTime.of(2030, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private static final List<BookingStatus> ACTIVE = List.of(BookingStatus.WAITING_PAYMENT, BookingStatus.CONFIRMED);
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private ResourceService resourceService;
+
+    @Autowired
+    private ResourceRepository resourceRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @BeforeEach
+    void seed() {
+        Integer existing = jdbc.queryForObject("select count(*) from resource where name like 'bench-%'", Integer.class);
+        if (existing != null && existing >= RESOURCES) {
+            return;
+        }
+
+        UUID userId = jdbc.queryForObject("select id from app_user order by email limit 1", UUID.class);
+
+        jdbc.update("""
+                insert into resource(id, name, description, active, created_at, created_by, updated_at, updated_by)
+                select gen_random_uuid(), 'bench-' || lpad(g::text, 5, '0'), null, true,
+                       now(), 'benchmark', now(), 'benchmark'
+                from generate_series(1, ?) g
+                """, RESOURCES);
+
+        // бронирования каждые 2 часа по часу; статус зависит от ресурса, поэтому в любом окне
+        // часть ресурсов занята, а часть свободна (CANCELED / DRAFT)
+        jdbc.update("""
+                insert into booking(id, user_id, resource_id, start_time, end_time, status,
+                                    created_at, created_by, updated_at, updated_by)
+                select gen_random_uuid(), ?, r.id,
+                       ? + g * interval '2 hours',
+                       ? + g * interval '2 hours' + interval '1 hour',
+                       (array['CONFIRMED', 'WAITING_PAYMENT', 'CANCELED', 'DRAFT'])[1 + (g + abs(hashtext(r.name))) % 4],
+                       now(), 'benchmark', now(), 'benchmark'
+                from resource r
+                cross join generate_series(0, ? - 1) g
+                where r.name like 'bench-%'
+                """, userId, BASE, BASE, BOOKINGS_PER_RESOURCE);
+
+        jdbc.execute("analyze resource");
+        jdbc.execute("analyze booking");
+    }
+
+    @Test
+    void anti_join_vs_probing_each_resource() {
+        OffsetDateTime from = BASE.plusHours(2L * BOOKINGS_PER_RESOURCE / 2).plusMinutes(30);
+        OffsetDateTime to = from.plusHours(1);
+
+        jdbc.queryForList("""
+                explain (analyze, buffers)
+                select r.id from resource r
+                where r.active = true
+                  and not exists (
+                      select 1 from booking b
+                      where b.resource_id = r.id
+                        and b.status in ('WAITING_PAYMENT', 'CONFIRMED')
+                        and tstzrange(b.start_time, b.end_time, '[)') && tstzrange(?, ?, '[)'))
+                order by r.name, r.id
+                limit 21
+                """, String.class, from, to).forEach(System.out::println);
+
+        long started = System.nanoTime();
+        int runs = 50;
+        ResourcePage page = null;
+        for (int i = 0; i < runs; i++) {
+            page = resourceService.findFree(from, to, null, i % 10, 20);
+        }
+        double antiJoinMs = (System.nanoTime() - started) / 1e6 / runs;
+
+        started = System.nanoTime();
+        List<ResourceEntity> active = resourceRepository.findByActive(true);
+        int free = 0;
+        for (ResourceEntity r : active) {
+            if (bookingRepository.findConflicts(r.getId(), from, to, ACTIVE).isEmpty()) {
+                free++;
+            }
+        }
+        double probingMs = (System.nanoTime() - started) / 1e6;
+
+        System.out.printf("freeResources (page of 20): %8.2f ms, hasNext=%s%n", antiJoinMs, page.hasNext());
+        System.out.printf("probing %d resources:    %8.2f ms, free=%d%n", active.size(), probingMs, free);
+    }
+}
@@ -4,13 +4,17 @@ import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import org.junit.jupiter.api.Test;
 
+import com.ramil.booking.resource_booking.domain.booking.exception.BookingTimeRangeException;
+import com.ramil.booking.resource_booking.domain.booking.model.BookingPartitioning;
 import com.ramil.booking.resource_booking.domain.resource.dto.CreateResourceCommand;
+import com.ramil.booking.resource_booking.domain.resource.dto.ResourcePage;
 import com.ramil.booking.resource_booking.domain.resource.dto.ResourceView;
 import com.ramil.booking.resource_booking.domain.resource.dto.UpdateResourceCommand;
 import com.ramil.booking.resource_booking.domain.resource.entity.ResourceEntity;
@@ -169,22 +173,21 @@ class ResourceServiceTest {
     @Test
     void getById_returns_resource() {
         UUID id = UUID.randomUUID();
-        ResourceEntity entity = new ResourceEntity(id, "Room", "desc", true);
         ResourceView expectedView = new ResourceView(id, "Room", "desc", true);
 
-        when(resourceRepository.findById(id)).thenReturn(Optional.of(entity));
-        when(resourceMapper.toView(entity)).thenReturn(expectedView);
+        when(resourceRepository.findViewById(id)).thenReturn(Optional.of(expectedView));
 
         ResourceView result = resourceService.getById(id);
 
-        assertThat(result.id()).isEqualTo(id);
-        verify(resourceRepository).findById(id);
+        assertThat(result).isEqualTo(expectedView);
+        verify(resourceRepository, never()).findById(any());
+        verifyNoInteractions(resourceMapper);
     }
 
     @Test
     void getById_throws_if_not_found() {
         UUID id = UUID.randomUUID();
-        when(resourceRepository.findById(id)).thenReturn(Optional.empty());
+        when(resourceRepository.findViewById(id)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> resourceService.getById(id))
                 .isInstanceOf(ResourceNotFoundException.class);
@@ -193,31 +196,28 @@ class ResourceServiceTest {
     @Test
     void list_returns_all_when_active_null() {
         UUID id = UUID.randomUUID();
-        ResourceEntity entity = new ResourceEntity(id, "Room", null, true);
         ResourceView view = new ResourceView(id, "Room", null, true);
 
-        when(resourceRepository.findAll()).thenReturn(List.of(entity));
-        when(resourceMapper.toView(entity)).thenReturn(view);
+        when(resourceRepository.findAllViews()).thenReturn(List.of(view));
 
         List<ResourceView> result = resourceService.list(null);
 
-        assertThat(result).hasSize(1);
-        verify(resourceRepository).findAll();
+        assertThat(result).containsExactly(view);
+        verify(resourceRepository).findAllViews();
+        verify(resourceRepository, never()).findAll();
     }
 
     @Test
     void list_returns_filtered_when_active_specified() {
         UUID id = UUID.randomUUID();
-        ResourceEntity entity = new ResourceEntity(id, "Room", null, true);
         ResourceView view = new ResourceView(id, "Room", null, true);
 
-        when(resourceRepository.findByActive(true)).thenReturn(List.of(entity));
-        when(resourceMapper.toView(entity)).thenReturn(view);
+        when(resourceRepository.findViewsByActive(true)).thenReturn(List.of(view));
 
         List<ResourceView> result = resourceService.list(true);
 
-        assertThat(result).hasSize(1);
-        verify(resourceRepository).findByActive(true);
+        assertThat(result).containsExactly(view);
+        verify(resourceRepository).findViewsByActive(true);
     }
 
     @Test
@@ -232,4 +232,42 @@ class ResourceServiceTest {
         assertThatThrownBy(() -> resourceService.update(cmd))
                 .isInstanceOf(InvalidResourceDescriptionException.class);
     }
+
+    @Test
+    void findFree_fetches_one_extra_row_to_detect_next_page() {
+        OffsetDateTime from = OffsetDateTime.parse("2026-02-15T10:00:00Z");
+        OffsetDateTime to = from.plusHours(1);
+        ResourceEntity a = new ResourceEntity(UUID.randomUUID(), "Room A", null, true);
+        ResourceEntity b = new ResourceEntity(UUID.randomUUID(), "Room B", null, true);
+        ResourceEntity c = new ResourceEntity(UUID.randomUUID(), "Room C", null, true);
+
+        when(resourceRepository.findFree(from, to, BookingPartitioning.minStart(from), "%50\\%\\_room%", 3, 2L))
+                .thenReturn(List.of(a, b, c));
+        when(resourceMapper.toView(any(ResourceEntity.class)))
+                .thenAnswer(inv -> {
+                    ResourceEntity e = inv.getArgument(0);
+                    return new ResourceView(e.getId(), e.getName(), null, true);
+                });
+
+        ResourcePage page = resourceService.findFree(from, to, " 50%_Room ", 1, 2);
+
+        assertThat(page.items()).extracting(ResourceView::name).containsExactly("Room A", "Room B");
+        assertThat(page.hasNext()).isTrue();
+        assertThat(page.page()).isEqualTo(1);
+        assertThat(page.size()).isEqualTo(2);
+    }
+
+    @Test
+    void findFree_validates_range_and_paging() {
+        OffsetDateTime from = OffsetDateTime.parse("2026-02-15T10:00:00Z");
+
+        assertThatThrownBy(() -> resourceService.findFree(from, from, null, 0, 20))
+                .isInstanceOf(BookingTimeRangeException.class);
+        assertThatThrownBy(() -> resourceService.findFree(from, from.plusHours(1), null, -1, 20))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> resourceService.findFree(from, from.plusHours(1), null, 0, 101))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        verifyNoInteractions(resourceRepository);
+    }
 }
@@ -0,0 +1,62 @@
+package com.ramil.booking.resource_booking.domain.stats.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ramil.booking.resource_booking.domain.stats.repository.ResourceStatsRepository;
+
+class ResourceStatsRepairServiceTest {
+
+    private final ResourceStatsRepository statsRepository = mock(ResourceStatsRepository.class);
+
+    private final Clock clock = Clock.fixed(Instant.parse("2026-03-10T03:30:00Z"), ZoneOffset.UTC);
+
+    @Test
+    void rebuilds_each_month_of_the_window() {
+        when(statsRepository.rebuildUtilization(any(), any())).thenReturn(10);
+        when(statsRepository.rebuildRevenue(any(), any())).thenReturn(1);
+
+        service(true, 1, 1).repair();
+
+        verify(statsRepository).rebuildUtilization(LocalDate.parse("2026-02-01"), LocalDate.parse("2026-03-01"));
+        verify(statsRepository).rebuildUtilization(LocalDate.parse("2026-03-01"), LocalDate.parse("2026-04-01"));
+        verify(statsRepository).rebuildUtilization(LocalDate.parse("2026-04-01"), LocalDate.parse("2026-05-01"));
+        verify(statsRepository).rebuildRevenue(YearMonth.of(2026, 2), YearMonth.of(2026, 3));
+        verify(statsRepository, times(3)).rebuildRevenue(any(), any());
+    }
+
+    @Test
+    void repair_returns_rewritten_rows() {
+        when(statsRepository.rebuildUtilization(any(), any())).thenReturn(10);
+        when(statsRepository.rebuildRevenue(any(), any())).thenReturn(1);
+
+        assertThat(service(true, 0, 0).repair(YearMonth.of(2026, 1), YearMonth.of(2026, 2))).isEqualTo(22);
+    }
+
+    @Test
+    void disabled_job_does_nothing() {
+        service(false, 2, 12).repair();
+
+        verifyNoInteractions(statsRepository);
+    }
+
+    @Test
+    void rejects_negative_window() {
+        assertThatThrownBy(() -> service(true, -1, 12)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private ResourceStatsRepairService service(boolean enabled, int lookbackMonths, int aheadMonths) {
+        return new ResourceStatsRepairService(statsRepository, mock(PlatformTransactionManager.class), clock,
+                enabled, lookbackMonths, aheadMonths);
+    }
+}
@@ -0,0 +1,107 @@
+package com.ramil.booking.resource_booking.domain.stats.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.ramil.booking.resource_booking.domain.booking.event.BookingStatusChangedEvent;
+import com.ramil.booking.resource_booking.domain.booking.model.BookingStatus;
+import com.ramil.booking.resource_booking.domain.payment.event.PaymentStatusChangedEvent;
+import com.ramil.booking.resource_booking.domain.payment.model.PaymentStatus;
+import com.ramil.booking.resource_booking.domain.stats.repository.ResourceStatsRepository;
+
+class ResourceStatsServiceTest {
+
+    private final ResourceStatsRepository statsRepository = mock(ResourceStatsRepository.class);
+    private final ResourceStatsService service = new ResourceStatsService(statsRepository, 2, 31, 12);
+
+    private final UUID resourceId = UUID.randomUUID();
+    private final OffsetDateTime t0 = OffsetDateTime.parse("2026-02-15T10:00:00Z");
+
+    @Test
+    void confirmation_adds_booked_time_of_the_day() {
+        service.onBookingStatusChanged(booking(BookingStatus.WAITING_PAYMENT, BookingStatus.CONFIRMED,
+                t0, t0.plusMinutes(90)));
+
+        verify(statsRepository).addUtilization(resourceId, LocalDate.parse("2026-02-15"), 5400, 1);
+        verifyNoMoreInteractions(statsRepository);
+    }
+
+    @Test
+    void booking_across_midnight_is_split_by_utc_days() {
+        // 23:00+03:00 = 20:00 UTC, до 02:00 UTC следующих суток
+        OffsetDateTime start = OffsetDateTime.parse("2026-02-15T23:00:00+03:00");
+
+        service.onBookingStatusChanged(booking(BookingStatus.WAITING_PAYMENT, BookingStatus.CONFIRMED,
+                start, start.plusHours(6)));
+
+        verify(statsRepository).addUtilization(resourceId, LocalDate.parse("2026-02-15"), 4 * 3600, 1);
+        verify(statsRepository).addUtilization(resourceId, LocalDate.parse("2026-02-16"), 2 * 3600, 1);
+    }
+
+    @Test
+    void cancel_of_confirmed_booking_subtracts_and_other_transitions_are_ignored() {
+        service.onBookingStatusChanged(booking(BookingStatus.CONFIRMED, BookingStatus.CANCELED, t0, t0.plusHours(1)));
+        verify(statsRepository).addUtilization(resourceId, LocalDate.parse("2026-02-15"), -3600, -1);
+
+        service.onBookingStatusChanged(booking(BookingStatus.DRAFT, BookingStatus.WAITING_PAYMENT, t0, t0.plusHours(1)));
+        service.onBookingStatusChanged(booking(BookingStatus.WAITING_PAYMENT, BookingStatus.CANCELED, t0, t0.plusHours(1)));
+        verifyNoMoreInteractions(statsRepository);
+    }
+
+    @Test
+    void successful_payment_adds_revenue_to_month_of_booking_start() {
+        service.onPaymentStatusChanged(payment(PaymentStatus.NEW, PaymentStatus.SUCCESS,
+                OffsetDateTime.parse("2026-03-01T01:00:00+03:00")));
+
+        verify(statsRepository).addRevenue(resourceId, YearMonth.of(2026, 2), "USD", new BigDecimal("100.00"), 1);
+
+        service.onPaymentStatusChanged(payment(PaymentStatus.NEW, PaymentStatus.FAILED, t0));
+        verifyNoMoreInteractions(statsRepository);
+    }
+
+    @Test
+    void reads_deduplicated_resources_and_validates_range() {
+        when(statsRepository.findUtilization(any(), any(), any())).thenReturn(List.of());
+        LocalDate day = LocalDate.parse("2026-02-01");
+
+        service.utilization(List.of(resourceId, resourceId), day, day.plusDays(30));
+        verify(statsRepository).findUtilization(Set.of(resourceId), day, day.plusDays(30));
+
+        assertThatThrownBy(() -> service.utilization(List.of(resourceId), day, day.plusDays(31)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.utilization(List.of(resourceId), day, day.minusDays(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.revenue(List.of(resourceId), YearMonth.of(2026, 1), YearMonth.of(2027, 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.revenue(List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID()),
+                YearMonth.of(2026, 1), YearMonth.of(2026, 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(service.revenue(List.of(), YearMonth.of(2026, 1), YearMonth.of(2026, 1))).isEmpty();
+        verify(statsRepository, never()).findRevenue(any(), any(), any());
+        verify(statsRepository, never()).addUtilization(any(), any(), anyLong(), anyInt());
+    }
+
+    private BookingStatusChangedEvent booking(BookingStatus from, BookingStatus to,
+                                              OffsetDateTime start, OffsetDateTime end) {
+        return new BookingStatusChangedEvent(UUID.randomUUID(), resourceId, start, end, from, to);
+    }
+
+    private PaymentStatusChangedEvent payment(PaymentStatus from, PaymentStatus to, OffsetDateTime bookingStart) {
+        return new PaymentStatusChangedEvent(UUID.randomUUID(), UUID.randomUUID(), resourceId, bookingStart,
+                new BigDecimal("100.00"), "USD", from, to);
+    }
+}